@@ -0,0 +1,40 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
+import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+
+/**
+ * A stacked spawner in a {@link FakeWorld} that doesn't need the plugin to be running.
+ * Built with the converter constructor so nothing is registered or displayed, with a spawner tile that only holds
+ * the spawner's properties.
+ */
+public class BenchmarkSpawner extends StackedSpawner {
+
+    private final StackedSpawnerTile spawnerTile;
+
+    public BenchmarkSpawner(FakeWorld world, int x, int y, int z, int size, EntityType entityType, int spawnRange) {
+        super(size, new Location(world.getWorld(), x, y, z));
+
+        SpawnerType spawnerType = SpawnerType.of(entityType);
+        this.spawnerTile = Stubs.create(StackedSpawnerTile.class, (method, args) -> switch (method.getName()) {
+            case "getSpawnerType" -> spawnerType;
+            case "getSpawnedType" -> entityType;
+            case "getSpawnRange" -> spawnRange;
+            case "getSpawnCount" -> 4;
+            case "getMaxNearbyEntities" -> 6;
+            case "getRequiredPlayerRange" -> 16;
+            case "getMinSpawnDelay" -> 200;
+            case "getMaxSpawnDelay" -> 800;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+    @Override
+    public StackedSpawnerTile getSpawnerTile() {
+        return this.spawnerTile;
+    }
+
+}
@@ -0,0 +1,225 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.nms.NMSHandler;
+import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures filling and saving a COLUMNAR stack, after checking that the column store gives back exactly what the NBT
+ * storage would.
+ * <p>
+ * The NBT storage keeps a queue of compounds and rebuilds each entry by merging it onto the base, so the check keeps
+ * the same queue next to the column store. Entries are compared after adding, popping, adding again once rows have been
+ * popped, and after decoding the serialized data the way the NBT storage reads it. The trial fails if anything
+ * differs. The column store runs on {@link MapColumnarStorage} since the NMS tag classes need a server.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnarStorageBenchmark {
+
+    private static final List<String> NAMES = List.of("Bob", "Steve", "Alex", "Notch");
+
+    @Param({"100", "10000"})
+    private int entries;
+
+    private List<Map<String, Object>> entityData;
+    private MapColumnarStorage storage;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        this.entityData = new ArrayList<>(this.entries + 1);
+        for (int i = 0; i <= this.entries; i++)
+            this.entityData.add(createEntityData(random, i, this.entries));
+
+        verifyRoundTrip(this.entityData);
+        this.storage = this.fill();
+    }
+
+    @Benchmark
+    public MapColumnarStorage fill() {
+        MapColumnarStorage storage = new MapColumnarStorage(this.entityData.get(0));
+        for (int i = 1; i < this.entityData.size(); i++)
+            storage.add(this.entityData.get(i));
+        return storage;
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return this.storage.serialize(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Runs the entity data through the column store and a queue of compounds like the NBT storage keeps
+     *
+     * @param entityData The data of the base entity followed by the data of each entry
+     * @throws IOException if the serialized data could not be read
+     * @throws IllegalStateException if the column store gave back anything other than the NBT storage would
+     */
+    private static void verifyRoundTrip(List<Map<String, Object>> entityData) throws IOException {
+        Map<String, Object> base = entityData.get(0);
+        MapColumnarStorage storage = new MapColumnarStorage(base);
+        Deque<Map<String, Object>> expected = new ArrayDeque<>();
+        int half = entityData.size() / 2;
+        for (int i = 1; i < half; i++) {
+            storage.add(entityData.get(i));
+            expected.add(rebuild(base, entityData.get(i)));
+        }
+
+        // Popping moves the head, the next adds then have to shift the rows back to the start
+        for (int i = 0; i < half / 3; i++)
+            check("pop " + i, expected.remove(), storage.pop());
+
+        for (int i = half; i < entityData.size(); i++) {
+            storage.add(entityData.get(i));
+            expected.add(rebuild(base, entityData.get(i)));
+        }
+
+        check("getAll", new ArrayList<>(expected), storage.getAll());
+
+        // Decoded the same way the NBT storage reads its data, a base followed by the entries merged onto it
+        byte[] serialized = storage.serialize(Integer.MAX_VALUE);
+        try (DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            Map<String, Object> serializedBase = MapColumnarStorage.readSerializedCompound(dataInput);
+            int length = StackedEntityDataIO.readVarInt(dataInput);
+            if (length != expected.size())
+                throw new IllegalStateException("Serialized " + length + " entries instead of " + expected.size());
+
+            for (Map<String, Object> expectedEntry : expected) {
+                Map<String, Object> merged = MapColumnarStorage.copy(serializedBase);
+                MapColumnarStorage.mergeCompounds(merged, MapColumnarStorage.readSerializedCompound(dataInput));
+                if (!normalize(merged).equals(expectedEntry))
+                    throw new IllegalStateException("Serialized entry differs, expected " + expectedEntry + " but got " + normalize(merged));
+            }
+        }
+
+        check("deserialize", new ArrayList<>(expected), new MapColumnarStorage(serialized).getAll());
+
+        List<EntityDataEntry> popped = storage.pop(Integer.MAX_VALUE);
+        check("pop all", new ArrayList<>(expected), popped);
+        if (!storage.isEmpty())
+            throw new IllegalStateException("Storage still has " + storage.size() + " entries after popping everything");
+    }
+
+    private static void check(String step, Map<String, Object> expected, EntityDataEntry actual) {
+        Map<String, Object> actualData = normalize(((MapColumnarStorage.Entry) actual).compound());
+        if (!expected.equals(actualData))
+            throw new IllegalStateException("Entry differs after " + step + ", expected " + expected + " but got " + actualData);
+    }
+
+    private static void check(String step, List<Map<String, Object>> expected, List<EntityDataEntry> actual) {
+        if (expected.size() != actual.size())
+            throw new IllegalStateException("Got " + actual.size() + " entries after " + step + " instead of " + expected.size());
+        for (int i = 0; i < expected.size(); i++)
+            check(step, expected.get(i), actual.get(i));
+    }
+
+    /**
+     * Gets the entry the NBT storage gives back for some entity data, the data merged onto the base
+     */
+    private static Map<String, Object> rebuild(Map<String, Object> base, Map<String, Object> entityData) {
+        Map<String, Object> merged = MapColumnarStorage.copy(base);
+        MapColumnarStorage.mergeCompounds(merged, entityData);
+        return normalize(merged);
+    }
+
+    /**
+     * Drops everything the storages don't keep or regenerate randomly: the removable keys, the stacked entity data of
+     * the plugin, attribute UUIDs, the random spawn bonus modifier and empty modifier lists
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> normalize(Map<String, Object> entityData) {
+        Map<String, Object> normalized = MapColumnarStorage.copy(entityData);
+        NMSHandler.REMOVABLE_NBT_KEYS.forEach(normalized::remove);
+        if (normalized.get("BukkitValues") instanceof Map<?, ?> bukkitValues)
+            bukkitValues.remove("rosestacker:stacked_entity_data");
+        if (normalized.get("Attributes") instanceof List<?> attributes) {
+            for (Object attribute : attributes) {
+                Map<String, Object> attributeData = (Map<String, Object>) attribute;
+                attributeData.remove("UUID");
+                if (attributeData.get("Modifiers") instanceof List<?> modifiers) {
+                    modifiers.removeIf(x -> "Random spawn bonus".equals(((Map<String, Object>) x).get("Name")));
+                    modifiers.forEach(x -> ((Map<String, Object>) x).remove("UUID"));
+                    if (modifiers.isEmpty())
+                        attributeData.remove("Modifiers");
+                }
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * Creates data shaped like the NBT of a sheep: a few values that are the same for most entries, some that differ
+     * for every entry, optional keys, a numeric list, nested compounds and a key that changes type before the first
+     * entries are popped
+     */
+    private static Map<String, Object> createEntityData(Random random, int index, int entries) {
+        Map<String, Object> entityData = new LinkedHashMap<>();
+        entityData.put("UUID", UUID.randomUUID());
+        entityData.put("Pos", List.of(random.nextDouble() * 16, 64.0, random.nextDouble() * 16));
+        entityData.put("Health", (float) (random.nextInt(8) + 1));
+        entityData.put("Age", index < entries / 4 ? (Object) random.nextInt(24000) : "adult");
+        entityData.put("Color", (byte) random.nextInt(3));
+        entityData.put("Sheared", (byte) (index % 5 == 0 ? 1 : 0));
+        entityData.put("HandDropChances", List.of(0.085F, 0.085F));
+        entityData.put("FallFlying", (byte) 0);
+        if (index % 7 == 0)
+            entityData.put("CustomName", NAMES.get(random.nextInt(NAMES.size())));
+        if (index % 2 == 0)
+            entityData.put("Owner", "owner-" + index);
+
+        Map<String, Object> bukkitValues = new LinkedHashMap<>();
+        bukkitValues.put("rosestacker:stacked_entity_data", "stale");
+        bukkitValues.put("other:data", index % 2);
+        entityData.put("BukkitValues", bukkitValues);
+
+        List<Object> modifiers = new ArrayList<>();
+        if (index % 3 == 0)
+            modifiers.add(createModifier("Random spawn bonus", random.nextDouble()));
+        if (index % 4 == 0)
+            modifiers.add(createModifier("Speed boost", 0.1));
+
+        Map<String, Object> attribute = new LinkedHashMap<>();
+        attribute.put("Name", "generic.movement_speed");
+        attribute.put("Base", 0.23);
+        attribute.put("UUID", UUID.randomUUID());
+        attribute.put("Modifiers", modifiers);
+
+        List<Object> attributes = new ArrayList<>();
+        attributes.add(attribute);
+        entityData.put("Attributes", attributes);
+        return entityData;
+    }
+
+    private static Map<String, Object> createModifier(String name, double amount) {
+        Map<String, Object> modifier = new LinkedHashMap<>();
+        modifier.put("Name", name);
+        modifier.put("Amount", amount);
+        modifier.put("UUID", UUID.randomUUID());
+        return modifier;
+    }
+
+}
@@ -0,0 +1,163 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO.EntityData;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures saving and loading the stacked entity data of an NBT stack, comparing the legacy gzipped
+ * ObjectOutputStream format to the current format with and without compression.
+ * <p>
+ * The entries are random stand-ins for serialized entity NBT of about the same size and redundancy, framed the same
+ * way the NBT storage frames them. Each operation encodes or decodes one whole stack, the gc profiler reports the
+ * allocation per stack as gc.alloc.rate.norm.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntityDataCodecBenchmark {
+
+    /**
+     * The size of each stand-in entity NBT entry in bytes
+     */
+    private static final int ENTRY_SIZE = 320;
+
+    /**
+     * The compression level used when the format is compressed, matches the data-compression-level default
+     */
+    private static final int COMPRESSION_LEVEL = 6;
+
+    @Param({"1", "100", "10000"})
+    private int entries;
+
+    @Param({"LEGACY", "UNCOMPRESSED", "COMPRESSED"})
+    private Format format;
+
+    private byte[][] entryData;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Entity NBT is mostly the same keys and values with a few numbers like the UUID and position differing
+        Random random = new Random(0);
+        byte[] template = new byte[ENTRY_SIZE];
+        for (int i = 0; i < template.length; i++)
+            template[i] = (byte) ('a' + random.nextInt(26));
+
+        this.entryData = new byte[this.entries + 1][];
+        for (int i = 0; i < this.entryData.length; i++) {
+            byte[] entry = template.clone();
+            for (int j = 0; j < 32; j++)
+                entry[random.nextInt(entry.length)] = (byte) random.nextInt();
+            this.entryData[i] = entry;
+        }
+
+        this.encoded = this.encode();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (this.format == Format.LEGACY)
+            return this.writeLegacy();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutput = new DataOutputStream(outputStream)) {
+            this.writeEntries(dataOutput, false);
+        }
+
+        int compressionLevel = this.format == Format.COMPRESSED ? COMPRESSION_LEVEL : -1;
+        return StackedEntityDataIO.writeEntityData(StackedEntityDataStorageType.NBT, outputStream.toByteArray(), compressionLevel);
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        EntityData entityData = StackedEntityDataIO.readEntityData(this.encoded);
+        byte[] storageData = entityData.storageData();
+        if (StackedEntityDataIO.isLegacyFormat(storageData)) {
+            try (ObjectInputStream dataInput = new ObjectInputStream(new ByteArrayInputStream(storageData))) {
+                return this.readEntries(dataInput, true);
+            }
+        }
+
+        try (DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(storageData))) {
+            return this.readEntries(dataInput, false);
+        }
+    }
+
+    /**
+     * Writes the data the way version 2 did, the plugin can only read this format now so the writer lives here
+     */
+    private byte[] writeLegacy() throws IOException {
+        ByteArrayOutputStream storageStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream dataOutput = new ObjectOutputStream(storageStream)) {
+            this.writeEntries(dataOutput, true);
+        }
+        byte[] storageData = storageStream.toByteArray();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream dataOutput = new ObjectOutputStream(new GZIPOutputStream(outputStream))) {
+            dataOutput.writeInt(2);
+            dataOutput.writeInt(StackedEntityDataStorageType.NBT.getId());
+            dataOutput.writeInt(storageData.length);
+            dataOutput.write(storageData);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes the base entry followed by the stacked entries, NBT is self delimiting so the entries have no length
+     */
+    private void writeEntries(DataOutput dataOutput, boolean legacy) throws IOException {
+        dataOutput.write(this.entryData[0]);
+        if (legacy) {
+            dataOutput.writeInt(this.entries);
+        } else {
+            StackedEntityDataIO.writeVarInt(dataOutput, this.entries);
+        }
+
+        for (int i = 1; i < this.entryData.length; i++)
+            dataOutput.write(this.entryData[i]);
+    }
+
+    private int readEntries(DataInput dataInput, boolean legacy) throws IOException {
+        byte[] entry = new byte[ENTRY_SIZE];
+        dataInput.readFully(entry);
+        int length = legacy ? dataInput.readInt() : StackedEntityDataIO.readVarInt(dataInput);
+        int checksum = 0;
+        for (int i = 0; i < length; i++) {
+            entry = new byte[ENTRY_SIZE];
+            dataInput.readFully(entry);
+            checksum += entry[0];
+        }
+        return checksum;
+    }
+
+    public enum Format {
+        LEGACY,
+        UNCOMPRESSED,
+        COMPRESSED
+    }
+
+}
@@ -0,0 +1,66 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.nms.NMSHandler;
+import java.lang.reflect.Field;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.util.BoundingBox;
+
+/**
+ * An NMSHandler that creates unspawned entities with vanilla sized bounding boxes, which is all the spawn condition
+ * checks need from it. Every other method returns an empty value.
+ */
+public final class FakeNMSHandler {
+
+    private FakeNMSHandler() {
+
+    }
+
+    /**
+     * Replaces the handler NMSAdapter picked for the fake server, which has no matching NMS module
+     */
+    public static synchronized void install() {
+        FakeServer.install();
+
+        NMSHandler handler = Stubs.create(NMSHandler.class, (method, args) -> switch (method.getName()) {
+            case "createNewEntityUnspawned" -> createEntity((EntityType) args[0], (Location) args[1]);
+            default -> Stubs.UNHANDLED;
+        });
+
+        try {
+            Field field = NMSAdapter.class.getDeclaredField("nmsHandler");
+            field.setAccessible(true);
+            field.set(null, handler);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to install the fake NMSHandler", e);
+        }
+    }
+
+    private static LivingEntity createEntity(EntityType entityType, Location location) {
+        double width, height;
+        switch (entityType) {
+            case SPIDER -> { width = 1.4; height = 0.9; }
+            case CAVE_SPIDER -> { width = 0.7; height = 0.5; }
+            case CHICKEN, SILVERFISH -> { width = 0.4; height = 0.7; }
+            case COW, PIG, SHEEP -> { width = 0.9; height = 1.4; }
+            case ENDERMAN -> { width = 0.6; height = 2.9; }
+            case IRON_GOLEM -> { width = 1.4; height = 2.7; }
+            case BLAZE -> { width = 0.6; height = 1.8; }
+            default -> { width = 0.6; height = 1.95; }
+        }
+
+        BoundingBox boundingBox = new BoundingBox(-width / 2, 0, -width / 2, width / 2, height, width / 2).shift(location.getX(), location.getY(), location.getZ());
+        return Stubs.create(LivingEntity.class, (method, args) -> switch (method.getName()) {
+            case "getType" -> entityType;
+            case "getLocation" -> args.length == 0 ? location.clone() : Stubs.UNHANDLED;
+            case "getWorld" -> location.getWorld();
+            case "getBoundingBox" -> boundingBox.clone();
+            case "getWidth" -> width;
+            case "getHeight" -> height;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+}
@@ -0,0 +1,61 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import java.util.logging.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.Server;
+
+/**
+ * A Bukkit server that only answers what the spawning code touches outside of a world: version information, the
+ * logger and block properties from the registries. Never the primary thread, so the code under test takes the same
+ * paths it does when spawning async.
+ */
+public final class FakeServer {
+
+    private static final String BUKKIT_VERSION = "1.21.1-R0.1-SNAPSHOT";
+
+    private FakeServer() {
+
+    }
+
+    /**
+     * Sets the fake server as the Bukkit server if no server has been set yet
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null)
+            return;
+
+        Logger logger = Logger.getLogger("RoseStackerBenchmark");
+        Bukkit.setServer(Stubs.create(Server.class, (method, args) -> switch (method.getName()) {
+            case "getLogger" -> logger;
+            case "getName" -> "RoseStackerBenchmark";
+            case "getVersion" -> "RoseStackerBenchmark (MC: 1.21.1)";
+            case "getBukkitVersion" -> BUKKIT_VERSION;
+            case "isPrimaryThread" -> false;
+            case "getRegistry" -> createRegistry((Class<?>) args[0]);
+            default -> Stubs.UNHANDLED;
+        }));
+    }
+
+    private static Registry<?> createRegistry(Class<?> type) {
+        if (!type.isInterface())
+            return null;
+
+        return Stubs.create(Registry.class, (method, args) -> switch (method.getName()) {
+            case "get", "getOrThrow" -> args.length == 1 && args[0] instanceof NamespacedKey key ? createEntry(type, key) : Stubs.UNHANDLED;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+    private static Object createEntry(Class<?> type, NamespacedKey key) {
+        boolean solid = SyntheticTerrain.isSolid(key.getKey());
+        return Stubs.create(type, (method, args) -> switch (method.getName()) {
+            case "getKey", "getKeyOrThrow" -> Keyed.class.isAssignableFrom(type) ? key : Stubs.UNHANDLED;
+            case "isSolid", "isOccluding" -> solid;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+}
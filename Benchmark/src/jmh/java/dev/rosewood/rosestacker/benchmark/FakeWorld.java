@@ -0,0 +1,121 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
+import java.util.UUID;
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+
+/**
+ * A world made of {@link SyntheticTerrain} where every chunk is always loaded. Blocks and chunk snapshots are created
+ * on demand and read straight from the terrain.
+ */
+public class FakeWorld {
+
+    private final UUID uuid;
+    private final World world;
+
+    public FakeWorld() {
+        this.uuid = UUID.randomUUID();
+        this.world = Stubs.create(World.class, (method, args) -> switch (method.getName()) {
+            case "getUID" -> this.uuid;
+            case "getName" -> "benchmark";
+            case "getMinHeight" -> SyntheticTerrain.MIN_HEIGHT;
+            case "getMaxHeight" -> SyntheticTerrain.MAX_HEIGHT;
+            case "getSeaLevel" -> SyntheticTerrain.SEA_LEVEL;
+            case "getEnvironment" -> World.Environment.NORMAL;
+            case "isChunkLoaded" -> true;
+            case "getBlockAt" -> args.length == 3
+                    ? this.getBlock((int) args[0], (int) args[1], (int) args[2])
+                    : this.getBlock(((Location) args[0]).getBlockX(), ((Location) args[0]).getBlockY(), ((Location) args[0]).getBlockZ());
+            case "getChunkAt" -> args.length == 2 && args[0] instanceof Integer ? this.getChunk((int) args[0], (int) args[1]) : Stubs.UNHANDLED;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+    /**
+     * @return the Bukkit world
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Gets a block in the world
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the block
+     */
+    public Block getBlock(int x, int y, int z) {
+        return Stubs.create(Block.class, (method, args) -> switch (method.getName()) {
+            case "getX" -> x;
+            case "getY" -> y;
+            case "getZ" -> z;
+            case "getWorld" -> this.world;
+            case "getType" -> SyntheticTerrain.getType(x, y, z);
+            case "getLocation" -> args.length == 0 ? new Location(this.world, x, y, z) : Stubs.UNHANDLED;
+            case "getRelative" -> switch (args.length) {
+                case 1 -> this.getBlock(x + ((BlockFace) args[0]).getModX(), y + ((BlockFace) args[0]).getModY(), z + ((BlockFace) args[0]).getModZ());
+                case 2 -> this.getBlock(x + ((BlockFace) args[0]).getModX() * (int) args[1], y + ((BlockFace) args[0]).getModY() * (int) args[1], z + ((BlockFace) args[0]).getModZ() * (int) args[1]);
+                default -> this.getBlock(x + (int) args[0], y + (int) args[1], z + (int) args[2]);
+            };
+            case "getLightFromSky" -> (byte) SyntheticTerrain.getSkyLight(x, y, z);
+            case "getLightFromBlocks" -> (byte) SyntheticTerrain.getBlockLight(x, y, z);
+            case "getLightLevel" -> (byte) Math.max(SyntheticTerrain.getSkyLight(x, y, z), SyntheticTerrain.getBlockLight(x, y, z));
+            case "isEmpty" -> SyntheticTerrain.getType(x, y, z).isAir();
+            case "isPassable" -> !SyntheticTerrain.isSolid(SyntheticTerrain.getType(x, y, z).getKey().getKey());
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+    /**
+     * Captures a square of chunks into a view the same way the ChunkSnapshotManager does, always in daylight
+     *
+     * @param minChunkX The lowest chunk x coordinate
+     * @param minChunkZ The lowest chunk z coordinate
+     * @param maxChunkX The highest chunk x coordinate
+     * @param maxChunkZ The highest chunk z coordinate
+     * @return a view of the chunks
+     */
+    public ChunkSnapshotView createSnapshotView(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int width = maxChunkZ - minChunkZ + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[(maxChunkX - minChunkX + 1) * width];
+        for (int x = minChunkX; x <= maxChunkX; x++)
+            for (int z = minChunkZ; z <= maxChunkZ; z++)
+                snapshots[(x - minChunkX) * width + (z - minChunkZ)] = this.createSnapshot(x, z);
+        return new ChunkSnapshotView(this.world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, snapshots, new int[snapshots.length], () -> { });
+    }
+
+    private Chunk getChunk(int chunkX, int chunkZ) {
+        return Stubs.create(Chunk.class, (method, args) -> switch (method.getName()) {
+            case "getX" -> chunkX;
+            case "getZ" -> chunkZ;
+            case "getWorld" -> this.world;
+            case "isLoaded" -> true;
+            case "getChunkSnapshot" -> this.createSnapshot(chunkX, chunkZ);
+            case "getBlock" -> this.getBlock((chunkX << 4) + (int) args[0], (int) args[1], (chunkZ << 4) + (int) args[2]);
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+    private ChunkSnapshot createSnapshot(int chunkX, int chunkZ) {
+        int blockX = chunkX << 4, blockZ = chunkZ << 4;
+        return Stubs.create(ChunkSnapshot.class, (method, args) -> switch (method.getName()) {
+            case "getX" -> chunkX;
+            case "getZ" -> chunkZ;
+            case "getWorldName" -> "benchmark";
+            case "getBlockType" -> SyntheticTerrain.getType(blockX + (int) args[0], (int) args[1], blockZ + (int) args[2]);
+            case "getBlockSkyLight" -> SyntheticTerrain.getSkyLight(blockX + (int) args[0], (int) args[1], blockZ + (int) args[2]);
+            case "getBlockEmittedLight" -> SyntheticTerrain.getBlockLight(blockX + (int) args[0], (int) args[1], blockZ + (int) args[2]);
+            case "getHighestBlockYAt" -> SyntheticTerrain.getSurfaceHeight(blockX + (int) args[0], blockZ + (int) args[1]) + 1;
+            case "isSectionEmpty" -> false;
+            default -> Stubs.UNHANDLED;
+        });
+    }
+
+}
@@ -0,0 +1,333 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.nms.storage.AbstractColumnarStackedEntityDataStorage;
+import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Runs the shared column store of the COLUMNAR storage type on plain maps and lists instead of the NMS tag classes, so
+ * it can be used without a server.
+ * Numbers, strings and UUIDs stand in for the matching tags, a map is a compound and a list is a list tag.
+ * Entries are added from compounds directly since there are no entities to save.
+ */
+public class MapColumnarStorage extends AbstractColumnarStackedEntityDataStorage<Map<String, Object>, Object> {
+
+    private static final byte TAG_STRING = 8;
+    private static final byte TAG_COMPOUND = 10;
+    private static final byte TAG_UUID = 11;
+
+    private Map<String, Object> pending;
+
+    public MapColumnarStorage(Map<String, Object> base) {
+        super(null);
+        this.pending = copy(base);
+        this.loadBase(null);
+    }
+
+    public MapColumnarStorage(byte[] data) {
+        super(null);
+        this.deserialize(data);
+    }
+
+    /**
+     * Adds an entry the same way an entity with this data would be added
+     *
+     * @param compound The data of the entry
+     */
+    public synchronized void add(Map<String, Object> compound) {
+        this.pending = copy(compound);
+        this.add((LivingEntity) null);
+    }
+
+    @Override
+    protected Map<String, Object> saveEntity(LivingEntity entity) {
+        Map<String, Object> compound = this.pending;
+        this.pending = null;
+        return compound;
+    }
+
+    @Override
+    protected Map<String, Object> getCompound(EntityDataEntry entry) {
+        return copy(((Entry) entry).compound());
+    }
+
+    @Override
+    protected Entry createEntry(Map<String, Object> compound) {
+        return new Entry(compound);
+    }
+
+    @Override
+    protected Map<String, Object> createCompound() {
+        return new LinkedHashMap<>();
+    }
+
+    @Override
+    protected Collection<String> getKeys(Map<String, Object> compound) {
+        return compound.keySet();
+    }
+
+    @Override
+    protected Object getTag(Map<String, Object> compound, String key) {
+        return compound.get(key);
+    }
+
+    @Override
+    protected void putTag(Map<String, Object> compound, String key, Object tag) {
+        compound.put(key, tag);
+    }
+
+    @Override
+    protected void removeTag(Map<String, Object> compound, String key) {
+        compound.remove(key);
+    }
+
+    @Override
+    protected void merge(Map<String, Object> target, Map<String, Object> source) {
+        mergeCompounds(target, source);
+    }
+
+    @Override
+    protected Map<String, Object> getCompound(Map<String, Object> compound, String key) {
+        return compound.get(key) instanceof Map ? asCompound(compound.get(key)) : new LinkedHashMap<>();
+    }
+
+    @Override
+    protected Object getCompoundList(Map<String, Object> compound, String key) {
+        return compound.get(key) instanceof List ? compound.get(key) : new ArrayList<>();
+    }
+
+    @Override
+    protected Map<String, Object> getListCompound(Object tag, int index) {
+        return asCompound(((List<?>) tag).get(index));
+    }
+
+    @Override
+    protected void removeListElement(Object tag, int index) {
+        ((List<?>) tag).remove(index);
+    }
+
+    @Override
+    protected String getString(Map<String, Object> compound, String key) {
+        return compound.get(key) instanceof String string ? string : "";
+    }
+
+    @Override
+    protected void putUUID(Map<String, Object> compound, String key, UUID uuid) {
+        compound.put(key, uuid);
+    }
+
+    @Override
+    protected byte getTagId(Object tag) {
+        return getId(tag);
+    }
+
+    @Override
+    protected int getListSize(Object tag) {
+        return ((List<?>) tag).size();
+    }
+
+    @Override
+    protected Object getListElement(Object tag, int index) {
+        return ((List<?>) tag).get(index);
+    }
+
+    @Override
+    protected long getNumericBits(Object tag) {
+        if (tag instanceof Float value)
+            return Float.floatToRawIntBits(value);
+        if (tag instanceof Double value)
+            return Double.doubleToRawLongBits(value);
+        return ((Number) tag).longValue();
+    }
+
+    @Override
+    protected Object createNumericTag(byte tagId, long bits) {
+        return switch (tagId) {
+            case TAG_BYTE -> (byte) bits;
+            case TAG_SHORT -> (short) bits;
+            case TAG_INT -> (int) bits;
+            case TAG_LONG -> bits;
+            case TAG_FLOAT -> Float.intBitsToFloat((int) bits);
+            default -> Double.longBitsToDouble(bits);
+        };
+    }
+
+    @Override
+    protected Object createNumericListTag(byte elementId, long[] bits, int offset, int length) {
+        List<Object> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++)
+            list.add(this.createNumericTag(elementId, bits[offset + i]));
+        return list;
+    }
+
+    @Override
+    protected void writeCompound(Map<String, Object> compound, DataOutput dataOutput) throws IOException {
+        writeTag(compound, dataOutput);
+    }
+
+    @Override
+    protected Map<String, Object> readCompound(DataInput dataInput) throws IOException {
+        return asCompound(readTag(dataInput));
+    }
+
+    /**
+     * Reads a compound in the layout written by {@link #serialize(int)}
+     *
+     * @param dataInput The input to read from
+     * @return the compound
+     * @throws IOException if the compound could not be read
+     */
+    public static Map<String, Object> readSerializedCompound(DataInput dataInput) throws IOException {
+        return asCompound(readTag(dataInput));
+    }
+
+    /**
+     * Copies all values of the source into the target the same way a compound tag merges, nested compounds are merged
+     * instead of replaced
+     *
+     * @param target The compound to merge into
+     * @param source The compound to merge from
+     */
+    public static void mergeCompounds(Map<String, Object> target, Map<String, Object> source) {
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            if (entry.getValue() instanceof Map && target.get(entry.getKey()) instanceof Map) {
+                mergeCompounds(asCompound(target.get(entry.getKey())), asCompound(entry.getValue()));
+            } else {
+                target.put(entry.getKey(), copyTag(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Deep copies a compound so changes to the copy are never seen by the original
+     *
+     * @param compound The compound to copy
+     * @return the copy
+     */
+    public static Map<String, Object> copy(Map<String, Object> compound) {
+        return asCompound(copyTag(compound));
+    }
+
+    private static Object copyTag(Object tag) {
+        if (tag instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            map.forEach((key, value) -> copy.put((String) key, copyTag(value)));
+            return copy;
+        }
+
+        if (tag instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(value -> copy.add(copyTag(value)));
+            return copy;
+        }
+
+        return tag;
+    }
+
+    private static byte getId(Object tag) {
+        if (tag instanceof Byte) return TAG_BYTE;
+        if (tag instanceof Short) return TAG_SHORT;
+        if (tag instanceof Integer) return TAG_INT;
+        if (tag instanceof Long) return TAG_LONG;
+        if (tag instanceof Float) return TAG_FLOAT;
+        if (tag instanceof Double) return TAG_DOUBLE;
+        if (tag instanceof String) return TAG_STRING;
+        if (tag instanceof List) return TAG_LIST;
+        if (tag instanceof Map) return TAG_COMPOUND;
+        if (tag instanceof UUID) return TAG_UUID;
+        throw new IllegalArgumentException("Unknown tag " + tag);
+    }
+
+    private static void writeTag(Object tag, DataOutput dataOutput) throws IOException {
+        byte tagId = getId(tag);
+        dataOutput.writeByte(tagId);
+        switch (tagId) {
+            case TAG_BYTE -> dataOutput.writeByte((Byte) tag);
+            case TAG_SHORT -> dataOutput.writeShort((Short) tag);
+            case TAG_INT -> dataOutput.writeInt((Integer) tag);
+            case TAG_LONG -> dataOutput.writeLong((Long) tag);
+            case TAG_FLOAT -> dataOutput.writeFloat((Float) tag);
+            case TAG_DOUBLE -> dataOutput.writeDouble((Double) tag);
+            case TAG_STRING -> dataOutput.writeUTF((String) tag);
+            case TAG_UUID -> {
+                dataOutput.writeLong(((UUID) tag).getMostSignificantBits());
+                dataOutput.writeLong(((UUID) tag).getLeastSignificantBits());
+            }
+            case TAG_LIST -> {
+                List<?> list = (List<?>) tag;
+                StackedEntityDataIO.writeVarInt(dataOutput, list.size());
+                for (Object element : list)
+                    writeTag(element, dataOutput);
+            }
+            default -> {
+                Map<String, Object> compound = asCompound(tag);
+                StackedEntityDataIO.writeVarInt(dataOutput, compound.size());
+                for (Map.Entry<String, Object> entry : compound.entrySet()) {
+                    dataOutput.writeUTF(entry.getKey());
+                    writeTag(entry.getValue(), dataOutput);
+                }
+            }
+        }
+    }
+
+    private static Object readTag(DataInput dataInput) throws IOException {
+        byte tagId = dataInput.readByte();
+        return switch (tagId) {
+            case TAG_BYTE -> dataInput.readByte();
+            case TAG_SHORT -> dataInput.readShort();
+            case TAG_INT -> dataInput.readInt();
+            case TAG_LONG -> dataInput.readLong();
+            case TAG_FLOAT -> dataInput.readFloat();
+            case TAG_DOUBLE -> dataInput.readDouble();
+            case TAG_STRING -> dataInput.readUTF();
+            case TAG_UUID -> new UUID(dataInput.readLong(), dataInput.readLong());
+            case TAG_LIST -> {
+                int length = StackedEntityDataIO.readVarInt(dataInput);
+                List<Object> list = new ArrayList<>(length);
+                for (int i = 0; i < length; i++)
+                    list.add(readTag(dataInput));
+                yield list;
+            }
+            case TAG_COMPOUND -> {
+                int length = StackedEntityDataIO.readVarInt(dataInput);
+                Map<String, Object> compound = new LinkedHashMap<>();
+                for (int i = 0; i < length; i++)
+                    compound.put(dataInput.readUTF(), readTag(dataInput));
+                yield compound;
+            }
+            default -> throw new IOException("Unknown tag id " + tagId);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asCompound(Object tag) {
+        return (Map<String, Object>) tag;
+    }
+
+    /**
+     * An entry of the storage, can't be turned into an entity since there is no server
+     *
+     * @param compound The full data of the entry
+     */
+    public record Entry(Map<String, Object> compound) implements EntityDataEntry {
+
+        @Override
+        public LivingEntity createEntity(Location location, boolean addToWorld, EntityType entityType) {
+            throw new UnsupportedOperationException("Entries of a MapColumnarStorage can't be turned into entities");
+        }
+
+    }
+
+}
@@ -0,0 +1,164 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
+import dev.rosewood.rosestacker.spawning.MobSpawningMethod;
+import dev.rosewood.rosestacker.spawning.SpawnLocationCache;
+import dev.rosewood.rosestacker.spawning.SpawnLocationCache.SpawnLocations;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionPlan;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTags;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the part of a stacked spawner spawn that runs async: checking the per-spawn conditions and picking the
+ * locations to spawn at. Each operation is one spawn of one spawner, the spawners are cycled through in order.
+ * <p>
+ * Throughput is reported in spawns per microsecond, sample time gives the latency percentiles of a single spawn and
+ * the gc profiler reports the allocation per spawn as gc.alloc.rate.norm.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpawnerSpawnBenchmark {
+
+    /**
+     * The spawners are spread out on a grid this many blocks apart so they don't share chunks
+     */
+    private static final int SPAWNER_SPACING = 48;
+
+    @Param({"1", "64", "512"})
+    private int spawners;
+
+    @Param({"1", "16", "256"})
+    private int stackSize;
+
+    @Param({"4", "8"})
+    private int spawnRange;
+
+    /**
+     * The spawn requirements of the spawners separated by spaces, as they would be written in spawner_settings.yml
+     */
+    @Param({"darkness on-ground", "air darkness on-ground block-exception:bedrock", "block:grass_block skylight-access on-ground"})
+    private String conditions;
+
+    @Param({"ZOMBIE"})
+    private EntityType entityType;
+
+    /**
+     * The max-failed-spawn-attempts setting, defaults to the value in config.yml
+     */
+    @Param({"50"})
+    private int maxFailedSpawnAttempts;
+
+    private BenchmarkSpawner[] stackedSpawners;
+    private SpawnLocationCache[] spawnLocationCaches;
+    private ChunkSnapshotView[] snapshots;
+    private ConditionPlan conditionPlan;
+    private Random random;
+    private int nextSpawner;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FakeNMSHandler.install();
+
+        List<ConditionTag> conditionTags = Arrays.stream(this.conditions.split(" "))
+                .map(ConditionTags::parse)
+                .filter(Objects::nonNull)
+                .toList();
+        this.conditionPlan = new ConditionPlan(conditionTags);
+        this.random = new Random(0);
+
+        FakeWorld world = new FakeWorld();
+        int gridSize = (int) Math.ceil(Math.sqrt(this.spawners));
+        this.stackedSpawners = new BenchmarkSpawner[this.spawners];
+        this.spawnLocationCaches = new SpawnLocationCache[this.spawners];
+        this.snapshots = new ChunkSnapshotView[this.spawners];
+        for (int i = 0; i < this.spawners; i++) {
+            int x = (i % gridSize) * SPAWNER_SPACING;
+            int z = (i / gridSize) * SPAWNER_SPACING;
+            int y = SyntheticTerrain.getSurfaceHeight(x, z) + 2;
+
+            BenchmarkSpawner stackedSpawner = new BenchmarkSpawner(world, x, y, z, this.stackSize, this.entityType, this.spawnRange);
+            int[] bounds = SpawnLocationCache.getChunkBounds(stackedSpawner, this.spawnRange);
+            this.stackedSpawners[i] = stackedSpawner;
+            this.spawnLocationCaches[i] = new SpawnLocationCache(stackedSpawner, this.spawnRange);
+            this.snapshots[i] = world.createSnapshotView(bounds[0], bounds[1], bounds[2], bounds[3]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (ChunkSnapshotView snapshot : this.snapshots)
+            snapshot.close();
+    }
+
+    /**
+     * A spawn with the spawn location cache enabled, only the first spawn of each spawner checks its blocks
+     */
+    @Benchmark
+    public List<Location> cachedSpawn() {
+        int index = this.nextIndex();
+        SpawnLocations spawnLocations = this.spawnLocationCaches[index].getSpawnLocations(this.entityType, this.conditionPlan, false, Long.MAX_VALUE, this.snapshots[index]);
+
+        List<Location> locations = new ArrayList<>();
+        spawnLocations.pick(this.stackedSpawners[index].getLocation(), this.getDesiredLocations(), this.random, locations);
+        return locations;
+    }
+
+    /**
+     * A spawn with the spawn location cache enabled right after the cache expired, every block in range is checked
+     */
+    @Benchmark
+    public SpawnLocations expiredCacheSpawn() {
+        int index = this.nextIndex();
+        return new SpawnLocationCache(this.stackedSpawners[index], this.spawnRange).getSpawnLocations(this.entityType, this.conditionPlan, false, 0, this.snapshots[index]);
+    }
+
+    /**
+     * A spawn with the spawn location cache disabled, random blocks in range are checked until enough pass the
+     * conditions or too many have failed
+     */
+    @Benchmark
+    public Set<Location> uncachedSpawn() {
+        int index = this.nextIndex();
+        Set<Location> spawnLocations = new HashSet<>();
+        MobSpawningMethod.findSpawnLocations(this.stackedSpawners[index], this.conditionPlan, this.snapshots[index], this.spawnRange, false,
+                this.maxFailedSpawnAttempts, this.getDesiredLocations(), true, this.random, spawnLocations, new HashSet<>(), new HashSet<>());
+        return spawnLocations;
+    }
+
+    private int nextIndex() {
+        int index = this.nextSpawner;
+        this.nextSpawner = (index + 1) % this.stackedSpawners.length;
+        return index;
+    }
+
+    /**
+     * Matches the number of locations MobSpawningMethod looks for when spawn-count-stack-size-multiplier is set to the
+     * stack size and nearby stacks are used
+     */
+    private int getDesiredLocations() {
+        return Math.max(2, this.stackSize);
+    }
+
+}
@@ -0,0 +1,92 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Creates implementations of Bukkit interfaces that only answer the methods a benchmark needs.
+ * Every other method returns an empty value for its return type instead of throwing.
+ */
+public final class Stubs {
+
+    /**
+     * Returned by an {@link Answer} to fall back to the empty value
+     */
+    public static final Object UNHANDLED = new Object();
+
+    private Stubs() {
+
+    }
+
+    /**
+     * Creates a stub of an interface
+     *
+     * @param type The interface to stub
+     * @param answer Answers the methods the stub should implement
+     * @param <T> The type of the interface
+     * @return a new stub
+     */
+    public static <T> T create(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object[] arguments = args == null ? new Object[0] : args;
+            switch (method.getName()) {
+                case "equals":
+                    if (arguments.length == 1)
+                        return proxy == arguments[0];
+                    break;
+                case "hashCode":
+                    if (arguments.length == 0)
+                        return System.identityHashCode(proxy);
+                    break;
+                case "toString":
+                    if (arguments.length == 0)
+                        return type.getSimpleName() + "Stub";
+                    break;
+            }
+
+            Object result = answer.answer(method, arguments);
+            return result == UNHANDLED ? getEmptyValue(method) : result;
+        }));
+    }
+
+    private static Object getEmptyValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) return false;
+        if (returnType == byte.class) return (byte) 0;
+        if (returnType == short.class) return (short) 0;
+        if (returnType == char.class) return (char) 0;
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        if (returnType == float.class) return 0F;
+        if (returnType == double.class) return 0D;
+        if (returnType == String.class) return "";
+        if (returnType == Optional.class) return Optional.empty();
+        if (returnType == Stream.class) return Stream.empty();
+        if (returnType == Iterator.class) return Collections.emptyIterator();
+        if (returnType == Set.class) return Set.of();
+        if (returnType == Map.class) return Map.of();
+        if (returnType == List.class || returnType == Collection.class || returnType == Iterable.class) return List.of();
+        return null;
+    }
+
+    @FunctionalInterface
+    public interface Answer {
+
+        /**
+         * @param method The method that was called
+         * @param args The arguments of the call, never null
+         * @return the result of the call, or {@link #UNHANDLED} to return an empty value
+         */
+        Object answer(Method method, Object[] args);
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package dev.rosewood.rosestacker.benchmark;
+
+import org.bukkit.Material;
+
+/**
+ * Generates a deterministic overworld-like terrain without a server: rolling grass hills over dirt and stone with
+ * small caves, lit by the sky above the surface and by a light source in the middle of every chunk.
+ */
+public final class SyntheticTerrain {
+
+    public static final int MIN_HEIGHT = -64;
+    public static final int MAX_HEIGHT = 320;
+    public static final int SEA_LEVEL = 62;
+
+    private SyntheticTerrain() {
+
+    }
+
+    public static int getSurfaceHeight(int x, int z) {
+        return 64 + Math.floorMod(hash(x >> 2, 0, z >> 2), 3);
+    }
+
+    public static Material getType(int x, int y, int z) {
+        if (y < MIN_HEIGHT || y >= MAX_HEIGHT)
+            return Material.VOID_AIR;
+
+        int surface = getSurfaceHeight(x, z);
+        if (y > surface)
+            return Material.AIR;
+        if (y == surface)
+            return Material.GRASS_BLOCK;
+        if (y == MIN_HEIGHT)
+            return Material.BEDROCK;
+        if (y >= surface - 3)
+            return Material.DIRT;
+        if (Math.floorMod(hash(x >> 1, y >> 1, z >> 1), 7) == 0)
+            return Material.CAVE_AIR;
+        return Material.STONE;
+    }
+
+    public static int getSkyLight(int x, int y, int z) {
+        return y > getSurfaceHeight(x, z) ? 15 : 0;
+    }
+
+    public static int getBlockLight(int x, int y, int z) {
+        Material type = getType(x, y, z);
+        if (type != Material.AIR && type != Material.CAVE_AIR)
+            return 0;
+
+        int distance = Math.abs((x & 15) - 8) + Math.abs((z & 15) - 8) + Math.abs(y - getSurfaceHeight(x, z) - 1);
+        return Math.max(0, 14 - distance);
+    }
+
+    /**
+     * Answers {@link Material#isSolid()} and {@link Material#isOccluding()} for the blocks this terrain generates,
+     * used when the server would normally look them up in its block registry
+     *
+     * @param key The key of the block type
+     * @return true if the block is a full solid block
+     */
+    public static boolean isSolid(String key) {
+        return switch (key) {
+            case "grass_block", "dirt", "stone", "bedrock" -> true;
+            default -> false;
+        };
+    }
+
+    private static int hash(int x, int y, int z) {
+        int hash = x * 73856093 ^ y * 19349663 ^ z * 83492791;
+        hash ^= hash >>> 13;
+        hash *= 0x5bd1e995;
+        return hash ^ (hash >>> 15);
+    }
+
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
@@ -14,6 +15,7 @@ import org.bukkit.entity.Player;
 public abstract class Hologram {
 
     private static final double LINE_OFFSET = 0.3;
+    private static final LongAdder PACKETS_SENT = new LongAdder();
 
     protected final List<HologramLine> hologramLines;
     protected final Map<Player, Boolean> watchers;
@@ -38,7 +40,6 @@ public abstract class Hologram {
         if (!this.watchers.containsKey(player)) {
             this.watchers.put(player, visible);
             this.create(player);
-            this.update(List.of(player), true);
         }
     }
 
@@ -143,11 +144,26 @@ public abstract class Hologram {
             this.hologramLines.add(new HologramLine(this.entityIdSupplier.get(), lineLocation, text.get(i)));
         }
         this.watchers.keySet().forEach(this::create);
-        this.update(this.watchers.keySet(), true);
     }
 
     /**
-     * Creates a new hologram entity for the given player
+     * @return the total number of packets sent by all holograms, bundled packets only count once
+     */
+    public static long getPacketsSent() {
+        return PACKETS_SENT.sum();
+    }
+
+    /**
+     * Records packets as sent for {@link #getPacketsSent()}
+     *
+     * @param amount The number of packets sent
+     */
+    protected static void recordPacketsSent(int amount) {
+        PACKETS_SENT.add(amount);
+    }
+
+    /**
+     * Creates a new hologram entity for the given player, along with its current metadata
      *
      * @param player The player to spawn the hologram for
      */
@@ -8,11 +8,13 @@ public class HologramLine {
     private final Location location;
     private String text;
     private boolean dirty;
+    private final Object[] cachedPackets;
 
     public HologramLine(int entityId, Location location, String text) {
         this.entityId = entityId;
         this.location = location.clone();
         this.text = text;
+        this.cachedPackets = new Object[2];
     }
 
     public int getEntityId() {
@@ -33,6 +35,29 @@ public class HologramLine {
 
         this.text = text;
         this.dirty = true;
+        this.cachedPackets[0] = null;
+        this.cachedPackets[1] = null;
+    }
+
+    /**
+     * Gets the metadata packet built for the current text of this line, so it only needs to be built once no matter
+     * how many players it is sent to
+     *
+     * @param visible The visibility the packet was built for
+     * @return the cached packet, or null if none has been built since the text last changed
+     */
+    public Object getCachedPacket(boolean visible) {
+        return this.cachedPackets[visible ? 1 : 0];
+    }
+
+    /**
+     * Caches the metadata packet for the current text of this line
+     *
+     * @param visible The visibility the packet was built for
+     * @param packet The packet to cache
+     */
+    public void setCachedPacket(boolean visible, Object packet) {
+        this.cachedPackets[visible ? 1 : 0] = packet;
     }
 
     /**
@@ -133,4 +133,33 @@ public interface StackedSpawnerTile {
      */
     PersistentDataContainer getPersistentDataContainer();
 
+    /**
+     * Resets the spawn delay, spawns mobs, then picks the next entity to spawn.
+     * Called by the spawner scheduler once the spawn delay has run out.
+     *
+     * @return the new spawn delay
+     */
+    @ApiStatus.Internal
+    int spawn();
+
+    /**
+     * Checks the spawn conditions without spawning anything, updates the invalid conditions shown in the GUI
+     */
+    @ApiStatus.Internal
+    void checkSpawnConditions();
+
+    /**
+     * @return true if the spawner block is receiving a redstone signal
+     */
+    @ApiStatus.Internal
+    boolean hasRedstoneSignal();
+
+    /**
+     * Deactivates or reactivates the spawner for clients so it stops spinning while powered
+     *
+     * @param deactivated true if the spawner is deactivated by redstone
+     */
+    @ApiStatus.Internal
+    void setRedstoneDeactivated(boolean deactivated);
+
 }
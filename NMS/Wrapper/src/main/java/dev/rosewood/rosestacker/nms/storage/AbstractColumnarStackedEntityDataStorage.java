@@ -0,0 +1,657 @@
+package dev.rosewood.rosestacker.nms.storage;
+
+import dev.rosewood.rosestacker.nms.NMSHandler;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Stores the NBT of each entry as a row spread across one column per top level key instead of a compound per entry.
+ * Numeric tags and short numeric lists such as Pos and Motion are packed into primitive arrays, anything else is
+ * dictionary encoded so repeated values are only held once.
+ * <p>
+ * Rows are kept in insertion order between {@link #head} and {@link #tail} so the storage still behaves like a queue.
+ * <p>
+ * Everything other than reading and writing the version specific tag classes is shared here, including how the deltas
+ * against the base are created and merged back together.
+ *
+ * @param <C> The compound tag type
+ * @param <T> The base tag type
+ */
+public abstract class AbstractColumnarStackedEntityDataStorage<C, T> extends StackedEntityDataStorage {
+
+    protected static final byte TAG_BYTE = 1;
+    protected static final byte TAG_SHORT = 2;
+    protected static final byte TAG_INT = 3;
+    protected static final byte TAG_LONG = 4;
+    protected static final byte TAG_FLOAT = 5;
+    protected static final byte TAG_DOUBLE = 6;
+    protected static final byte TAG_LIST = 9;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_NUMERIC_LIST_LENGTH = 16;
+
+    protected C base;
+    private final Map<String, Column> columns;
+    private int capacity;
+    private int head;
+    private int tail;
+
+    public AbstractColumnarStackedEntityDataStorage(LivingEntity livingEntity) {
+        super(StackedEntityDataStorageType.COLUMNAR, livingEntity);
+
+        this.columns = new LinkedHashMap<>();
+        this.capacity = INITIAL_CAPACITY;
+    }
+
+    /**
+     * Sets the base to the data of an entity, used by storages that are not created from serialized data
+     *
+     * @param livingEntity The entity the storage is for
+     */
+    protected void loadBase(LivingEntity livingEntity) {
+        this.base = this.saveEntity(livingEntity);
+        this.stripUnneeded(this.base);
+        this.stripAttributeUuids(this.base);
+    }
+
+    @Override
+    public synchronized void add(LivingEntity entity) {
+        this.append(this.toDelta(entity));
+    }
+
+    @Override
+    public void addAll(StackedEntityDataStorage stackedEntityDataStorage) {
+        List<EntityDataEntry> entries = stackedEntityDataStorage.getAll();
+        synchronized (this) {
+            for (EntityDataEntry entry : entries)
+                this.append(this.toDelta(entry));
+        }
+    }
+
+    @Override
+    public synchronized void addCopies(LivingEntity entity, int amount) {
+        // The columns copy the values out of the delta, so it only has to be created once
+        C delta = this.toDelta(entity);
+        for (int i = 0; i < amount; i++)
+            this.append(delta);
+    }
+
+    @Override
+    public synchronized void addClones(int amount) {
+        // A clone is identical to the base, so it has no values of its own
+        for (int i = 0; i < amount; i++)
+            this.append(this.createCompound());
+    }
+
+    @Override
+    public synchronized EntityDataEntry peek() {
+        if (this.isEmpty())
+            throw new NoSuchElementException();
+        return this.createEntry(this.rebuild(this.readRow(this.head)));
+    }
+
+    @Override
+    public synchronized EntityDataEntry pop() {
+        if (this.isEmpty())
+            throw new NoSuchElementException();
+        return this.createEntry(this.rebuild(this.removeFirst()));
+    }
+
+    @Override
+    public synchronized List<EntityDataEntry> pop(int amount) {
+        amount = Math.min(amount, this.size());
+
+        List<EntityDataEntry> popped = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++)
+            popped.add(this.createEntry(this.rebuild(this.removeFirst())));
+        return popped;
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.tail - this.head;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return this.tail == this.head;
+    }
+
+    @Override
+    public synchronized List<EntityDataEntry> getAll() {
+        List<EntityDataEntry> wrapped = new ArrayList<>(this.size());
+        for (int row = this.head; row < this.tail; row++)
+            wrapped.add(this.createEntry(this.rebuild(this.readRow(row))));
+        return wrapped;
+    }
+
+    @Override
+    public byte[] serialize(int maxAmount) {
+        // Written in the same layout as the NBT storage type
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             DataOutputStream dataOutput = new DataOutputStream(outputStream)) {
+
+            synchronized (this) {
+                int targetAmount = Math.min(maxAmount, this.size());
+                this.writeCompound(this.base, dataOutput);
+                StackedEntityDataIO.writeVarInt(dataOutput, targetAmount);
+                for (int i = 0; i < targetAmount; i++)
+                    this.writeCompound(this.readRow(this.head + i), dataOutput);
+            }
+
+            dataOutput.close();
+            return outputStream.toByteArray();
+        } catch (Exception e) {
+            throw new StackedEntityDataIOException(e);
+        }
+    }
+
+    /**
+     * Reads data written by {@link #serialize(int)} into this storage
+     *
+     * @param data The serialized data
+     */
+    protected void deserialize(byte[] data) {
+        try (DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(data))) {
+            this.base = this.readCompound(dataInput);
+            int length = StackedEntityDataIO.readVarInt(dataInput);
+            if (length > this.capacity) {
+                this.capacity = length;
+                this.columns.values().forEach(x -> x.resize(this.capacity));
+            }
+
+            for (int i = 0; i < length; i++)
+                this.append(this.readCompound(dataInput));
+        } catch (Exception e) {
+            throw new StackedEntityDataIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void forEachEntry(EntityDataVisitor visitor) {
+        LivingEntity thisEntity = this.entity.get();
+        if (thisEntity == null)
+            return;
+
+        // Kept rows are compacted towards the head as we go, a row is always read before it can be overwritten
+        int writeRow = this.head;
+        int row = this.head;
+        while (row < this.tail) {
+            C delta = this.readRow(row);
+            LivingEntity entity = this.createEntry(this.rebuild(delta)).createEntity(thisEntity.getLocation(), false, thisEntity.getType());
+            EntityDataVisitor.Action action = visitor.visit(entity);
+            row++;
+
+            switch (action) {
+                case KEEP, STOP -> {
+                    if (writeRow != row - 1)
+                        this.writeRow(writeRow, delta);
+                    writeRow++;
+                }
+                case REPLACE -> this.writeRow(writeRow++, this.toDelta(entity));
+                case REMOVE -> { }
+            }
+
+            if (action == EntityDataVisitor.Action.STOP)
+                break;
+        }
+
+        if (writeRow == row)
+            return;
+
+        // Something was removed, shift the rows we didn't visit down to close the gap
+        for (; row < this.tail; row++)
+            this.writeRow(writeRow++, this.readRow(row));
+        for (row = writeRow; row < this.tail; row++)
+            this.clearRow(row);
+        this.tail = writeRow;
+        if (this.isEmpty())
+            this.reset();
+    }
+
+    private void append(C delta) {
+        if (this.tail == this.capacity)
+            this.makeRoom();
+        this.writeRow(this.tail++, delta);
+    }
+
+    private C removeFirst() {
+        C delta = this.readRow(this.head);
+        this.clearRow(this.head++);
+        if (this.isEmpty())
+            this.reset();
+        return delta;
+    }
+
+    private C readRow(int row) {
+        C delta = this.createCompound();
+        for (Map.Entry<String, Column> entry : this.columns.entrySet()) {
+            T tag = entry.getValue().get(row);
+            if (tag != null)
+                this.putTag(delta, entry.getKey(), tag);
+        }
+        return delta;
+    }
+
+    private void writeRow(int row, C delta) {
+        this.clearRow(row);
+        for (String key : this.getKeys(delta)) {
+            T tag = this.getTag(delta, key);
+            Column column = this.columns.get(key);
+            if (column == null) {
+                column = this.createColumn(tag);
+                this.columns.put(key, column);
+            }
+
+            if (!column.set(row, tag)) {
+                // The value no longer fits the packed layout, fall back to a dictionary for this key
+                column = new DictionaryColumn(column);
+                this.columns.put(key, column);
+                column.set(row, tag);
+            }
+        }
+    }
+
+    private void clearRow(int row) {
+        for (Column column : this.columns.values())
+            column.clear(row);
+    }
+
+    private void makeRoom() {
+        int size = this.tail - this.head;
+        if (this.head > 0) {
+            for (Column column : this.columns.values())
+                column.shift(this.head, size);
+            this.head = 0;
+            this.tail = size;
+        }
+
+        if (this.tail == this.capacity) {
+            this.capacity += this.capacity >> 1;
+            for (Column column : this.columns.values())
+                column.resize(this.capacity);
+        }
+    }
+
+    private void reset() {
+        this.columns.clear();
+        this.capacity = INITIAL_CAPACITY;
+        this.head = 0;
+        this.tail = 0;
+    }
+
+    private Column createColumn(T tag) {
+        byte tagId = this.getTagId(tag);
+        if (tagId >= TAG_BYTE && tagId <= TAG_DOUBLE)
+            return new NumericColumn(tagId, (byte) 0, 1);
+
+        if (tagId == TAG_LIST) {
+            int length = this.getListSize(tag);
+            if (length > 0 && length <= MAX_NUMERIC_LIST_LENGTH) {
+                byte elementId = this.getTagId(this.getListElement(tag, 0));
+                if (elementId >= TAG_BYTE && elementId <= TAG_DOUBLE)
+                    return new NumericColumn(tagId, elementId, length);
+            }
+        }
+
+        return new DictionaryColumn();
+    }
+
+    /**
+     * Serializes an entity into the values that differ from the base
+     *
+     * @param entity The entity
+     * @return A compound containing only the values that differ from the base
+     */
+    private C toDelta(LivingEntity entity) {
+        return this.toDelta(this.saveEntity(entity));
+    }
+
+    /**
+     * Converts an entry from any storage into the values that differ from the base
+     *
+     * @param entry The entry
+     * @return A compound containing only the values that differ from the base
+     */
+    private C toDelta(EntityDataEntry entry) {
+        return this.toDelta(this.getCompound(entry));
+    }
+
+    private C toDelta(C compound) {
+        this.stripUnneeded(compound);
+        this.stripAttributeUuids(compound);
+        this.removeDuplicates(compound);
+        return compound;
+    }
+
+    /**
+     * Merges the base with a delta to get the full entity data
+     *
+     * @param delta The values that differ from the base
+     * @return A new compound with the full entity data
+     */
+    private C rebuild(C delta) {
+        C merged = this.createCompound();
+        this.merge(merged, this.base);
+        this.merge(merged, delta);
+        this.fillAttributeUuids(merged);
+        return merged;
+    }
+
+    private void removeDuplicates(C compound) {
+        for (String key : new ArrayList<>(this.getKeys(compound))) {
+            T baseValue = this.getTag(this.base, key);
+            if (baseValue != null && baseValue.equals(this.getTag(compound, key)))
+                this.removeTag(compound, key);
+        }
+    }
+
+    private void stripUnneeded(C compound) {
+        NMSHandler.REMOVABLE_NBT_KEYS.forEach(key -> this.removeTag(compound, key));
+        this.removeTag(this.getCompound(compound, "BukkitValues"), "rosestacker:stacked_entity_data");
+    }
+
+    private void stripAttributeUuids(C compound) {
+        T attributes = this.getCompoundList(compound, "Attributes");
+        for (int i = 0; i < this.getListSize(attributes); i++) {
+            C attribute = this.getListCompound(attributes, i);
+            this.removeTag(attribute, "UUID");
+            T modifiers = this.getCompoundList(attribute, "Modifiers");
+            for (int j = 0; j < this.getListSize(modifiers); j++) {
+                C modifier = this.getListCompound(modifiers, j);
+                if (this.getString(modifier, "Name").equals("Random spawn bonus")) {
+                    this.removeListElement(modifiers, j);
+                    j--;
+                } else {
+                    this.removeTag(modifier, "UUID");
+                }
+            }
+        }
+    }
+
+    private void fillAttributeUuids(C compound) {
+        T attributes = this.getCompoundList(compound, "Attributes");
+        for (int i = 0; i < this.getListSize(attributes); i++) {
+            C attribute = this.getListCompound(attributes, i);
+            this.putUUID(attribute, "UUID", UUID.randomUUID());
+            T modifiers = this.getCompoundList(attribute, "Modifiers");
+            for (int j = 0; j < this.getListSize(modifiers); j++)
+                this.putUUID(this.getListCompound(modifiers, j), "UUID", UUID.randomUUID());
+            if (this.getListSize(modifiers) == 0)
+                this.removeTag(attribute, "Modifiers");
+        }
+    }
+
+    /**
+     * Serializes an entity into a new compound
+     *
+     * @param entity The entity
+     * @return A new compound with the full entity data
+     */
+    protected abstract C saveEntity(LivingEntity entity);
+
+    /**
+     * Gets the full entity data of an entry from any storage, the compound may be modified
+     *
+     * @param entry The entry
+     * @return The full entity data of the entry
+     */
+    protected abstract C getCompound(EntityDataEntry entry);
+
+    protected abstract EntityDataEntry createEntry(C compound);
+
+    protected abstract C createCompound();
+
+    protected abstract Collection<String> getKeys(C compound);
+
+    protected abstract T getTag(C compound, String key);
+
+    protected abstract void putTag(C compound, String key, T tag);
+
+    protected abstract void removeTag(C compound, String key);
+
+    /**
+     * Copies all values of the source into the target, nested compounds are merged the same way
+     */
+    protected abstract void merge(C target, C source);
+
+    /**
+     * @return the compound stored at the key, or a new empty compound that is not added to the parent if there is none
+     */
+    protected abstract C getCompound(C compound, String key);
+
+    /**
+     * @return the list of compounds stored at the key, or a new empty list that is not added to the parent if there is none
+     */
+    protected abstract T getCompoundList(C compound, String key);
+
+    protected abstract C getListCompound(T tag, int index);
+
+    protected abstract void removeListElement(T tag, int index);
+
+    /**
+     * @return the string stored at the key, or an empty string if there is none
+     */
+    protected abstract String getString(C compound, String key);
+
+    protected abstract void putUUID(C compound, String key, UUID uuid);
+
+    protected abstract byte getTagId(T tag);
+
+    protected abstract int getListSize(T tag);
+
+    protected abstract T getListElement(T tag, int index);
+
+    /**
+     * Gets the raw bits of a numeric tag, floating point values use their raw IEEE 754 bits
+     *
+     * @param tag The numeric tag
+     * @return The raw bits of the value
+     */
+    protected abstract long getNumericBits(T tag);
+
+    protected abstract T createNumericTag(byte tagId, long bits);
+
+    protected abstract T createNumericListTag(byte elementId, long[] bits, int offset, int length);
+
+    protected abstract void writeCompound(C compound, DataOutput dataOutput) throws IOException;
+
+    protected abstract C readCompound(DataInput dataInput) throws IOException;
+
+    private abstract class Column {
+
+        /**
+         * Sets the value of a row
+         *
+         * @return false if the value can't be stored in this column
+         */
+        abstract boolean set(int row, T tag);
+
+        /**
+         * @return the value of a row, or null if the row has no value
+         */
+        abstract T get(int row);
+
+        abstract void clear(int row);
+
+        /**
+         * Moves the rows starting at from to the start of the column
+         */
+        abstract void shift(int from, int length);
+
+        abstract void resize(int capacity);
+
+    }
+
+    private class NumericColumn extends Column {
+
+        private final byte tagId;
+        private final byte elementId;
+        private final int width;
+        private final BitSet present;
+        private long[] values;
+
+        NumericColumn(byte tagId, byte elementId, int width) {
+            this.tagId = tagId;
+            this.elementId = elementId;
+            this.width = width;
+            this.present = new BitSet(AbstractColumnarStackedEntityDataStorage.this.capacity);
+            this.values = new long[AbstractColumnarStackedEntityDataStorage.this.capacity * width];
+        }
+
+        @Override
+        boolean set(int row, T tag) {
+            if (AbstractColumnarStackedEntityDataStorage.this.getTagId(tag) != this.tagId)
+                return false;
+
+            if (this.tagId == TAG_LIST) {
+                if (AbstractColumnarStackedEntityDataStorage.this.getListSize(tag) != this.width)
+                    return false;
+
+                int offset = row * this.width;
+                for (int i = 0; i < this.width; i++) {
+                    T element = AbstractColumnarStackedEntityDataStorage.this.getListElement(tag, i);
+                    if (AbstractColumnarStackedEntityDataStorage.this.getTagId(element) != this.elementId)
+                        return false;
+                    this.values[offset + i] = AbstractColumnarStackedEntityDataStorage.this.getNumericBits(element);
+                }
+            } else {
+                this.values[row] = AbstractColumnarStackedEntityDataStorage.this.getNumericBits(tag);
+            }
+
+            this.present.set(row);
+            return true;
+        }
+
+        @Override
+        T get(int row) {
+            if (!this.present.get(row))
+                return null;
+
+            if (this.tagId == TAG_LIST)
+                return AbstractColumnarStackedEntityDataStorage.this.createNumericListTag(this.elementId, this.values, row * this.width, this.width);
+            return AbstractColumnarStackedEntityDataStorage.this.createNumericTag(this.tagId, this.values[row]);
+        }
+
+        @Override
+        void clear(int row) {
+            this.present.clear(row);
+        }
+
+        @Override
+        void shift(int from, int length) {
+            System.arraycopy(this.values, from * this.width, this.values, 0, length * this.width);
+            BitSet shifted = this.present.get(from, from + length);
+            this.present.clear();
+            this.present.or(shifted);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity * this.width);
+        }
+
+    }
+
+    private class DictionaryColumn extends Column {
+
+        private final List<T> dictionary;
+        private final Map<T, Integer> lookup;
+        private final Deque<Integer> freeIds;
+        private int[] references; // The number of rows using each dictionary value
+        private int[] ids; // 0 means no value, otherwise the dictionary index + 1
+
+        DictionaryColumn() {
+            this.dictionary = new ArrayList<>();
+            this.lookup = new HashMap<>();
+            this.freeIds = new ArrayDeque<>();
+            this.references = new int[INITIAL_CAPACITY];
+            this.ids = new int[AbstractColumnarStackedEntityDataStorage.this.capacity];
+        }
+
+        DictionaryColumn(Column previous) {
+            this();
+            for (int row = AbstractColumnarStackedEntityDataStorage.this.head; row < AbstractColumnarStackedEntityDataStorage.this.tail; row++) {
+                T tag = previous.get(row);
+                if (tag != null)
+                    this.set(row, tag);
+            }
+        }
+
+        @Override
+        boolean set(int row, T tag) {
+            this.clear(row);
+
+            Integer id = this.lookup.get(tag);
+            if (id == null) {
+                // Reuse the slot of a value no row references anymore before growing the dictionary
+                id = this.freeIds.poll();
+                if (id == null) {
+                    this.dictionary.add(tag);
+                    id = this.dictionary.size();
+                    if (id > this.references.length)
+                        this.references = Arrays.copyOf(this.references, this.references.length * 2);
+                } else {
+                    this.dictionary.set(id - 1, tag);
+                }
+                this.lookup.put(tag, id);
+            }
+
+            this.references[id - 1]++;
+            this.ids[row] = id;
+            return true;
+        }
+
+        @Override
+        T get(int row) {
+            int id = this.ids[row];
+            return id == 0 ? null : this.dictionary.get(id - 1);
+        }
+
+        @Override
+        void clear(int row) {
+            int id = this.ids[row];
+            if (id == 0)
+                return;
+
+            this.ids[row] = 0;
+            if (--this.references[id - 1] == 0) {
+                // Popped rows release their values right away so they don't wait for the next shift
+                this.lookup.remove(this.dictionary.set(id - 1, null));
+                this.freeIds.push(id);
+            }
+        }
+
+        @Override
+        void shift(int from, int length) {
+            // The rows before from have all been cleared already, so the references don't change
+            System.arraycopy(this.ids, from, this.ids, 0, length);
+            Arrays.fill(this.ids, length, from + length, 0);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.ids = Arrays.copyOf(this.ids, capacity);
+        }
+
+    }
+
+}
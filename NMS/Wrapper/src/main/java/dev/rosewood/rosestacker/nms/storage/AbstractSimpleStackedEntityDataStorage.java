@@ -2,13 +2,11 @@ package dev.rosewood.rosestacker.nms.storage;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Function;
 import org.bukkit.entity.LivingEntity;
 
 public abstract class AbstractSimpleStackedEntityDataStorage extends StackedEntityDataStorage {
@@ -24,10 +22,17 @@ public abstract class AbstractSimpleStackedEntityDataStorage extends StackedEnti
     public AbstractSimpleStackedEntityDataStorage(LivingEntity livingEntity, byte[] data) {
         this(livingEntity);
 
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-             ObjectInputStream dataInput = new ObjectInputStream(inputStream)) {
+        if (StackedEntityDataIO.isLegacyFormat(data)) {
+            try (ObjectInputStream dataInput = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                this.size = dataInput.readInt();
+            } catch (Exception e) {
+                throw new StackedEntityDataIOException(e);
+            }
+            return;
+        }
 
-            this.size = dataInput.readInt();
+        try (DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(data))) {
+            this.size = StackedEntityDataIO.readVarInt(dataInput);
         } catch (Exception e) {
             throw new StackedEntityDataIOException(e);
         }
@@ -89,10 +94,10 @@ public abstract class AbstractSimpleStackedEntityDataStorage extends StackedEnti
 
     @Override
     public byte[] serialize(int maxAmount) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream dataOutput = new ObjectOutputStream(outputStream)) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(5);
+             DataOutputStream dataOutput = new DataOutputStream(outputStream)) {
 
-            dataOutput.writeInt(Math.min(maxAmount, this.size()));
+            StackedEntityDataIO.writeVarInt(dataOutput, Math.min(maxAmount, this.size()));
 
             dataOutput.close();
             return outputStream.toByteArray();
@@ -102,31 +107,25 @@ public abstract class AbstractSimpleStackedEntityDataStorage extends StackedEnti
     }
 
     @Override
-    public void forEachCapped(int count, Consumer<LivingEntity> consumer) {
+    public void forEachEntry(EntityDataVisitor visitor) {
         LivingEntity entity = this.entity.get();
         if (entity == null)
             return;
 
-        int amount = Math.min(count, this.size);
-        LivingEntity clone = this.copy().createEntity(entity.getLocation(), false, entity.getType());
-        for (int i = 0; i < amount; i++)
-            consumer.accept(clone);
-    }
-
-    @Override
-    public List<LivingEntity> removeIf(Function<LivingEntity, Boolean> function) {
-        LivingEntity entity = this.entity.get();
-        if (entity == null)
-            return List.of();
-
-        List<LivingEntity> removedEntries = new ArrayList<>(this.size);
+        // Every entry is a clone of the main entity so a single scratch entity is shared, replacing is a no-op
         LivingEntity clone = this.copy().createEntity(entity.getLocation(), false, entity.getType());
-        for (int i = 0; i < this.size; i++)
-            if (function.apply(clone))
-                removedEntries.add(clone);
+        int size = this.size;
+        int removed = 0;
+        for (int i = 0; i < size; i++) {
+            EntityDataVisitor.Action action = visitor.visit(clone);
+            if (action == EntityDataVisitor.Action.REMOVE) {
+                removed++;
+            } else if (action == EntityDataVisitor.Action.STOP) {
+                break;
+            }
+        }
 
-        this.size -= removedEntries.size();
-        return removedEntries;
+        this.size -= removed;
     }
 
     protected abstract EntityDataEntry copy();
@@ -0,0 +1,45 @@
+package dev.rosewood.rosestacker.nms.storage;
+
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Visits the entries of a {@link StackedEntityDataStorage} one at a time, see {@link StackedEntityDataStorage#forEachEntry(EntityDataVisitor)}
+ */
+@FunctionalInterface
+public interface EntityDataVisitor {
+
+    /**
+     * Visits an entry in the storage.
+     * Storage types that don't keep data per entry may pass the same entity for every entry, don't hold onto it unless
+     * the entry is being removed.
+     *
+     * @param entity An entity created from the entry, not added to the world
+     * @return What to do with the entry
+     */
+    Action visit(LivingEntity entity);
+
+    enum Action {
+
+        /**
+         * Keep the entry as it was and continue to the next entry
+         */
+        KEEP,
+
+        /**
+         * Re-serialize the entry from the visited entity and continue to the next entry
+         */
+        REPLACE,
+
+        /**
+         * Remove the entry and continue to the next entry
+         */
+        REMOVE,
+
+        /**
+         * Keep the entry as it was and stop visiting entries
+         */
+        STOP
+
+    }
+
+}
@@ -0,0 +1,312 @@
+package dev.rosewood.rosestacker.nms.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFO queue that keeps the first entries on the heap and spills everything after them into an off-heap buffer
+ * in serialized form. Spilled entries are streamed back onto the heap as the hot entries are removed.
+ * <p>
+ * Bytes that have been written to a spill buffer are never modified in place, compacting or growing always moves the
+ * live entries into a new buffer. This lets iterators read from the buffer they started with while entries are
+ * added and removed.
+ *
+ * @param <T> The type of element
+ */
+public class SpillingQueue<T> extends AbstractQueue<T> {
+
+    private static final int MIN_SPILL_CAPACITY = 8192;
+
+    private final int hotLimit;
+    private final Codec<T> codec;
+    private final ArrayDeque<T> hot;
+
+    private ByteBuffer spill;
+    private int spillReadIndex;
+    private int spillWriteIndex;
+    private int spillCount;
+
+    private final ByteArrayOutputStream encodeBuffer;
+    private final DataOutputStream encodeOutput;
+
+    /**
+     * @param hotLimit The max number of entries to keep on the heap
+     * @param codec The codec used to move entries in and out of the spill buffer
+     */
+    public SpillingQueue(int hotLimit, Codec<T> codec) {
+        if (hotLimit <= 0)
+            throw new IllegalArgumentException("hotLimit must be greater than 0");
+
+        this.hotLimit = hotLimit;
+        this.codec = codec;
+        this.hot = new ArrayDeque<>();
+        this.encodeBuffer = new ByteArrayOutputStream();
+        this.encodeOutput = new DataOutputStream(this.encodeBuffer);
+    }
+
+    @Override
+    public synchronized boolean offer(T element) {
+        if (element == null)
+            throw new NullPointerException();
+
+        if (this.spillCount == 0 && this.hot.size() < this.hotLimit) {
+            this.hot.add(element);
+        } else {
+            this.spill(element);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized T poll() {
+        if (this.hot.isEmpty())
+            this.refill();
+        return this.hot.poll();
+    }
+
+    @Override
+    public synchronized T peek() {
+        if (this.hot.isEmpty())
+            this.refill();
+        return this.hot.peek();
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.hot.size() + this.spillCount;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.hot.clear();
+        this.releaseSpill();
+    }
+
+    /**
+     * Replaces or removes entries by their position in the queue while keeping the order of everything else.
+     * Spilled entries that don't change are copied into the new buffer as they are, only the replacements are encoded.
+     *
+     * @param changes The new element for each position to change, a null element removes the entry at that position
+     */
+    public synchronized void update(Map<Integer, T> changes) {
+        int hotSize = this.hot.size();
+        boolean hotChanged = false;
+        boolean spillChanged = false;
+        for (int index : changes.keySet()) {
+            if (index < hotSize) {
+                hotChanged = true;
+            } else if (index < hotSize + this.spillCount) {
+                spillChanged = true;
+            }
+        }
+
+        if (hotChanged) {
+            for (int i = 0; i < hotSize; i++) {
+                T element = this.hot.poll();
+                if (changes.containsKey(i))
+                    element = changes.get(i);
+                if (element != null)
+                    this.hot.add(element);
+            }
+        }
+
+        if (!spillChanged)
+            return;
+
+        // The old buffer is left untouched for any iterators still reading from it
+        ByteBuffer previous = this.spill;
+        int position = this.spillReadIndex;
+        int spilled = this.spillCount;
+        this.spill = ByteBuffer.allocateDirect(Math.max(MIN_SPILL_CAPACITY, this.spillWriteIndex - this.spillReadIndex));
+        this.spillReadIndex = 0;
+        this.spillWriteIndex = 0;
+        this.spillCount = 0;
+
+        for (int i = 0; i < spilled; i++) {
+            int entryLength = Integer.BYTES + previous.getInt(position);
+            int index = hotSize + i;
+            if (!changes.containsKey(index)) {
+                this.ensureSpillCapacity(entryLength);
+                this.spill.put(this.spillWriteIndex, previous, position, entryLength);
+                this.spillWriteIndex += entryLength;
+                this.spillCount++;
+            } else if (changes.get(index) != null) {
+                this.spill(changes.get(index));
+            }
+            position += entryLength;
+        }
+
+        if (this.spillCount == 0)
+            this.releaseSpill();
+    }
+
+    /**
+     * Iterates a weakly consistent view of the queue, spilled entries are decoded one at a time as they are reached.
+     * Removal through the iterator is not supported.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    @Override
+    public synchronized Iterator<T> iterator() {
+        @SuppressWarnings("unchecked")
+        T[] hotSnapshot = (T[]) this.hot.toArray();
+        ByteBuffer spillSnapshot = this.spill == null ? null : this.spill.duplicate();
+        if (spillSnapshot != null) {
+            spillSnapshot.limit(this.spillWriteIndex);
+            spillSnapshot.position(this.spillReadIndex);
+        }
+        int spilled = this.spillCount;
+
+        return new Iterator<>() {
+
+            private int hotIndex;
+            private int spillIndex;
+            private final DataInput input = spillSnapshot == null ? null : new DataInputStream(new ByteBufferInputStream(spillSnapshot));
+
+            @Override
+            public boolean hasNext() {
+                return this.hotIndex < hotSnapshot.length || this.spillIndex < spilled;
+            }
+
+            @Override
+            public T next() {
+                if (this.hotIndex < hotSnapshot.length)
+                    return hotSnapshot[this.hotIndex++];
+                if (this.spillIndex >= spilled)
+                    throw new NoSuchElementException();
+
+                this.spillIndex++;
+                try {
+                    this.input.readInt(); // Entry length, not needed when reading sequentially
+                    return SpillingQueue.this.codec.read(this.input);
+                } catch (IOException e) {
+                    throw new StackedEntityDataIOException(e);
+                }
+            }
+
+        };
+    }
+
+    private void spill(T element) {
+        try {
+            this.encodeBuffer.reset();
+            this.codec.write(element, this.encodeOutput);
+            this.encodeOutput.flush();
+        } catch (IOException e) {
+            throw new StackedEntityDataIOException(e);
+        }
+
+        int length = this.encodeBuffer.size();
+        this.ensureSpillCapacity(Integer.BYTES + length);
+        this.spill.putInt(this.spillWriteIndex, length);
+        this.spill.put(this.spillWriteIndex + Integer.BYTES, this.encodeBuffer.toByteArray());
+        this.spillWriteIndex += Integer.BYTES + length;
+        this.spillCount++;
+    }
+
+    private void refill() {
+        if (this.spillCount == 0)
+            return;
+
+        ByteBuffer view = this.spill.duplicate();
+        view.limit(this.spillWriteIndex);
+        view.position(this.spillReadIndex);
+        DataInput input = new DataInputStream(new ByteBufferInputStream(view));
+        try {
+            while (this.spillCount > 0 && this.hot.size() < this.hotLimit) {
+                int length = input.readInt();
+                this.hot.add(this.codec.read(input));
+                this.spillReadIndex += Integer.BYTES + length;
+                this.spillCount--;
+            }
+        } catch (IOException e) {
+            throw new StackedEntityDataIOException(e);
+        }
+
+        if (this.spillCount == 0)
+            this.releaseSpill();
+    }
+
+    private void ensureSpillCapacity(int required) {
+        if (this.spill != null && this.spill.capacity() - this.spillWriteIndex >= required)
+            return;
+
+        int live = this.spillWriteIndex - this.spillReadIndex;
+        int capacity = Math.max(MIN_SPILL_CAPACITY, Math.max(live * 2, live + required));
+        ByteBuffer resized = ByteBuffer.allocateDirect(capacity);
+        if (this.spill != null) {
+            ByteBuffer liveRegion = this.spill.duplicate();
+            liveRegion.limit(this.spillWriteIndex);
+            liveRegion.position(this.spillReadIndex);
+            resized.put(liveRegion);
+        }
+
+        this.spill = resized;
+        this.spillReadIndex = 0;
+        this.spillWriteIndex = live;
+    }
+
+    private void releaseSpill() {
+        this.spill = null;
+        this.spillReadIndex = 0;
+        this.spillWriteIndex = 0;
+        this.spillCount = 0;
+    }
+
+    /**
+     * Converts queue elements to and from their spilled form
+     *
+     * @param <T> The type of element
+     */
+    public interface Codec<T> {
+
+        void write(T element, DataOutput dataOutput) throws IOException;
+
+        T read(DataInput dataInput) throws IOException;
+
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!this.buffer.hasRemaining())
+                return -1;
+
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,206 @@
+package dev.rosewood.rosestacker.nms.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Shared helpers for reading and writing the binary stacked entity data formats
+ */
+public final class StackedEntityDataIO {
+
+    private static final int ENTITY_DATA_VERSION = 3;
+    private static final byte ENTITY_DATA_COMPRESSION_NONE = 0;
+    private static final byte ENTITY_DATA_COMPRESSION_DEFLATE = 1;
+
+    private StackedEntityDataIO() {
+
+    }
+
+    /**
+     * Wraps the serialized data of a storage in the current stacked entity data format
+     *
+     * @param type The type of the storage the data was serialized from
+     * @param storageData The serialized storage data
+     * @param compressionLevel The DEFLATE level to compress the data with, or -1 to store it uncompressed.
+     *                         The data is stored uncompressed anyway if compressing it doesn't make it smaller.
+     * @return The wrapped data
+     * @throws IOException If the data could not be written
+     */
+    public static byte[] writeEntityData(StackedEntityDataStorageType type, byte[] storageData, int compressionLevel) throws IOException {
+        // Only keep the compressed data if it actually ended up smaller, tiny payloads tend to grow
+        byte compression = ENTITY_DATA_COMPRESSION_NONE;
+        byte[] body = storageData;
+        if (compressionLevel >= 0) {
+            byte[] deflated = deflate(storageData, compressionLevel);
+            if (deflated.length < storageData.length) {
+                compression = ENTITY_DATA_COMPRESSION_DEFLATE;
+                body = deflated;
+            }
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length + 12);
+        try (DataOutputStream dataOutput = new DataOutputStream(outputStream)) {
+            dataOutput.writeByte(ENTITY_DATA_VERSION);
+            dataOutput.writeByte(compression);
+            writeVarInt(dataOutput, type.getId());
+            writeVarInt(dataOutput, storageData.length);
+            dataOutput.write(body);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Unwraps stacked entity data written by {@link #writeEntityData(StackedEntityDataStorageType, byte[], int)} or
+     * by one of the legacy formats
+     *
+     * @param data The wrapped data
+     * @return The storage type and serialized storage data, or null if the data version is unknown
+     * @throws IOException If the data could not be read
+     */
+    public static EntityData readEntityData(byte[] data) throws IOException {
+        // Versions 1 and 2 were always written as a gzipped ObjectOutputStream
+        if (data.length >= 2 && (data[0] & 0xFF) == (GZIPInputStream.GZIP_MAGIC & 0xFF) && (data[1] & 0xFF) == (GZIPInputStream.GZIP_MAGIC >> 8))
+            return readLegacyEntityData(data);
+
+        try (DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(data))) {
+            int dataVersion = dataInput.readUnsignedByte();
+            if (dataVersion != ENTITY_DATA_VERSION)
+                return null;
+
+            int compression = dataInput.readUnsignedByte();
+            StackedEntityDataStorageType type = StackedEntityDataStorageType.fromId(readVarInt(dataInput));
+            byte[] storageData = new byte[readVarInt(dataInput)];
+            if (compression == ENTITY_DATA_COMPRESSION_NONE) {
+                dataInput.readFully(storageData);
+            } else if (compression == ENTITY_DATA_COMPRESSION_DEFLATE) {
+                inflate(data, data.length - dataInput.available(), storageData);
+            } else {
+                throw new IOException("Unknown stacked entity data compression type " + compression);
+            }
+            return new EntityData(type, storageData);
+        }
+    }
+
+    private static EntityData readLegacyEntityData(byte[] data) throws IOException {
+        try (ObjectInputStream dataInput = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            int dataVersion = dataInput.readInt();
+            StackedEntityDataStorageType type;
+            if (dataVersion == 1) {
+                type = StackedEntityDataStorageType.NBT;
+            } else if (dataVersion == 2) {
+                type = StackedEntityDataStorageType.fromId(dataInput.readInt());
+            } else {
+                return null;
+            }
+
+            byte[] storageData = new byte[dataInput.readInt()];
+            dataInput.readFully(storageData);
+            return new EntityData(type, storageData);
+        }
+    }
+
+    private static byte[] deflate(byte[] data, int level) {
+        Deflater deflater = new Deflater(Math.max(Deflater.NO_COMPRESSION, Math.min(Deflater.BEST_COMPRESSION, level)));
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void inflate(byte[] data, int offset, byte[] output) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            int read = 0;
+            while (read < output.length && !inflater.finished()) {
+                int length = inflater.inflate(output, read, output.length - read);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += length;
+            }
+
+            if (read != output.length)
+                throw new IOException("Expected " + output.length + " bytes of stacked entity data but got " + read);
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Checks if the given data was written with the legacy ObjectOutputStream based format.
+     * The current format never starts with the Java serialization stream header.
+     *
+     * @param data The data to check
+     * @return true if the data was written with an ObjectOutputStream, false otherwise
+     */
+    public static boolean isLegacyFormat(byte[] data) {
+        return data.length >= 4
+                && (short) (((data[0] & 0xFF) << 8) | (data[1] & 0xFF)) == ObjectStreamConstants.STREAM_MAGIC
+                && (short) (((data[2] & 0xFF) << 8) | (data[3] & 0xFF)) == ObjectStreamConstants.STREAM_VERSION;
+    }
+
+    /**
+     * Writes a non-negative int using a variable amount of bytes, smaller values use fewer bytes
+     *
+     * @param dataOutput The output to write to
+     * @param value The value to write
+     * @throws IOException If the value could not be written
+     */
+    public static void writeVarInt(DataOutput dataOutput, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            dataOutput.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dataOutput.writeByte(value);
+    }
+
+    /**
+     * Reads an int written with {@link #writeVarInt(DataOutput, int)}
+     *
+     * @param dataInput The input to read from
+     * @return The value that was read
+     * @throws IOException If the value could not be read or is too long
+     */
+    public static int readVarInt(DataInput dataInput) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = dataInput.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("VarInt is too long");
+    }
+
+    /**
+     * Stacked entity data read from an entity
+     *
+     * @param type The type of the storage the data was serialized from, null if the type is unknown
+     * @param storageData The serialized storage data
+     */
+    public record EntityData(StackedEntityDataStorageType type, byte[] storageData) { }
+
+}
@@ -2,6 +2,7 @@ package dev.rosewood.rosestacker.nms.storage;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -66,6 +67,17 @@ public abstract class StackedEntityDataStorage {
      */
     public abstract void addClones(int amount);
 
+    /**
+     * Adds a number of copies of an entity to the data storage
+     *
+     * @param entity The entity to add copies of
+     * @param amount The amount of copies to add
+     */
+    public void addCopies(LivingEntity entity, int amount) {
+        for (int i = 0; i < amount; i++)
+            this.add(entity);
+    }
+
     /**
      * @return A StackedEntityDataEntry object for the entity at the front of the list
      */
@@ -130,25 +142,53 @@ public abstract class StackedEntityDataStorage {
      *
      * @param count the number of entries to call
      */
-    public abstract void forEachCapped(int count, Consumer<LivingEntity> consumer);
+    public void forEachCapped(int count, Consumer<LivingEntity> consumer) {
+        if (count <= 0)
+            return;
+
+        int[] remaining = { count };
+        this.forEachEntry(entity -> {
+            consumer.accept(entity);
+            return --remaining[0] > 0 ? EntityDataVisitor.Action.KEEP : EntityDataVisitor.Action.STOP;
+        });
+    }
 
     /**
-     * Calls the given function for each element in this storage.
-     * Default implementation acts the same as {@link #forEach(Consumer)}.
+     * Calls the given function for each element in this storage
      *
      * @param function The function to call for each element, returning true will re-serialize the element
      */
     public void forEachTransforming(Function<LivingEntity, Boolean> function) {
-        this.forEach(function::apply);
+        this.forEachEntry(entity -> function.apply(entity) ? EntityDataVisitor.Action.REPLACE : EntityDataVisitor.Action.KEEP);
     }
 
     /**
-     * Calls the given function for each element in this storage and removes any element where the function returns true
+     * Calls the given function for each element in this storage and removes any element where the function returns true.
+     * Elements that are kept are re-serialized.
      *
      * @param function The function to call for each element
      * @return a list of all removed entries
      */
-    public abstract List<LivingEntity> removeIf(Function<LivingEntity, Boolean> function);
+    public List<LivingEntity> removeIf(Function<LivingEntity, Boolean> function) {
+        List<LivingEntity> removedEntries = new ArrayList<>();
+        this.forEachEntry(entity -> {
+            if (function.apply(entity)) {
+                removedEntries.add(entity);
+                return EntityDataVisitor.Action.REMOVE;
+            }
+            return EntityDataVisitor.Action.REPLACE;
+        });
+        return removedEntries;
+    }
+
+    /**
+     * Visits each entry in this storage in order, creating the entity for each entry only as it is reached.
+     * Entries can be kept, replaced or removed as they are visited, and visiting can be stopped early without touching
+     * the remaining entries.
+     *
+     * @param visitor The visitor to call for each entry
+     */
+    public abstract void forEachEntry(EntityDataVisitor visitor);
 
     /**
      * Creates a backing queue to be used for the storage
@@ -160,4 +200,19 @@ public abstract class StackedEntityDataStorage {
         return new LinkedBlockingQueue<>();
     }
 
+    /**
+     * Creates a backing queue to be used for the storage that keeps a limited number of entries on the heap.
+     * Entries past the limit are serialized with the codec and held off-heap until they are needed.
+     *
+     * @param hotLimit the max number of entries to keep on the heap, or -1 to keep everything on the heap
+     * @param codec the codec used to serialize entries that don't fit on the heap
+     * @return the backing queue
+     * @param <T> the type of the queue
+     */
+    public static <T> Queue<T> createBackingQueue(int hotLimit, SpillingQueue.Codec<T> codec) {
+        if (hotLimit <= 0)
+            return createBackingQueue();
+        return new SpillingQueue<>(hotLimit, codec);
+    }
+
 }
@@ -5,7 +5,8 @@ import java.util.Arrays;
 public enum StackedEntityDataStorageType {
 
     NBT(0, "Store all NBT data for internal entities, memory and performance intensive but highly accurate"),
-    SIMPLE(1, "Store only the stack size and clone the main entity, memory efficient and extremely fast but less accurate");
+    SIMPLE(1, "Store only the stack size and clone the main entity, memory efficient and extremely fast but less accurate"),
+    COLUMNAR(2, "Store all NBT data for internal entities packed by key, as accurate as NBT while using far less memory for large stacks");
 
     private final int id;
     private final String description;
@@ -14,6 +14,7 @@ import net.minecraft.server.v1_16_R3.DataWatcher;
 import net.minecraft.server.v1_16_R3.DataWatcherRegistry;
 import net.minecraft.server.v1_16_R3.EntityTypes;
 import net.minecraft.server.v1_16_R3.IChatBaseComponent;
+import net.minecraft.server.v1_16_R3.Packet;
 import net.minecraft.server.v1_16_R3.PacketPlayOutEntityDestroy;
 import net.minecraft.server.v1_16_R3.PacketPlayOutEntityMetadata;
 import net.minecraft.server.v1_16_R3.PacketPlayOutSpawnEntity;
@@ -39,6 +40,7 @@ public class HologramImpl extends Hologram {
 
     @Override
     protected void create(Player player) {
+        boolean visible = this.watchers.getOrDefault(player, true);
         for (HologramLine line : this.hologramLines) {
             PacketPlayOutSpawnEntity packet = new PacketPlayOutSpawnEntity(
                     line.getEntityId(),
@@ -53,7 +55,8 @@ public class HologramImpl extends Hologram {
                     Vec3D.ORIGIN
             );
 
-            ((CraftPlayer) player).getHandle().playerConnection.sendPacket(packet);
+            this.send(player, packet);
+            this.send(player, this.getDataPacket(line, visible));
         }
     }
 
@@ -63,19 +66,13 @@ public class HologramImpl extends Hologram {
             if (!force && !line.checkDirty())
                 continue;
 
-            List<DataWatcher.Item<?>> dataItems = new ArrayList<>(DATA_ITEMS);
-            Optional<IChatBaseComponent> chatMessage = Optional.of(CraftChatMessage.fromStringOrNull(line.getText()));
-            dataItems.add(new DataWatcher.Item<>(DataWatcherRegistry.f.a(2), chatMessage));
-
+            // Each packet is built at most once per visibility and shared between all players
             for (Player player : players) {
                 Boolean visible = this.watchers.get(player);
                 if (visible == null)
-                    return;
+                    continue;
 
-                List<DataWatcher.Item<?>> allDataItems = new ArrayList<>(dataItems);
-                allDataItems.add(new DataWatcher.Item<>(DataWatcherRegistry.i.a(3), visible));
-
-                ((CraftPlayer) player).getHandle().playerConnection.sendPacket(new PacketPlayOutEntityMetadata(line.getEntityId(), new DataWatcherWrapper(allDataItems), false));
+                this.send(player, this.getDataPacket(line, visible));
             }
         }
     }
@@ -84,7 +81,26 @@ public class HologramImpl extends Hologram {
     protected void delete(Player player) {
         PacketPlayOutEntityDestroy packet = new PacketPlayOutEntityDestroy(this.hologramLines.stream().mapToInt(HologramLine::getEntityId).toArray());
 
+        this.send(player, packet);
+    }
+
+    private PacketPlayOutEntityMetadata getDataPacket(HologramLine line, boolean visible) {
+        PacketPlayOutEntityMetadata packet = (PacketPlayOutEntityMetadata) line.getCachedPacket(visible);
+        if (packet == null) {
+            List<DataWatcher.Item<?>> dataItems = new ArrayList<>(DATA_ITEMS);
+            Optional<IChatBaseComponent> chatMessage = Optional.of(CraftChatMessage.fromStringOrNull(line.getText()));
+            dataItems.add(new DataWatcher.Item<>(DataWatcherRegistry.f.a(2), chatMessage));
+            dataItems.add(new DataWatcher.Item<>(DataWatcherRegistry.i.a(3), visible));
+
+            packet = new PacketPlayOutEntityMetadata(line.getEntityId(), new DataWatcherWrapper(dataItems), false);
+            line.setCachedPacket(visible, packet);
+        }
+        return packet;
+    }
+
+    private void send(Player player, Packet<?> packet) {
         ((CraftPlayer) player).getHandle().playerConnection.sendPacket(packet);
+        recordPacketsSent(1);
     }
 
 }
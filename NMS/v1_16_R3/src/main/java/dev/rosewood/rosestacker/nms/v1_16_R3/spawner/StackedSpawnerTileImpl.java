@@ -1,12 +1,12 @@
 package dev.rosewood.rosestacker.nms.v1_16_R3.spawner;
 
-import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.RoseStacker;
+import dev.rosewood.rosestacker.manager.SpawnerTickManager;
 import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
 import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
 import dev.rosewood.rosestacker.nms.util.ExtraUtils;
 import dev.rosewood.rosestacker.spawning.MobSpawningMethod;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
-import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.server.v1_16_R3.BlockPosition;
@@ -28,11 +28,6 @@ public class StackedSpawnerTileImpl extends MobSpawnerAbstract implements Stacke
     private final TileEntityMobSpawner blockEntity;
     private final BlockPosition blockPos;
     private final StackedSpawner stackedSpawner;
-    private boolean redstoneDeactivated;
-    private int redstoneTimeSinceLastCheck;
-    private boolean playersNearby;
-    private int playersTimeSinceLastCheck;
-    private boolean checkedInitialConditions;
 
     public StackedSpawnerTileImpl(MobSpawnerAbstract old, TileEntityMobSpawner blockEntity, StackedSpawner stackedSpawner) {
         this.blockEntity = blockEntity;
@@ -44,51 +39,14 @@ public class StackedSpawnerTileImpl extends MobSpawnerAbstract implements Stacke
 
     @Override
     public void c() {
+        // Spawning is driven by the SpawnerTickManager, it wakes this spawner through spawn() once it is due
+    }
+
+    @Override
+    public int spawn() {
         World level = this.a();
         if (level == null)
-            return;
-
-        // Only tick the spawner if a player is nearby
-        this.playersTimeSinceLastCheck = (this.playersTimeSinceLastCheck + 1) % SettingKey.SPAWNER_PLAYER_CHECK_FREQUENCY.get();
-        if (this.playersTimeSinceLastCheck == 0)
-            this.playersNearby = this.isNearPlayer(level, this.blockPos);
-
-        if (!this.playersNearby)
-            return;
-
-        if (!this.checkedInitialConditions) {
-            this.checkedInitialConditions = true;
-            this.trySpawns(true);
-        }
-
-        SpawnerStackSettings stackSettings = this.stackedSpawner.getStackSettings();
-
-        // Handle redstone deactivation if enabled
-        if (SettingKey.SPAWNER_DEACTIVATE_WHEN_POWERED.get()) {
-            if (this.redstoneTimeSinceLastCheck == 0) {
-                boolean hasSignal = level.isBlockIndirectlyPowered(this.blockPos);
-                if (this.redstoneDeactivated && !hasSignal) {
-                    this.redstoneDeactivated = false;
-                    this.requiredPlayerRange = stackSettings.getPlayerActivationRange();
-                    this.updateTile();
-                } else if (!this.redstoneDeactivated && hasSignal) {
-                    this.redstoneDeactivated = true;
-                    this.requiredPlayerRange = 0;
-                    this.updateTile();
-                }
-
-                if (this.redstoneDeactivated)
-                    return;
-            }
-
-            this.redstoneTimeSinceLastCheck = (this.redstoneTimeSinceLastCheck + 1) % SettingKey.SPAWNER_POWERED_CHECK_FREQUENCY.get();
-        }
-
-        // Count down spawn timer unless we are ready to spawn
-        if (this.spawnDelay > 0) {
-            this.spawnDelay--;
-            return;
-        }
+            return this.spawnDelay;
 
         // Reset spawn delay
         this.spawnDelay = level.getRandom().nextInt(this.maxSpawnDelay - this.minSpawnDelay + 1) + this.minSpawnDelay;
@@ -99,7 +57,25 @@ public class StackedSpawnerTileImpl extends MobSpawnerAbstract implements Stacke
 
         // Randomize spawn potentials
         if (!this.mobs.isEmpty())
-            this.setSpawnData(WeightedRandom.a(this.a().random, this.mobs));
+            this.setSpawnData(WeightedRandom.a(level.random, this.mobs));
+        return this.spawnDelay;
+    }
+
+    @Override
+    public void checkSpawnConditions() {
+        this.trySpawns(true);
+    }
+
+    @Override
+    public boolean hasRedstoneSignal() {
+        World level = this.a();
+        return level != null && level.isBlockIndirectlyPowered(this.blockPos);
+    }
+
+    @Override
+    public void setRedstoneDeactivated(boolean deactivated) {
+        this.requiredPlayerRange = deactivated ? 0 : this.stackedSpawner.getStackSettings().getPlayerActivationRange();
+        this.updateTile();
     }
 
     private void trySpawns(boolean onlyCheckConditions) {
@@ -150,12 +126,6 @@ public class StackedSpawnerTileImpl extends MobSpawnerAbstract implements Stacke
         }
     }
 
-    private boolean isNearPlayer(World level, BlockPosition blockPos) {
-        if (this.stackedSpawner.getStackSettings().hasUnlimitedPlayerActivationRange())
-            return true;
-        return level.isPlayerNearby((double) blockPos.getX() + 0.5D, (double) blockPos.getY() + 0.5D, (double) blockPos.getZ() + 0.5D, Math.max(this.stackedSpawner.getStackSettings().getPlayerActivationRange(), 0.1));
-    }
-
     private void loadOld(MobSpawnerAbstract baseSpawner) {
         this.spawnDelay = baseSpawner.spawnDelay;
         this.mobs.clear();
@@ -217,12 +187,13 @@ public class StackedSpawnerTileImpl extends MobSpawnerAbstract implements Stacke
 
     @Override
     public int getDelay() {
-        return this.spawnDelay;
+        return RoseStacker.getInstance().getManager(SpawnerTickManager.class).getDelay(this.stackedSpawner, this.spawnDelay);
     }
 
     @Override
     public void setDelay(int delay) {
         this.spawnDelay = delay;
+        RoseStacker.getInstance().getManager(SpawnerTickManager.class).setDelay(this.stackedSpawner, delay);
         this.updateTile();
     }
 
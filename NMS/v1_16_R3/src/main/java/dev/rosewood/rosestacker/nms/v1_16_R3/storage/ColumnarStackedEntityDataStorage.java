@@ -0,0 +1,168 @@
+package dev.rosewood.rosestacker.nms.v1_16_R3.storage;
+
+import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.nms.storage.AbstractColumnarStackedEntityDataStorage;
+import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
+import dev.rosewood.rosestacker.nms.v1_16_R3.NMSHandlerImpl;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+import net.minecraft.server.v1_16_R3.NBTBase;
+import net.minecraft.server.v1_16_R3.NBTCompressedStreamTools;
+import net.minecraft.server.v1_16_R3.NBTNumber;
+import net.minecraft.server.v1_16_R3.NBTTagByte;
+import net.minecraft.server.v1_16_R3.NBTTagCompound;
+import net.minecraft.server.v1_16_R3.NBTTagDouble;
+import net.minecraft.server.v1_16_R3.NBTTagFloat;
+import net.minecraft.server.v1_16_R3.NBTTagInt;
+import net.minecraft.server.v1_16_R3.NBTTagList;
+import net.minecraft.server.v1_16_R3.NBTTagLong;
+import net.minecraft.server.v1_16_R3.NBTTagShort;
+import org.bukkit.entity.LivingEntity;
+
+public class ColumnarStackedEntityDataStorage extends AbstractColumnarStackedEntityDataStorage<NBTTagCompound, NBTBase> {
+
+    public ColumnarStackedEntityDataStorage(LivingEntity livingEntity) {
+        super(livingEntity);
+        this.loadBase(livingEntity);
+    }
+
+    public ColumnarStackedEntityDataStorage(LivingEntity livingEntity, byte[] data) {
+        super(livingEntity);
+        this.deserialize(data);
+    }
+
+    @Override
+    protected NBTTagCompound saveEntity(LivingEntity entity) {
+        NBTTagCompound compoundTag = new NBTTagCompound();
+        ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, compoundTag);
+        return compoundTag;
+    }
+
+    @Override
+    protected NBTTagCompound getCompound(EntityDataEntry entry) {
+        return ((NBTEntityDataEntry) entry).get();
+    }
+
+    @Override
+    protected NBTEntityDataEntry createEntry(NBTTagCompound compound) {
+        return new NBTEntityDataEntry(compound);
+    }
+
+    @Override
+    protected NBTTagCompound createCompound() {
+        return new NBTTagCompound();
+    }
+
+    @Override
+    protected Collection<String> getKeys(NBTTagCompound compound) {
+        return compound.getKeys();
+    }
+
+    @Override
+    protected NBTBase getTag(NBTTagCompound compound, String key) {
+        return compound.get(key);
+    }
+
+    @Override
+    protected void putTag(NBTTagCompound compound, String key, NBTBase tag) {
+        compound.set(key, tag);
+    }
+
+    @Override
+    protected void removeTag(NBTTagCompound compound, String key) {
+        compound.remove(key);
+    }
+
+    @Override
+    protected void merge(NBTTagCompound target, NBTTagCompound source) {
+        target.a(source);
+    }
+
+    @Override
+    protected NBTTagCompound getCompound(NBTTagCompound compound, String key) {
+        return compound.getCompound(key);
+    }
+
+    @Override
+    protected NBTBase getCompoundList(NBTTagCompound compound, String key) {
+        return compound.getList(key, 10);
+    }
+
+    @Override
+    protected NBTTagCompound getListCompound(NBTBase tag, int index) {
+        return ((NBTTagList) tag).getCompound(index);
+    }
+
+    @Override
+    protected void removeListElement(NBTBase tag, int index) {
+        ((NBTTagList) tag).remove(index);
+    }
+
+    @Override
+    protected String getString(NBTTagCompound compound, String key) {
+        return compound.getString(key);
+    }
+
+    @Override
+    protected void putUUID(NBTTagCompound compound, String key, UUID uuid) {
+        compound.a(key, uuid);
+    }
+
+    @Override
+    protected byte getTagId(NBTBase tag) {
+        return tag.getTypeId();
+    }
+
+    @Override
+    protected int getListSize(NBTBase tag) {
+        return ((NBTTagList) tag).size();
+    }
+
+    @Override
+    protected NBTBase getListElement(NBTBase tag, int index) {
+        return ((NBTTagList) tag).get(index);
+    }
+
+    @Override
+    protected long getNumericBits(NBTBase tag) {
+        return switch (tag.getTypeId()) {
+            case TAG_FLOAT -> Float.floatToRawIntBits(((NBTNumber) tag).asFloat());
+            case TAG_DOUBLE -> Double.doubleToRawLongBits(((NBTNumber) tag).asDouble());
+            default -> ((NBTNumber) tag).asLong();
+        };
+    }
+
+    @Override
+    protected NBTBase createNumericTag(byte tagId, long bits) {
+        return switch (tagId) {
+            case TAG_BYTE -> NBTTagByte.a((byte) bits);
+            case TAG_SHORT -> NBTTagShort.a((short) bits);
+            case TAG_INT -> NBTTagInt.a((int) bits);
+            case TAG_LONG -> NBTTagLong.a(bits);
+            case TAG_FLOAT -> NBTTagFloat.a(Float.intBitsToFloat((int) bits));
+            default -> NBTTagDouble.a(Double.longBitsToDouble(bits));
+        };
+    }
+
+    @Override
+    protected NBTBase createNumericListTag(byte elementId, long[] bits, int offset, int length) {
+        NBTTagList listTag = new NBTTagList();
+        for (int i = 0; i < length; i++)
+            listTag.add(this.createNumericTag(elementId, bits[offset + i]));
+        return listTag;
+    }
+
+    @Override
+    protected void writeCompound(NBTTagCompound compound, DataOutput dataOutput) throws IOException {
+        NBTCompressedStreamTools.a(compound, dataOutput);
+    }
+
+    @Override
+    protected NBTTagCompound readCompound(DataInput dataInput) throws IOException {
+        return NBTCompressedStreamTools.a(dataInput);
+    }
+
+}
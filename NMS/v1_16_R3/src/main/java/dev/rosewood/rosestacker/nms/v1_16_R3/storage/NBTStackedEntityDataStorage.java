@@ -1,8 +1,12 @@
 package dev.rosewood.rosestacker.nms.v1_16_R3.storage;
 
+import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
+import dev.rosewood.rosestacker.nms.storage.EntityDataVisitor;
+import dev.rosewood.rosestacker.nms.storage.SpillingQueue;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIOException;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
@@ -10,17 +14,19 @@ import dev.rosewood.rosestacker.nms.v1_16_R3.NMSHandlerImpl;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
-import java.util.function.Consumer;
-import java.util.function.Function;
 import net.minecraft.server.v1_16_R3.NBTBase;
 import net.minecraft.server.v1_16_R3.NBTCompressedStreamTools;
 import net.minecraft.server.v1_16_R3.NBTTagCompound;
@@ -40,19 +46,21 @@ public class NBTStackedEntityDataStorage extends StackedEntityDataStorage {
         this.stripUnneeded(this.base);
         this.stripAttributeUuids(this.base);
 
-        this.data = createBackingQueue();
+        this.data = this.createDataQueue();
     }
 
     public NBTStackedEntityDataStorage(LivingEntity livingEntity, byte[] data) {
         super(StackedEntityDataStorageType.NBT, livingEntity);
+        boolean legacy = StackedEntityDataIO.isLegacyFormat(data);
         try (ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-             ObjectInputStream dataInput = new ObjectInputStream(inputStream)) {
+             InputStream dataStream = legacy ? new ObjectInputStream(inputStream) : new DataInputStream(inputStream)) {
 
-            this.base = NBTCompressedStreamTools.a((DataInput) dataInput);
-            int length = dataInput.readInt();
-            this.data = createBackingQueue();
+            DataInput dataInput = (DataInput) dataStream;
+            this.base = NBTCompressedStreamTools.a(dataInput);
+            int length = legacy ? dataInput.readInt() : StackedEntityDataIO.readVarInt(dataInput);
+            this.data = this.createDataQueue();
             for (int i = 0; i < length; i++)
-                this.data.add(NBTCompressedStreamTools.a((DataInput) dataInput));
+                this.data.add(NBTCompressedStreamTools.a(dataInput));
         } catch (Exception e) {
             throw new StackedEntityDataIOException(e);
         }
@@ -79,6 +87,21 @@ public class NBTStackedEntityDataStorage extends StackedEntityDataStorage {
         });
     }
 
+    @Override
+    public void addCopies(LivingEntity entity, int amount) {
+        if (amount <= 0)
+            return;
+
+        // Only serialize the entity once, entries are never modified in place so every copy can share the same tag
+        NBTTagCompound compoundTag = new NBTTagCompound();
+        ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, compoundTag);
+        this.stripUnneeded(compoundTag);
+        this.stripAttributeUuids(compoundTag);
+        this.removeDuplicates(compoundTag);
+        for (int i = 0; i < amount; i++)
+            this.data.add(compoundTag);
+    }
+
     @Override
     public void addClones(int amount) {
         for (int i = 0; i < amount; i++)
@@ -126,7 +149,7 @@ public class NBTStackedEntityDataStorage extends StackedEntityDataStorage {
     @Override
     public byte[] serialize(int maxAmount) {
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream dataOutput = new ObjectOutputStream(outputStream)) {
+             DataOutputStream dataOutput = new DataOutputStream(outputStream)) {
 
             int targetAmount = Math.min(maxAmount, this.data.size());
             List<NBTTagCompound> tagsToSave = new ArrayList<>(targetAmount);
@@ -135,7 +158,7 @@ public class NBTStackedEntityDataStorage extends StackedEntityDataStorage {
                 tagsToSave.add(iterator.next());
 
             NBTCompressedStreamTools.a(this.base, (DataOutput) dataOutput);
-            dataOutput.writeInt(tagsToSave.size());
+            StackedEntityDataIO.writeVarInt(dataOutput, tagsToSave.size());
             for (NBTTagCompound compoundTag : tagsToSave)
                 NBTCompressedStreamTools.a(compoundTag, (DataOutput) dataOutput);
 
@@ -147,84 +170,75 @@ public class NBTStackedEntityDataStorage extends StackedEntityDataStorage {
     }
 
     @Override
-    public void forEach(Consumer<LivingEntity> consumer) {
-        this.forEachCapped(Integer.MAX_VALUE, consumer);
-    }
-
-    @Override
-    public void forEachCapped(int count, Consumer<LivingEntity> consumer) {
-        if (count > this.data.size())
-            count = this.data.size();
-
-        LivingEntity thisEntity = this.entity.get();
-        if (thisEntity == null)
-            return;
-
-        Iterator<NBTTagCompound> iterator = this.data.iterator();
-        for (int i = 0; i < count; i++) {
-            NBTTagCompound compoundTag = iterator.next();
-            LivingEntity entity = new NBTEntityDataEntry(this.rebuild(compoundTag)).createEntity(thisEntity.getLocation(), false, thisEntity.getType());
-            consumer.accept(entity);
-        }
-    }
-
-    @Override
-    public void forEachTransforming(Function<LivingEntity, Boolean> function) {
+    public void forEachEntry(EntityDataVisitor visitor) {
         LivingEntity thisEntity = this.entity.get();
         if (thisEntity == null)
             return;
 
         synchronized (this.data) {
-            List<NBTTagCompound> data = new ArrayList<>(this.data);
-            ListIterator<NBTTagCompound> dataIterator = data.listIterator();
-            while (dataIterator.hasNext()) {
-                NBTTagCompound compoundTag = dataIterator.next();
+            // Changes are collected while visiting and applied afterwards, so visits that don't change anything never copy the queue
+            Map<Integer, NBTTagCompound> changes = null;
+            int index = 0;
+            for (NBTTagCompound compoundTag : this.data) {
                 LivingEntity entity = new NBTEntityDataEntry(this.rebuild(compoundTag)).createEntity(thisEntity.getLocation(), false, thisEntity.getType());
-                if (function.apply(entity)) {
-                    NBTTagCompound replacementTag = new NBTTagCompound();
-                    ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, replacementTag);
-                    this.stripUnneeded(replacementTag);
-                    this.stripAttributeUuids(replacementTag);
-                    this.removeDuplicates(replacementTag);
-                    dataIterator.set(replacementTag);
+                EntityDataVisitor.Action action = visitor.visit(entity);
+                if (action == EntityDataVisitor.Action.REPLACE || action == EntityDataVisitor.Action.REMOVE) {
+                    if (changes == null)
+                        changes = new HashMap<>();
+                    changes.put(index, action == EntityDataVisitor.Action.REPLACE ? this.createReplacementTag(entity) : null);
                 }
+
+                index++;
+                if (action == EntityDataVisitor.Action.STOP)
+                    break;
             }
 
-            this.data.clear();
-            this.data.addAll(data);
+            if (changes == null)
+                return;
+
+            // Spilled entries that don't change are copied over as they are, only the replacements get encoded
+            if (this.data instanceof SpillingQueue<NBTTagCompound> spillingQueue) {
+                spillingQueue.update(changes);
+                return;
+            }
+
+            // Cycle through the queue once to apply the changes while keeping the order, a null change is a removal
+            int size = this.data.size();
+            for (int i = 0; i < size; i++) {
+                NBTTagCompound compoundTag = this.data.remove();
+                if (!changes.containsKey(i)) {
+                    this.data.add(compoundTag);
+                    continue;
+                }
+
+                NBTTagCompound replacementTag = changes.get(i);
+                if (replacementTag != null)
+                    this.data.add(replacementTag);
+            }
         }
     }
 
-    @Override
-    public List<LivingEntity> removeIf(Function<LivingEntity, Boolean> function) {
-        List<LivingEntity> removedEntries = new ArrayList<>(this.data.size());
-        LivingEntity thisEntity = this.entity.get();
-        if (thisEntity == null)
-            return removedEntries;
+    private NBTTagCompound createReplacementTag(LivingEntity entity) {
+        NBTTagCompound replacementTag = new NBTTagCompound();
+        ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, replacementTag);
+        this.stripUnneeded(replacementTag);
+        this.stripAttributeUuids(replacementTag);
+        this.removeDuplicates(replacementTag);
+        return replacementTag;
+    }
 
-        synchronized (this.data) {
-            List<NBTTagCompound> data = new ArrayList<>(this.data);
-            ListIterator<NBTTagCompound> dataIterator = data.listIterator();
-            while (dataIterator.hasNext()) {
-                NBTTagCompound compoundTag = dataIterator.next();
-                LivingEntity entity = new NBTEntityDataEntry(this.rebuild(compoundTag)).createEntity(thisEntity.getLocation(), false, thisEntity.getType());
-                if (function.apply(entity)) {
-                    removedEntries.add(entity);
-                    dataIterator.remove();
-                } else {
-                    NBTTagCompound replacementTag = new NBTTagCompound();
-                    ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, replacementTag);
-                    this.stripUnneeded(replacementTag);
-                    this.stripAttributeUuids(replacementTag);
-                    this.removeDuplicates(replacementTag);
-                    dataIterator.set(replacementTag);
-                }
+    private Queue<NBTTagCompound> createDataQueue() {
+        return createBackingQueue(SettingKey.ENTITY_DATA_HOT_ENTRY_LIMIT.get(), new SpillingQueue.Codec<>() {
+            @Override
+            public void write(NBTTagCompound compoundTag, DataOutput dataOutput) throws IOException {
+                NBTCompressedStreamTools.a(compoundTag, dataOutput);
             }
 
-            this.data.clear();
-            this.data.addAll(data);
-            return removedEntries;
-        }
+            @Override
+            public NBTTagCompound read(DataInput dataInput) throws IOException {
+                return NBTCompressedStreamTools.a(dataInput);
+            }
+        });
     }
 
     private void removeDuplicates(NBTTagCompound compoundTag) {
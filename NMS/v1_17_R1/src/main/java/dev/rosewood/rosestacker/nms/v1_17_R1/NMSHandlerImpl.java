@@ -16,6 +16,7 @@ import dev.rosewood.rosestacker.nms.v1_17_R1.entity.SynchedEntityDataWrapper;
 import dev.rosewood.rosestacker.nms.v1_17_R1.event.AsyncEntityDeathEventImpl;
 import dev.rosewood.rosestacker.nms.v1_17_R1.hologram.HologramImpl;
 import dev.rosewood.rosestacker.nms.v1_17_R1.spawner.StackedSpawnerTileImpl;
+import dev.rosewood.rosestacker.nms.v1_17_R1.storage.ColumnarStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_17_R1.storage.NBTEntityDataEntry;
 import dev.rosewood.rosestacker.nms.v1_17_R1.storage.NBTStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_17_R1.storage.SimpleStackedEntityDataStorage;
@@ -373,6 +374,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity);
         };
     }
 
@@ -380,6 +382,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity, data);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity, data);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity, data);
         };
     }
 
@@ -12,6 +12,7 @@ import java.util.function.Supplier;
 import net.minecraft.core.particles.BlockParticleOption;
 import net.minecraft.core.particles.ParticleTypes;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
 import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
 import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
@@ -39,6 +40,7 @@ public class HologramImpl extends Hologram {
 
     @Override
     protected void create(Player player) {
+        boolean visible = this.watchers.getOrDefault(player, true);
         for (HologramLine line : this.hologramLines) {
             ClientboundAddEntityPacket packet = new ClientboundAddEntityPacket(
                     line.getEntityId(),
@@ -53,7 +55,8 @@ public class HologramImpl extends Hologram {
                     Vec3.ZERO
             );
 
-            ((CraftPlayer) player).getHandle().connection.send(packet);
+            this.send(player, packet);
+            this.send(player, this.getDataPacket(line, visible));
         }
     }
 
@@ -63,19 +66,13 @@ public class HologramImpl extends Hologram {
             if (!force && !line.checkDirty())
                 continue;
 
-            List<SynchedEntityData.DataItem<?>> dataItems = new ArrayList<>(DATA_ITEMS);
-            Optional<Component> chatMessage = Optional.of(CraftChatMessage.fromStringOrNull(line.getText()));
-            dataItems.add(new SynchedEntityData.DataItem<>(EntityDataSerializers.OPTIONAL_COMPONENT.createAccessor(2), chatMessage));
-
+            // Each packet is built at most once per visibility and shared between all players
             for (Player player : players) {
                 Boolean visible = this.watchers.get(player);
                 if (visible == null)
-                    return;
+                    continue;
 
-                List<SynchedEntityData.DataItem<?>> allDataItems = new ArrayList<>(dataItems);
-                allDataItems.add(new SynchedEntityData.DataItem<>(EntityDataSerializers.BOOLEAN.createAccessor(3), visible));
-
-                ((CraftPlayer) player).getHandle().connection.send(new ClientboundSetEntityDataPacket(line.getEntityId(), new SynchedEntityDataWrapper(allDataItems), false));
+                this.send(player, this.getDataPacket(line, visible));
             }
         }
     }
@@ -84,7 +81,26 @@ public class HologramImpl extends Hologram {
     protected void delete(Player player) {
         ClientboundRemoveEntitiesPacket packet = new ClientboundRemoveEntitiesPacket(this.hologramLines.stream().mapToInt(HologramLine::getEntityId).toArray());
 
+        this.send(player, packet);
+    }
+
+    private ClientboundSetEntityDataPacket getDataPacket(HologramLine line, boolean visible) {
+        ClientboundSetEntityDataPacket packet = (ClientboundSetEntityDataPacket) line.getCachedPacket(visible);
+        if (packet == null) {
+            List<SynchedEntityData.DataItem<?>> dataItems = new ArrayList<>(DATA_ITEMS);
+            Optional<Component> chatMessage = Optional.of(CraftChatMessage.fromStringOrNull(line.getText()));
+            dataItems.add(new SynchedEntityData.DataItem<>(EntityDataSerializers.OPTIONAL_COMPONENT.createAccessor(2), chatMessage));
+            dataItems.add(new SynchedEntityData.DataItem<>(EntityDataSerializers.BOOLEAN.createAccessor(3), visible));
+
+            packet = new ClientboundSetEntityDataPacket(line.getEntityId(), new SynchedEntityDataWrapper(dataItems), false);
+            line.setCachedPacket(visible, packet);
+        }
+        return packet;
+    }
+
+    private void send(Player player, Packet<?> packet) {
         ((CraftPlayer) player).getHandle().connection.send(packet);
+        recordPacketsSent(1);
     }
 
 }
@@ -1,12 +1,12 @@
 package dev.rosewood.rosestacker.nms.v1_18_R2.spawner;
 
-import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.RoseStacker;
+import dev.rosewood.rosestacker.manager.SpawnerTickManager;
 import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
 import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
 import dev.rosewood.rosestacker.nms.util.ExtraUtils;
 import dev.rosewood.rosestacker.spawning.MobSpawningMethod;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
-import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import java.util.Optional;
 import java.util.Random;
 import net.minecraft.core.BlockPos;
@@ -30,11 +30,6 @@ public class StackedSpawnerTileImpl extends BaseSpawner implements StackedSpawne
     private final SpawnerBlockEntity blockEntity;
     private final BlockPos blockPos;
     private final StackedSpawner stackedSpawner;
-    private boolean redstoneDeactivated;
-    private int redstoneTimeSinceLastCheck;
-    private boolean playersNearby;
-    private int playersTimeSinceLastCheck;
-    private boolean checkedInitialConditions;
 
     public StackedSpawnerTileImpl(BaseSpawner old, SpawnerBlockEntity blockEntity, StackedSpawner stackedSpawner) {
         this.blockEntity = blockEntity;
@@ -46,47 +41,14 @@ public class StackedSpawnerTileImpl extends BaseSpawner implements StackedSpawne
 
     @Override
     public void serverTick(ServerLevel level, BlockPos blockPos) {
-        // Only tick the spawner if a player is nearby
-        this.playersTimeSinceLastCheck = (this.playersTimeSinceLastCheck + 1) % SettingKey.SPAWNER_PLAYER_CHECK_FREQUENCY.get();
-        if (this.playersTimeSinceLastCheck == 0)
-            this.playersNearby = this.isNearPlayer(level, blockPos);
-
-        if (!this.playersNearby)
-            return;
-
-        if (!this.checkedInitialConditions) {
-            this.checkedInitialConditions = true;
-            this.trySpawns(true);
-        }
-
-        SpawnerStackSettings stackSettings = this.stackedSpawner.getStackSettings();
-
-        // Handle redstone deactivation if enabled
-        if (SettingKey.SPAWNER_DEACTIVATE_WHEN_POWERED.get()) {
-            if (this.redstoneTimeSinceLastCheck == 0) {
-                boolean hasSignal = level.hasNeighborSignal(this.blockPos);
-                if (this.redstoneDeactivated && !hasSignal) {
-                    this.redstoneDeactivated = false;
-                    this.requiredPlayerRange = stackSettings.getPlayerActivationRange();
-                    this.updateTile();
-                } else if (!this.redstoneDeactivated && hasSignal) {
-                    this.redstoneDeactivated = true;
-                    this.requiredPlayerRange = 0;
-                    this.updateTile();
-                }
-
-                if (this.redstoneDeactivated)
-                    return;
-            }
-
-            this.redstoneTimeSinceLastCheck = (this.redstoneTimeSinceLastCheck + 1) % SettingKey.SPAWNER_POWERED_CHECK_FREQUENCY.get();
-        }
+        // Spawning is driven by the SpawnerTickManager, it wakes this spawner through spawn() once it is due
+    }
 
-        // Count down spawn timer unless we are ready to spawn
-        if (this.spawnDelay > 0) {
-            this.spawnDelay--;
-            return;
-        }
+    @Override
+    public int spawn() {
+        Level level = this.blockEntity.getLevel();
+        if (level == null)
+            return this.spawnDelay;
 
         // Reset spawn delay
         this.spawnDelay = level.getRandom().nextInt(this.maxSpawnDelay - this.minSpawnDelay + 1) + this.minSpawnDelay;
@@ -97,6 +59,24 @@ public class StackedSpawnerTileImpl extends BaseSpawner implements StackedSpawne
 
         // Randomize spawn potentials
         this.spawnPotentials.getRandom(level.getRandom()).map(WeightedEntry.Wrapper::getData).ifPresent(x -> this.nextSpawnData = x);
+        return this.spawnDelay;
+    }
+
+    @Override
+    public void checkSpawnConditions() {
+        this.trySpawns(true);
+    }
+
+    @Override
+    public boolean hasRedstoneSignal() {
+        Level level = this.blockEntity.getLevel();
+        return level != null && level.hasNeighborSignal(this.blockPos);
+    }
+
+    @Override
+    public void setRedstoneDeactivated(boolean deactivated) {
+        this.requiredPlayerRange = deactivated ? 0 : this.stackedSpawner.getStackSettings().getPlayerActivationRange();
+        this.updateTile();
     }
 
     private void trySpawns(boolean onlyCheckConditions) {
@@ -136,12 +116,6 @@ public class StackedSpawnerTileImpl extends BaseSpawner implements StackedSpawne
         }
     }
 
-    private boolean isNearPlayer(Level level, BlockPos blockPos) {
-        if (this.stackedSpawner.getStackSettings().hasUnlimitedPlayerActivationRange())
-            return true;
-        return level.hasNearbyAlivePlayer((double) blockPos.getX() + 0.5D, (double) blockPos.getY() + 0.5D, (double) blockPos.getZ() + 0.5D, Math.max(this.stackedSpawner.getStackSettings().getPlayerActivationRange(), 0.1));
-    }
-
     private void loadOld(BaseSpawner baseSpawner) {
         this.spawnDelay = baseSpawner.spawnDelay;
         this.spawnPotentials = baseSpawner.spawnPotentials;
@@ -201,12 +175,13 @@ public class StackedSpawnerTileImpl extends BaseSpawner implements StackedSpawne
 
     @Override
     public int getDelay() {
-        return this.spawnDelay;
+        return RoseStacker.getInstance().getManager(SpawnerTickManager.class).getDelay(this.stackedSpawner, this.spawnDelay);
     }
 
     @Override
     public void setDelay(int delay) {
         this.spawnDelay = delay;
+        RoseStacker.getInstance().getManager(SpawnerTickManager.class).setDelay(this.stackedSpawner, delay);
         this.updateTile();
     }
 
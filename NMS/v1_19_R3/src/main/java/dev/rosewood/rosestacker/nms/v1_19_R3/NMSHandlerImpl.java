@@ -15,6 +15,7 @@ import dev.rosewood.rosestacker.nms.v1_19_R3.entity.SoloEntityStrider;
 import dev.rosewood.rosestacker.nms.v1_19_R3.event.AsyncEntityDeathEventImpl;
 import dev.rosewood.rosestacker.nms.v1_19_R3.hologram.HologramImpl;
 import dev.rosewood.rosestacker.nms.v1_19_R3.spawner.StackedSpawnerTileImpl;
+import dev.rosewood.rosestacker.nms.v1_19_R3.storage.ColumnarStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.NBTEntityDataEntry;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.NBTStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.SimpleStackedEntityDataStorage;
@@ -408,6 +409,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity);
         };
     }
 
@@ -415,6 +417,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity, data);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity, data);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity, data);
         };
     }
 
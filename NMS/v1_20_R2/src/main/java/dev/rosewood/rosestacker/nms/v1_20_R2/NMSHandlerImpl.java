@@ -15,6 +15,7 @@ import dev.rosewood.rosestacker.nms.v1_20_R2.entity.SoloEntityStrider;
 import dev.rosewood.rosestacker.nms.v1_20_R2.event.AsyncEntityDeathEventImpl;
 import dev.rosewood.rosestacker.nms.v1_20_R2.hologram.HologramImpl;
 import dev.rosewood.rosestacker.nms.v1_20_R2.spawner.StackedSpawnerTileImpl;
+import dev.rosewood.rosestacker.nms.v1_20_R2.storage.ColumnarStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_20_R2.storage.NBTEntityDataEntry;
 import dev.rosewood.rosestacker.nms.v1_20_R2.storage.NBTStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_20_R2.storage.SimpleStackedEntityDataStorage;
@@ -407,6 +408,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity);
         };
     }
 
@@ -414,6 +416,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity, data);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity, data);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity, data);
         };
     }
 
@@ -0,0 +1,168 @@
+package dev.rosewood.rosestacker.nms.v1_20_R2.storage;
+
+import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.nms.storage.AbstractColumnarStackedEntityDataStorage;
+import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
+import dev.rosewood.rosestacker.nms.v1_20_R2.NMSHandlerImpl;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+import net.minecraft.nbt.ByteTag;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.DoubleTag;
+import net.minecraft.nbt.FloatTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NumericTag;
+import net.minecraft.nbt.ShortTag;
+import net.minecraft.nbt.Tag;
+import org.bukkit.entity.LivingEntity;
+
+public class ColumnarStackedEntityDataStorage extends AbstractColumnarStackedEntityDataStorage<CompoundTag, Tag> {
+
+    public ColumnarStackedEntityDataStorage(LivingEntity livingEntity) {
+        super(livingEntity);
+        this.loadBase(livingEntity);
+    }
+
+    public ColumnarStackedEntityDataStorage(LivingEntity livingEntity, byte[] data) {
+        super(livingEntity);
+        this.deserialize(data);
+    }
+
+    @Override
+    protected CompoundTag saveEntity(LivingEntity entity) {
+        CompoundTag compoundTag = new CompoundTag();
+        ((NMSHandlerImpl) NMSAdapter.getHandler()).saveEntityToTag(entity, compoundTag);
+        return compoundTag;
+    }
+
+    @Override
+    protected CompoundTag getCompound(EntityDataEntry entry) {
+        return ((NBTEntityDataEntry) entry).get();
+    }
+
+    @Override
+    protected NBTEntityDataEntry createEntry(CompoundTag compound) {
+        return new NBTEntityDataEntry(compound);
+    }
+
+    @Override
+    protected CompoundTag createCompound() {
+        return new CompoundTag();
+    }
+
+    @Override
+    protected Collection<String> getKeys(CompoundTag compound) {
+        return compound.getAllKeys();
+    }
+
+    @Override
+    protected Tag getTag(CompoundTag compound, String key) {
+        return compound.get(key);
+    }
+
+    @Override
+    protected void putTag(CompoundTag compound, String key, Tag tag) {
+        compound.put(key, tag);
+    }
+
+    @Override
+    protected void removeTag(CompoundTag compound, String key) {
+        compound.remove(key);
+    }
+
+    @Override
+    protected void merge(CompoundTag target, CompoundTag source) {
+        target.merge(source);
+    }
+
+    @Override
+    protected CompoundTag getCompound(CompoundTag compound, String key) {
+        return compound.getCompound(key);
+    }
+
+    @Override
+    protected Tag getCompoundList(CompoundTag compound, String key) {
+        return compound.getList(key, Tag.TAG_COMPOUND);
+    }
+
+    @Override
+    protected CompoundTag getListCompound(Tag tag, int index) {
+        return ((ListTag) tag).getCompound(index);
+    }
+
+    @Override
+    protected void removeListElement(Tag tag, int index) {
+        ((ListTag) tag).remove(index);
+    }
+
+    @Override
+    protected String getString(CompoundTag compound, String key) {
+        return compound.getString(key);
+    }
+
+    @Override
+    protected void putUUID(CompoundTag compound, String key, UUID uuid) {
+        compound.putUUID(key, uuid);
+    }
+
+    @Override
+    protected byte getTagId(Tag tag) {
+        return tag.getId();
+    }
+
+    @Override
+    protected int getListSize(Tag tag) {
+        return ((ListTag) tag).size();
+    }
+
+    @Override
+    protected Tag getListElement(Tag tag, int index) {
+        return ((ListTag) tag).get(index);
+    }
+
+    @Override
+    protected long getNumericBits(Tag tag) {
+        return switch (tag.getId()) {
+            case Tag.TAG_FLOAT -> Float.floatToRawIntBits(((NumericTag) tag).getAsFloat());
+            case Tag.TAG_DOUBLE -> Double.doubleToRawLongBits(((NumericTag) tag).getAsDouble());
+            default -> ((NumericTag) tag).getAsLong();
+        };
+    }
+
+    @Override
+    protected Tag createNumericTag(byte tagId, long bits) {
+        return switch (tagId) {
+            case Tag.TAG_BYTE -> ByteTag.valueOf((byte) bits);
+            case Tag.TAG_SHORT -> ShortTag.valueOf((short) bits);
+            case Tag.TAG_INT -> IntTag.valueOf((int) bits);
+            case Tag.TAG_LONG -> LongTag.valueOf(bits);
+            case Tag.TAG_FLOAT -> FloatTag.valueOf(Float.intBitsToFloat((int) bits));
+            default -> DoubleTag.valueOf(Double.longBitsToDouble(bits));
+        };
+    }
+
+    @Override
+    protected Tag createNumericListTag(byte elementId, long[] bits, int offset, int length) {
+        ListTag listTag = new ListTag();
+        for (int i = 0; i < length; i++)
+            listTag.add(this.createNumericTag(elementId, bits[offset + i]));
+        return listTag;
+    }
+
+    @Override
+    protected void writeCompound(CompoundTag compound, DataOutput dataOutput) throws IOException {
+        NbtIo.write(compound, dataOutput);
+    }
+
+    @Override
+    protected CompoundTag readCompound(DataInput dataInput) throws IOException {
+        return NbtIo.read(dataInput);
+    }
+
+}
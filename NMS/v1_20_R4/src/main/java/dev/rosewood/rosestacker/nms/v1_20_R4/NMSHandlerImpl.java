@@ -15,6 +15,7 @@ import dev.rosewood.rosestacker.nms.v1_20_R4.entity.SoloEntityStrider;
 import dev.rosewood.rosestacker.nms.v1_20_R4.event.AsyncEntityDeathEventImpl;
 import dev.rosewood.rosestacker.nms.v1_20_R4.hologram.HologramImpl;
 import dev.rosewood.rosestacker.nms.v1_20_R4.spawner.StackedSpawnerTileImpl;
+import dev.rosewood.rosestacker.nms.v1_20_R4.storage.ColumnarStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_20_R4.storage.NBTEntityDataEntry;
 import dev.rosewood.rosestacker.nms.v1_20_R4.storage.NBTStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_20_R4.storage.SimpleStackedEntityDataStorage;
@@ -410,6 +411,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity);
         };
     }
 
@@ -417,6 +419,7 @@ public class NMSHandlerImpl implements NMSHandler {
         return switch (storageType) {
             case NBT -> new NBTStackedEntityDataStorage(livingEntity, data);
             case SIMPLE -> new SimpleStackedEntityDataStorage(livingEntity, data);
+            case COLUMNAR -> new ColumnarStackedEntityDataStorage(livingEntity, data);
         };
     }
 
@@ -8,7 +8,10 @@ import java.util.List;
 import java.util.UUID;
 import java.util.function.Supplier;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
 import net.minecraft.network.protocol.game.ClientboundRemoveEntitiesPacket;
 import net.minecraft.network.protocol.game.ClientboundSetEntityDataPacket;
 import net.minecraft.network.syncher.EntityDataSerializers;
@@ -33,8 +36,9 @@ public class HologramImpl extends Hologram {
 
     @Override
     protected void create(Player player) {
+        List<Packet<ClientGamePacketListener>> packets = new ArrayList<>(this.hologramLines.size() * 2);
         for (HologramLine line : this.hologramLines) {
-            ClientboundAddEntityPacket packet = new ClientboundAddEntityPacket(
+            packets.add(new ClientboundAddEntityPacket(
                     line.getEntityId(),
                     UUID.randomUUID(),
                     line.getLocation().getX(),
@@ -46,37 +50,59 @@ public class HologramImpl extends Hologram {
                     1,
                     Vec3.ZERO,
                     0
-            );
-
-            ((CraftPlayer) player).getHandle().connection.send(packet);
+            ));
+            packets.add(this.getDataPacket(line));
         }
+
+        this.send(player, this.bundle(packets));
     }
 
     @Override
     protected void update(Collection<Player> players, boolean force) {
-        for (HologramLine line : this.hologramLines) {
-            if (!force && !line.checkDirty())
-                continue;
+        List<Packet<ClientGamePacketListener>> packets = new ArrayList<>(this.hologramLines.size());
+        for (HologramLine line : this.hologramLines)
+            if (force || line.checkDirty())
+                packets.add(this.getDataPacket(line));
 
+        if (packets.isEmpty())
+            return;
+
+        // Build the packet once and share it between all players
+        Packet<ClientGamePacketListener> packet = this.bundle(packets);
+        for (Player player : players)
+            if (this.watchers.containsKey(player))
+                this.send(player, packet);
+    }
+
+    @Override
+    protected void delete(Player player) {
+        ClientboundRemoveEntitiesPacket packet = new ClientboundRemoveEntitiesPacket(this.hologramLines.stream().mapToInt(HologramLine::getEntityId).toArray());
+
+        this.send(player, packet);
+    }
+
+    private ClientboundSetEntityDataPacket getDataPacket(HologramLine line) {
+        ClientboundSetEntityDataPacket packet = (ClientboundSetEntityDataPacket) line.getCachedPacket(true);
+        if (packet == null) {
             List<SynchedEntityData.DataValue<?>> dataValues = new ArrayList<>(DATA_VALUES);
             Component chatMessage = CraftChatMessage.fromStringOrNull(line.getText());
             dataValues.add(SynchedEntityData.DataValue.create(EntityDataSerializers.COMPONENT.createAccessor(23), chatMessage));
 
-            for (Player player : players) {
-                Boolean visible = this.watchers.get(player);
-                if (visible == null)
-                    return;
-
-                ((CraftPlayer) player).getHandle().connection.send(new ClientboundSetEntityDataPacket(line.getEntityId(), dataValues));
-            }
+            packet = new ClientboundSetEntityDataPacket(line.getEntityId(), dataValues);
+            line.setCachedPacket(true, packet);
         }
+        return packet;
     }
 
-    @Override
-    protected void delete(Player player) {
-        ClientboundRemoveEntitiesPacket packet = new ClientboundRemoveEntitiesPacket(this.hologramLines.stream().mapToInt(HologramLine::getEntityId).toArray());
+    private Packet<ClientGamePacketListener> bundle(List<Packet<ClientGamePacketListener>> packets) {
+        if (packets.size() == 1)
+            return packets.get(0);
+        return new ClientboundBundlePacket(new ArrayList<>(packets));
+    }
 
+    private void send(Player player, Packet<?> packet) {
         ((CraftPlayer) player).getHandle().connection.send(packet);
+        recordPacketsSent(1);
     }
 
 }
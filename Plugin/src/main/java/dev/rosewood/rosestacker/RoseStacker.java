@@ -14,17 +14,24 @@ import dev.rosewood.rosestacker.listener.BlockListener;
 import dev.rosewood.rosestacker.listener.BreedingListener;
 import dev.rosewood.rosestacker.listener.EntitiesLoadListener;
 import dev.rosewood.rosestacker.listener.EntityListener;
+import dev.rosewood.rosestacker.listener.EntityRemoveListener;
 import dev.rosewood.rosestacker.listener.InteractListener;
 import dev.rosewood.rosestacker.listener.ItemListener;
 import dev.rosewood.rosestacker.listener.StackToolListener;
 import dev.rosewood.rosestacker.listener.WorldListener;
 import dev.rosewood.rosestacker.listener.paper.PaperPreCreatureSpawnListener;
+import dev.rosewood.rosestacker.manager.ChunkSnapshotManager;
 import dev.rosewood.rosestacker.manager.CommandManager;
 import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager;
+import dev.rosewood.rosestacker.manager.EntityLootManager;
 import dev.rosewood.rosestacker.manager.HologramManager;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.manager.SpawnLocationCacheManager;
+import dev.rosewood.rosestacker.manager.SpawnerTickManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
+import dev.rosewood.rosestacker.manager.SyncTaskManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
@@ -75,6 +82,11 @@ public class RoseStacker extends RosePlugin {
         pluginManager.registerEvents(new StackToolListener(this), this);
         pluginManager.registerEvents(new BreedingListener(this), this);
         pluginManager.registerEvents(new BeeListener(this), this);
+        pluginManager.registerEvents(this.getManager(EntityCacheManager.class), this);
+        pluginManager.registerEvents(this.getManager(HologramManager.class), this);
+        pluginManager.registerEvents(this.getManager(ChunkSnapshotManager.class), this);
+        pluginManager.registerEvents(this.getManager(SpawnLocationCacheManager.class), this);
+        pluginManager.registerEvents(this.getManager(SpawnerTickManager.class), this);
 
         if (NMSUtil.getVersionNumber() >= 17) {
             try {
@@ -85,6 +97,11 @@ public class RoseStacker extends RosePlugin {
             }
         }
 
+        try {
+            Class.forName("org.bukkit.event.entity.EntityRemoveEvent");
+            pluginManager.registerEvents(new EntityRemoveListener(this), this);
+        } catch (ClassNotFoundException ignored) { }
+
         // Try to hook with Paper
         if (NMSUtil.isPaper() && NMSUtil.getVersionNumber() >= 18)
             pluginManager.registerEvents(new PaperPreCreatureSpawnListener(this), this);
@@ -118,10 +135,16 @@ public class RoseStacker extends RosePlugin {
     @Override
     protected List<Class<? extends Manager>> getManagerLoadPriority() {
         return List.of(
+                SyncTaskManager.class,
                 HologramManager.class,
                 StackSettingManager.class,
                 CommandManager.class,
                 EntityCacheManager.class,
+                EntityLootManager.class,
+                EntityDeathEventManager.class,
+                ChunkSnapshotManager.class,
+                SpawnerTickManager.class,
+                SpawnLocationCacheManager.class,
                 StackManager.class
         );
     }
@@ -4,8 +4,10 @@ import com.google.common.base.Preconditions;
 import dev.rosewood.rosegarden.compatibility.CompatibilityAdapter;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.event.EntityStackBatchDeathEvent;
 import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent;
 import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent.EntityDrops;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.stack.StackedBlock;
@@ -40,6 +42,7 @@ import org.bukkit.entity.Item;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -81,6 +84,37 @@ public final class RoseStackerAPI {
         return !SettingKey.ENTITY_TRIGGER_DEATH_EVENT_FOR_ENTIRE_STACK_KILL.get();
     }
 
+    /**
+     * @return true if {@link EntityStackBatchDeathEvent} is called
+     */
+    public boolean isEntityStackBatchDeathEventCalled() {
+        return this.roseStacker.getManager(EntityDeathEventManager.class).isBatchingEnabled();
+    }
+
+    /**
+     * Registers a plugin to keep receiving an EntityDeathEvent for every entity killed in a stack while
+     * {@link EntityStackBatchDeathEvent}s are being called. Only the EntityDeathEvent listeners of registered plugins
+     * will receive these events, all other listeners only receive the batched events.
+     *
+     * @param plugin The plugin to register
+     */
+    public void registerPerEntityDeathEventListener(@NotNull Plugin plugin) {
+        Objects.requireNonNull(plugin);
+
+        this.roseStacker.getManager(EntityDeathEventManager.class).registerPerEntityListener(plugin);
+    }
+
+    /**
+     * Unregisters a plugin previously registered with {@link #registerPerEntityDeathEventListener(Plugin)}
+     *
+     * @param plugin The plugin to unregister
+     */
+    public void unregisterPerEntityDeathEventListener(@NotNull Plugin plugin) {
+        Objects.requireNonNull(plugin);
+
+        this.roseStacker.getManager(EntityDeathEventManager.class).unregisterPerEntityListener(plugin);
+    }
+
     //region Stack Manager
 
     /**
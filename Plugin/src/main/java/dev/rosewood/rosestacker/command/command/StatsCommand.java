@@ -6,10 +6,15 @@ import dev.rosewood.rosegarden.command.framework.CommandContext;
 import dev.rosewood.rosegarden.command.framework.CommandInfo;
 import dev.rosewood.rosegarden.command.framework.annotation.RoseExecutable;
 import dev.rosewood.rosegarden.utils.StringPlaceholders;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager.DispatchTimings;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager.DispatchType;
+import dev.rosewood.rosestacker.manager.HologramManager;
 import dev.rosewood.rosestacker.manager.LocaleManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.stack.Stack;
 import dev.rosewood.rosestacker.utils.StackerUtils;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 
 public class StatsCommand extends BaseRoseCommand {
@@ -46,6 +51,27 @@ public class StatsCommand extends BaseRoseCommand {
         localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-stacked-blocks", StringPlaceholders.of("stackAmount", StackerUtils.formatNumber(blockStackAmount), "total", StackerUtils.formatNumber(blockAmount)));
         localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-stacked-spawners", StringPlaceholders.of("stackAmount", StackerUtils.formatNumber(spawnerStackAmount), "total", StackerUtils.formatNumber(spawnerAmount)));
         localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-active-tasks", StringPlaceholders.of("amount", StackerUtils.formatNumber(ThreadUtils.getActiveThreads())));
+        SyncTaskQueue syncTaskQueue = ThreadUtils.getSyncTaskQueue();
+        if (syncTaskQueue.isDraining()) {
+            localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-sync-tasks", StringPlaceholders.builder("amount", StackerUtils.formatNumber(syncTaskQueue.getQueuedTasks()))
+                    .add("peak", StackerUtils.formatNumber(syncTaskQueue.getPeakQueuedTasks()))
+                    .add("average", String.format("%.2f", syncTaskQueue.getAverageDrainNanos() / 1_000_000.0))
+                    .add("max", String.format("%.2f", syncTaskQueue.getMaxDrainNanos() / 1_000_000.0))
+                    .add("overBudget", StackerUtils.formatNumber(syncTaskQueue.getOverBudgetCount())).build());
+        }
+        localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-hologram-packets", StringPlaceholders.of("amount", String.format("%.1f", this.rosePlugin.getManager(HologramManager.class).getPacketsPerSecond())));
+
+        EntityDeathEventManager deathEventManager = this.rosePlugin.getManager(EntityDeathEventManager.class);
+        for (DispatchType type : DispatchType.values()) {
+            DispatchTimings timings = deathEventManager.getTimings(type);
+            if (timings.getCount() == 0)
+                continue;
+
+            localeManager.sendSimpleCommandMessage(context.getSender(), "command-stats-death-event-timings", StringPlaceholders.builder("type", type.name().toLowerCase())
+                    .add("amount", StackerUtils.formatNumber(timings.getCount()))
+                    .add("average", String.format("%.2f", timings.getAverageNanos() / 1_000_000.0))
+                    .add("max", String.format("%.2f", timings.getMaxNanos() / 1_000_000.0)).build());
+        }
     }
 
     @Override
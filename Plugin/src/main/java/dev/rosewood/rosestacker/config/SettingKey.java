@@ -20,16 +20,26 @@ public final class SettingKey {
 
     public static final RoseSetting<List<String>> DISABLED_WORLDS = create("disabled-worlds", STRING_LIST, List.of("disabled_world_name"), "A list of worlds that the plugin is disabled in");
     public static final RoseSetting<Long> STACK_FREQUENCY = create("stack-frequency", LONG, 100L, "How often should we try to stack nearby entities?", "Higher values mean longer times between checks, but also less lag", "Values are in ticks, do not set lower than 1");
+    public static final RoseSetting<Integer> STACK_PARALLELISM = create("stack-parallelism", INTEGER, 1, "How many threads should be used to stack entities in each world?", "Stacks are split into regions far enough apart that they can be stacked at the same time without conflicting", "Set to 1 to stack on a single thread, set to -1 to use one thread per available processor");
+    public static final RoseSetting<Integer> STACK_FULL_SWEEP_FREQUENCY = create("stack-full-sweep-frequency", INTEGER, 10, "How many entity stacking passes should there be between checks of every entity stack?", "In between, only stacks that spawned, loaded, split, changed size or moved are checked", "Set to 1 to check every entity stack on every pass");
+    public static final RoseSetting<Double> STACK_MOVEMENT_THRESHOLD = create("stack-movement-threshold", DOUBLE, 1.0, "How far does an entity stack need to move before it is checked again for nearby stacks?", "Values are in blocks");
     public static final RoseSetting<Long> UNSTACK_FREQUENCY = create("unstack-frequency", LONG, 50L, "How often should we try to unstack entities that are no longer compatible with their stack?", "Values are in ticks, set to -1 to disable");
     public static final RoseSetting<Long> ITEM_STACK_FREQUENCY = create("item-stack-frequency", LONG, 20L, "How often should we try to stack nearby items?", "Values are in ticks, do not set lower than 1");
     public static final RoseSetting<Long> NAMETAG_UPDATE_FREQUENCY = create("nametag-update-frequency", LONG, 30L, "How often should we update stacked entity nametags?", "Values are in ticks, do not set lower than 1");
+    public static final RoseSetting<Integer> NAMETAG_RESEND_FREQUENCY = create("nametag-resend-frequency", INTEGER, 10, "Nametags are only sent to players when they change, how many nametag updates can pass before an unchanged nametag is sent again?", "Players can lose nametags when an entity leaves and reenters their tracking range, set to 1 to send every nametag on every update");
     public static final RoseSetting<Long> HOLOGRAM_UPDATE_FREQUENCY = create("hologram-update-frequency", LONG, 20L, "How often should we update stacked block/spawner holograms?");
     public static final RoseSetting<Long> AUTOSAVE_FREQUENCY = create("autosave-frequency", LONG, 15L, "How often should we autosave all loaded stack data?", "Value is measured in minutes, set to -1 to disable");
     public static final RoseSetting<Long> ENTITY_RESCAN_FREQUENCY = create("entity-rescan-frequency", LONG, 1000L, "How often should we scan the world for missed entities?", "Sometimes entities can spawn and be missed by the plugin for unknown reasons, this fixes that", "Values are in ticks, set to -1 to disable");
+    public static final RoseSetting<Long> ENTITY_CACHE_RELOCATE_FREQUENCY = create("entity-cache-relocate-frequency", LONG, 20L, "How often should cached entities that walked into another chunk be moved in the nearby entity cache?", "This runs asynchronously and only looks at entities that are already cached", "Values are in ticks, this can not be disabled since nearby entity lookups rely on it");
+    public static final RoseSetting<Long> ENTITY_CACHE_RECONCILIATION_FREQUENCY = create("entity-cache-reconciliation-frequency", LONG, 6000L, "How often should the nearby entity cache be checked against every entity in the world?", "The cache is kept up to date as entities spawn, load and unload, this only catches anything that was missed", "Values are in ticks, set to -1 to disable");
+    public static final RoseSetting<Double> SYNC_TASK_TIME_BUDGET = create("sync-task-time-budget", DOUBLE, 2.0, "How much time can be spent each tick on work handed to the main thread by the stacking threads?", "Work that doesn't fit is carried over to the next tick instead of all running in the same tick", "Values are in milliseconds, set to -1 to run all of it as soon as possible");
 
     public static final RoseSetting<CommentedConfigurationSection> GLOBAL_ENTITY_SETTINGS = create("global-entity-settings", "Global entity settings", "Changed values in entity_settings.yml will override these values");
     public static final RoseSetting<Boolean> ENTITY_STACKING_ENABLED = create("global-entity-settings.stacking-enabled", BOOLEAN, true, "Should entity stacking be enabled at all?");
     public static final RoseSetting<String> ENTITY_DATA_STORAGE_TYPE = create("global-entity-settings.data-storage-type", STRING, StackedEntityDataStorageType.NBT.name(), Stream.concat(Arrays.stream(new String[] { "What type of data storage should be used for stacked entities?", "Valid Values:" }), Arrays.stream(StackedEntityDataStorageType.values()).map(x -> "  " + x.name() + " - " + x.getDescription())).toArray(String[]::new));
+    public static final RoseSetting<String> ENTITY_DATA_COMPRESSION = create("global-entity-settings.data-compression", STRING, "DEFLATE", "How should stacked entity data be compressed when it is saved?", "Valid Values:", "  NONE - Store the data uncompressed, fastest to save and load but uses the most space", "  DEFLATE - Compress the data, smaller saves at the cost of some extra work when saving and loading");
+    public static final RoseSetting<Integer> ENTITY_DATA_COMPRESSION_LEVEL = create("global-entity-settings.data-compression-level", INTEGER, 6, "The compression level to use for DEFLATE compression", "Values are from 1 to 9, higher values save space but are slower");
+    public static final RoseSetting<Integer> ENTITY_DATA_HOT_ENTRY_LIMIT = create("global-entity-settings.data-hot-entry-limit", INTEGER, 1000, "How many entities in a stack using NBT data storage should be kept in memory?", "Any entities past this are kept serialized outside of the Java heap until they are needed", "Set to -1 to keep every entity in memory");
     public static final RoseSetting<Boolean> ENTITY_INSTANT_STACK = create("global-entity-settings.instant-stack", BOOLEAN, true, "Should entities try to be stacked instantly upon spawning?", "Setting this to false may yield better performance at the cost of entities being visible before stacking");
     public static final RoseSetting<Integer> ENTITY_MIN_STACK_SIZE = create("global-entity-settings.min-stack-size", INTEGER, 2, "The minimum number of nearby entities required to form a stack", "Do not set this lower than 2");
     public static final RoseSetting<Integer> ENTITY_MAX_STACK_SIZE = create("global-entity-settings.max-stack-size", INTEGER, 128, "The maximum number of entities that can be in a single stack");
@@ -62,6 +72,8 @@ public final class SettingKey {
     public static final RoseSetting<Boolean> ENTITY_LOOT_APPROXIMATION_ENABLED = create("global-entity-settings.loot-approximation-options.approximation-enabled", BOOLEAN, true, "Should loot be approximated to reduce lag for killing large stack sizes at once?");
     public static final RoseSetting<Integer> ENTITY_LOOT_APPROXIMATION_THRESHOLD = create("global-entity-settings.loot-approximation-options.approximation-threshold", INTEGER, 2048, "The threshold at which loot drops will be approximated");
     public static final RoseSetting<Integer> ENTITY_LOOT_APPROXIMATION_AMOUNT = create("global-entity-settings.loot-approximation-options.approximation-amount", INTEGER, 256, "The number of times the entity loot tables will be run");
+    public static final RoseSetting<Boolean> ENTITY_LOOT_STATISTICAL_ENABLED = create("global-entity-settings.loot-approximation-options.statistical-enabled", BOOLEAN, false, "Should loot over the approximation threshold be drawn from a cached drop distribution instead?", "The loot table is sampled once per entity type and looting level, after that any number of kills takes the same amount of time", "Only a single death event with the combined drops is called when this is used, plugins that add custom drops per death will not see each entity die");
+    public static final RoseSetting<Integer> ENTITY_LOOT_STATISTICAL_SAMPLE_SIZE = create("global-entity-settings.loot-approximation-options.statistical-sample-size", INTEGER, 1000, "The number of times the entity loot tables will be run to build each drop distribution", "Distributions are kept until the plugin is reloaded");
     public static final RoseSetting<Boolean> ENTITY_REQUIRE_LINE_OF_SIGHT = create("global-entity-settings.require-line-of-sight", BOOLEAN, true, "Do entities need to be able to see each other to be able to stack?", "Setting this to true will prevent entities from stacking through walls");
     public static final RoseSetting<Boolean> ENTITY_TRANSFORM_ENTIRE_STACK = create("global-entity-settings.transform-entire-stack", BOOLEAN, true, "Should the entire stack of entities be transformed when the main entity is transformed?", "This applies to pigs getting struck by lightning, zombies drowning, etc");
     public static final RoseSetting<Boolean> ENTITY_ONLY_STACK_ON_GROUND = create("global-entity-settings.only-stack-on-ground", BOOLEAN, false, "Do entities have to be on the ground in order to stack?", "This does not apply if the mobs can fly or live in the water");
@@ -73,8 +85,12 @@ public final class SettingKey {
     public static final RoseSetting<Boolean> ENTITY_DONT_STACK_IF_ACTIVE_RAIDER = create("global-entity-settings.dont-stack-if-active-raider", BOOLEAN, true, "Should we stack entities that are part of an active raid?");
     public static final RoseSetting<Boolean> ENTITY_STACK_FLYING_DOWNWARDS = create("global-entity-settings.stack-flying-downwards", BOOLEAN, false, "Should flying mobs always be stacked downwards?", "This is useful for mob grinders");
     public static final RoseSetting<Boolean> ENTITY_ONLY_STACK_FROM_SPAWNERS = create("global-entity-settings.only-stack-from-spawners", BOOLEAN, false, "Should we only stack entities spawned from spawners?");
+    public static final RoseSetting<Long> ENTITY_STACK_SIGNATURE_EXPIRATION = create("global-entity-settings.stack-signature-expiration", LONG, 100L, "How long should the properties of an entity that decide what it can stack with be remembered for?", "Entities are compared by these instead of checking every stack condition against every nearby entity", "They are also recalculated when a player interacts with the entity, values are in ticks");
     public static final RoseSetting<Boolean> ENTITY_TRIGGER_DEATH_EVENT_FOR_ENTIRE_STACK_KILL = create("global-entity-settings.trigger-death-event-for-entire-stack-kill", BOOLEAN, false, "Should an entity death event be triggered for each mob in a stack?", "If you use custom drops plugins, make sure to enable this", "Note to developers: The death events are asynchronous based on the below setting");
     public static final RoseSetting<Boolean> ENTITY_DEATH_EVENT_RUN_ASYNC = create("global-entity-settings.death-event-trigger-async", BOOLEAN, true, "Should the entity loot be calculated asynchronously?", "If you try enabling this and you get errors that say something like '<SomeEvent> may only be triggered synchronously'", "and has RoseStacker in the stacktrace, you should keep this as false.", "Set this as true for optimal performance if you are not having issues.");
+    public static final RoseSetting<CommentedConfigurationSection> ENTITY_DEATH_EVENT_BATCHING_OPTIONS = create("global-entity-settings.death-event-batching", "Groups the death events for entire stack kills into batches instead of calling one event per mob", "Only used when trigger-death-event-for-entire-stack-kill is enabled");
+    public static final RoseSetting<Boolean> ENTITY_DEATH_EVENT_BATCHING_ENABLED = create("global-entity-settings.death-event-batching.enabled", BOOLEAN, false, "Should death events be batched?", "Plugins that still need an entity death event for each mob must register for them through the RoseStacker API");
+    public static final RoseSetting<Integer> ENTITY_DEATH_EVENT_BATCH_SIZE = create("global-entity-settings.death-event-batching.batch-size", INTEGER, 256, "The maximum number of mobs included in a single batched death event");
     public static final RoseSetting<Boolean> ENTITY_INSTANT_KILL_DISABLED_AI = create("global-entity-settings.instant-kill-disabled-ai", BOOLEAN, false, "Should entities with disabled AI be killed instantly when receiving damage from a player?");
     public static final RoseSetting<Boolean> ENTITY_DISABLE_ALL_MOB_AI = create("global-entity-settings.disable-all-mob-ai", BOOLEAN, false, "Should the AI of ALL MOBS on the server be disabled?", "The parts of the AI that are disabled can be further customized in the global-spawner-settings section");
     public static final RoseSetting<Integer> ENTITY_SAVE_MAX_STACK_SIZE = create("global-entity-settings.save-max-stack-size", INTEGER, -1, "The maximum amount of entities that will be stored when entities are saved to chunk data", "Useful for when you have a very high max stack size, set to -1 to disable");
@@ -134,6 +150,12 @@ public final class SettingKey {
     public static final RoseSetting<Boolean> SPAWNER_REMOVE_EQUIPMENT = create("global-spawner-settings.remove-equipment", BOOLEAN, false, "Should mobs spawned from spawners always spawn with no equipment?");
     public static final RoseSetting<Boolean> SPAWNER_STACK_ENTIRE_HAND_WHEN_SNEAKING = create("global-spawner-settings.stack-entire-hand-when-sneaking", BOOLEAN, true, "Should the entire item stack of spawners be merged when the player is sneaking?");
     public static final RoseSetting<Integer> SPAWNER_MAX_FAILED_SPAWN_ATTEMPTS = create("global-spawner-settings.max-failed-spawn-attempts", INTEGER, 50, "How many random blocks should we check to spawn a mob before giving up?");
+    public static final RoseSetting<CommentedConfigurationSection> SPAWNER_SPAWN_LOCATION_CACHE = create("global-spawner-settings.spawn-location-cache", "Caches the blocks around each spawner that mobs are able to spawn in", "A spawner's cache is cleared when a block changes within its spawn range");
+    public static final RoseSetting<Boolean> SPAWNER_SPAWN_LOCATION_CACHE_ENABLED = create("global-spawner-settings.spawn-location-cache.enabled", BOOLEAN, true, "Should valid spawn locations be cached?", "When disabled, random blocks will be checked every time a spawner spawns mobs");
+    public static final RoseSetting<Integer> SPAWNER_SPAWN_LOCATION_CACHE_EXPIRATION = create("global-spawner-settings.spawn-location-cache.expiration", INTEGER, 1200, "How many ticks should cached spawn locations be kept before they are checked again?", "Light levels change with the time of day without any blocks changing", "Value is measured in ticks");
+    public static final RoseSetting<CommentedConfigurationSection> SPAWNER_CHUNK_SNAPSHOTS = create("global-spawner-settings.chunk-snapshots", "Copies of the blocks and light levels around spawners are taken on the main thread", "Spawn conditions are checked against these copies asynchronously");
+    public static final RoseSetting<Integer> SPAWNER_CHUNK_SNAPSHOTS_PER_TICK = create("global-spawner-settings.chunk-snapshots.captures-per-tick", INTEGER, 16, "How many chunks can be copied per tick?", "Spawns wait until all chunks around their spawner have been copied");
+    public static final RoseSetting<Integer> SPAWNER_CHUNK_SNAPSHOTS_EXPIRATION = create("global-spawner-settings.chunk-snapshots.expiration", INTEGER, 20, "How many ticks can a chunk copy be used for before it is copied again?", "Chunk copies are also dropped right away when a block changes in them", "Value is measured in ticks");
     public static final RoseSetting<Boolean> SPAWNER_DEACTIVATE_WHEN_POWERED = create("global-spawner-settings.deactivate-when-powered", BOOLEAN, false, "Should spawners turn off when powered by redstone?");
     public static final RoseSetting<Integer> SPAWNER_POWERED_CHECK_FREQUENCY = create("global-spawner-settings.powered-check-frequency", INTEGER, 10, "How many ticks should there be between redstone power checks?", "Lower values will cause faster spawner updates at the cost of performance", "Value is measured in ticks, do not go below 1");
     public static final RoseSetting<Integer> SPAWNER_PLAYER_CHECK_FREQUENCY = create("global-spawner-settings.player-check-frequency", INTEGER, 10, "How many ticks should there be between nearby player checks?", "Lower values will cause faster player detection at the cost of performance", "Value is measured in ticks, do not go below 1");
@@ -172,6 +194,7 @@ public final class SettingKey {
     public static final RoseSetting<Integer> SPAWNER_SPAWN_PLAYER_ACTIVATION_RANGE = create("global-spawner-settings.spawn-player-activation-range", INTEGER, 16, "How close do players need to be to activate the spawner?", "Will use spawner tile value if set to -1", "Will be unlimited range if set to -2", "This value is measured in blocks");
     public static final RoseSetting<Integer> SPAWNER_SPAWN_RANGE = create("global-spawner-settings.spawn-range", INTEGER, 4, "How many blocks away can entities be spawned from the spawner?", "Will use spawner tile value if set to -1");
     public static final RoseSetting<Boolean> SPAWNER_SPAWN_INTO_NEARBY_STACKS = create("global-spawner-settings.spawn-into-nearby-stacks", BOOLEAN, true, "Should mobs spawned from spawners spawn directly into nearby stacks?");
+    public static final RoseSetting<Boolean> SPAWNER_SPAWN_INTO_NEARBY_STACKS_BULK = create("global-spawner-settings.spawn-into-nearby-stacks-bulk", BOOLEAN, false, "Should mobs spawned into a nearby stack all be copies of a single spawned mob?", "This is much faster for large spawner stacks since only one mob has to be created per stack", "Mobs with random variants such as sheep colors will share the variant of that one mob", "Only applies to entities using the nbt or columnar data storage types");
     public static final RoseSetting<Boolean> SPAWNER_SPAWN_ONLY_PLAYER_PLACED = create("global-spawner-settings.spawn-only-player-placed", BOOLEAN, false, "Should only spawners placed by players spawn mobs?", "Note that a spawner will only be detected if it was generated in the world after RoseStacker was installed");
     public static final RoseSetting<Boolean> SPAWNER_USE_VERTICAL_SPAWN_RANGE = create("global-spawner-settings.use-vertical-spawn-range", BOOLEAN, false, "Should the vertical spawn range use the horizontal spawn range?", "Entities normally only spawn one block above and below the spawner");
     public static final RoseSetting<Boolean> SPAWNER_DONT_SPAWN_INTO_BLOCKS = create("global-spawner-settings.dont-spawn-into-blocks", BOOLEAN, true, "When enabled, this will force the 'air' condition tag onto the", "spawner if it doesn't have 'fluid' or 'air' already.", "Disabling this will allow mobs to spawn into blocks unless", "you explicitly add the 'fluid' or 'air' tags.");
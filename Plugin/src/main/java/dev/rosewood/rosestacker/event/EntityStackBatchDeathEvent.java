@@ -0,0 +1,143 @@
+package dev.rosewood.rosestacker.event;
+
+import com.google.common.collect.Multimap;
+import dev.rosewood.rosestacker.api.RoseStackerAPI;
+import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent.EntityDrops;
+import dev.rosewood.rosestacker.stack.StackedEntity;
+import dev.rosewood.rosestacker.utils.ItemUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Only called when trigger-death-event-for-entire-stack-kill and death-event-batching are enabled in the config.
+ * This can be checked with {@link RoseStackerAPI#isEntityStackBatchDeathEventCalled()}
+ * Called once for each group of entities in a stack that are killed at the same time, groups are at most
+ * death-event-batching.batch-size entities large.
+ * May be called async depending on the value of the death-event-trigger-async config setting.
+ */
+public class EntityStackBatchDeathEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final StackedEntity stackedEntity;
+    private final Multimap<LivingEntity, EntityDrops> entityDrops;
+    private final int batchIndex;
+    private final int batchCount;
+    private final int originalStackSize;
+    private final int entityKillCount;
+
+    /**
+     * @param stackedEntity The entity being killed
+     * @param entityDrops A Map of the entities in this batch and their drops
+     * @param batchIndex The index of this batch, starting at 0
+     * @param batchCount The total number of batches being called for this kill
+     * @param originalStackSize The original stack size
+     * @param entityKillCount The number of entities being killed across all batches
+     */
+    public EntityStackBatchDeathEvent(@NotNull StackedEntity stackedEntity,
+                                      @NotNull Multimap<LivingEntity, EntityDrops> entityDrops,
+                                      int batchIndex, int batchCount, int originalStackSize, int entityKillCount) {
+        super(!Bukkit.isPrimaryThread());
+
+        this.stackedEntity = stackedEntity;
+        this.entityDrops = entityDrops;
+        this.batchIndex = batchIndex;
+        this.batchCount = batchCount;
+        this.originalStackSize = originalStackSize;
+        this.entityKillCount = entityKillCount;
+    }
+
+    /**
+     * @return the StackedEntity being killed
+     */
+    @NotNull
+    public StackedEntity getStack() {
+        return this.stackedEntity;
+    }
+
+    /**
+     * Modifying the drops in this Multimap will change what is dropped
+     *
+     * @return a Multimap of the entities in this batch and their drops
+     */
+    @NotNull
+    public Multimap<LivingEntity, EntityDrops> getEntityDrops() {
+        return this.entityDrops;
+    }
+
+    /**
+     * Combines the drops of every entity in this batch, changes to the returned list are not reflected in the drops.
+     * Note: The returned ItemStacks can be larger than their max stack size.
+     *
+     * @return a new List containing one ItemStack for each distinct item dropped in this batch
+     */
+    @NotNull
+    public List<ItemStack> getAggregatedDrops() {
+        List<ItemStack> items = new ArrayList<>();
+        for (EntityDrops drops : this.entityDrops.values())
+            items.addAll(drops.getDrops());
+
+        List<ItemStack> aggregated = new ArrayList<>();
+        for (Map.Entry<ItemStack, Integer> entry : ItemUtils.reduceItemsByCounts(items).entrySet()) {
+            ItemStack itemStack = entry.getKey().clone();
+            itemStack.setAmount(entry.getValue());
+            aggregated.add(itemStack);
+        }
+        return aggregated;
+    }
+
+    /**
+     * @return the combined experience dropped by every entity in this batch
+     */
+    public int getAggregatedExperience() {
+        long experience = 0;
+        for (EntityDrops drops : this.entityDrops.values())
+            experience += drops.getExperience();
+        return (int) Math.min(experience, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the index of this batch, starting at 0
+     */
+    public int getBatchIndex() {
+        return this.batchIndex;
+    }
+
+    /**
+     * @return the total number of batches being called for this kill
+     */
+    public int getBatchCount() {
+        return this.batchCount;
+    }
+
+    /**
+     * @return the original stack size
+     */
+    public int getOriginalStackSize() {
+        return this.originalStackSize;
+    }
+
+    /**
+     * @return the number of entities being killed across all batches
+     */
+    public int getEntityKillCount() {
+        return this.entityKillCount;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+}
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.listener;
 
 import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import org.bukkit.entity.Entity;
@@ -24,12 +25,14 @@ public class EntitiesLoadListener implements Listener {
             if (entity instanceof LivingEntity)
                 PersistentDataUtils.applyDisabledAi((LivingEntity) entity);
 
+        this.rosePlugin.getManager(EntityCacheManager.class).trackEntities(event.getEntities());
         this.rosePlugin.getManager(StackManager.class).loadChunkEntities(event.getEntities());
     }
 
     @EventHandler
     public void onEntitiesUnload(EntitiesUnloadEvent event) {
         this.rosePlugin.getManager(StackManager.class).saveChunkEntities(event.getEntities(), true);
+        this.rosePlugin.getManager(EntityCacheManager.class).untrackEntities(event.getEntities());
     }
 
 }
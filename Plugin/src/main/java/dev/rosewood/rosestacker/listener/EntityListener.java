@@ -20,6 +20,7 @@ import dev.rosewood.rosestacker.stack.settings.ItemStackSettings;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import dev.rosewood.rosestacker.utils.ItemUtils;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import dev.rosewood.rosestacker.utils.VersionUtils;
 import java.util.ArrayList;
@@ -55,6 +56,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockShearEntityEvent;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
+import org.bukkit.event.entity.CreeperPowerEvent;
 import org.bukkit.event.entity.EntityCombustByBlockEvent;
 import org.bukkit.event.entity.EntityCombustByEntityEvent;
 import org.bukkit.event.entity.EntityCombustEvent;
@@ -63,15 +65,19 @@ import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.EntityDropItemEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
 import org.bukkit.event.entity.EntityPortalEvent;
 import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.entity.EntityTameEvent;
 import org.bukkit.event.entity.EntityTargetEvent;
 import org.bukkit.event.entity.EntityTeleportEvent;
 import org.bukkit.event.entity.EntityTransformEvent;
 import org.bukkit.event.entity.EntityTransformEvent.TransformReason;
 import org.bukkit.event.entity.PigZapEvent;
+import org.bukkit.event.entity.SheepDyeWoolEvent;
 import org.bukkit.event.entity.SheepRegrowWoolEvent;
 import org.bukkit.event.entity.SpawnerSpawnEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.event.player.PlayerShearEntityEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.Vector;
@@ -199,6 +205,7 @@ public class EntityListener implements Listener {
             StackedEntity stackedEntity = stackManager.getStackedEntity(livingEntity);
             if (stackedEntity != null) {
                 stackManager.changeStackingThread(livingEntity.getUniqueId(), stackedEntity, event.getFrom().getWorld(), event.getTo().getWorld());
+                stackedEntity.invalidateDisplay();
                 stackedEntity.updateDisplay();
             }
         } else if (entity instanceof Item item) {
@@ -465,7 +472,7 @@ public class EntityListener implements Listener {
             if (event.getTransformReason() == TransformReason.LIGHTNING) { // Wait for lightning to disappear
                 ThreadUtils.runSyncDelayed(stackedEntity::decreaseStackSize, 20);
             } else {
-                ThreadUtils.runSync(stackedEntity::decreaseStackSize);
+                ThreadUtils.runSync(stackedEntity::decreaseStackSize, SyncTaskQueue.Priority.HIGH);
             }
         }
     }
@@ -535,7 +542,7 @@ public class EntityListener implements Listener {
             ThreadUtils.runSync(() -> {
                 if (!stackedEntity.shouldStayStacked() && stackedEntity.getStackSize() > 1)
                     stackManager.splitEntityStack(stackedEntity);
-            });
+            }, SyncTaskQueue.Priority.HIGH);
             return;
         }
 
@@ -607,4 +614,51 @@ public class EntityListener implements Listener {
         }));
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
+        this.invalidateStackSignature(event.getRightClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityTame(EntityTameEvent event) {
+        this.invalidateStackSignature(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSheepDyeWool(SheepDyeWoolEvent event) {
+        this.invalidateStackSignature(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCreeperPower(CreeperPowerEvent event) {
+        this.invalidateStackSignature(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        this.invalidateStackSignature(event.getEntity());
+    }
+
+    /**
+     * Rebuilds the stack signature of an entity that may have changed, both now and on the next tick once the change
+     * from the event has been applied
+     *
+     * @param entity The entity that may have changed
+     */
+    private void invalidateStackSignature(Entity entity) {
+        if (!(entity instanceof LivingEntity livingEntity))
+            return;
+
+        StackManager stackManager = this.rosePlugin.getManager(StackManager.class);
+        if (!stackManager.isEntityStackingEnabled())
+            return;
+
+        StackedEntity stackedEntity = stackManager.getStackedEntity(livingEntity);
+        if (stackedEntity == null)
+            return;
+
+        stackedEntity.invalidateStackSignature();
+        ThreadUtils.runSync(stackedEntity::invalidateStackSignature);
+    }
+
 }
@@ -0,0 +1,27 @@
+package dev.rosewood.rosestacker.listener;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityRemoveEvent;
+
+/**
+ * Only registered on versions that have the {@link EntityRemoveEvent}, older versions rely on the
+ * periodic sweep in {@link EntityCacheManager} to drop removed entities instead
+ */
+public class EntityRemoveListener implements Listener {
+
+    private final RosePlugin rosePlugin;
+
+    public EntityRemoveListener(RosePlugin rosePlugin) {
+        this.rosePlugin = rosePlugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveEvent event) {
+        this.rosePlugin.getManager(EntityCacheManager.class).untrackEntity(event.getEntity());
+    }
+
+}
@@ -10,6 +10,7 @@ import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.utils.ItemUtils;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
@@ -138,13 +139,13 @@ public class InteractListener implements Listener {
         Player player = event.getPlayer();
         ItemStack itemStack = event.getHand() == EquipmentSlot.HAND ? player.getInventory().getItemInMainHand() : player.getInventory().getItemInOffHand();
         if (itemStack.getType() == Material.NAME_TAG) {
-            ThreadUtils.runSync(stackedEntity::updateDisplay);
+            ThreadUtils.runSync(stackedEntity::updateDisplay, SyncTaskQueue.Priority.LOW);
             return;
         } else if (itemStack.getType() == Material.WATER_BUCKET) {
             switch (entity.getType()) {
                 case COD, SALMON, PUFFERFISH, TROPICAL_FISH, AXOLOTL, TADPOLE -> {
                     if (stackedEntity.getStackSize() != 1)
-                        ThreadUtils.runSync(stackedEntity::decreaseStackSize);
+                        ThreadUtils.runSync(stackedEntity::decreaseStackSize, SyncTaskQueue.Priority.HIGH);
                 }
             }
             return;
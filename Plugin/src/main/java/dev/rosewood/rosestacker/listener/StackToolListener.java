@@ -83,10 +83,12 @@ public class StackToolListener implements Listener {
         if (!player.isSneaking()) {
             boolean stackable = !PersistentDataUtils.isUnstackable(entity);
             PersistentDataUtils.setUnstackable(entity, stackable);
+            stackedEntity.invalidateStackSignature();
             String stackableStr = !stackable ? "stackable" : "unstackable";
             localeManager.sendCommandMessage(player, "command-stacktool-marked-" + stackableStr, StringPlaceholders.of("type", stackedEntity.getStackSettings().getDisplayName()));
         } else {
             PersistentDataUtils.setUnstackable(entity, true);
+            stackedEntity.invalidateStackSignature();
             ThreadUtils.runAsync(() -> stackedEntity.getDataStorage().forEachTransforming(x -> {
                 PersistentDataUtils.setUnstackable(x, true);
                 return true;
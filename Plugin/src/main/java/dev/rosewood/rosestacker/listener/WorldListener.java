@@ -2,10 +2,12 @@ package dev.rosewood.rosestacker.listener;
 
 import dev.rosewood.rosegarden.RosePlugin;
 import dev.rosewood.rosegarden.utils.NMSUtil;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import java.util.Arrays;
+import java.util.List;
 import org.bukkit.Chunk;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.CreatureSpawner;
@@ -59,6 +61,7 @@ public class WorldListener implements Listener {
                     if (entity instanceof LivingEntity)
                         PersistentDataUtils.applyDisabledAi((LivingEntity) entity);
 
+                this.rosePlugin.getManager(EntityCacheManager.class).trackEntities(Arrays.asList(entities));
                 stackManager.loadChunkEntities(Arrays.asList(entities));
             }
 
@@ -71,8 +74,11 @@ public class WorldListener implements Listener {
         StackManager stackManager = this.rosePlugin.getManager(StackManager.class);
         stackManager.saveChunkBlocks(event.getChunk(), true);
 
-        if (NMSUtil.getVersionNumber() < 17)
-            stackManager.saveChunkEntities(Arrays.asList(event.getChunk().getEntities()), true);
+        if (NMSUtil.getVersionNumber() < 17) {
+            List<Entity> entities = Arrays.asList(event.getChunk().getEntities());
+            stackManager.saveChunkEntities(entities, true);
+            this.rosePlugin.getManager(EntityCacheManager.class).untrackEntities(entities);
+        }
     }
 
     @EventHandler
@@ -0,0 +1,278 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Captures copies of the blocks and light levels of chunks on the main thread so they can be read asynchronously.
+ * Chunks are never captured on demand, asking for a chunk that isn't captured queues it and the queue is worked
+ * through once per tick up to a limit. Captured chunks are handed out in reference counted views, and chunks that no
+ * view is using and nobody asked for in a while are dropped.
+ */
+public class ChunkSnapshotManager extends Manager implements Listener {
+
+    /**
+     * How many expiration periods a chunk can go without being asked for before it is dropped
+     */
+    private static final int IDLE_EXPIRATIONS = 5;
+
+    private final Map<UUID, Map<Long, CapturedChunk>> capturedChunks;
+    private final Queue<QueuedChunk> captureQueue;
+    private final Set<QueuedChunk> queuedChunks;
+    private BukkitTask captureTask;
+    private int capturesPerTick;
+    private long expirationNanos;
+    private long lastEvictionTime;
+
+    public ChunkSnapshotManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.capturedChunks = new ConcurrentHashMap<>();
+        this.captureQueue = new ConcurrentLinkedQueue<>();
+        this.queuedChunks = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void reload() {
+        this.capturesPerTick = Math.max(1, SettingKey.SPAWNER_CHUNK_SNAPSHOTS_PER_TICK.get());
+        this.expirationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, SettingKey.SPAWNER_CHUNK_SNAPSHOTS_EXPIRATION.get()) * 50L);
+        this.captureTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::captureQueued, 1L, 1L);
+    }
+
+    @Override
+    public void disable() {
+        if (this.captureTask != null) {
+            this.captureTask.cancel();
+            this.captureTask = null;
+        }
+
+        this.capturedChunks.clear();
+        this.captureQueue.clear();
+        this.queuedChunks.clear();
+    }
+
+    /**
+     * Gets a view of a square of chunks. Any loaded chunk that isn't captured yet or has expired is queued to be captured,
+     * unloaded chunks are left out of the view and read as empty.
+     * May be called async.
+     *
+     * @param world The world the chunks are in
+     * @param minChunkX The lowest chunk x coordinate
+     * @param minChunkZ The lowest chunk z coordinate
+     * @param maxChunkX The highest chunk x coordinate
+     * @param maxChunkZ The highest chunk z coordinate
+     * @return a view of the chunks, or null if any of the loaded ones haven't been captured yet
+     */
+    public ChunkSnapshotView acquire(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        Map<Long, CapturedChunk> worldChunks = this.capturedChunks.computeIfAbsent(world.getUID(), x -> new ConcurrentHashMap<>());
+        int width = maxChunkZ - minChunkZ + 1;
+        CapturedChunk[] chunks = new CapturedChunk[(maxChunkX - minChunkX + 1) * width];
+        boolean complete = true;
+        long now = System.nanoTime();
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                CapturedChunk chunk = worldChunks.get(getChunkKey(x, z));
+                if (chunk == null) {
+                    // Unloaded chunks can't be captured, the view reads them as empty so they don't hold it up forever
+                    if (world.isChunkLoaded(x, z)) {
+                        complete = false;
+                        this.queue(world, x, z);
+                    }
+                    continue;
+                }
+
+                // Expired chunks can still be used until the new copy is captured
+                chunk.lastRequested = now;
+                if (now - chunk.capturedAt >= this.expirationNanos)
+                    this.queue(world, x, z);
+
+                chunks[(x - minChunkX) * width + (z - minChunkZ)] = chunk;
+            }
+        }
+
+        if (!complete)
+            return null;
+
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[chunks.length];
+        int[] skyDarken = new int[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == null)
+                continue;
+
+            chunks[i].references.incrementAndGet();
+            snapshots[i] = chunks[i].snapshot;
+            skyDarken[i] = chunks[i].skyDarken;
+        }
+
+        return new ChunkSnapshotView(world, minChunkX, minChunkZ, maxChunkX, maxChunkZ, snapshots, skyDarken, () -> {
+            for (CapturedChunk chunk : chunks)
+                if (chunk != null)
+                    chunk.references.decrementAndGet();
+        });
+    }
+
+    /**
+     * Gets the type of a block from its captured chunk. If the chunk isn't captured it is queued and null is returned,
+     * callers should skip whatever needed the block and try again later.
+     * May be called async.
+     *
+     * @param world The world the block is in
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the type of the block, or null if its chunk hasn't been captured yet
+     */
+    public Material getBlockType(World world, int x, int y, int z) {
+        Map<Long, CapturedChunk> worldChunks = this.capturedChunks.get(world.getUID());
+        CapturedChunk chunk = worldChunks == null ? null : worldChunks.get(getChunkKey(x >> 4, z >> 4));
+        if (chunk == null) {
+            this.queue(world, x >> 4, z >> 4);
+            return null;
+        }
+
+        long now = System.nanoTime();
+        chunk.lastRequested = now;
+        if (now - chunk.capturedAt >= this.expirationNanos)
+            this.queue(world, x >> 4, z >> 4);
+
+        return chunk.snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * Drops the captured copy of a chunk after a block in it changed, views that are already using it are unaffected
+     *
+     * @param block The block that changed
+     */
+    public void invalidate(Block block) {
+        Map<Long, CapturedChunk> worldChunks = this.capturedChunks.get(block.getWorld().getUID());
+        if (worldChunks != null)
+            worldChunks.remove(getChunkKey(block.getX() >> 4, block.getZ() >> 4));
+    }
+
+    /**
+     * @return the number of chunks currently captured
+     */
+    public int getCapturedChunkCount() {
+        return this.capturedChunks.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void queue(World world, int chunkX, int chunkZ) {
+        QueuedChunk queuedChunk = new QueuedChunk(world, chunkX, chunkZ);
+        if (this.queuedChunks.add(queuedChunk))
+            this.captureQueue.add(queuedChunk);
+    }
+
+    private void captureQueued() {
+        long now = System.nanoTime();
+        Map<World, Integer> skyDarken = new HashMap<>();
+        for (int i = 0; i < this.capturesPerTick; i++) {
+            QueuedChunk queuedChunk = this.captureQueue.poll();
+            if (queuedChunk == null)
+                break;
+
+            this.queuedChunks.remove(queuedChunk);
+
+            World world = queuedChunk.world();
+            if (!world.isChunkLoaded(queuedChunk.x(), queuedChunk.z()))
+                continue;
+
+            ChunkSnapshot snapshot = world.getChunkAt(queuedChunk.x(), queuedChunk.z()).getChunkSnapshot(false, false, false);
+            int darken = skyDarken.computeIfAbsent(world, x -> this.getSkyDarken(world, queuedChunk.x(), queuedChunk.z()));
+            this.capturedChunks.computeIfAbsent(world.getUID(), x -> new ConcurrentHashMap<>())
+                    .put(getChunkKey(queuedChunk.x(), queuedChunk.z()), new CapturedChunk(snapshot, darken, now));
+        }
+
+        if (now - this.lastEvictionTime >= this.expirationNanos) {
+            this.lastEvictionTime = now;
+            this.evictIdle(now);
+        }
+    }
+
+    /**
+     * Works out how much the time of day and weather darken the sky light, Bukkit doesn't expose this directly.
+     * The block at the top of the world is normally lit only by the sky, so its light level shows how much was taken off.
+     */
+    private int getSkyDarken(World world, int chunkX, int chunkZ) {
+        Block block = world.getBlockAt(chunkX << 4, world.getMaxHeight() - 1, chunkZ << 4);
+        if (block.getLightFromSky() != 15 || block.getLightFromBlocks() != 0)
+            return 0;
+        return 15 - block.getLightLevel();
+    }
+
+    private void evictIdle(long now) {
+        long idleNanos = this.expirationNanos * IDLE_EXPIRATIONS;
+        for (Map<Long, CapturedChunk> worldChunks : this.capturedChunks.values()) {
+            Iterator<CapturedChunk> iterator = worldChunks.values().iterator();
+            while (iterator.hasNext()) {
+                CapturedChunk chunk = iterator.next();
+                if (chunk.references.get() <= 0 && now - chunk.lastRequested >= idleNanos)
+                    iterator.remove();
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Map<Long, CapturedChunk> worldChunks = this.capturedChunks.get(event.getWorld().getUID());
+        if (worldChunks != null)
+            worldChunks.remove(getChunkKey(event.getChunk().getX(), event.getChunk().getZ()));
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.capturedChunks.remove(event.getWorld().getUID());
+        this.queuedChunks.removeIf(x -> x.world().equals(event.getWorld()));
+        this.captureQueue.removeIf(x -> x.world().equals(event.getWorld()));
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A captured copy of a chunk along with how many views are using it
+     */
+    private static class CapturedChunk {
+
+        private final ChunkSnapshot snapshot;
+        private final int skyDarken;
+        private final long capturedAt;
+        private final AtomicInteger references;
+        private volatile long lastRequested;
+
+        public CapturedChunk(ChunkSnapshot snapshot, int skyDarken, long capturedAt) {
+            this.snapshot = snapshot;
+            this.skyDarken = skyDarken;
+            this.capturedAt = capturedAt;
+            this.references = new AtomicInteger();
+            this.lastRequested = capturedAt;
+        }
+
+    }
+
+    private record QueuedChunk(World world, int x, int z) { }
+
+}
@@ -2,30 +2,41 @@ package dev.rosewood.rosestacker.manager;
 
 import dev.rosewood.rosegarden.RosePlugin;
 import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
-import dev.rosewood.rosestacker.stack.StackingThread;
 import dev.rosewood.rosestacker.utils.VersionUtils;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.entity.EntityTeleportEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.scheduler.BukkitTask;
-import org.bukkit.util.BoundingBox;
+import org.bukkit.util.NumberConversions;
 
-public class EntityCacheManager extends Manager {
+/**
+ * Keeps an incrementally updated index of entities by the chunk they are in.
+ * Entities are added when they spawn or load and removed when they are removed or unload,
+ * a periodic async sweep moves entities between chunks as they walk around.
+ */
+public class EntityCacheManager extends Manager implements Listener {
 
-    private final Map<ChunkLocation, Collection<Entity>> entityCache;
-    private BukkitTask refreshTask;
+    private final Map<UUID, WorldEntityCache> entityCache;
+    private BukkitTask relocateTask, reconcileTask;
 
     public EntityCacheManager(RosePlugin rosePlugin) {
         super(rosePlugin);
@@ -34,16 +45,30 @@ public class EntityCacheManager extends Manager {
 
     @Override
     public void reload() {
-        this.refreshTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::refresh, 5L, 60L);
+        // Populate the cache once, from then on it is kept up to date incrementally
+        this.reconcile();
+
+        // Lookups trust the cached positions, so relocating can't be turned off
+        long relocateFrequency = Math.max(1, SettingKey.ENTITY_CACHE_RELOCATE_FREQUENCY.get());
+        this.relocateTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::relocate, relocateFrequency, relocateFrequency);
+
+        long reconcileFrequency = SettingKey.ENTITY_CACHE_RECONCILIATION_FREQUENCY.get();
+        if (reconcileFrequency > 0)
+            this.reconcileTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::reconcile, reconcileFrequency, reconcileFrequency);
     }
 
     @Override
     public void disable() {
         this.entityCache.clear();
 
-        if (this.refreshTask != null) {
-            this.refreshTask.cancel();
-            this.refreshTask = null;
+        if (this.relocateTask != null) {
+            this.relocateTask.cancel();
+            this.relocateTask = null;
+        }
+
+        if (this.reconcileTask != null) {
+            this.reconcileTask.cancel();
+            this.reconcileTask = null;
         }
     }
 
@@ -53,7 +78,7 @@ public class EntityCacheManager extends Manager {
      * @param center The center of the area to check
      * @param radius The radius to check around
      * @param predicate Conditions to be met
-     * @return A Set of nearby entities
+     * @return A Collection of nearby entities
      */
     public Collection<Entity> getNearbyEntities(Location center, double radius, Predicate<Entity> predicate) {
         List<Entity> nearbyEntities = new ArrayList<>();
@@ -61,33 +86,68 @@ public class EntityCacheManager extends Manager {
         if (world == null)
             return nearbyEntities;
 
-        BoundingBox boundingBox = new BoundingBox(
-                center.getX() - radius,
-                center.getY() - radius,
-                center.getZ() - radius,
-                center.getX() + radius,
-                center.getY() + radius,
-                center.getZ() + radius
-        );
-
-        int minX = (int) boundingBox.getMinX() >> 4;
-        int maxX = (int) boundingBox.getMaxX() >> 4;
-        int minZ = (int) boundingBox.getMinZ() >> 4;
-        int maxZ = (int) boundingBox.getMaxZ() >> 4;
-
-        for (int x = minX; x <= maxX; x++) {
-            for (int z = minZ; z <= maxZ; z++) {
-                Collection<Entity> entities = this.entityCache.get(new ChunkLocation(world.getName(), x, z));
-                if (entities != null)
-                    nearbyEntities.addAll(entities);
+        WorldEntityCache worldCache = this.entityCache.get(world.getUID());
+        if (worldCache == null)
+            return nearbyEntities;
+
+        double minX = center.getX() - radius, maxX = center.getX() + radius;
+        double minY = center.getY() - radius, maxY = center.getY() + radius;
+        double minZ = center.getZ() - radius, maxZ = center.getZ() + radius;
+
+        for (int x = NumberConversions.floor(minX) >> 4, chunkMaxX = NumberConversions.floor(maxX) >> 4; x <= chunkMaxX; x++) {
+            for (int z = NumberConversions.floor(minZ) >> 4, chunkMaxZ = NumberConversions.floor(maxZ) >> 4; z <= chunkMaxZ; z++) {
+                ChunkEntityCache chunkCache = worldCache.getChunk(getChunkKey(x, z));
+                if (chunkCache == null)
+                    continue;
+
+                for (Set<CachedEntity> bucket : chunkCache.getBuckets())
+                    for (CachedEntity cachedEntity : bucket)
+                        if (cachedEntity.isWithin(minX, minY, minZ, maxX, maxY, maxZ) && predicate.test(cachedEntity.entity) && cachedEntity.entity.isValid())
+                            nearbyEntities.add(cachedEntity.entity);
             }
         }
 
-        return nearbyEntities.stream()
-                .filter(x -> boundingBox.contains(x.getLocation().toVector()))
-                .filter(predicate)
-                .filter(Entity::isValid)
-                .collect(Collectors.toSet());
+        return nearbyEntities;
+    }
+
+    /**
+     * Gets nearby entities of a single type from cache and adds them to a buffer supplied by the caller.
+     * Only the chunks covered by the area are visited, and only the bucket for the requested type inside of them.
+     * The buffer is not cleared, so it can be reused between calls and filled with more than one type.
+     *
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param entityType The type of entity to look for
+     * @param results The collection to add nearby entities to
+     */
+    public void getNearbyEntities(Location center, double radius, EntityType entityType, Collection<Entity> results) {
+        World world = center.getWorld();
+        if (world == null)
+            return;
+
+        WorldEntityCache worldCache = this.entityCache.get(world.getUID());
+        if (worldCache == null)
+            return;
+
+        double minX = center.getX() - radius, maxX = center.getX() + radius;
+        double minY = center.getY() - radius, maxY = center.getY() + radius;
+        double minZ = center.getZ() - radius, maxZ = center.getZ() + radius;
+
+        for (int x = NumberConversions.floor(minX) >> 4, chunkMaxX = NumberConversions.floor(maxX) >> 4; x <= chunkMaxX; x++) {
+            for (int z = NumberConversions.floor(minZ) >> 4, chunkMaxZ = NumberConversions.floor(maxZ) >> 4; z <= chunkMaxZ; z++) {
+                ChunkEntityCache chunkCache = worldCache.getChunk(getChunkKey(x, z));
+                if (chunkCache == null)
+                    continue;
+
+                Set<CachedEntity> bucket = chunkCache.getBucket(entityType);
+                if (bucket == null)
+                    continue;
+
+                for (CachedEntity cachedEntity : bucket)
+                    if (cachedEntity.isWithin(minX, minY, minZ, maxX, maxY, maxZ) && cachedEntity.entity.isValid())
+                        results.add(cachedEntity.entity);
+            }
+        }
     }
 
     /**
@@ -95,21 +155,57 @@ public class EntityCacheManager extends Manager {
      *
      * @param location The Location of the Chunk
      * @param predicate Conditions to be met
-     * @return A Set of entities in the chunk
+     * @return A Collection of entities in the chunk
      */
     public Collection<Entity> getEntitiesInChunk(Location location, Predicate<Entity> predicate) {
+        List<Entity> entities = new ArrayList<>();
         World world = location.getWorld();
         if (world == null)
-            return new ArrayList<>();
+            return entities;
+
+        WorldEntityCache worldCache = this.entityCache.get(world.getUID());
+        if (worldCache == null)
+            return entities;
 
-        Collection<Entity> entities = this.entityCache.get(new ChunkLocation(world.getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4));
-        if (entities == null)
-            return new ArrayList<>();
+        ChunkEntityCache chunkCache = worldCache.getChunk(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        if (chunkCache == null)
+            return entities;
 
-        return entities.stream()
-                .filter(predicate)
-                .filter(Entity::isValid)
-                .collect(Collectors.toSet());
+        for (Set<CachedEntity> bucket : chunkCache.getBuckets())
+            for (CachedEntity cachedEntity : bucket)
+                if (predicate.test(cachedEntity.entity) && cachedEntity.entity.isValid())
+                    entities.add(cachedEntity.entity);
+
+        return entities;
+    }
+
+    /**
+     * Gets entities of a single type in the Chunk of a Location and adds them to a buffer supplied by the caller
+     *
+     * @param location The Location of the Chunk
+     * @param entityType The type of entity to look for
+     * @param results The collection to add the entities to
+     */
+    public void getEntitiesInChunk(Location location, EntityType entityType, Collection<Entity> results) {
+        World world = location.getWorld();
+        if (world == null)
+            return;
+
+        WorldEntityCache worldCache = this.entityCache.get(world.getUID());
+        if (worldCache == null)
+            return;
+
+        ChunkEntityCache chunkCache = worldCache.getChunk(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        if (chunkCache == null)
+            return;
+
+        Set<CachedEntity> bucket = chunkCache.getBucket(entityType);
+        if (bucket == null)
+            return;
+
+        for (CachedEntity cachedEntity : bucket)
+            if (cachedEntity.entity.isValid())
+                results.add(cachedEntity.entity);
     }
 
     /**
@@ -118,39 +214,260 @@ public class EntityCacheManager extends Manager {
      * @param entity The entity to cache
      */
     public void preCacheEntity(Entity entity) {
+        this.trackEntity(entity);
+    }
+
+    /**
+     * Adds an entity to the cache or moves it to the chunk it is currently in
+     *
+     * @param entity The entity to track
+     */
+    public void trackEntity(Entity entity) {
         Location location = entity.getLocation();
-        ChunkLocation chunkLocation = new ChunkLocation(entity.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
-        Collection<Entity> entities = this.entityCache.get(chunkLocation);
-        if (entities == null) {
-            entities = new LinkedBlockingDeque<>();
-            this.entityCache.put(chunkLocation, entities);
-        }
-        entities.add(entity);
-    }
-
-    private void refresh() {
-        synchronized (this.entityCache) {
-            this.entityCache.clear();
-            NMSHandler nmsHandler = NMSAdapter.getHandler();
-            for (StackingThread stackingThread : this.rosePlugin.getManager(StackManager.class).getStackingThreads().values()) {
-                World world = stackingThread.getTargetWorld();
-                for (Entity entity : nmsHandler.getEntities(world)) {
-                    EntityType type = entity.getType();
-                    if (type != VersionUtils.ITEM && (!type.isAlive() || type == EntityType.PLAYER || type == EntityType.ARMOR_STAND))
-                        continue;
-
-                    ChunkLocation chunkLocation = new ChunkLocation(world.getName(), entity.getLocation().getBlockX() >> 4, entity.getLocation().getBlockZ() >> 4);
-                    Collection<Entity> entities = this.entityCache.get(chunkLocation);
-                    if (entities == null) {
-                        entities = new LinkedBlockingDeque<>();
-                        this.entityCache.put(chunkLocation, entities);
-                    }
-                    entities.add(entity);
+        this.trackEntity(entity, location);
+    }
+
+    /**
+     * Adds entities to the cache, used for entities loaded with a chunk
+     *
+     * @param entities The entities to track
+     */
+    public void trackEntities(Collection<Entity> entities) {
+        for (Entity entity : entities)
+            this.trackEntity(entity);
+    }
+
+    /**
+     * Removes an entity from the cache
+     *
+     * @param entity The entity to stop tracking
+     */
+    public void untrackEntity(Entity entity) {
+        WorldEntityCache worldCache = this.entityCache.get(entity.getWorld().getUID());
+        if (worldCache != null)
+            worldCache.remove(entity);
+    }
+
+    /**
+     * Removes entities from the cache, used for entities unloaded with a chunk
+     *
+     * @param entities The entities to stop tracking
+     */
+    public void untrackEntities(Collection<Entity> entities) {
+        for (Entity entity : entities)
+            this.untrackEntity(entity);
+    }
+
+    private void trackEntity(Entity entity, Location location) {
+        if (!isCacheable(entity.getType()))
+            return;
+
+        World world = location.getWorld();
+        if (world == null)
+            return;
+
+        WorldEntityCache worldCache = this.entityCache.computeIfAbsent(world.getUID(), x -> new WorldEntityCache());
+        worldCache.put(entity, location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Refreshes the cached positions of entities, moves entities that have walked into another chunk,
+     * and drops entities that are no longer alive.
+     * Only walks the entities already in the cache and runs off the main thread.
+     */
+    private void relocate() {
+        Location location = new Location(null, 0, 0, 0);
+        for (WorldEntityCache worldCache : this.entityCache.values()) {
+            for (Entity entity : worldCache.getEntities()) {
+                if (entity.isDead()) {
+                    worldCache.remove(entity);
+                    continue;
                 }
+
+                entity.getLocation(location);
+                worldCache.put(entity, location.getX(), location.getY(), location.getZ());
             }
         }
     }
 
-    private record ChunkLocation(String world, int x, int z) { }
+    /**
+     * Walks every entity in every enabled world and makes sure it is tracked in the right chunk.
+     * Unlike the old full rebuild the cache is never cleared, so lookups never see it empty.
+     */
+    private void reconcile() {
+        StackManager stackManager = this.rosePlugin.getManager(StackManager.class);
+        NMSHandler nmsHandler = NMSAdapter.getHandler();
+        for (World world : Bukkit.getWorlds()) {
+            if (stackManager.isWorldDisabled(world))
+                continue;
+
+            for (Entity entity : nmsHandler.getEntities(world))
+                this.trackEntity(entity);
+        }
+
+        for (WorldEntityCache worldCache : this.entityCache.values())
+            for (Entity entity : worldCache.getEntities())
+                if (entity.isDead())
+                    worldCache.remove(entity);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        this.trackEntity(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityTeleport(EntityTeleportEvent event) {
+        Location to = event.getTo();
+        if (to == null || to.getWorld() != event.getFrom().getWorld())
+            return;
+
+        this.trackEntity(event.getEntity(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.entityCache.remove(event.getWorld().getUID());
+    }
+
+    private static boolean isCacheable(EntityType type) {
+        return type == VersionUtils.ITEM || (type.isAlive() && type != EntityType.PLAYER && type != EntityType.ARMOR_STAND);
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    private static class WorldEntityCache {
+
+        private final Map<Long, ChunkEntityCache> chunks;
+        private final Map<Entity, CachedEntity> entities;
+
+        public WorldEntityCache() {
+            this.chunks = new ConcurrentHashMap<>();
+            this.entities = new ConcurrentHashMap<>();
+        }
+
+        public ChunkEntityCache getChunk(long chunkKey) {
+            return this.chunks.get(chunkKey);
+        }
+
+        public Collection<Entity> getEntities() {
+            return this.entities.keySet();
+        }
+
+        public void put(Entity entity, double x, double y, double z) {
+            long chunkKey = getChunkKey(NumberConversions.floor(x) >> 4, NumberConversions.floor(z) >> 4);
+            CachedEntity cachedEntity = this.entities.get(entity);
+            if (cachedEntity == null) {
+                cachedEntity = new CachedEntity(entity);
+                CachedEntity existing = this.entities.putIfAbsent(entity, cachedEntity);
+                if (existing != null)
+                    cachedEntity = existing;
+            }
+
+            synchronized (cachedEntity) {
+                cachedEntity.setPosition(x, y, z);
+                if (cachedEntity.chunkKey == chunkKey && cachedEntity.tracked)
+                    return;
+
+                if (cachedEntity.tracked)
+                    this.removeFromChunk(cachedEntity);
+                cachedEntity.chunkKey = chunkKey;
+                cachedEntity.tracked = true;
+                this.chunks.compute(chunkKey, (key, chunkCache) -> {
+                    if (chunkCache == null)
+                        chunkCache = new ChunkEntityCache();
+                    chunkCache.add(cachedEntity);
+                    return chunkCache;
+                });
+            }
+        }
+
+        public void remove(Entity entity) {
+            CachedEntity cachedEntity = this.entities.remove(entity);
+            if (cachedEntity == null)
+                return;
+
+            synchronized (cachedEntity) {
+                if (cachedEntity.tracked)
+                    this.removeFromChunk(cachedEntity);
+                cachedEntity.tracked = false;
+            }
+        }
+
+        private void removeFromChunk(CachedEntity cachedEntity) {
+            this.chunks.computeIfPresent(cachedEntity.chunkKey, (key, chunkCache) -> {
+                chunkCache.remove(cachedEntity);
+                return chunkCache.isEmpty() ? null : chunkCache;
+            });
+        }
+
+    }
+
+    /**
+     * The entities in a single chunk, bucketed by their type since nearly every lookup is for a single type
+     */
+    private static class ChunkEntityCache {
+
+        private final Map<EntityType, Set<CachedEntity>> buckets;
+
+        public ChunkEntityCache() {
+            this.buckets = new ConcurrentHashMap<>();
+        }
+
+        public Set<CachedEntity> getBucket(EntityType entityType) {
+            return this.buckets.get(entityType);
+        }
+
+        public Collection<Set<CachedEntity>> getBuckets() {
+            return this.buckets.values();
+        }
+
+        public void add(CachedEntity cachedEntity) {
+            this.buckets.computeIfAbsent(cachedEntity.type, x -> ConcurrentHashMap.newKeySet()).add(cachedEntity);
+        }
+
+        public void remove(CachedEntity cachedEntity) {
+            Set<CachedEntity> bucket = this.buckets.get(cachedEntity.type);
+            if (bucket != null && bucket.remove(cachedEntity) && bucket.isEmpty())
+                this.buckets.remove(cachedEntity.type, bucket);
+        }
+
+        public boolean isEmpty() {
+            return this.buckets.isEmpty();
+        }
+
+    }
+
+    /**
+     * An entity along with the position it was last seen at, lets lookups do their distance checks
+     * without allocating a Location for every entity
+     */
+    private static class CachedEntity {
+
+        private final Entity entity;
+        private final EntityType type;
+        private volatile double x, y, z;
+        private long chunkKey;
+        private boolean tracked;
+
+        public CachedEntity(Entity entity) {
+            this.entity = entity;
+            this.type = entity.getType();
+        }
+
+        public void setPosition(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        public boolean isWithin(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            double x = this.x, y = this.y, z = this.z;
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+    }
 
 }
@@ -0,0 +1,229 @@
+package dev.rosewood.rosestacker.manager;
+
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.event.EntityStackBatchDeathEvent;
+import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent.EntityDrops;
+import dev.rosewood.rosestacker.stack.StackedEntity;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.Event;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+
+/**
+ * Dispatches the death events for entities killed in a stack and keeps track of how long listeners take to handle them.
+ * <p>
+ * While death events are batched, EntityDeathEvents for the individual entities are only delivered to the listeners
+ * of plugins that have been registered with {@link #registerPerEntityListener(Plugin)}.
+ */
+public class EntityDeathEventManager extends Manager {
+
+    private final Set<Plugin> perEntityListenerPlugins;
+    private final Map<DispatchType, DispatchTimings> timings;
+
+    public EntityDeathEventManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.perEntityListenerPlugins = ConcurrentHashMap.newKeySet();
+        this.timings = new EnumMap<>(DispatchType.class);
+        for (DispatchType type : DispatchType.values())
+            this.timings.put(type, new DispatchTimings());
+    }
+
+    @Override
+    public void reload() {
+        this.timings.values().forEach(DispatchTimings::reset);
+    }
+
+    @Override
+    public void disable() {
+
+    }
+
+    /**
+     * @return true if deaths are grouped into {@link EntityStackBatchDeathEvent}s
+     */
+    public boolean isBatchingEnabled() {
+        return SettingKey.ENTITY_TRIGGER_DEATH_EVENT_FOR_ENTIRE_STACK_KILL.get() && SettingKey.ENTITY_DEATH_EVENT_BATCHING_ENABLED.get();
+    }
+
+    /**
+     * Registers a plugin to keep receiving an EntityDeathEvent for every entity killed while death events are batched
+     *
+     * @param plugin The plugin to register
+     */
+    public void registerPerEntityListener(Plugin plugin) {
+        this.perEntityListenerPlugins.add(plugin);
+    }
+
+    /**
+     * Unregisters a plugin from receiving an EntityDeathEvent for every entity killed while death events are batched
+     *
+     * @param plugin The plugin to unregister
+     */
+    public void unregisterPerEntityListener(Plugin plugin) {
+        this.perEntityListenerPlugins.remove(plugin);
+    }
+
+    /**
+     * @return true if an EntityDeathEvent needs to be created for each entity killed
+     */
+    public boolean hasPerEntityListeners() {
+        if (!this.isBatchingEnabled())
+            return true;
+
+        for (RegisteredListener listener : EntityDeathEvent.getHandlerList().getRegisteredListeners())
+            if (this.isPerEntityListener(listener))
+                return true;
+        return false;
+    }
+
+    /**
+     * Calls an EntityDeathEvent for an entity killed in a stack.
+     * Delivered to every listener normally, or only to registered plugins if batching is enabled.
+     *
+     * @param event The event to call
+     */
+    public void callEntityDeathEvent(EntityDeathEvent event) {
+        long start = System.nanoTime();
+        if (this.isBatchingEnabled()) {
+            for (RegisteredListener listener : event.getHandlers().getRegisteredListeners()) {
+                if (!this.isPerEntityListener(listener))
+                    continue;
+
+                // Mirror the plugin manager, a broken listener must not stop the others from receiving the event
+                try {
+                    listener.callEvent(event);
+                } catch (Exception e) {
+                    this.rosePlugin.getLogger().log(Level.SEVERE, "Could not pass " + event.getEventName() + " to " + listener.getPlugin().getName(), e);
+                }
+            }
+        } else {
+            Bukkit.getPluginManager().callEvent(event);
+        }
+        this.timings.get(DispatchType.PER_ENTITY).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Calls an event for a group of entities killed in a stack
+     *
+     * @param event The event to call
+     */
+    public void callStackDeathEvent(Event event) {
+        long start = System.nanoTime();
+        Bukkit.getPluginManager().callEvent(event);
+        this.timings.get(event instanceof EntityStackBatchDeathEvent ? DispatchType.BATCH : DispatchType.MULTIPLE).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Splits the killed entities into groups of at most the configured batch size and calls an
+     * {@link EntityStackBatchDeathEvent} for each group. Entities with multiple drops always stay in the same group.
+     *
+     * @param stackedEntity The stack the entities were killed from
+     * @param entityDrops The entities being killed and their drops
+     * @param originalStackSize The original stack size
+     * @param entityKillCount The number of entities being killed
+     */
+    public void callBatchDeathEvents(StackedEntity stackedEntity, ListMultimap<LivingEntity, EntityDrops> entityDrops,
+                                     int originalStackSize, int entityKillCount) {
+        int batchSize = Math.max(1, SettingKey.ENTITY_DEATH_EVENT_BATCH_SIZE.get());
+        List<ListMultimap<LivingEntity, EntityDrops>> batches = new ArrayList<>();
+        ListMultimap<LivingEntity, EntityDrops> batch = null;
+        for (LivingEntity entity : entityDrops.keySet()) {
+            if (batch == null || batch.keySet().size() >= batchSize) {
+                batch = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+                batches.add(batch);
+            }
+            batch.putAll(entity, entityDrops.get(entity));
+        }
+
+        // Listeners modify the drops through the shared EntityDrops instances, so nothing needs to be copied back
+        for (int i = 0; i < batches.size(); i++)
+            this.callStackDeathEvent(new EntityStackBatchDeathEvent(stackedEntity, batches.get(i), i, batches.size(), originalStackSize, entityKillCount));
+    }
+
+    /**
+     * @param type The type of dispatch
+     * @return the timings for listener dispatch of the given type since the last reload
+     */
+    public DispatchTimings getTimings(DispatchType type) {
+        return this.timings.get(type);
+    }
+
+    private boolean isPerEntityListener(RegisteredListener listener) {
+        Plugin plugin = listener.getPlugin();
+        return plugin.isEnabled() && this.perEntityListenerPlugins.contains(plugin);
+    }
+
+    public enum DispatchType {
+        PER_ENTITY,
+        BATCH,
+        MULTIPLE
+    }
+
+    /**
+     * Tracks how many times an event type was dispatched and how long the listeners took to handle it
+     */
+    public static class DispatchTimings {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            this.count.incrementAndGet();
+            this.totalNanos.addAndGet(nanos);
+            this.maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private void reset() {
+            this.count.set(0);
+            this.totalNanos.set(0);
+            this.maxNanos.set(0);
+        }
+
+        /**
+         * @return the number of times the event was dispatched
+         */
+        public long getCount() {
+            return this.count.get();
+        }
+
+        /**
+         * @return the total time spent dispatching the event, in nanoseconds
+         */
+        public long getTotalNanos() {
+            return this.totalNanos.get();
+        }
+
+        /**
+         * @return the average time spent dispatching the event, in nanoseconds
+         */
+        public long getAverageNanos() {
+            long count = this.count.get();
+            return count == 0 ? 0 : this.totalNanos.get() / count;
+        }
+
+        /**
+         * @return the longest time spent dispatching the event, in nanoseconds
+         */
+        public long getMaxNanos() {
+            return this.maxNanos.get();
+        }
+
+    }
+
+}
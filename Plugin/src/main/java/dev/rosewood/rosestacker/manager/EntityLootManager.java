@@ -0,0 +1,203 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.utils.EntityUtils;
+import dev.rosewood.rosestacker.utils.VersionUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.bukkit.DyeColor;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Sheep;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.loot.LootTable;
+import org.bukkit.loot.Lootable;
+import org.bukkit.material.Colorable;
+
+/**
+ * Approximates the loot for killing large numbers of entities at once.
+ * The loot table for an entity is sampled once to build a drop distribution for each item, the total drops for any
+ * number of kills are then drawn from those distributions rather than rolling the loot table for every entity.
+ */
+public class EntityLootManager extends Manager {
+
+    /**
+     * Below this expected number of successes binomials are sampled exactly, above it a normal approximation is used
+     */
+    private static final double EXACT_BINOMIAL_MEAN_THRESHOLD = 30;
+
+    private final Map<LootDistributionKey, LootDistribution> distributions;
+
+    public EntityLootManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+        this.distributions = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void reload() {
+        this.distributions.clear();
+    }
+
+    @Override
+    public void disable() {
+        this.distributions.clear();
+    }
+
+    /**
+     * Draws the combined loot for killing an entity a number of times. May be called async or sync.
+     *
+     * @param entity The entity to use for the loot table, any entity of the same type, variant and loot table gives the
+     *               same result
+     * @param killer The player who killed the entities, nullable
+     * @param lootedLocation The location the entities are being looted at
+     * @param lootingModifier The looting modifier, nullable, defaults to the killer's looting value
+     * @param kills The number of times the entity was killed
+     * @return The combined loot, one ItemStack per distinct item which may exceed the max stack size
+     */
+    public List<ItemStack> getEntityLoot(LivingEntity entity, Player killer, Location lootedLocation, Integer lootingModifier, int kills) {
+        int looting;
+        if (lootingModifier != null) {
+            looting = lootingModifier;
+        } else if (killer != null && VersionUtils.LOOTING != null) {
+            looting = killer.getInventory().getItemInMainHand().getEnchantmentLevel(VersionUtils.LOOTING);
+        } else {
+            looting = 0;
+        }
+
+        DyeColor color = entity instanceof Colorable colorable ? colorable.getColor() : null;
+        boolean sheared = entity instanceof Sheep sheep && sheep.isSheared();
+        LootTable lootTable = entity instanceof Lootable lootable ? lootable.getLootTable() : null;
+        NamespacedKey lootTableKey = lootTable != null ? lootTable.getKey() : null;
+        LootDistributionKey key = new LootDistributionKey(entity.getType(), looting, killer != null, entity.getFireTicks() > 0, color, sheared, lootTableKey);
+        LootDistribution distribution = this.distributions.computeIfAbsent(key, x ->
+                LootDistribution.sample(entity, killer, lootedLocation, looting, Math.max(1, SettingKey.ENTITY_LOOT_STATISTICAL_SAMPLE_SIZE.get())));
+        return distribution.roll(kills, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Samples a binomial distribution
+     *
+     * @param trials The number of trials
+     * @param probability The probability of success for each trial
+     * @param random The random to use
+     * @return The number of successes
+     */
+    private static int sampleBinomial(int trials, double probability, Random random) {
+        if (trials <= 0 || probability <= 0)
+            return 0;
+        if (probability >= 1)
+            return trials;
+        if (probability > 0.5)
+            return trials - sampleBinomial(trials, 1 - probability, random);
+
+        double mean = trials * probability;
+        if (mean < EXACT_BINOMIAL_MEAN_THRESHOLD) {
+            // Exact, skip ahead by geometrically distributed gaps between successes, takes O(mean) steps
+            double logFailure = Math.log1p(-probability);
+            long position = 0;
+            int successes = 0;
+            while (true) {
+                position += (long) (Math.log(1 - random.nextDouble()) / logFailure) + 1;
+                if (position > trials)
+                    return successes;
+                successes++;
+            }
+        }
+
+        double deviation = Math.sqrt(mean * (1 - probability));
+        long successes = Math.round(mean + deviation * random.nextGaussian());
+        return (int) Math.max(0, Math.min(trials, successes));
+    }
+
+    private record LootDistributionKey(EntityType entityType, int looting, boolean killedByPlayer, boolean burning, DyeColor color,
+                                       boolean sheared, NamespacedKey lootTable) { }
+
+    private record LootDistribution(ItemDistribution[] items) {
+
+        private static LootDistribution sample(LivingEntity entity, Player killer, Location lootedLocation, int looting, int samples) {
+            // Tally how often each item dropped in each amount
+            Map<ItemStack, Map<Integer, Integer>> frequencies = new LinkedHashMap<>();
+            Map<ItemStack, Integer> rolled = new HashMap<>();
+            for (int i = 0; i < samples; i++) {
+                rolled.clear();
+                for (ItemStack itemStack : EntityUtils.getEntityLoot(entity, killer, lootedLocation, looting)) {
+                    if (itemStack == null || itemStack.getAmount() <= 0)
+                        continue;
+
+                    ItemStack template = itemStack.clone();
+                    template.setAmount(1);
+                    rolled.merge(template, itemStack.getAmount(), Integer::sum);
+                }
+
+                for (Map.Entry<ItemStack, Integer> entry : rolled.entrySet())
+                    frequencies.computeIfAbsent(entry.getKey(), x -> new HashMap<>()).merge(entry.getValue(), 1, Integer::sum);
+            }
+
+            ItemDistribution[] items = new ItemDistribution[frequencies.size()];
+            int index = 0;
+            for (Map.Entry<ItemStack, Map<Integer, Integer>> entry : frequencies.entrySet()) {
+                Map<Integer, Integer> amountFrequencies = entry.getValue();
+                int[] amounts = new int[amountFrequencies.size()];
+                double[] probabilities = new double[amountFrequencies.size()];
+                int amountIndex = 0;
+                for (Map.Entry<Integer, Integer> amountEntry : amountFrequencies.entrySet()) {
+                    amounts[amountIndex] = amountEntry.getKey();
+                    probabilities[amountIndex] = amountEntry.getValue() / (double) samples;
+                    amountIndex++;
+                }
+                items[index++] = new ItemDistribution(entry.getKey(), amounts, probabilities);
+            }
+
+            return new LootDistribution(items);
+        }
+
+        private List<ItemStack> roll(int kills, Random random) {
+            List<ItemStack> loot = new ArrayList<>(this.items.length);
+            for (ItemDistribution item : this.items) {
+                long amount = item.roll(kills, random);
+                if (amount <= 0)
+                    continue;
+
+                ItemStack itemStack = item.template().clone();
+                itemStack.setAmount((int) Math.min(amount, Integer.MAX_VALUE));
+                loot.add(itemStack);
+            }
+            return loot;
+        }
+
+    }
+
+    /**
+     * The chance of an item dropping in each amount from a single kill, any remaining chance is for not dropping at all
+     */
+    private record ItemDistribution(ItemStack template, int[] amounts, double[] probabilities) {
+
+        private long roll(int kills, Random random) {
+            // Split the kills between each amount, each split is binomial given what is left over from the previous ones
+            long total = 0;
+            int remainingKills = kills;
+            double remainingProbability = 1;
+            for (int i = 0; i < this.amounts.length && remainingKills > 0; i++) {
+                double probability = Math.min(1, this.probabilities[i] / remainingProbability);
+                int killsWithAmount = sampleBinomial(remainingKills, probability, random);
+                total += (long) killsWithAmount * this.amounts[i];
+                remainingKills -= killsWithAmount;
+                remainingProbability -= this.probabilities[i];
+            }
+            return total;
+        }
+
+    }
+
+}
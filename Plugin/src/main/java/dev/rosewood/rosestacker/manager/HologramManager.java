@@ -7,40 +7,64 @@ import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.nms.hologram.Hologram;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.scheduler.BukkitTask;
 
+/**
+ * Manages the holograms for stacked blocks and spawners.
+ * Holograms are bucketed by world and chunk, and each player keeps track of the holograms they are watching.
+ * The holograms in range of a player are only recalculated when they move into a different chunk, move a few blocks
+ * away from where they were last recalculated or teleport, and only the holograms in the chunks around them are
+ * looked at when that happens.
+ */
 public class HologramManager extends Manager implements Listener {
 
+    /**
+     * How far a player can move inside of a chunk, in blocks along any axis, before the holograms in range of them
+     * are recalculated
+     */
+    private static final double REFRESH_DISTANCE = 4;
+
     private final Map<Location, Hologram> holograms;
+    private final Map<UUID, Map<Long, Set<Hologram>>> chunkHolograms;
+    private final Map<Player, HologramViewer> viewers;
     private final NMSHandler nmsHandler;
     private BukkitTask watcherTask;
     private double renderDistanceSqrd;
+    private int renderDistanceChunks;
     private boolean hideThroughWalls;
+    private long lastPacketSampleTime, lastPacketSampleCount;
+    private volatile double packetsPerSecond;
 
     public HologramManager(RosePlugin rosePlugin) {
         super(rosePlugin);
 
         this.holograms = new ConcurrentHashMap<>();
+        this.chunkHolograms = new ConcurrentHashMap<>();
+        this.viewers = new ConcurrentHashMap<>();
         this.nmsHandler = NMSAdapter.getHandler();
-
-        Bukkit.getPluginManager().registerEvents(this, this.rosePlugin);
     }
 
     @Override
     public void reload() {
         this.watcherTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::updateWatchers, 0L, SettingKey.HOLOGRAM_UPDATE_FREQUENCY.get());
         this.renderDistanceSqrd = SettingKey.BLOCK_DYNAMIC_TAG_VIEW_RANGE.get() * SettingKey.BLOCK_DYNAMIC_TAG_VIEW_RANGE.get();
+        this.renderDistanceChunks = (int) Math.ceil(SettingKey.BLOCK_DYNAMIC_TAG_VIEW_RANGE.get() / 16.0);
         this.hideThroughWalls = SettingKey.BLOCK_DYNAMIC_TAG_VIEW_RANGE_WALL_DETECTION_ENABLED.get();
     }
 
@@ -53,47 +77,187 @@ public class HologramManager extends Manager implements Listener {
 
         this.holograms.values().forEach(Hologram::delete);
         this.holograms.clear();
+        this.chunkHolograms.clear();
+        this.viewers.clear();
     }
 
     private void updateWatchers() {
-        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
-        for (Player player : players)
-            for (Hologram hologram : this.holograms.values())
-                this.updateWatcher(player, hologram);
+        for (Player player : Bukkit.getOnlinePlayers())
+            this.updateViewer(player);
+
+        // Catches viewers recreated by an update that was already running while their player quit
+        for (HologramViewer viewer : this.viewers.values()) {
+            if (!viewer.player.isOnline()) {
+                synchronized (viewer) {
+                    this.removeViewer(viewer);
+                }
+            }
+        }
+
+        this.samplePacketRate();
     }
 
-    private void updateWatcher(Player player, Hologram hologram) {
-        if (this.isPlayerInRange(player, hologram.getLocation())) {
-            hologram.addWatcher(player);
-            if (this.hideThroughWalls)
-                hologram.setVisibility(player, this.nmsHandler.hasLineOfSight(player, hologram.getDisplayLocation()));
-        } else {
-            hologram.removeWatcher(player);
+    private void samplePacketRate() {
+        long now = System.nanoTime();
+        long packetsSent = Hologram.getPacketsSent();
+        if (this.lastPacketSampleTime != 0) {
+            long elapsed = now - this.lastPacketSampleTime;
+            if (elapsed < 1_000_000_000L)
+                return;
+
+            this.packetsPerSecond = (packetsSent - this.lastPacketSampleCount) / (elapsed / 1_000_000_000.0);
+        }
+
+        this.lastPacketSampleTime = now;
+        this.lastPacketSampleCount = packetsSent;
+    }
+
+    /**
+     * @return the number of packets sent per second by holograms, sampled at most once per second
+     */
+    public double getPacketsPerSecond() {
+        return this.packetsPerSecond;
+    }
+
+    private void updateViewer(Player player) {
+        if (!player.isOnline())
+            return;
+
+        HologramViewer viewer = this.viewers.computeIfAbsent(player, HologramViewer::new);
+        synchronized (viewer) {
+            // The player may have quit after the viewer was looked up, the quit handler might have already run
+            if (!player.isOnline()) {
+                this.removeViewer(viewer);
+                return;
+            }
+
+            Location location = player.getLocation(viewer.location);
+            World world = location.getWorld();
+            if (world == null)
+                return;
+
+            int chunkX = location.getBlockX() >> 4;
+            int chunkZ = location.getBlockZ() >> 4;
+            if (viewer.worldId == null || !viewer.worldId.equals(world.getUID()) || viewer.chunkX != chunkX || viewer.chunkZ != chunkZ
+                    || Math.abs(location.getX() - viewer.refreshX) >= REFRESH_DISTANCE
+                    || Math.abs(location.getY() - viewer.refreshY) >= REFRESH_DISTANCE
+                    || Math.abs(location.getZ() - viewer.refreshZ) >= REFRESH_DISTANCE) {
+                viewer.worldId = world.getUID();
+                viewer.chunkX = chunkX;
+                viewer.chunkZ = chunkZ;
+                viewer.refreshX = location.getX();
+                viewer.refreshY = location.getY();
+                viewer.refreshZ = location.getZ();
+                this.refreshViewer(viewer);
+            } else if (this.hideThroughWalls) {
+                // Line of sight changes as the player moves around inside of a chunk, only check what they are watching
+                for (Hologram hologram : viewer.watching)
+                    hologram.setVisibility(player, this.nmsHandler.hasLineOfSight(player, hologram.getDisplayLocation()));
+            }
+        }
+    }
+
+    /**
+     * Recalculates which holograms are in range of a viewer, must be synchronized on the viewer
+     */
+    private void refreshViewer(HologramViewer viewer) {
+        Set<Hologram> inRange = new HashSet<>();
+        Map<Long, Set<Hologram>> worldHolograms = this.chunkHolograms.get(viewer.worldId);
+        if (worldHolograms != null) {
+            for (int x = viewer.chunkX - this.renderDistanceChunks; x <= viewer.chunkX + this.renderDistanceChunks; x++) {
+                for (int z = viewer.chunkZ - this.renderDistanceChunks; z <= viewer.chunkZ + this.renderDistanceChunks; z++) {
+                    Set<Hologram> chunkHolograms = worldHolograms.get(getChunkKey(x, z));
+                    if (chunkHolograms == null)
+                        continue;
+
+                    for (Hologram hologram : chunkHolograms)
+                        if (this.isInRange(viewer, hologram))
+                            inRange.add(hologram);
+                }
+            }
+        }
+
+        for (Hologram hologram : viewer.watching)
+            if (!inRange.contains(hologram))
+                hologram.removeWatcher(viewer.player);
+
+        for (Hologram hologram : inRange) {
+            if (viewer.watching.contains(hologram)) {
+                if (this.hideThroughWalls)
+                    hologram.setVisibility(viewer.player, this.nmsHandler.hasLineOfSight(viewer.player, hologram.getDisplayLocation()));
+            } else {
+                this.addWatcher(viewer, hologram);
+            }
         }
+
+        viewer.watching = inRange;
+    }
+
+    /**
+     * Checks a newly created hologram against a viewer, must be synchronized on the viewer
+     */
+    private void updateViewer(HologramViewer viewer, Hologram hologram) {
+        if (viewer.worldId == null || !viewer.worldId.equals(hologram.getLocation().getWorld().getUID()) || !this.isInRange(viewer, hologram))
+            return;
+
+        this.addWatcher(viewer, hologram);
+        viewer.watching.add(hologram);
+    }
+
+    private void addWatcher(HologramViewer viewer, Hologram hologram) {
+        boolean visible = !this.hideThroughWalls || this.nmsHandler.hasLineOfSight(viewer.player, hologram.getDisplayLocation());
+        hologram.addWatcher(viewer.player, visible);
     }
 
-    private boolean isPlayerInRange(Player player, Location location) {
-        return player.getWorld().equals(location.getWorld()) && player.getLocation().distanceSquared(location) <= this.renderDistanceSqrd;
+    private boolean isInRange(HologramViewer viewer, Hologram hologram) {
+        Location location = hologram.getLocation();
+        double dx = location.getX() - viewer.location.getX();
+        double dy = location.getY() - viewer.location.getY();
+        double dz = location.getZ() - viewer.location.getZ();
+        return dx * dx + dy * dy + dz * dz <= this.renderDistanceSqrd;
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        ThreadUtils.runAsync(() -> {
-            Player player = event.getPlayer();
-            for (Hologram hologram : this.holograms.values())
-                this.updateWatcher(player, hologram);
-        });
+        ThreadUtils.runAsync(() -> this.updateViewer(event.getPlayer()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        // Recalculate on the next update from wherever the player ended up, even if it is in the same chunk
+        HologramViewer viewer = this.viewers.get(event.getPlayer());
+        if (viewer == null)
+            return;
+
+        synchronized (viewer) {
+            viewer.worldId = null;
+        }
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         ThreadUtils.runAsync(() -> {
-            Player player = event.getPlayer();
-            for (Hologram hologram : this.holograms.values())
-                hologram.removeWatcher(player);
+            HologramViewer viewer = this.viewers.get(event.getPlayer());
+            if (viewer == null)
+                return;
+
+            synchronized (viewer) {
+                this.removeViewer(viewer);
+            }
         });
     }
 
+    /**
+     * Stops tracking a viewer and removes them from everything they are watching, must be synchronized on the viewer
+     */
+    private void removeViewer(HologramViewer viewer) {
+        this.viewers.remove(viewer.player, viewer);
+        for (Hologram hologram : viewer.watching)
+            hologram.removeWatcher(viewer.player);
+        viewer.watching.clear();
+        viewer.worldId = null;
+    }
+
     /**
      * Creates or updates a hologram at the given location
      *
@@ -105,8 +269,15 @@ public class HologramManager extends Manager implements Listener {
         if (hologram == null) {
             hologram = this.nmsHandler.createHologram(location, text);
             this.holograms.put(location, hologram);
-            for (Player player : Bukkit.getOnlinePlayers())
-                this.updateWatcher(player, hologram);
+            this.chunkHolograms.computeIfAbsent(location.getWorld().getUID(), x -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), x -> ConcurrentHashMap.newKeySet())
+                    .add(hologram);
+
+            for (HologramViewer viewer : this.viewers.values()) {
+                synchronized (viewer) {
+                    this.updateViewer(viewer, hologram);
+                }
+            }
         } else {
             hologram.setText(text);
         }
@@ -118,11 +289,50 @@ public class HologramManager extends Manager implements Listener {
      * @param location The location of the hologram
      */
     public void deleteHologram(Location location) {
-        Hologram hologram = this.holograms.get(location);
-        if (hologram != null) {
-            hologram.delete();
-            this.holograms.remove(location);
+        Hologram hologram = this.holograms.remove(location);
+        if (hologram == null)
+            return;
+
+        Map<Long, Set<Hologram>> worldHolograms = this.chunkHolograms.get(location.getWorld().getUID());
+        if (worldHolograms != null) {
+            worldHolograms.computeIfPresent(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), (key, chunkHolograms) -> {
+                chunkHolograms.remove(hologram);
+                return chunkHolograms.isEmpty() ? null : chunkHolograms;
+            });
+        }
+
+        for (HologramViewer viewer : this.viewers.values()) {
+            synchronized (viewer) {
+                viewer.watching.remove(hologram);
+            }
+        }
+
+        hologram.delete();
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A player along with the chunk they were last seen in, where the holograms in range of them were last recalculated
+     * and the holograms they are watching
+     */
+    private static class HologramViewer {
+
+        private final Player player;
+        private final Location location;
+        private UUID worldId;
+        private int chunkX, chunkZ;
+        private double refreshX, refreshY, refreshZ;
+        private Set<Hologram> watching;
+
+        public HologramViewer(Player player) {
+            this.player = player;
+            this.location = new Location(null, 0, 0, 0);
+            this.watching = new HashSet<>();
         }
+
     }
 
 }
@@ -0,0 +1,278 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.spawning.SpawnLocationCache;
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Directional;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockDispenseEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.block.SpongeAbsorbEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Keeps the spawn location caches of stacked spawners and clears them when blocks change within their spawn range.
+ * Caches are indexed by every chunk they cover, so a block change only has to look at the caches in its own chunk.
+ * Block changes also drop the captured chunk so the next check doesn't read the block from before the change.
+ */
+public class SpawnLocationCacheManager extends Manager implements Listener {
+
+    private final Map<StackedSpawner, SpawnLocationCache> caches;
+    private final Map<UUID, Map<Long, Set<SpawnLocationCache>>> chunkCaches;
+
+    public SpawnLocationCacheManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.caches = new ConcurrentHashMap<>();
+        this.chunkCaches = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void reload() {
+
+    }
+
+    @Override
+    public void disable() {
+        this.caches.clear();
+        this.chunkCaches.clear();
+    }
+
+    /**
+     * Gets the spawn location cache for a spawner, creates a new one if the spawner has none or its spawn range changed.
+     * May be called async.
+     *
+     * @param stackedSpawner The spawner
+     * @return the spawn location cache for the spawner
+     */
+    public SpawnLocationCache getCache(StackedSpawner stackedSpawner) {
+        int spawnRange = stackedSpawner.getSpawnerTile().getSpawnRange();
+        SpawnLocationCache cache = this.caches.get(stackedSpawner);
+        if (cache != null && cache.getSpawnRange() == spawnRange)
+            return cache;
+
+        synchronized (this) {
+            cache = this.caches.get(stackedSpawner);
+            if (cache != null && cache.getSpawnRange() == spawnRange)
+                return cache;
+
+            if (cache != null)
+                this.removeFromChunks(stackedSpawner, cache);
+
+            cache = new SpawnLocationCache(stackedSpawner, spawnRange);
+            this.caches.put(stackedSpawner, cache);
+
+            int[] bounds = cache.getChunkBounds();
+            Map<Long, Set<SpawnLocationCache>> worldCaches = this.chunkCaches.computeIfAbsent(stackedSpawner.getWorld().getUID(), x -> new ConcurrentHashMap<>());
+            for (int x = bounds[0]; x <= bounds[2]; x++)
+                for (int z = bounds[1]; z <= bounds[3]; z++)
+                    worldCaches.computeIfAbsent(getChunkKey(x, z), key -> ConcurrentHashMap.newKeySet()).add(cache);
+            return cache;
+        }
+    }
+
+    /**
+     * Removes the spawn location cache for a spawner
+     *
+     * @param stackedSpawner The spawner
+     */
+    public synchronized void unregister(StackedSpawner stackedSpawner) {
+        SpawnLocationCache cache = this.caches.remove(stackedSpawner);
+        if (cache != null)
+            this.removeFromChunks(stackedSpawner, cache);
+    }
+
+    private void removeFromChunks(StackedSpawner stackedSpawner, SpawnLocationCache cache) {
+        Map<Long, Set<SpawnLocationCache>> worldCaches = this.chunkCaches.get(stackedSpawner.getWorld().getUID());
+        if (worldCaches == null)
+            return;
+
+        int[] bounds = cache.getChunkBounds();
+        for (int x = bounds[0]; x <= bounds[2]; x++) {
+            for (int z = bounds[1]; z <= bounds[3]; z++) {
+                worldCaches.computeIfPresent(getChunkKey(x, z), (key, caches) -> {
+                    caches.remove(cache);
+                    return caches.isEmpty() ? null : caches;
+                });
+            }
+        }
+    }
+
+    private void invalidate(Block block) {
+        this.rosePlugin.getManager(ChunkSnapshotManager.class).invalidate(block);
+
+        Map<Long, Set<SpawnLocationCache>> worldCaches = this.chunkCaches.get(block.getWorld().getUID());
+        if (worldCaches == null)
+            return;
+
+        Set<SpawnLocationCache> caches = worldCaches.get(getChunkKey(block.getX() >> 4, block.getZ() >> 4));
+        if (caches == null)
+            return;
+
+        int x = block.getX(), y = block.getY(), z = block.getZ();
+        for (SpawnLocationCache cache : caches)
+            cache.invalidate(x, y, z);
+    }
+
+    private void invalidate(List<Block> blocks) {
+        blocks.forEach(this::invalidate);
+    }
+
+    private void invalidateStates(List<BlockState> blockStates) {
+        for (BlockState blockState : blockStates)
+            this.invalidate(blockState.getBlock());
+    }
+
+    private void invalidate(List<Block> blocks, BlockFace direction) {
+        // Blocks move one block along the piston axis, clear both sides so it doesn't matter which way they went
+        for (Block block : blocks) {
+            this.invalidate(block);
+            this.invalidate(block.getRelative(direction));
+            this.invalidate(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        // Beds, doors and other multi block placements change more than the placed block
+        if (event instanceof BlockMultiPlaceEvent multiPlaceEvent) {
+            this.invalidateStates(multiPlaceEvent.getReplacedBlockStates());
+        } else {
+            this.invalidate(event.getBlock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        this.invalidate(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        // Waterloggable blocks take the liquid themselves instead of the block in front of them
+        this.invalidate(event.getBlock());
+        this.invalidate(event.getBlockClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBucketFill(PlayerBucketFillEvent event) {
+        this.invalidate(event.getBlock());
+        this.invalidate(event.getBlockClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockDispense(BlockDispenseEvent event) {
+        // Dispensers can place and pick up liquids and blocks in front of them
+        BlockData blockData = event.getBlock().getBlockData();
+        if (blockData instanceof Directional directional)
+            this.invalidate(event.getBlock().getRelative(directional.getFacing()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockGrow(BlockGrowEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent event) {
+        this.invalidate(event.getLocation().getBlock());
+        this.invalidateStates(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpongeAbsorb(SpongeAbsorbEvent event) {
+        this.invalidate(event.getBlock());
+        this.invalidateStates(event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        this.invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        this.invalidate(event.getBlocks(), event.getDirection());
+        this.invalidate(event.getBlock().getRelative(event.getDirection()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        this.invalidate(event.getBlocks(), event.getDirection());
+        this.invalidate(event.getBlock().getRelative(event.getDirection()));
+        this.invalidate(event.getBlock().getRelative(event.getDirection().getOppositeFace()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        this.invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        this.invalidate(event.blockList());
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        this.chunkCaches.remove(event.getWorld().getUID());
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,379 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
+import dev.rosewood.rosestacker.spawning.SpawnCoordinator;
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.util.NumberConversions;
+
+/**
+ * Drives the spawn cycle of every loaded stacked spawner.
+ * Spawners are kept in a timing wheel keyed by the tick they next need attention, so each tick only the spawners
+ * that are actually due get woken up. Player positions are bucketed by chunk once every player check, and a due
+ * spawner only looks at the players in the chunks covered by its activation range.
+ * The mob spawns of all spawners woken in a tick are handed to a {@link SpawnCoordinator} and processed together.
+ * The remaining delay of each spawner is written back to its tile whenever the tile may be saved.
+ */
+public class SpawnerTickManager extends Manager implements Listener {
+
+    /**
+     * Number of slots in the timing wheel, must be a power of two.
+     * Spawners due further ahead than this stay in their slot for another revolution.
+     */
+    private static final int WHEEL_SIZE = 1024;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Map<StackedSpawner, ScheduledSpawner> scheduledSpawners;
+    private final List<Set<ScheduledSpawner>> wheel;
+    private final Map<UUID, Map<Long, List<Location>>> playerChunks;
+    private final SpawnCoordinator spawnCoordinator;
+    private BukkitTask tickTask;
+    private long currentTick;
+    private int playerCheckFrequency;
+    private int poweredCheckFrequency;
+    private boolean deactivateWhenPowered;
+
+    public SpawnerTickManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.scheduledSpawners = new HashMap<>();
+        this.wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            this.wheel.add(new LinkedHashSet<>());
+        this.playerChunks = new HashMap<>();
+        this.spawnCoordinator = new SpawnCoordinator();
+    }
+
+    @Override
+    public void reload() {
+        this.playerCheckFrequency = Math.max(1, SettingKey.SPAWNER_PLAYER_CHECK_FREQUENCY.get());
+        this.poweredCheckFrequency = Math.max(1, SettingKey.SPAWNER_POWERED_CHECK_FREQUENCY.get());
+        this.deactivateWhenPowered = SettingKey.SPAWNER_DEACTIVATE_WHEN_POWERED.get();
+        this.tickTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::tick, 1L, 1L);
+    }
+
+    @Override
+    public void disable() {
+        Map<StackedSpawner, Integer> delays = new HashMap<>();
+        synchronized (this) {
+            if (this.tickTask != null) {
+                this.tickTask.cancel();
+                this.tickTask = null;
+            }
+
+            for (ScheduledSpawner scheduledSpawner : this.scheduledSpawners.values()) {
+                delays.put(scheduledSpawner.stackedSpawner, this.getRemainingDelay(scheduledSpawner));
+                scheduledSpawner.cancelled = true;
+            }
+
+            this.scheduledSpawners.clear();
+            this.wheel.forEach(Set::clear);
+            this.playerChunks.clear();
+        }
+
+        // Unregistered first so the tiles only store the delay for the world save that follows
+        delays.forEach((stackedSpawner, delay) -> stackedSpawner.getSpawnerTile().setDelay(delay));
+    }
+
+    /**
+     * Starts driving the spawn cycle of a spawner, its current delay is carried over
+     *
+     * @param stackedSpawner The spawner to register
+     */
+    public synchronized void register(StackedSpawner stackedSpawner) {
+        if (this.scheduledSpawners.containsKey(stackedSpawner))
+            return;
+
+        ScheduledSpawner scheduledSpawner = new ScheduledSpawner(stackedSpawner);
+        scheduledSpawner.spawnTick = this.currentTick + stackedSpawner.getSpawnerTile().getDelay() + 1;
+        this.scheduledSpawners.put(stackedSpawner, scheduledSpawner);
+
+        // Wake up right away to check the initial spawn conditions once a player is nearby
+        this.schedule(scheduledSpawner, this.currentTick + 1);
+    }
+
+    /**
+     * Stops driving the spawn cycle of a spawner
+     *
+     * @param stackedSpawner The spawner to unregister
+     */
+    public void unregister(StackedSpawner stackedSpawner) {
+        int delay;
+        synchronized (this) {
+            ScheduledSpawner scheduledSpawner = this.scheduledSpawners.remove(stackedSpawner);
+            if (scheduledSpawner == null)
+                return;
+
+            scheduledSpawner.cancelled = true; // Lazily removed from the wheel when its slot comes around
+            delay = this.getRemainingDelay(scheduledSpawner);
+        }
+
+        // The spawner is usually being unloaded, keep its progress for when it is loaded again
+        stackedSpawner.getSpawnerTile().setDelay(delay);
+    }
+
+    /**
+     * Gets the number of ticks until a spawner tries to spawn again
+     *
+     * @param stackedSpawner The spawner
+     * @param fallback The delay to return if the spawner is not registered
+     * @return the remaining spawn delay, 0 if the spawner is waiting on a player or redstone
+     */
+    public synchronized int getDelay(StackedSpawner stackedSpawner, int fallback) {
+        ScheduledSpawner scheduledSpawner = this.scheduledSpawners.get(stackedSpawner);
+        if (scheduledSpawner == null)
+            return fallback;
+        return this.getRemainingDelay(scheduledSpawner);
+    }
+
+    /**
+     * Sets the number of ticks until a spawner tries to spawn again, does nothing if the spawner is not registered
+     *
+     * @param stackedSpawner The spawner
+     * @param delay The new spawn delay
+     */
+    public synchronized void setDelay(StackedSpawner stackedSpawner, int delay) {
+        ScheduledSpawner scheduledSpawner = this.scheduledSpawners.get(stackedSpawner);
+        if (scheduledSpawner == null)
+            return;
+
+        scheduledSpawner.spawnTick = this.currentTick + Math.max(0, delay) + 1;
+        if (scheduledSpawner.spawnTick < scheduledSpawner.wakeTick)
+            this.schedule(scheduledSpawner, scheduledSpawner.spawnTick);
+    }
+
+    /**
+     * @return the number of spawners currently being driven
+     */
+    public synchronized int getScheduledSpawnerCount() {
+        return this.scheduledSpawners.size();
+    }
+
+    /**
+     * @return the coordinator that processes the mob spawns of the spawners woken each tick
+     */
+    public SpawnCoordinator getSpawnCoordinator() {
+        return this.spawnCoordinator;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        Map<StackedSpawner, Integer> delays = new HashMap<>();
+        synchronized (this) {
+            for (ScheduledSpawner scheduledSpawner : this.scheduledSpawners.values())
+                if (scheduledSpawner.worldId.equals(worldId))
+                    delays.put(scheduledSpawner.stackedSpawner, this.getRemainingDelay(scheduledSpawner));
+        }
+
+        delays.forEach((stackedSpawner, delay) -> stackedSpawner.getSpawnerTile().setDelay(delay));
+    }
+
+    /**
+     * Gets the number of ticks until a spawner tries to spawn again, must be synchronized on this manager
+     */
+    private int getRemainingDelay(ScheduledSpawner scheduledSpawner) {
+        return (int) Math.max(0, scheduledSpawner.spawnTick - this.currentTick - 1);
+    }
+
+    private void tick() {
+        List<ScheduledSpawner> dueSpawners = new ArrayList<>();
+        synchronized (this) {
+            this.currentTick++;
+            if (this.currentTick % this.playerCheckFrequency == 0)
+                this.updatePlayerChunks();
+
+            Iterator<ScheduledSpawner> iterator = this.wheel.get((int) (this.currentTick & WHEEL_MASK)).iterator();
+            while (iterator.hasNext()) {
+                ScheduledSpawner scheduledSpawner = iterator.next();
+                if (scheduledSpawner.cancelled || scheduledSpawner.wakeTick < this.currentTick || (scheduledSpawner.wakeTick & WHEEL_MASK) != (this.currentTick & WHEEL_MASK)) {
+                    iterator.remove(); // Unregistered or rescheduled into a different slot
+                } else if (scheduledSpawner.wakeTick == this.currentTick) {
+                    iterator.remove();
+                    dueSpawners.add(scheduledSpawner);
+                }
+            }
+        }
+
+        // Wake the tiles outside of the lock, spawning can call back into getDelay and setDelay
+        for (ScheduledSpawner scheduledSpawner : dueSpawners) {
+            try {
+                this.wake(scheduledSpawner);
+            } catch (Exception e) {
+                e.printStackTrace();
+                synchronized (this) {
+                    if (!scheduledSpawner.cancelled)
+                        this.schedule(scheduledSpawner, this.currentTick + this.playerCheckFrequency);
+                }
+            }
+        }
+
+        this.spawnCoordinator.flush();
+    }
+
+    private void wake(ScheduledSpawner scheduledSpawner) {
+        StackedSpawner stackedSpawner = scheduledSpawner.stackedSpawner;
+        StackedSpawnerTile spawnerTile = stackedSpawner.getSpawnerTile();
+
+        // Only tick the spawner if a player is nearby
+        if (!this.isPlayerNearby(scheduledSpawner)) {
+            this.reschedule(scheduledSpawner, this.playerCheckFrequency);
+            return;
+        }
+
+        if (!scheduledSpawner.checkedInitialConditions) {
+            scheduledSpawner.checkedInitialConditions = true;
+            spawnerTile.checkSpawnConditions();
+        }
+
+        // Handle redstone deactivation if enabled
+        boolean powered = this.deactivateWhenPowered && spawnerTile.hasRedstoneSignal();
+        if (scheduledSpawner.redstoneDeactivated != powered) {
+            scheduledSpawner.redstoneDeactivated = powered;
+            spawnerTile.setRedstoneDeactivated(powered);
+        }
+
+        if (powered) {
+            this.reschedule(scheduledSpawner, this.poweredCheckFrequency);
+            return;
+        }
+
+        long spawnTick;
+        synchronized (this) {
+            spawnTick = scheduledSpawner.spawnTick;
+        }
+
+        if (spawnTick > this.currentTick) {
+            this.reschedule(scheduledSpawner, spawnTick - this.currentTick);
+            return;
+        }
+
+        int delay = spawnerTile.spawn();
+        synchronized (this) {
+            if (scheduledSpawner.cancelled)
+                return;
+
+            // The countdown reaches zero after delay ticks and spawns on the tick after that
+            scheduledSpawner.spawnTick = this.currentTick + delay + 1;
+            this.schedule(scheduledSpawner, scheduledSpawner.spawnTick);
+        }
+    }
+
+    private synchronized void reschedule(ScheduledSpawner scheduledSpawner, long ticks) {
+        if (!scheduledSpawner.cancelled)
+            this.schedule(scheduledSpawner, this.currentTick + Math.max(1, ticks));
+    }
+
+    /**
+     * Moves a spawner to a new slot in the wheel, must be synchronized on this manager.
+     * The spawner is not removed from its old slot, it is dropped from there once that slot is next drained.
+     */
+    private void schedule(ScheduledSpawner scheduledSpawner, long wakeTick) {
+        scheduledSpawner.wakeTick = Math.max(wakeTick, this.currentTick + 1);
+        this.wheel.get((int) (scheduledSpawner.wakeTick & WHEEL_MASK)).add(scheduledSpawner);
+    }
+
+    /**
+     * Buckets the positions of all players that can activate spawners by world and chunk,
+     * must be synchronized on this manager
+     */
+    private void updatePlayerChunks() {
+        this.playerChunks.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (player.isDead() || player.getGameMode() == GameMode.SPECTATOR)
+                continue;
+
+            Location location = player.getLocation();
+            this.playerChunks.computeIfAbsent(player.getWorld().getUID(), x -> new HashMap<>())
+                    .computeIfAbsent(getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), x -> new ArrayList<>())
+                    .add(location);
+        }
+    }
+
+    private boolean isPlayerNearby(ScheduledSpawner scheduledSpawner) {
+        SpawnerStackSettings stackSettings = scheduledSpawner.stackedSpawner.getStackSettings();
+        if (stackSettings.hasUnlimitedPlayerActivationRange())
+            return true;
+
+        Map<Long, List<Location>> worldPlayers;
+        synchronized (this) {
+            worldPlayers = this.playerChunks.get(scheduledSpawner.worldId);
+        }
+
+        if (worldPlayers == null)
+            return false;
+
+        double range = Math.max(stackSettings.getPlayerActivationRange(), 0.1);
+        double rangeSqrd = range * range;
+        double x = scheduledSpawner.x, y = scheduledSpawner.y, z = scheduledSpawner.z;
+        for (int chunkX = NumberConversions.floor(x - range) >> 4, maxChunkX = NumberConversions.floor(x + range) >> 4; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = NumberConversions.floor(z - range) >> 4, maxChunkZ = NumberConversions.floor(z + range) >> 4; chunkZ <= maxChunkZ; chunkZ++) {
+                List<Location> players = worldPlayers.get(getChunkKey(chunkX, chunkZ));
+                if (players == null)
+                    continue;
+
+                for (Location location : players) {
+                    double dx = location.getX() - x;
+                    double dy = location.getY() - y;
+                    double dz = location.getZ() - z;
+                    if (dx * dx + dy * dy + dz * dz < rangeSqrd)
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A spawner in the timing wheel along with the state of its spawn cycle
+     */
+    private static class ScheduledSpawner {
+
+        private final StackedSpawner stackedSpawner;
+        private final UUID worldId;
+        private final double x, y, z;
+        private long spawnTick;
+        private long wakeTick;
+        private boolean checkedInitialConditions;
+        private boolean redstoneDeactivated;
+        private boolean cancelled;
+
+        public ScheduledSpawner(StackedSpawner stackedSpawner) {
+            this.stackedSpawner = stackedSpawner;
+
+            Block block = stackedSpawner.getBlock();
+            this.worldId = block.getWorld().getUID();
+            this.x = block.getX() + 0.5;
+            this.y = block.getY() + 0.5;
+            this.z = block.getZ() + 0.5;
+        }
+
+    }
+
+}
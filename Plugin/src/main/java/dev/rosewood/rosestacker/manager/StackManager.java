@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -42,6 +43,7 @@ public class StackManager extends Manager implements StackingLogic {
     private final Map<UUID, StackingThread> stackingThreads;
 
     private BukkitTask autosaveTask;
+    private ForkJoinPool entityStackingPool;
 
     private boolean isEntityStackingTemporarilyDisabled;
     private boolean isEntityUnstackingTemporarilyDisabled;
@@ -60,6 +62,13 @@ public class StackManager extends Manager implements StackingLogic {
     public void reload() {
         this.entityDataStorageType = StackedEntityDataStorageType.fromName(SettingKey.ENTITY_DATA_STORAGE_TYPE.get());
 
+        // Create a shared pool for stacking entities on multiple threads if enabled
+        int stackParallelism = SettingKey.STACK_PARALLELISM.get();
+        if (stackParallelism < 0)
+            stackParallelism = Runtime.getRuntime().availableProcessors();
+        if (stackParallelism > 1)
+            this.entityStackingPool = new ForkJoinPool(stackParallelism);
+
         // Load a new StackingThread per world
         Bukkit.getWorlds().forEach(this::loadWorld);
 
@@ -84,6 +93,11 @@ public class StackManager extends Manager implements StackingLogic {
         // Close and clear StackingThreads
         this.stackingThreads.values().forEach(StackingThread::close);
         this.stackingThreads.clear();
+
+        if (this.entityStackingPool != null) {
+            this.entityStackingPool.shutdown();
+            this.entityStackingPool = null;
+        }
     }
 
     @Override
@@ -377,6 +391,13 @@ public class StackManager extends Manager implements StackingLogic {
             stackingThread.saveAllData(clearStored);
     }
 
+    /**
+     * @return the pool used to stack entities on multiple threads, or null if entities are stacked on a single thread
+     */
+    public ForkJoinPool getEntityStackingPool() {
+        return this.entityStackingPool;
+    }
+
     public boolean isEntityStackingEnabled() {
         return SettingKey.ENTITY_STACKING_ENABLED.get();
     }
@@ -0,0 +1,53 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
+import dev.rosewood.rosestacker.utils.ThreadUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Drains the {@link SyncTaskQueue} that {@link ThreadUtils#runSync(Runnable)} feeds once per tick, spending at most
+ * the configured time budget on it. Tasks still queued when the budget runs out wait for the next tick.
+ */
+public class SyncTaskManager extends Manager {
+
+    private BukkitTask drainTask;
+
+    public SyncTaskManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+    }
+
+    @Override
+    public void reload() {
+        SyncTaskQueue syncTaskQueue = ThreadUtils.getSyncTaskQueue();
+        syncTaskQueue.resetTimings();
+
+        double budget = SettingKey.SYNC_TASK_TIME_BUDGET.get();
+        if (budget < 0) {
+            // Anything left over from before the reload still has to run
+            syncTaskQueue.drain(Long.MAX_VALUE);
+            return;
+        }
+
+        long budgetNanos = (long) (budget * 1_000_000);
+        this.drainTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, () -> syncTaskQueue.drain(budgetNanos), 1L, 1L);
+        syncTaskQueue.setDraining(true);
+    }
+
+    @Override
+    public void disable() {
+        SyncTaskQueue syncTaskQueue = ThreadUtils.getSyncTaskQueue();
+        syncTaskQueue.setDraining(false);
+        if (this.drainTask != null) {
+            this.drainTask.cancel();
+            this.drainTask = null;
+        }
+
+        // Queued tasks such as removing merged entities must still happen before the world is saved
+        syncTaskQueue.drain(Long.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,135 @@
+package dev.rosewood.rosestacker.spawning;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * An immutable view of the blocks and light levels in a square of chunks, captured on the main thread.
+ * Safe to read from any thread. Must be closed once it is no longer needed so the captured chunks can be dropped.
+ */
+public class ChunkSnapshotView implements AutoCloseable {
+
+    private final World world;
+    private final int minChunkX, minChunkZ, maxChunkX, maxChunkZ;
+    private final ChunkSnapshot[] snapshots;
+    private final int[] skyDarken;
+    private final int minHeight, maxHeight;
+    private final Runnable release;
+    private final AtomicBoolean closed;
+
+    /**
+     * @param world The world the chunks are in
+     * @param minChunkX The lowest chunk x coordinate
+     * @param minChunkZ The lowest chunk z coordinate
+     * @param maxChunkX The highest chunk x coordinate
+     * @param maxChunkZ The highest chunk z coordinate
+     * @param snapshots The chunk snapshots, ordered by x then z, null for chunks that weren't loaded
+     * @param skyDarken How much the sky light was darkened by the time of day and weather when each chunk was captured
+     * @param release Called once when this view is closed
+     */
+    public ChunkSnapshotView(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, ChunkSnapshot[] snapshots, int[] skyDarken, Runnable release) {
+        this.world = world;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.maxChunkX = maxChunkX;
+        this.maxChunkZ = maxChunkZ;
+        this.snapshots = snapshots;
+        this.skyDarken = skyDarken;
+        this.minHeight = world.getMinHeight();
+        this.maxHeight = world.getMaxHeight();
+        this.release = release;
+        this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * @return the world the chunks are in
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * Gets the type of a block, blocks outside the captured chunks or the world height are air
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the type of the block
+     */
+    public Material getType(int x, int y, int z) {
+        int index = this.getIndex(x, y, z);
+        if (index == -1)
+            return Material.AIR;
+        return this.snapshots[index].getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * Gets the light from the sky at a block, not affected by the time of day
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the sky light level, 0 for blocks outside the captured chunks or the world height
+     */
+    public int getSkyLight(int x, int y, int z) {
+        int index = this.getIndex(x, y, z);
+        if (index == -1)
+            return 0;
+        return this.snapshots[index].getBlockSkyLight(x & 15, y, z & 15);
+    }
+
+    /**
+     * Gets the light emitted from blocks at a block
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the block light level, 0 for blocks outside the captured chunks or the world height
+     */
+    public int getBlockLight(int x, int y, int z) {
+        int index = this.getIndex(x, y, z);
+        if (index == -1)
+            return 0;
+        return this.snapshots[index].getBlockEmittedLight(x & 15, y, z & 15);
+    }
+
+    /**
+     * Gets the light level at a block the same way as {@link org.bukkit.block.Block#getLightLevel()},
+     * using the time of day from when the chunk was captured
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the light level, 0 for blocks outside the captured chunks or the world height
+     */
+    public int getLightLevel(int x, int y, int z) {
+        int index = this.getIndex(x, y, z);
+        if (index == -1)
+            return 0;
+
+        ChunkSnapshot snapshot = this.snapshots[index];
+        int skyLight = snapshot.getBlockSkyLight(x & 15, y, z & 15) - this.skyDarken[index];
+        return Math.max(snapshot.getBlockEmittedLight(x & 15, y, z & 15), skyLight);
+    }
+
+    private int getIndex(int x, int y, int z) {
+        if (y < this.minHeight || y >= this.maxHeight)
+            return -1;
+
+        int chunkX = x >> 4, chunkZ = z >> 4;
+        if (chunkX < this.minChunkX || chunkX > this.maxChunkX || chunkZ < this.minChunkZ || chunkZ > this.maxChunkZ)
+            return -1;
+
+        int index = (chunkX - this.minChunkX) * (this.maxChunkZ - this.minChunkZ + 1) + (chunkZ - this.minChunkZ);
+        return this.snapshots[index] != null ? index : -1;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed.compareAndSet(false, true))
+            this.release.run();
+    }
+
+}
@@ -1,7 +1,9 @@
 package dev.rosewood.rosestacker.spawning;
 
 import dev.rosewood.guiframework.framework.util.GuiUtil;
+import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.manager.ChunkSnapshotManager;
 import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
@@ -67,7 +69,13 @@ public class ItemSpawningMethod implements SpawningMethod {
             spawnAmount = spawnerTile.getSpawnCount();
         }
 
-        ThreadUtils.runAsync(() -> {
+        // Per-spawn conditions read the captured chunks when they are ready, otherwise the locations are picked on the
+        // main thread where the blocks can be read directly
+        int[] bounds = SpawnLocationCache.getChunkBounds(stackedSpawner, spawnerTile.getSpawnRange());
+        ChunkSnapshotView snapshot = RoseStacker.getInstance().getManager(ChunkSnapshotManager.class)
+                .acquire(stackedSpawner.getWorld(), bounds[0], bounds[1], bounds[2], bounds[3]);
+
+        Runnable spawnTask = () -> {
             Set<Location> spawnLocations = new HashSet<>();
             int spawnRange = spawnerTile.getSpawnRange();
             for (int i = 0; i < spawnAmount; i++) {
@@ -82,7 +90,7 @@ public class ItemSpawningMethod implements SpawningMethod {
 
                     boolean invalid = false;
                     for (ConditionTag conditionTag : perSpawnConditions) {
-                        if (!conditionTag.check(stackedSpawner, target)) {
+                        if (snapshot != null ? !conditionTag.check(stackedSpawner, target, snapshot) : !conditionTag.check(stackedSpawner, target)) {
                             invalid = true;
                         } else {
                             invalidSpawnConditions.remove(conditionTag);
@@ -139,7 +147,17 @@ public class ItemSpawningMethod implements SpawningMethod {
                         PersistentDataUtils.increaseSpawnCount(spawnerTile, successfulSpawns);
                 });
             }
-        });
+        };
+
+        if (snapshot != null) {
+            ThreadUtils.runAsync(() -> {
+                try (snapshot) {
+                    spawnTask.run();
+                }
+            });
+        } else {
+            spawnTask.run();
+        }
     }
 
 }
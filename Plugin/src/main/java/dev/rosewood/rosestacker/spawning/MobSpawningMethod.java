@@ -5,39 +5,39 @@ import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.event.PreStackedSpawnerSpawnEvent;
 import dev.rosewood.rosestacker.hook.SpawnerFlagPersistenceHook;
 import dev.rosewood.rosestacker.hook.WorldGuardHook;
-import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import dev.rosewood.rosestacker.manager.SpawnLocationCacheManager;
+import dev.rosewood.rosestacker.manager.SpawnerTickManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.nms.spawner.StackedSpawnerTile;
+import dev.rosewood.rosestacker.spawning.SpawnCoordinator.SpawnCluster;
+import dev.rosewood.rosestacker.spawning.SpawnCoordinator.SpawnRequest;
+import dev.rosewood.rosestacker.spawning.SpawnLocationCache.SpawnLocations;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionPlan;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags.NoneConditionTag;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags.NotPlayerPlacedConditionTag;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.StackerUtils;
-import dev.rosewood.rosestacker.utils.ThreadUtils;
 import dev.rosewood.rosestacker.utils.VersionUtils;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.CreatureSpawnEvent;
@@ -60,21 +60,19 @@ public class MobSpawningMethod implements SpawningMethod {
         SpawnerStackSettings stackSettings = stackedSpawner.getStackSettings();
         EntityStackSettings entityStackSettings = RoseStacker.getInstance().getManager(StackSettingManager.class).getEntityStackSettings(this.entityType);
 
-        // Mob spawning logic
-        List<ConditionTag> spawnRequirements = new ArrayList<>(stackSettings.getSpawnRequirements());
-
-        // Check general spawner conditions
-        List<ConditionTag> perSpawnConditions = spawnRequirements.stream().filter(ConditionTag::isRequiredPerSpawn).toList();
-        spawnRequirements.removeAll(perSpawnConditions);
-
-        Set<ConditionTag> invalidSpawnConditions = spawnRequirements.stream().filter(x -> !x.check(stackedSpawner, stackedSpawner.getBlock())).collect(Collectors.toSet());
-        if (SettingKey.SPAWNER_SPAWN_ONLY_PLAYER_PLACED.get() && !stackedSpawner.isPlacedByPlayer())
+        // Check general spawner conditions, stopping at the first one that fails
+        ConditionPlan conditionPlan = stackSettings.getConditionPlan();
+        Set<ConditionTag> invalidSpawnConditions = new HashSet<>();
+        if (SettingKey.SPAWNER_SPAWN_ONLY_PLAYER_PLACED.get() && !stackedSpawner.isPlacedByPlayer()) {
             invalidSpawnConditions.add(NotPlayerPlacedConditionTag.INSTANCE);
+        } else {
+            ConditionTag failedCondition = conditionPlan.checkGlobal(stackedSpawner);
+            if (failedCondition != null)
+                invalidSpawnConditions.add(failedCondition);
+        }
 
         boolean passedSpawnerChecks = invalidSpawnConditions.isEmpty();
 
-        invalidSpawnConditions.addAll(perSpawnConditions); // Will be removed when they pass
-
         // Spawn the mobs
         int spawnAmount;
         if (SettingKey.SPAWNER_SPAWN_COUNT_STACK_SIZE_RANDOMIZED.get()) {
@@ -88,109 +86,115 @@ public class MobSpawningMethod implements SpawningMethod {
             spawnAmount = spawnerTile.getSpawnCount();
         }
 
-        EntityCacheManager entityCacheManager = RoseStacker.getInstance().getManager(EntityCacheManager.class);
-        StackManager stackManager = RoseStacker.getInstance().getManager(StackManager.class);
-
-        ThreadUtils.runAsync(() -> {
-            // Make sure the chunk is still loaded
-            if (!stackedSpawner.getWorld().isChunkLoaded(stackedSpawner.getLocation().getBlockX() >> 4, stackedSpawner.getLocation().getBlockZ() >> 4))
-                return;
-
-            Set<Location> spawnLocations = new HashSet<>();
-            Set<Location> invalidLocations = new HashSet<>();
-            int spawnRange = spawnerTile.getSpawnRange();
-            int attempts = 0;
-            int maxFailedSpawnAttempts = SettingKey.SPAWNER_MAX_FAILED_SPAWN_ATTEMPTS.get() * spawnRange * spawnRange;
-            int desiredLocations = Math.max(2, stackSettings.getSpawnCountStackSizeMultiplier());
-            boolean useNearbyEntitiesForStacking = stackManager.isEntityStackingEnabled() && entityStackSettings.isStackingEnabled() && SettingKey.SPAWNER_SPAWN_INTO_NEARBY_STACKS.get();
-            if (!useNearbyEntitiesForStacking)
-                desiredLocations *= 4;
-
-            while (attempts <= maxFailedSpawnAttempts) {
-                int xOffset = this.random.nextInt(spawnRange * 2 + 1) - spawnRange;
-                int yOffset = !SettingKey.SPAWNER_USE_VERTICAL_SPAWN_RANGE.get() ? this.random.nextInt(3) - 1 : this.random.nextInt(spawnRange * 2 + 1) - spawnRange;
-                int zOffset = this.random.nextInt(spawnRange * 2 + 1) - spawnRange;
-
-                Location spawnLocation = stackedSpawner.getLocation().clone().add(xOffset + 0.5, yOffset, zOffset + 0.5);
-                if (invalidLocations.contains(spawnLocation)) {
-                    // Decrease max failed spawn attempts if the location is invalid to avoid spinning forever
-                    maxFailedSpawnAttempts--;
-                    continue;
-                }
-
-                Block target = stackedSpawner.getLocation().clone().add(xOffset, yOffset, zOffset).getBlock();
-
-                boolean invalid = false;
-                for (ConditionTag conditionTag : perSpawnConditions) {
-                    if (!conditionTag.check(stackedSpawner, target)) {
-                        invalid = true;
-                    } else {
-                        invalidSpawnConditions.remove(conditionTag);
-                    }
-                }
-
-                if (invalid) {
-                    invalidLocations.add(spawnLocation);
-                    attempts++;
-                    continue;
-                }
+        RoseStacker.getInstance().getManager(SpawnerTickManager.class).getSpawnCoordinator().submit(new SpawnRequest(this, stackedSpawner,
+                this.entityType, entityStackSettings, conditionPlan, invalidSpawnConditions, passedSpawnerChecks, spawnAmount, onlyCheckConditions));
+    }
 
-                if (!passedSpawnerChecks)
-                    break;
+    /**
+     * Picks the spawn locations for a queued spawn and spawns its mobs, called async by the {@link SpawnCoordinator}.
+     * Anything that has to run on the main thread is added to the sync tasks instead of being scheduled directly.
+     *
+     * @param request The queued spawn
+     * @param snapshot The captured chunks around the spawner to check the spawn conditions in
+     * @param cluster The cluster of nearby spawns the request belongs to
+     * @param syncTasks The tasks to run on the main thread once all spawns in the tick are processed
+     */
+    void spawn(SpawnRequest request, ChunkSnapshotView snapshot, SpawnCluster cluster, List<Runnable> syncTasks) {
+        StackedSpawner stackedSpawner = request.stackedSpawner();
+        StackedSpawnerTile spawnerTile = stackedSpawner.getSpawnerTile();
+        SpawnerStackSettings stackSettings = stackedSpawner.getStackSettings();
+        EntityStackSettings entityStackSettings = request.entityStackSettings();
+        ConditionPlan conditionPlan = request.conditionPlan();
+        Set<ConditionTag> invalidSpawnConditions = request.invalidSpawnConditions();
+        boolean passedSpawnerChecks = request.passedSpawnerChecks();
+        int spawnAmount = request.spawnAmount();
+        boolean onlyCheckConditions = request.onlyCheckConditions();
 
-                spawnLocations.add(spawnLocation);
-                if (spawnLocations.size() >= desiredLocations)
-                    break;
-            }
+        StackManager stackManager = RoseStacker.getInstance().getManager(StackManager.class);
+        SpawnLocationCacheManager spawnLocationCacheManager = RoseStacker.getInstance().getManager(SpawnLocationCacheManager.class);
+
+        // Make sure the chunk is still loaded
+        if (!stackedSpawner.getWorld().isChunkLoaded(stackedSpawner.getLocation().getBlockX() >> 4, stackedSpawner.getLocation().getBlockZ() >> 4))
+            return;
+
+        Set<Location> spawnLocations = new HashSet<>();
+        Set<ConditionTag> passedConditions = new HashSet<>();
+        Set<ConditionTag> failedConditions = new HashSet<>();
+        int spawnRange = spawnerTile.getSpawnRange();
+        int desiredLocations = Math.max(2, stackSettings.getSpawnCountStackSizeMultiplier());
+        boolean useNearbyEntitiesForStacking = stackManager.isEntityStackingEnabled() && entityStackSettings.isStackingEnabled() && SettingKey.SPAWNER_SPAWN_INTO_NEARBY_STACKS.get();
+        if (!useNearbyEntitiesForStacking)
+            desiredLocations *= 4;
+
+        if (SettingKey.SPAWNER_SPAWN_LOCATION_CACHE_ENABLED.get()) {
+            // Every block in range was already checked, only pick from the ones that passed
+            SpawnLocations cachedLocations = spawnLocationCacheManager.getCache(stackedSpawner).getSpawnLocations(this.entityType, conditionPlan,
+                    SettingKey.SPAWNER_USE_VERTICAL_SPAWN_RANGE.get(), SettingKey.SPAWNER_SPAWN_LOCATION_CACHE_EXPIRATION.get() * 50L, snapshot);
+            passedConditions.addAll(cachedLocations.passedConditions());
+            failedConditions.addAll(cachedLocations.failedConditions());
+            if (passedSpawnerChecks)
+                cachedLocations.pick(stackedSpawner.getLocation(), desiredLocations, this.random, spawnLocations);
+        } else {
+            findSpawnLocations(stackedSpawner, conditionPlan, snapshot, spawnRange, SettingKey.SPAWNER_USE_VERTICAL_SPAWN_RANGE.get(),
+                    SettingKey.SPAWNER_MAX_FAILED_SPAWN_ATTEMPTS.get(), desiredLocations, passedSpawnerChecks, this.random,
+                    spawnLocations, passedConditions, failedConditions);
+        }
 
-            EntityType entityType = stackedSpawner.getSpawnerTile().getSpawnerType().getOrThrow();
-            Predicate<Entity> predicate = entity -> entity.getType() == entityType;
-            Collection<Entity> nearbyEntities = entityCacheManager.getNearbyEntities(stackedSpawner.getLocation(), stackSettings.getSpawnRange(), predicate);
-            List<StackedEntity> nearbyStackedEntities = new ArrayList<>();
-            for (Entity entity : nearbyEntities) {
-                StackedEntity stackedEntity = stackManager.getStackedEntity((LivingEntity) entity);
-                if (stackedEntity != null)
+        // Conditions that were never reached aren't reported, the ones checked before them were enough to block the spawn
+        failedConditions.removeAll(passedConditions);
+        invalidSpawnConditions.addAll(failedConditions);
+
+        // The stacks near the whole cluster were looked up once, only use the ones within range of this spawner
+        List<StackedEntity> nearbyStackedEntities = new ArrayList<>();
+        if (!onlyCheckConditions && useNearbyEntitiesForStacking) {
+            Location spawnerLocation = stackedSpawner.getLocation();
+            int stackingRange = stackSettings.getSpawnRange();
+            for (StackedEntity stackedEntity : cluster.getNearbyStacks()) {
+                Location location = stackedEntity.getLocation();
+                if (Math.abs(location.getX() - spawnerLocation.getX()) <= stackingRange
+                        && Math.abs(location.getY() - spawnerLocation.getY()) <= stackingRange
+                        && Math.abs(location.getZ() - spawnerLocation.getZ()) <= stackingRange)
                     nearbyStackedEntities.add(stackedEntity);
             }
+        }
 
-            int successfulSpawns;
-            if (!onlyCheckConditions) {
-                if (useNearbyEntitiesForStacking) {
-                    successfulSpawns = this.spawnEntitiesIntoNearbyStacks(stackedSpawner, spawnAmount, spawnLocations, nearbyStackedEntities, stackManager, entityStackSettings);
-                } else {
-                    successfulSpawns = this.spawnEntitiesIndividually(stackedSpawner, spawnAmount, spawnLocations, entityStackSettings);
-                }
+        int successfulSpawns;
+        if (!onlyCheckConditions) {
+            if (useNearbyEntitiesForStacking) {
+                successfulSpawns = this.spawnEntitiesIntoNearbyStacks(stackedSpawner, spawnAmount, spawnLocations, nearbyStackedEntities, cluster, stackManager, entityStackSettings, syncTasks);
             } else {
-                successfulSpawns = spawnAmount > 0 && !spawnLocations.isEmpty() ? 1 : 0;
+                successfulSpawns = this.spawnEntitiesIndividually(stackedSpawner, spawnAmount, spawnLocations, entityStackSettings, syncTasks);
             }
+        } else {
+            successfulSpawns = spawnAmount > 0 && !spawnLocations.isEmpty() ? 1 : 0;
+        }
 
-            stackedSpawner.getLastInvalidConditions().clear();
-            if (successfulSpawns <= 0) {
-                if (invalidSpawnConditions.isEmpty()) {
-                    stackedSpawner.getLastInvalidConditions().add(NoneConditionTag.class);
-                } else {
-                    List<Class<? extends ConditionTag>> invalidSpawnConditionClasses = new ArrayList<>();
-                    for (ConditionTag conditionTag : invalidSpawnConditions)
-                        invalidSpawnConditionClasses.add(conditionTag.getClass());
-                    stackedSpawner.getLastInvalidConditions().addAll(invalidSpawnConditionClasses);
-                }
+        stackedSpawner.getLastInvalidConditions().clear();
+        if (successfulSpawns <= 0) {
+            if (invalidSpawnConditions.isEmpty()) {
+                stackedSpawner.getLastInvalidConditions().add(NoneConditionTag.class);
+            } else {
+                List<Class<? extends ConditionTag>> invalidSpawnConditionClasses = new ArrayList<>();
+                for (ConditionTag conditionTag : invalidSpawnConditions)
+                    invalidSpawnConditionClasses.add(conditionTag.getClass());
+                stackedSpawner.getLastInvalidConditions().addAll(invalidSpawnConditionClasses);
+            }
 
-                if (!onlyCheckConditions) {
-                    // Spawn particles indicating the spawn did not occur
-                    stackedSpawner.getWorld().spawnParticle(VersionUtils.SMOKE, stackedSpawner.getLocation().clone().add(0.5, 0.5, 0.5), 50, 0.5, 0.5, 0.5, 0);
-                }
-            } else if (!onlyCheckConditions) {
-                // Spawn particles indicating the spawn occurred
-                stackedSpawner.getWorld().spawnParticle(Particle.FLAME, stackedSpawner.getLocation().clone().add(0.5, 0.5, 0.5), 50, 0.5, 0.5, 0.5, 0);
-                ThreadUtils.runSync(() -> {
-                    if (stackedSpawner.getBlock().getType() == Material.SPAWNER)
-                        PersistentDataUtils.increaseSpawnCount(spawnerTile, successfulSpawns);
-                });
+            if (!onlyCheckConditions) {
+                // Spawn particles indicating the spawn did not occur
+                stackedSpawner.getWorld().spawnParticle(VersionUtils.SMOKE, stackedSpawner.getLocation().clone().add(0.5, 0.5, 0.5), 50, 0.5, 0.5, 0.5, 0);
             }
-        });
+        } else if (!onlyCheckConditions) {
+            // Spawn particles indicating the spawn occurred
+            stackedSpawner.getWorld().spawnParticle(Particle.FLAME, stackedSpawner.getLocation().clone().add(0.5, 0.5, 0.5), 50, 0.5, 0.5, 0.5, 0);
+            syncTasks.add(() -> {
+                if (stackedSpawner.getBlock().getType() == Material.SPAWNER)
+                    PersistentDataUtils.increaseSpawnCount(spawnerTile, successfulSpawns);
+            });
+        }
     }
 
-    private int spawnEntitiesIndividually(StackedSpawner stackedSpawner, int spawnAmount, Set<Location> locations, EntityStackSettings entityStackSettings) {
+    private int spawnEntitiesIndividually(StackedSpawner stackedSpawner, int spawnAmount, Set<Location> locations, EntityStackSettings entityStackSettings, List<Runnable> syncTasks) {
         if (this.entityType.getEntityClass() == null)
             return 0;
 
@@ -203,7 +207,7 @@ public class MobSpawningMethod implements SpawningMethod {
 
         List<Location> possibleLocations = new ArrayList<>(locations);
         int finalSpawnAmount = spawnAmount;
-        ThreadUtils.runSync(() -> { // No poof particles to show where the mobs spawn with this setting, they immediately try stacking and are entirely unpredictable
+        syncTasks.add(() -> { // No poof particles to show where the mobs spawn with this setting, they immediately try stacking and are entirely unpredictable
             NMSHandler nmsHandler = NMSAdapter.getHandler();
             for (int i = 0; i < finalSpawnAmount; i++) {
                 if (locations.isEmpty())
@@ -228,7 +232,62 @@ public class MobSpawningMethod implements SpawningMethod {
         return spawnAmount;
     }
 
-    private int spawnEntitiesIntoNearbyStacks(StackedSpawner stackedSpawner, int spawnAmount, Set<Location> locations, List<StackedEntity> nearbyEntities, StackManager stackManager, EntityStackSettings entityStackSettings) {
+    /**
+     * Checks random blocks in range of a spawner against the per-spawn conditions until enough of them pass or too many
+     * have failed. Used when the spawn location cache is disabled.
+     *
+     * @param stackedSpawner The spawner doing the spawning
+     * @param conditionPlan The spawn conditions of the spawner
+     * @param snapshot The captured chunks around the spawner
+     * @param spawnRange The spawn range of the spawner
+     * @param verticalSpawnRange true to use the spawn range vertically too, false to only check one block up or down
+     * @param maxFailedSpawnAttempts The number of failed blocks allowed per square block of spawn range
+     * @param desiredLocations The number of locations to stop at
+     * @param passedSpawnerChecks If all conditions checked against the spawner itself passed, stops at the first
+     *                            valid location if false
+     * @param random The random to pick the blocks with
+     * @param spawnLocations The set to add the valid locations to
+     * @param passedConditions The set to add the conditions that passed for at least one block to
+     * @param failedConditions The set to add the conditions that rejected at least one block to
+     */
+    public static void findSpawnLocations(StackedSpawner stackedSpawner, ConditionPlan conditionPlan, ChunkSnapshotView snapshot,
+                                          int spawnRange, boolean verticalSpawnRange, int maxFailedSpawnAttempts, int desiredLocations,
+                                          boolean passedSpawnerChecks, Random random, Set<Location> spawnLocations,
+                                          Set<ConditionTag> passedConditions, Set<ConditionTag> failedConditions) {
+        Set<Location> invalidLocations = new HashSet<>();
+        int attempts = 0;
+        int maxAttempts = maxFailedSpawnAttempts * spawnRange * spawnRange;
+        while (attempts <= maxAttempts) {
+            int xOffset = random.nextInt(spawnRange * 2 + 1) - spawnRange;
+            int yOffset = !verticalSpawnRange ? random.nextInt(3) - 1 : random.nextInt(spawnRange * 2 + 1) - spawnRange;
+            int zOffset = random.nextInt(spawnRange * 2 + 1) - spawnRange;
+
+            Location spawnLocation = stackedSpawner.getLocation().clone().add(xOffset + 0.5, yOffset, zOffset + 0.5);
+            if (invalidLocations.contains(spawnLocation)) {
+                // Decrease max failed spawn attempts if the location is invalid to avoid spinning forever
+                maxAttempts--;
+                continue;
+            }
+
+            Block target = stackedSpawner.getBlock().getRelative(xOffset, yOffset, zOffset);
+
+            if (!conditionPlan.checkPerSpawn(stackedSpawner, target, snapshot, passedConditions, failedConditions)) {
+                invalidLocations.add(spawnLocation);
+                attempts++;
+                continue;
+            }
+
+            if (!passedSpawnerChecks)
+                break;
+
+            spawnLocations.add(spawnLocation);
+            if (spawnLocations.size() >= desiredLocations)
+                break;
+        }
+    }
+
+    private int spawnEntitiesIntoNearbyStacks(StackedSpawner stackedSpawner, int spawnAmount, Set<Location> locations, List<StackedEntity> nearbyEntities, SpawnCluster cluster,
+                                              StackManager stackManager, EntityStackSettings entityStackSettings, List<Runnable> syncTasks) {
         List<StackedEntity> stackedEntities = new ArrayList<>(nearbyEntities);
         List<Location> possibleLocations = new ArrayList<>(locations);
 
@@ -247,6 +306,7 @@ public class MobSpawningMethod implements SpawningMethod {
         NMSHandler nmsHandler = NMSAdapter.getHandler();
 
         List<StackedEntity> updatedStacks = new ArrayList<>();
+        boolean bulkSpawn = SettingKey.SPAWNER_SPAWN_INTO_NEARBY_STACKS_BULK.get();
 
         Location previousLocation = null;
         for (int i = spawnAmount; i > 0; i--) {
@@ -255,11 +315,18 @@ public class MobSpawningMethod implements SpawningMethod {
                 break;
 
             switch (stackManager.getEntityDataStorageType(this.entityType)) {
-                case NBT -> {
+                case NBT, COLUMNAR -> {
                     StackedEntity newStack = this.createNewEntity(nmsHandler, location, stackedSpawner, entityStackSettings);
                     Optional<StackedEntity> matchingEntity = stackedEntities.stream().filter(x ->
                             WorldGuardHook.testLocation(x.getLocation()) && entityStackSettings.testCanStackWith(x, newStack, false, true)).findAny();
-                    if (matchingEntity.isPresent()) {
+                    if (matchingEntity.isPresent() && bulkSpawn) {
+                        // One compatible mob was enough to check, fill the stack with copies of it
+                        int amountToIncrease = Math.max(1, Math.min(i, entityStackSettings.getMaxStackSize() - matchingEntity.get().getStackSize()));
+                        matchingEntity.get().increaseStackSize(newStack.getEntity(), amountToIncrease, false);
+                        updatedStacks.add(matchingEntity.get());
+                        i -= amountToIncrease - 1;
+                        successfulSpawns += amountToIncrease - 1;
+                    } else if (matchingEntity.isPresent()) {
                         matchingEntity.get().increaseStackSize(newStack.getEntity(), false);
                         updatedStacks.add(matchingEntity.get());
                     } else {
@@ -268,6 +335,7 @@ public class MobSpawningMethod implements SpawningMethod {
 
                         stackedEntities.add(newStack);
                         newStacks.add(newStack);
+                        cluster.addStack(newStack);
                         possibleLocations.remove(location);
                     }
 
@@ -292,6 +360,7 @@ public class MobSpawningMethod implements SpawningMethod {
                         StackedEntity newStack = this.createNewEntity(nmsHandler, location, stackedSpawner, entityStackSettings);
                         stackedEntities.add(newStack);
                         newStacks.add(newStack);
+                        cluster.addStack(newStack);
                         possibleLocations.remove(location);
                         successfulSpawns++;
                     }
@@ -303,7 +372,7 @@ public class MobSpawningMethod implements SpawningMethod {
 
         updatedStacks.forEach(StackedEntity::updateDisplay);
 
-        ThreadUtils.runSync(() -> {
+        syncTasks.add(() -> {
             stackManager.setEntityStackingTemporarilyDisabled(true);
             for (StackedEntity stackedEntity : newStacks) {
                 LivingEntity entity = stackedEntity.getEntity();
@@ -321,6 +390,7 @@ public class MobSpawningMethod implements SpawningMethod {
 
             // Spawn particles for new entities and update nametags
             for (StackedEntity entity : newStacks) {
+                entity.invalidateDisplay();
                 entity.updateDisplay();
                 World world = entity.getLocation().getWorld();
                 if (world != null)
@@ -0,0 +1,247 @@
+package dev.rosewood.rosestacker.spawning;
+
+import dev.rosewood.rosestacker.RoseStacker;
+import dev.rosewood.rosestacker.manager.ChunkSnapshotManager;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import dev.rosewood.rosestacker.manager.StackManager;
+import dev.rosewood.rosestacker.stack.StackedEntity;
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionPlan;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
+import dev.rosewood.rosestacker.utils.ThreadUtils;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Gathers the mob spawns of every spawner that is due in the same tick and processes them together.
+ * Spawns are grouped by world, entity type and a small cube of blocks, the stacks near a group are only looked up
+ * once and shared between its spawners, and everything that has to run on the main thread is applied in one task.
+ * Spawns wait in the queue until the chunks around their spawner have been captured by the {@link ChunkSnapshotManager},
+ * they are only dropped if the spawner itself is unloaded in the meantime.
+ */
+public class SpawnCoordinator {
+
+    /**
+     * Spawners are grouped into cubes of 2^CLUSTER_SHIFT blocks
+     */
+    private static final int CLUSTER_SHIFT = 4;
+
+    private List<PendingSpawn> pendingSpawns;
+
+    public SpawnCoordinator() {
+        this.pendingSpawns = new ArrayList<>();
+    }
+
+    /**
+     * Queues a spawn to be processed during the next flush
+     *
+     * @param request The spawn to queue
+     */
+    synchronized void submit(SpawnRequest request) {
+        this.pendingSpawns.add(new PendingSpawn(request));
+    }
+
+    /**
+     * Processes all queued spawns that have their chunks captured async, then applies their results on the main thread
+     * in a single task. Must be called on the main thread.
+     */
+    public void flush() {
+        List<PendingSpawn> pendingSpawns;
+        synchronized (this) {
+            if (this.pendingSpawns.isEmpty())
+                return;
+
+            pendingSpawns = this.pendingSpawns;
+            this.pendingSpawns = new ArrayList<>();
+        }
+
+        ChunkSnapshotManager chunkSnapshotManager = RoseStacker.getInstance().getManager(ChunkSnapshotManager.class);
+        List<AcquiredSpawn> acquiredSpawns = new ArrayList<>();
+        List<PendingSpawn> deferredSpawns = new ArrayList<>();
+        for (PendingSpawn pendingSpawn : pendingSpawns) {
+            StackedSpawner stackedSpawner = pendingSpawn.request.stackedSpawner();
+            int[] bounds = SpawnLocationCache.getChunkBounds(stackedSpawner, stackedSpawner.getSpawnerTile().getSpawnRange());
+            Block block = stackedSpawner.getBlock();
+            if (!stackedSpawner.getWorld().isChunkLoaded(block.getX() >> 4, block.getZ() >> 4)) {
+                // Nothing to spawn into anymore, the spawner resets its delay once it is loaded again
+                RoseStacker.getInstance().getLogger().fine("Dropped a spawn at " + block.getLocation() + " that waited "
+                        + pendingSpawn.deferrals + " ticks for its chunks, the spawner was unloaded");
+                continue;
+            }
+
+            ChunkSnapshotView snapshot = chunkSnapshotManager.acquire(stackedSpawner.getWorld(), bounds[0], bounds[1], bounds[2], bounds[3]);
+            if (snapshot != null) {
+                acquiredSpawns.add(new AcquiredSpawn(pendingSpawn.request, snapshot));
+            } else {
+                pendingSpawn.deferrals++;
+                deferredSpawns.add(pendingSpawn);
+            }
+        }
+
+        if (!deferredSpawns.isEmpty()) {
+            synchronized (this) {
+                this.pendingSpawns.addAll(deferredSpawns);
+            }
+        }
+
+        if (!acquiredSpawns.isEmpty())
+            ThreadUtils.runAsync(() -> this.process(acquiredSpawns));
+    }
+
+    private void process(List<AcquiredSpawn> acquiredSpawns) {
+        Map<ClusterKey, SpawnCluster> clusters = new LinkedHashMap<>();
+        for (AcquiredSpawn acquiredSpawn : acquiredSpawns) {
+            SpawnRequest request = acquiredSpawn.request();
+            Block block = request.stackedSpawner().getBlock();
+            ClusterKey key = new ClusterKey(block.getWorld().getUID(), request.entityType(),
+                    block.getX() >> CLUSTER_SHIFT, block.getY() >> CLUSTER_SHIFT, block.getZ() >> CLUSTER_SHIFT);
+            clusters.computeIfAbsent(key, x -> new SpawnCluster(block.getWorld(), request.entityType())).spawns.add(acquiredSpawn);
+        }
+
+        List<Runnable> syncTasks = new ArrayList<>();
+        for (SpawnCluster cluster : clusters.values()) {
+            for (AcquiredSpawn acquiredSpawn : cluster.spawns) {
+                try (ChunkSnapshotView snapshot = acquiredSpawn.snapshot()) {
+                    acquiredSpawn.request().method().spawn(acquiredSpawn.request(), snapshot, cluster, syncTasks);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        if (syncTasks.isEmpty())
+            return;
+
+        ThreadUtils.runSync(() -> {
+            for (Runnable syncTask : syncTasks) {
+                try {
+                    syncTask.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * A spawn that passed the main thread checks and is waiting to pick its locations and mobs
+     *
+     * @param method The spawning method that queued the spawn
+     * @param stackedSpawner The spawner doing the spawning
+     * @param entityType The type of entity being spawned
+     * @param entityStackSettings The stack settings of the entity being spawned
+     * @param conditionPlan The spawn conditions of the spawner
+     * @param invalidSpawnConditions The conditions that failed so far, failing per-spawn conditions are added
+     * @param passedSpawnerChecks If all conditions checked against the spawner itself passed
+     * @param spawnAmount The number of mobs to spawn
+     * @param onlyCheckConditions Whether to only check conditions and not actually spawn anything
+     */
+    record SpawnRequest(MobSpawningMethod method, StackedSpawner stackedSpawner, EntityType entityType,
+                        EntityStackSettings entityStackSettings, ConditionPlan conditionPlan,
+                        Set<ConditionTag> invalidSpawnConditions, boolean passedSpawnerChecks, int spawnAmount,
+                        boolean onlyCheckConditions) {
+
+    }
+
+    private record AcquiredSpawn(SpawnRequest request, ChunkSnapshotView snapshot) {
+
+    }
+
+    private record ClusterKey(UUID worldId, EntityType entityType, int x, int y, int z) {
+
+    }
+
+    /**
+     * A queued spawn along with how many flushes it has waited for its chunks to be captured
+     */
+    private static class PendingSpawn {
+
+        private final SpawnRequest request;
+        private int deferrals;
+
+        public PendingSpawn(SpawnRequest request) {
+            this.request = request;
+        }
+
+    }
+
+    /**
+     * A group of spawns of the same entity type close to each other, only accessed by the thread processing the spawns
+     */
+    static class SpawnCluster {
+
+        private final World world;
+        private final EntityType entityType;
+        private final List<AcquiredSpawn> spawns;
+        private List<StackedEntity> nearbyStacks;
+
+        private SpawnCluster(World world, EntityType entityType) {
+            this.world = world;
+            this.entityType = entityType;
+            this.spawns = new ArrayList<>();
+        }
+
+        /**
+         * Gets the stacks within the stacking range of any spawner in this cluster, looked up the first time it is called.
+         * Stacks created by spawns in this cluster are included once they are added.
+         *
+         * @return the stacks near this cluster
+         */
+        List<StackedEntity> getNearbyStacks() {
+            if (this.nearbyStacks != null)
+                return this.nearbyStacks;
+
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+            for (AcquiredSpawn acquiredSpawn : this.spawns) {
+                StackedSpawner stackedSpawner = acquiredSpawn.request().stackedSpawner();
+                Location location = stackedSpawner.getLocation();
+                int range = stackedSpawner.getStackSettings().getSpawnRange();
+                minX = Math.min(minX, location.getX() - range);
+                minY = Math.min(minY, location.getY() - range);
+                minZ = Math.min(minZ, location.getZ() - range);
+                maxX = Math.max(maxX, location.getX() + range);
+                maxY = Math.max(maxY, location.getY() + range);
+                maxZ = Math.max(maxZ, location.getZ() + range);
+            }
+
+            Location center = new Location(this.world, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+            double radius = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ)) / 2;
+
+            List<Entity> nearbyEntities = new ArrayList<>();
+            RoseStacker.getInstance().getManager(EntityCacheManager.class).getNearbyEntities(center, radius, this.entityType, nearbyEntities);
+
+            StackManager stackManager = RoseStacker.getInstance().getManager(StackManager.class);
+            this.nearbyStacks = new ArrayList<>();
+            for (Entity entity : nearbyEntities) {
+                StackedEntity stackedEntity = stackManager.getStackedEntity((LivingEntity) entity);
+                if (stackedEntity != null)
+                    this.nearbyStacks.add(stackedEntity);
+            }
+
+            return this.nearbyStacks;
+        }
+
+        /**
+         * Adds a newly created stack so the other spawners in this cluster can stack into it
+         *
+         * @param stackedEntity The new stack
+         */
+        void addStack(StackedEntity stackedEntity) {
+            this.getNearbyStacks().add(stackedEntity);
+        }
+
+    }
+
+}
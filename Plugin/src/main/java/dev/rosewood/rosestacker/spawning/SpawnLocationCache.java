@@ -0,0 +1,193 @@
+package dev.rosewood.rosestacker.spawning;
+
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionPlan;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Caches the blocks around a spawner that pass all of its per-spawn conditions, one set of blocks per entity type.
+ * Every block in the spawn range is checked once, later spawns only have to pick from the blocks that passed.
+ */
+public class SpawnLocationCache {
+
+    /**
+     * Extra blocks around the spawn range that can affect the conditions, such as the block below or the space
+     * taken up by a large mob
+     */
+    private static final int CONDITION_PADDING = 4;
+
+    private final StackedSpawner stackedSpawner;
+    private final int spawnRange;
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+    private final Map<EntityType, SpawnLocations> spawnLocations;
+
+    public SpawnLocationCache(StackedSpawner stackedSpawner, int spawnRange) {
+        this.stackedSpawner = stackedSpawner;
+        this.spawnRange = spawnRange;
+        this.spawnLocations = new ConcurrentHashMap<>();
+
+        Block block = stackedSpawner.getBlock();
+        int range = spawnRange + CONDITION_PADDING;
+        this.minX = block.getX() - range;
+        this.minY = block.getY() - range;
+        this.minZ = block.getZ() - range;
+        this.maxX = block.getX() + range;
+        this.maxY = block.getY() + range;
+        this.maxZ = block.getZ() + range;
+    }
+
+    /**
+     * Gets the cached spawn locations for an entity type, checks every block in the spawn range if nothing is cached yet
+     *
+     * @param entityType The type of entity being spawned
+     * @param conditionPlan The spawn conditions of the spawner
+     * @param verticalSpawnRange true if the spawn range also applies vertically, otherwise only one block up or down is used
+     * @param expirationMillis How long the locations stay valid for after they were checked
+     * @param snapshot The captured chunks around the spawner to check the blocks in
+     * @return the spawn locations
+     */
+    public SpawnLocations getSpawnLocations(EntityType entityType, ConditionPlan conditionPlan, boolean verticalSpawnRange, long expirationMillis, ChunkSnapshotView snapshot) {
+        SpawnLocations cached = this.spawnLocations.get(entityType);
+        if (cached != null && cached.isValidFor(conditionPlan, verticalSpawnRange, expirationMillis))
+            return cached;
+
+        SpawnLocations spawnLocations = this.calculate(conditionPlan, verticalSpawnRange, snapshot);
+        this.spawnLocations.put(entityType, spawnLocations);
+        return spawnLocations;
+    }
+
+    private SpawnLocations calculate(ConditionPlan conditionPlan, boolean verticalSpawnRange, ChunkSnapshotView snapshot) {
+        Block spawnerBlock = this.stackedSpawner.getBlock();
+        World world = spawnerBlock.getWorld();
+        int verticalRange = verticalSpawnRange ? this.spawnRange : 1;
+        int minY = Math.max(world.getMinHeight(), spawnerBlock.getY() - verticalRange);
+        int maxY = Math.min(world.getMaxHeight() - 1, spawnerBlock.getY() + verticalRange);
+
+        List<int[]> offsets = new ArrayList<>();
+        Set<ConditionTag> passedConditions = new HashSet<>();
+        Set<ConditionTag> failedConditions = new HashSet<>();
+        for (int x = -this.spawnRange; x <= this.spawnRange; x++) {
+            for (int y = minY - spawnerBlock.getY(); y <= maxY - spawnerBlock.getY(); y++) {
+                for (int z = -this.spawnRange; z <= this.spawnRange; z++) {
+                    Block target = spawnerBlock.getRelative(x, y, z);
+                    if (conditionPlan.checkPerSpawn(this.stackedSpawner, target, snapshot, passedConditions, failedConditions))
+                        offsets.add(new int[]{x, y, z});
+                }
+            }
+        }
+
+        return new SpawnLocations(offsets.toArray(new int[0][]), passedConditions, failedConditions, conditionPlan, verticalSpawnRange, System.nanoTime());
+    }
+
+    /**
+     * Clears the cached locations if a changed block could affect them
+     *
+     * @param x The x coordinate of the changed block
+     * @param y The y coordinate of the changed block
+     * @param z The z coordinate of the changed block
+     */
+    public void invalidate(int x, int y, int z) {
+        if (x >= this.minX && x <= this.maxX && y >= this.minY && y <= this.maxY && z >= this.minZ && z <= this.maxZ)
+            this.spawnLocations.clear();
+    }
+
+    /**
+     * @return the spawn range the locations were cached for
+     */
+    public int getSpawnRange() {
+        return this.spawnRange;
+    }
+
+    /**
+     * Gets the chunks that the blocks affecting a spawner's spawn conditions can be in
+     *
+     * @param stackedSpawner The spawner
+     * @param spawnRange The spawn range of the spawner
+     * @return the min and max chunk coordinates, as {minChunkX, minChunkZ, maxChunkX, maxChunkZ}
+     */
+    public static int[] getChunkBounds(StackedSpawner stackedSpawner, int spawnRange) {
+        Block block = stackedSpawner.getBlock();
+        int range = spawnRange + CONDITION_PADDING;
+        return new int[]{(block.getX() - range) >> 4, (block.getZ() - range) >> 4, (block.getX() + range) >> 4, (block.getZ() + range) >> 4};
+    }
+
+    /**
+     * @return the min and max chunk coordinates this cache covers, as {minChunkX, minChunkZ, maxChunkX, maxChunkZ}
+     */
+    public int[] getChunkBounds() {
+        return new int[]{this.minX >> 4, this.minZ >> 4, this.maxX >> 4, this.maxZ >> 4};
+    }
+
+    /**
+     * The blocks around a spawner that passed all per-spawn conditions
+     *
+     * @param offsets The offsets of the valid blocks from the spawner
+     * @param passedConditions The conditions that passed for at least one block
+     * @param failedConditions The conditions that rejected at least one block
+     * @param conditionPlan The spawn conditions that were checked
+     * @param verticalSpawnRange If the vertical spawn range was used
+     * @param calculatedAt When the blocks were checked, from {@link System#nanoTime()}
+     */
+    public record SpawnLocations(int[][] offsets, Set<ConditionTag> passedConditions, Set<ConditionTag> failedConditions,
+                                 ConditionPlan conditionPlan, boolean verticalSpawnRange, long calculatedAt) {
+
+        private boolean isValidFor(ConditionPlan conditionPlan, boolean verticalSpawnRange, long expirationMillis) {
+            return this.verticalSpawnRange == verticalSpawnRange
+                    && this.conditionPlan == conditionPlan
+                    && System.nanoTime() - this.calculatedAt < TimeUnit.MILLISECONDS.toNanos(expirationMillis);
+        }
+
+        /**
+         * @return true if there are no valid blocks to spawn in
+         */
+        public boolean isEmpty() {
+            return this.offsets.length == 0;
+        }
+
+        /**
+         * Picks random spawn locations, each location is at the center of its block
+         *
+         * @param spawnerLocation The location of the spawner
+         * @param amount The number of locations to pick, fewer are returned if there are not enough valid blocks
+         * @param random The random to pick with
+         * @param locations The collection to add the picked locations to
+         */
+        public void pick(Location spawnerLocation, int amount, Random random, Collection<Location> locations) {
+            if (this.offsets.length <= amount) {
+                for (int[] offset : this.offsets)
+                    locations.add(spawnerLocation.clone().add(offset[0] + 0.5, offset[1], offset[2] + 0.5));
+                return;
+            }
+
+            // Partial Fisher-Yates shuffle over the indices so each block is only picked once
+            int[] indices = new int[this.offsets.length];
+            for (int i = 0; i < indices.length; i++)
+                indices[i] = i;
+
+            for (int i = 0; i < amount; i++) {
+                int j = i + random.nextInt(indices.length - i);
+                int index = indices[j];
+                indices[j] = indices[i];
+                indices[i] = index;
+
+                int[] offset = this.offsets[index];
+                locations.add(spawnerLocation.clone().add(offset[0] + 0.5, offset[1], offset[2] + 0.5));
+            }
+        }
+
+    }
+
+}
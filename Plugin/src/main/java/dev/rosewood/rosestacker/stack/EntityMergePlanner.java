@@ -0,0 +1,138 @@
+package dev.rosewood.rosestacker.stack;
+
+import dev.rosewood.rosestacker.config.SettingKey;
+import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
+import dev.rosewood.rosestacker.utils.ThreadUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+
+/**
+ * Plans the entity merges of one stacking pass.
+ * Stacks that took part in a merge are skipped when the pass reaches them, stacks that didn't merge anything stay
+ * eligible to be picked up by the clusters of other stacks.
+ * The entities of merged stacks are collected and removed from the world together when the planner is flushed.
+ */
+public class EntityMergePlanner {
+
+    private final Set<StackedEntity> settled;
+    private final Queue<Entity> removedEntities;
+
+    public EntityMergePlanner() {
+        this.settled = ConcurrentHashMap.newKeySet();
+        this.removedEntities = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * @param stackedEntity The stack to check
+     * @return true if the stack has already been merged this pass and doesn't need to be evaluated again
+     */
+    public boolean isSettled(StackedEntity stackedEntity) {
+        return this.settled.contains(stackedEntity);
+    }
+
+    /**
+     * Splits a cluster of stacks that can all stack with the center into merges that respect the max stack size.
+     * The largest stack of the cluster takes in as many of the others as fit, then the largest of the stacks that
+     * didn't fit does the same with the rest, until there is nothing left to merge.
+     *
+     * @param center The stack the cluster was found around
+     * @param cluster The center and all the nearby stacks it can stack with
+     * @param stackSettings The stack settings of the center
+     * @return the merges to make, in order
+     */
+    public List<Merge> plan(StackedEntity center, List<StackedEntity> cluster, EntityStackSettings stackSettings) {
+        if (cluster.size() < 2)
+            return List.of();
+
+        boolean onlyIndividuals = SettingKey.ENTITY_MIN_STACK_COUNT_ONLY_INDIVIDUALS.get();
+        List<StackedEntity> remaining = new ArrayList<>(cluster);
+        List<Merge> merges = new ArrayList<>();
+        while (remaining.size() > 1) {
+            // Counting individuals keeps the center as the stack being increased, the same as a single merge would
+            StackedEntity increased = onlyIndividuals && merges.isEmpty() && remaining.contains(center) ? center : Collections.max(remaining);
+            remaining.remove(increased);
+
+            int totalSize = onlyIndividuals ? 1 : increased.getStackSize();
+            int totalStackSize = increased.getStackSize();
+            List<StackedEntity> targets = new ArrayList<>();
+            Iterator<StackedEntity> iterator = remaining.iterator();
+            while (iterator.hasNext()) {
+                StackedEntity target = iterator.next();
+                if (totalStackSize + target.getStackSize() > stackSettings.getMaxStackSize())
+                    continue;
+
+                totalSize += onlyIndividuals ? 1 : target.getStackSize();
+                totalStackSize += target.getStackSize();
+                targets.add(target);
+                iterator.remove();
+            }
+
+            // Stacks left over after this are too large to fit together with anything smaller either
+            if (targets.isEmpty())
+                continue;
+
+            if (totalSize < stackSettings.getMinStackSize())
+                break;
+
+            merges.add(new Merge(increased, targets));
+        }
+
+        return merges;
+    }
+
+    /**
+     * Marks a merge as done, the increased stack and the targets won't be evaluated again this pass.
+     * The increased stack is checked again next pass since it may now be able to reach stacks further away.
+     * The entities of the targets are removed from the world on the next {@link #flush()}.
+     *
+     * @param merge The merge that was applied
+     */
+    public void complete(Merge merge) {
+        merge.increased().markDirty();
+        this.settled.add(merge.increased());
+        this.settled.addAll(merge.targets());
+
+        for (StackedEntity target : merge.targets())
+            this.removedEntities.add(target.getEntity());
+    }
+
+    /**
+     * Removes the entities of every stack merged since the last flush from the world in a single task.
+     * Runs right away on the main thread, otherwise the task is queued in the high priority lane which is always run
+     * completely on the next tick.
+     */
+    public void flush() {
+        if (this.removedEntities.isEmpty())
+            return;
+
+        List<Entity> removedEntities = new ArrayList<>(this.removedEntities.size());
+        Entity entity;
+        while ((entity = this.removedEntities.poll()) != null)
+            removedEntities.add(entity);
+
+        Runnable removeTask = () -> removedEntities.forEach(Entity::remove);
+        if (Bukkit.isPrimaryThread()) {
+            removeTask.run();
+        } else {
+            ThreadUtils.runSync(removeTask, SyncTaskQueue.Priority.HIGH);
+        }
+    }
+
+    /**
+     * A merge of some stacks into another
+     *
+     * @param increased The stack being increased
+     * @param targets The stacks being merged into the increased stack
+     */
+    public record Merge(StackedEntity increased, List<StackedEntity> targets) { }
+
+}
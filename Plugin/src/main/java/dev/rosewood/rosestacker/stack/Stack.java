@@ -10,6 +10,8 @@ import org.bukkit.entity.Player;
 
 public abstract class Stack<T extends StackSettings> {
 
+    private volatile int displayRevision;
+
     public abstract int getStackSize();
 
     public abstract Location getLocation();
@@ -30,6 +32,20 @@ public abstract class Stack<T extends StackSettings> {
         return world;
     }
 
+    /**
+     * @return a number that changes every time the display of this Stack is updated for all nearby players
+     */
+    public int getDisplayRevision() {
+        return this.displayRevision;
+    }
+
+    /**
+     * Marks the display of this Stack as updated for all nearby players, any nametags tracked per player are outdated
+     */
+    protected void incrementDisplayRevision() {
+        this.displayRevision++;
+    }
+
     protected Set<Player> getPlayersInVisibleRange() {
         Set<Player> players = new HashSet<>();
 
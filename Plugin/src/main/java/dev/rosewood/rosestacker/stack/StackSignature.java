@@ -0,0 +1,124 @@
+package dev.rosewood.rosestacker.stack;
+
+import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The properties of an entity that the position independent stack conditions compare, collected once per entity.
+ * Two entities with compatible signatures pass all of those conditions without having to check them again.
+ */
+public final class StackSignature {
+
+    private final EntityStackSettings stackSettings;
+    private final List<Object> properties;
+    private final EntityStackComparisonResult blockedReason;
+    private final long expiresAt;
+
+    private StackSignature(EntityStackSettings stackSettings, List<Object> properties, EntityStackComparisonResult blockedReason, long expiresAt) {
+        this.stackSettings = stackSettings;
+        this.properties = properties;
+        this.blockedReason = blockedReason;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Checks if the entities with these signatures pass all the stack conditions the signatures were built from
+     *
+     * @param other The signature of the other entity
+     * @return true if the signatures are compatible, otherwise false
+     */
+    public boolean isCompatibleWith(StackSignature other) {
+        return this.blockedReason == null
+                && other.blockedReason == null
+                && this.stackSettings == other.stackSettings
+                && this.properties.equals(other.properties);
+    }
+
+    /**
+     * @return the reason the entity can't stack with any other entity, or null if it can
+     */
+    public EntityStackComparisonResult getBlockedReason() {
+        return this.blockedReason;
+    }
+
+    /**
+     * @return the stack settings this signature was built with
+     */
+    public EntityStackSettings getStackSettings() {
+        return this.stackSettings;
+    }
+
+    /**
+     * @param now The current time, from {@link System#nanoTime()}
+     * @return true if the properties may have changed and the signature should be built again
+     */
+    public boolean isExpired(long now) {
+        return now - this.expiresAt >= 0;
+    }
+
+    /**
+     * Collects the properties of an entity into a signature
+     */
+    public static final class Builder {
+
+        private final EntityStackSettings stackSettings;
+        private final List<Object> properties;
+        private EntityStackComparisonResult blockedReason;
+        private long expiresAt;
+
+        /**
+         * @param stackSettings The stack settings of the entity
+         * @param expiresAt When the signature expires, from {@link System#nanoTime()}
+         */
+        public Builder(EntityStackSettings stackSettings, long expiresAt) {
+            this.stackSettings = stackSettings;
+            this.properties = new ArrayList<>();
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Adds a property that has to be equal for two entities to stack
+         *
+         * @param property The property, may be null
+         */
+        public void property(Object property) {
+            this.properties.add(property);
+        }
+
+        /**
+         * Marks the entity as unable to stack with any other entity, only the first reason is kept
+         *
+         * @param reason The reason the entity can't stack
+         */
+        public void block(EntityStackComparisonResult reason) {
+            if (this.blockedReason == null)
+                this.blockedReason = reason;
+        }
+
+        /**
+         * Makes the signature expire sooner, for properties that are known to change after some time
+         *
+         * @param nanos How long the property stays the same for, in nanoseconds
+         */
+        public void expireWithin(long nanos) {
+            long expiresAt = System.nanoTime() + nanos;
+            if (expiresAt - this.expiresAt < 0)
+                this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return true if the entity was already marked as unable to stack
+         */
+        public boolean isBlocked() {
+            return this.blockedReason != null;
+        }
+
+        public StackSignature build() {
+            return new StackSignature(this.stackSettings, Collections.unmodifiableList(this.properties), this.blockedReason, this.expiresAt);
+        }
+
+    }
+
+}
@@ -11,6 +11,8 @@ import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent;
 import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent.EntityDrops;
 import dev.rosewood.rosestacker.hook.NPCsHook;
 import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import dev.rosewood.rosestacker.manager.EntityDeathEventManager;
+import dev.rosewood.rosestacker.manager.EntityLootManager;
 import dev.rosewood.rosestacker.manager.LocaleManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
@@ -28,6 +30,7 @@ import dev.rosewood.rosestacker.utils.ThreadUtils;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Supplier;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -63,9 +66,15 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
     private String displayName;
     private boolean displayNameVisible;
+    private int displayedStackSize;
+    private String displayedCustomName;
 
     private EntityStackSettings stackSettings;
 
+    private volatile boolean dirty;
+    private double lastStackX, lastStackY, lastStackZ;
+    private volatile StackSignature stackSignature;
+
     public StackedEntity(LivingEntity entity, StackedEntityDataStorage stackedEntityDataStorage) {
         this.entity = entity;
         this.stackedEntityDataStorage = stackedEntityDataStorage;
@@ -73,6 +82,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
         this.displayName = null;
         this.displayNameVisible = false;
+        this.dirty = true;
 
         if (this.entity != null) {
             this.stackSettings = RoseStacker.getInstance().getManager(StackSettingManager.class).getEntityStackSettings(this.entity);
@@ -107,6 +117,9 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
         this.entity = entity;
         this.stackedEntityDataStorage.updateEntity(entity);
+        this.invalidateStackSignature();
+        this.markDirty();
+        this.invalidateDisplay();
         this.updateDisplay();
     }
 
@@ -117,6 +130,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
     public void increaseStackSize(LivingEntity entity, boolean updateDisplay) {
         Runnable task = () -> {
             this.stackedEntityDataStorage.add(entity);
+            this.markDirty();
             if (updateDisplay)
                 this.updateDisplay();
         };
@@ -131,6 +145,29 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         }
     }
 
+    /**
+     * Increases the stack size by adding copies of an entity, the entity is only serialized once
+     *
+     * @param entity The entity to add copies of
+     * @param amount The number of copies to add
+     * @param updateDisplay Whether to update the entity's nametag or not
+     */
+    public void increaseStackSize(LivingEntity entity, int amount, boolean updateDisplay) {
+        Runnable task = () -> {
+            this.stackedEntityDataStorage.addCopies(entity, amount);
+            this.markDirty();
+            if (updateDisplay)
+                this.updateDisplay();
+        };
+
+        // See increaseStackSize(LivingEntity, boolean) for why ender dragons are handled on the main thread
+        if (!Bukkit.isPrimaryThread() && entity instanceof EnderDragon) {
+            ThreadUtils.runSync(task);
+        } else {
+            task.run();
+        }
+    }
+
     /**
      * Increases the stack size by a certain amount, clones the main entity
      *
@@ -138,6 +175,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
      */
     public void increaseStackSize(int amount, boolean updateDisplay) {
         this.stackedEntityDataStorage.addClones(amount);
+        this.markDirty();
 
         if (updateDisplay)
             this.updateDisplay();
@@ -145,6 +183,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
     public void increaseStackSize(StackedEntityDataStorage serializedStackedEntities) {
         this.stackedEntityDataStorage.addAll(serializedStackedEntities);
+        this.markDirty();
         this.updateDisplay();
     }
 
@@ -178,6 +217,9 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         }
 
         this.stackedEntityDataStorage.updateEntity(this.entity);
+        this.invalidateStackSignature();
+        this.markDirty();
+        this.invalidateDisplay();
         this.updateDisplay();
         PersistentDataUtils.applyDisabledAi(this.entity);
 
@@ -185,6 +227,63 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         return new StackedEntity(oldEntity, NMSAdapter.getHandler().createEntityDataStorage(oldEntity, RoseStacker.getInstance().getManager(StackManager.class).getEntityDataStorageType(oldEntity.getType())));
     }
 
+    /**
+     * Marks this stack as needing to look for nearby stacks to merge with on the next stacking pass
+     */
+    @ApiStatus.Internal
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Gets the stack signature of the entity, building it again if it has expired
+     *
+     * @return the stack signature, or null if this stack has no entity or stack settings
+     */
+    @ApiStatus.Internal
+    public StackSignature getStackSignature() {
+        if (this.entity == null || this.stackSettings == null)
+            return null;
+
+        StackSignature stackSignature = this.stackSignature;
+        if (stackSignature == null || stackSignature.getStackSettings() != this.stackSettings || stackSignature.isExpired(System.nanoTime())) {
+            stackSignature = this.stackSettings.createStackSignature(this.entity);
+            this.stackSignature = stackSignature;
+        }
+
+        return stackSignature;
+    }
+
+    /**
+     * Makes the stack signature get built again the next time it is needed, for when the entity has changed
+     */
+    @ApiStatus.Internal
+    public void invalidateStackSignature() {
+        this.stackSignature = null;
+    }
+
+    /**
+     * Checks if this stack needs to look for nearby stacks to merge with, either because it was marked dirty or
+     * because it has moved further than the threshold since the last time this was checked.
+     * Clears the dirty state and remembers the current position.
+     *
+     * @param movementThresholdSqrd The squared distance the entity has to move to be considered dirty
+     * @return true if the stack should be checked for stacking, otherwise false
+     */
+    @ApiStatus.Internal
+    public boolean pollDirty(double movementThresholdSqrd) {
+        Location location = this.entity.getLocation();
+        double x = location.getX(), y = location.getY(), z = location.getZ();
+        double dx = x - this.lastStackX, dy = y - this.lastStackY, dz = z - this.lastStackZ;
+        boolean dirty = this.dirty || dx * dx + dy * dy + dz * dz > movementThresholdSqrd;
+
+        this.dirty = false;
+        this.lastStackX = x;
+        this.lastStackY = y;
+        this.lastStackZ = z;
+        return dirty;
+    }
+
     /**
      * @deprecated Use {@link #getDataStorage()} instead
      */
@@ -358,6 +457,15 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
         boolean useCount = internalEntities.isEmpty();
 
+        if (useCount && SettingKey.ENTITY_LOOT_APPROXIMATION_ENABLED.get() && SettingKey.ENTITY_LOOT_STATISTICAL_ENABLED.get()
+                && count > SettingKey.ENTITY_LOOT_APPROXIMATION_THRESHOLD.get() && !(mainEntity instanceof Slime)) {
+            int kills = count - (mainEntityDrops != null ? 1 : 0) + (includeMainEntity && mainEntityDrops == null ? 1 : 0);
+            EntityDrops statisticalDrops = this.calculateStatisticalEntityDrops(kills, entityExpValue, lootingModifier, mainEntity, mainEntityDrops,
+                    originalStackSize != null ? originalStackSize : this.getStackSize(), entityKillCount != null ? entityKillCount : count);
+            if (statisticalDrops != null)
+                return statisticalDrops;
+        }
+
         if (includeMainEntity && mainEntityDrops == null)
             internalEntities.add(mainEntity);
 
@@ -380,7 +488,10 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         if (entityKillCount == null)
             entityKillCount = internalEntities.size() + (mainEntityDrops != null ? 1 : 0);
 
+        EntityDeathEventManager deathEventManager = RoseStacker.getInstance().getManager(EntityDeathEventManager.class);
         boolean callEvents = !RoseStackerAPI.getInstance().isEntityStackMultipleDeathEventCalled();
+        boolean batchEvents = callEvents && deathEventManager.isBatchingEnabled();
+        boolean callEntityEvents = callEvents && deathEventManager.hasPerEntityListeners();
         boolean isAnimal = mainEntity instanceof Animals;
         boolean isWither = mainEntity.getType() == EntityType.WITHER;
         boolean killedByWither = mainEntity.getLastDamageCause() instanceof EntityDamageByEntityEvent damageEvent
@@ -435,9 +546,9 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
                     entityItems.add(new ItemStack(Material.WITHER_ROSE));
 
                 int entityExperience;
-                if (callEvents) {
+                if (callEntityEvents) {
                     EntityDeathEvent deathEvent = nmsHandler.createAsyncEntityDeathEvent(entity, entityItems, desiredExp);
-                    Bukkit.getPluginManager().callEvent(deathEvent);
+                    deathEventManager.callEntityDeathEvent(deathEvent);
                     entityExperience = deathEvent.getDroppedExp();
                 } else {
                     entityExperience = desiredExp;
@@ -451,10 +562,11 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
                 ((MagmaCube) entity).setSize(1);
         }
 
-        // Call the EntityStackMultipleDeathEvent if enabled
-        if (!callEvents) {
-            EntityStackMultipleDeathEvent event = new EntityStackMultipleDeathEvent(this, entityDrops, originalStackSize, entityKillCount);
-            Bukkit.getPluginManager().callEvent(event);
+        // Call the EntityStackMultipleDeathEvent or EntityStackBatchDeathEvents if enabled
+        if (batchEvents) {
+            deathEventManager.callBatchDeathEvents(this, entityDrops, originalStackSize, entityKillCount);
+        } else if (!callEvents) {
+            deathEventManager.callStackDeathEvent(new EntityStackMultipleDeathEvent(this, entityDrops, originalStackSize, entityKillCount));
         }
 
         List<ItemStack> finalItems = new ArrayList<>();
@@ -473,6 +585,71 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         return new EntityDrops(finalItems, finalExp);
     }
 
+    /**
+     * Calculates the entity drops for a large number of kills from cached drop distributions rather than rolling the
+     * loot table for each entity. Only a single death event is called, using one internal entity and the combined drops.
+     *
+     * @return The calculated entity drops, or null if there was no entity to base the loot on
+     */
+    private EntityDrops calculateStatisticalEntityDrops(int kills, int entityExpValue, Integer lootingModifier, LivingEntity mainEntity,
+                                                        EntityDrops mainEntityDrops, int originalStackSize, int entityKillCount) {
+        List<LivingEntity> internalEntities = new ArrayList<>(1);
+        this.stackedEntityDataStorage.forEachCapped(1, internalEntities::add);
+        LivingEntity entity = internalEntities.isEmpty() ? null : internalEntities.get(0);
+        if (entity == null)
+            return null;
+
+        // Propagate fire ticks and last damage cause
+        NMSHandler nmsHandler = NMSAdapter.getHandler();
+        entity.setFireTicks(mainEntity.getFireTicks());
+        entity.setLastDamageCause(mainEntity.getLastDamageCause());
+        nmsHandler.setLastHurtBy(entity, mainEntity.getKiller());
+
+        // Babies only stack with other babies by default, so the whole stack is treated the same as this one
+        boolean isBaby = entity instanceof Animals animals && !animals.isAdult();
+        List<ItemStack> items = new ArrayList<>();
+        long experience = 0;
+        if (!isBaby) {
+            items.addAll(RoseStacker.getInstance().getManager(EntityLootManager.class).getEntityLoot(entity, mainEntity.getKiller(), mainEntity.getLocation(), lootingModifier, kills));
+            experience = (long) entityExpValue * kills;
+        }
+
+        if (mainEntity.getType() == EntityType.WITHER)
+            items.add(new ItemStack(Material.NETHER_STAR, kills));
+        if (mainEntity.getLastDamageCause() instanceof EntityDamageByEntityEvent damageEvent
+                && (damageEvent.getDamager().getType() == EntityType.WITHER || damageEvent.getDamager().getType() == EntityType.WITHER_SKULL))
+            items.add(new ItemStack(Material.WITHER_ROSE, kills));
+
+        EntityDeathEventManager deathEventManager = RoseStacker.getInstance().getManager(EntityDeathEventManager.class);
+        boolean callEvents = !RoseStackerAPI.getInstance().isEntityStackMultipleDeathEventCalled();
+        int entityExperience = (int) Math.min(experience, Integer.MAX_VALUE);
+        if (callEvents && deathEventManager.hasPerEntityListeners()) {
+            EntityDeathEvent deathEvent = nmsHandler.createAsyncEntityDeathEvent(entity, items, entityExperience);
+            deathEventManager.callEntityDeathEvent(deathEvent);
+            entityExperience = deathEvent.getDroppedExp();
+        }
+
+        ListMultimap<LivingEntity, EntityDrops> entityDrops = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+        if (mainEntityDrops != null)
+            entityDrops.put(mainEntity, mainEntityDrops);
+        entityDrops.put(entity, new EntityDrops(items, entityExperience));
+
+        if (callEvents && deathEventManager.isBatchingEnabled()) {
+            deathEventManager.callBatchDeathEvents(this, entityDrops, originalStackSize, entityKillCount);
+        } else if (!callEvents) {
+            deathEventManager.callStackDeathEvent(new EntityStackMultipleDeathEvent(this, entityDrops, originalStackSize, entityKillCount));
+        }
+
+        List<ItemStack> finalItems = new ArrayList<>();
+        long finalExp = 0;
+        for (EntityDrops drops : entityDrops.values()) {
+            finalItems.addAll(drops.getDrops());
+            finalExp += drops.getExperience();
+        }
+
+        return new EntityDrops(finalItems, (int) Math.min(finalExp, Integer.MAX_VALUE));
+    }
+
     /**
      * @return true if this entity should stay stacked, otherwise false
      */
@@ -544,10 +721,36 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         return this.displayNameVisible;
     }
 
+    /**
+     * Makes the next {@link #updateDisplay()} recalculate the display name and send it to the nearby players even if
+     * nothing has changed, for when the entity has just been spawned or replaced
+     */
+    @ApiStatus.Internal
+    public void invalidateDisplay() {
+        this.displayName = null;
+    }
+
+    /**
+     * Updates the display name if the stack size or the custom name of the entity has changed since the last update,
+     * and sends it to the nearby players if the result is different from what they were last sent
+     */
     @Override
     public void updateDisplay() {
+        int stackSize = this.getStackSize();
+        String customName = this.entity == null ? null : this.entity.getCustomName();
+        if (this.displayName != null && stackSize == this.displayedStackSize && Objects.equals(customName, this.displayedCustomName))
+            return;
+
+        String previousDisplayName = this.displayName;
+        boolean previousDisplayNameVisible = this.displayNameVisible;
         this.displayName = null;
         String displayName = this.getDisplayName();
+        this.displayedStackSize = stackSize;
+        this.displayedCustomName = customName;
+        if (previousDisplayNameVisible == this.displayNameVisible && Objects.equals(previousDisplayName, displayName))
+            return;
+
+        this.incrementDisplayRevision();
         NMSHandler nmsHandler = NMSAdapter.getHandler();
         for (Player player : this.getPlayersInVisibleRange())
             nmsHandler.updateEntityNameTagForPlayer(player, this.entity, displayName, this.displayNameVisible);
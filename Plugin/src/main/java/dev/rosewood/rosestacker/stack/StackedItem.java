@@ -8,6 +8,7 @@ import dev.rosewood.rosestacker.manager.LocaleManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.stack.settings.ItemStackSettings;
+import dev.rosewood.rosestacker.utils.ItemKey;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -25,9 +26,17 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
 
     private ItemStackSettings stackSettings;
 
+    private volatile ItemKey itemKey;
+
+    private String displayString;
+    private boolean displayVisible;
+    private int displayedSize;
+    private int displayedDespawnTimer;
+
     public StackedItem(int size, Item item) {
         this.size = size;
         this.item = item;
+        this.displayedSize = -1;
 
         if (this.item != null) {
             this.stackSettings = RoseStacker.getInstance().getManager(StackSettingManager.class).getItemStackSettings(this.item);
@@ -47,9 +56,26 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
             return;
 
         this.item = item;
+        this.itemKey = null;
+        this.displayString = null; // The new item entity doesn't have the display name yet
         this.updateDisplay();
     }
 
+    /**
+     * Gets the key of the item this stack is made of, calculated once and kept until the item changes
+     *
+     * @return the item key
+     */
+    public ItemKey getItemKey() {
+        ItemKey itemKey = this.itemKey;
+        if (itemKey == null) {
+            itemKey = ItemKey.of(this.item.getItemStack());
+            this.itemKey = itemKey;
+        }
+
+        return itemKey;
+    }
+
     public void increaseStackSize(int amount, boolean updateDisplay) {
         this.size += amount;
         if (updateDisplay)
@@ -75,18 +101,34 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
         return this.item.getLocation();
     }
 
+    /**
+     * Updates the display only if the stack size or the despawn timer has changed since the last update.
+     * The custom name of an item is part of its ItemStack, which only changes when the item entity is replaced.
+     */
+    public void refreshDisplay() {
+        if (this.size != this.displayedSize || this.getDespawnTimer() != this.displayedDespawnTimer)
+            this.updateDisplay();
+    }
+
     @Override
     public void updateDisplay() {
         ItemStack itemStack = this.item.getItemStack();
-        itemStack.setAmount(Math.min(this.size, itemStack.getMaxStackSize()));
+        this.displayedSize = this.size;
+        this.displayedDespawnTimer = this.getDespawnTimer();
 
         if (itemStack.getType() == Material.AIR)
             return;
 
-        this.item.setItemStack(itemStack);
+        int amount = Math.min(this.size, itemStack.getMaxStackSize());
+        if (itemStack.getAmount() != amount) {
+            itemStack.setAmount(amount);
+            this.item.setItemStack(itemStack);
+        }
 
         if (this.stackSettings == null || !this.stackSettings.isStackingEnabled() || !this.stackSettings.shouldDisplayTags()) {
             this.item.setCustomNameVisible(false);
+            this.displayString = null;
+            this.displayVisible = false;
             return;
         }
 
@@ -109,16 +151,8 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
                 .add("name", displayName);
 
         if (SettingKey.ITEM_DISPLAY_DESPAWN_TIMER_PLACEHOLDER.get()) {
-            String timer;
-            if (NMSUtil.getVersionNumber() >= 18 && this.item.isUnlimitedLifetime()) {
-                timer = "∞";
-            } else {
-                int despawnRate = NMSAdapter.getHandler().getItemDespawnRate(this.item);
-                int ticksLeft = despawnRate - this.getAge();
-                int secondsLeft = ticksLeft / 20;
-                timer = String.format("%d:%02d", secondsLeft / 60, secondsLeft % 60);
-            }
-            placeholdersBuilder.add("timer", timer);
+            int secondsLeft = this.displayedDespawnTimer;
+            placeholdersBuilder.add("timer", secondsLeft == Integer.MAX_VALUE ? "∞" : String.format("%d:%02d", secondsLeft / 60, secondsLeft % 60));
         }
 
         String displayString;
@@ -128,11 +162,35 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
             displayString = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessage("item-stack-display-single", placeholdersBuilder.build());
         }
 
-        this.item.setCustomNameVisible((this.size > 1 || SettingKey.ITEM_DISPLAY_TAGS_SINGLE.get() || (SettingKey.ITEM_DISPLAY_CUSTOM_NAMES_ALWAYS.get() && hasCustomName)) &&
-                (this.size > itemStack.getMaxStackSize() || !SettingKey.ITEM_DISPLAY_TAGS_ABOVE_VANILLA_STACK_SIZE.get()));
+        boolean displayVisible = (this.size > 1 || SettingKey.ITEM_DISPLAY_TAGS_SINGLE.get() || (SettingKey.ITEM_DISPLAY_CUSTOM_NAMES_ALWAYS.get() && hasCustomName)) &&
+                (this.size > itemStack.getMaxStackSize() || !SettingKey.ITEM_DISPLAY_TAGS_ABOVE_VANILLA_STACK_SIZE.get());
+
+        // Nothing shown has changed, don't send the same name again
+        if (displayVisible == this.displayVisible && displayString.equals(this.displayString))
+            return;
+
+        this.incrementDisplayRevision();
+        this.displayString = displayString;
+        this.displayVisible = displayVisible;
+        this.item.setCustomNameVisible(displayVisible);
         NMSAdapter.getHandler().setCustomNameUncapped(this.item, displayString);
     }
 
+    /**
+     * @return the number of seconds until the item despawns, Integer.MAX_VALUE if it never despawns, or 0 if the
+     * despawn timer isn't displayed
+     */
+    private int getDespawnTimer() {
+        if (!SettingKey.ITEM_DISPLAY_DESPAWN_TIMER_PLACEHOLDER.get())
+            return 0;
+
+        if (NMSUtil.getVersionNumber() >= 18 && this.item.isUnlimitedLifetime())
+            return Integer.MAX_VALUE;
+
+        int despawnRate = NMSAdapter.getHandler().getItemDespawnRate(this.item);
+        return (despawnRate - this.getAge()) / 20;
+    }
+
     @Override
     public ItemStackSettings getStackSettings() {
         return this.stackSettings;
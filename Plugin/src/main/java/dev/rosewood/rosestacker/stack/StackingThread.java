@@ -15,19 +15,22 @@ import dev.rosewood.rosestacker.hook.NPCsHook;
 import dev.rosewood.rosestacker.hook.WorldGuardHook;
 import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.HologramManager;
+import dev.rosewood.rosestacker.manager.SpawnLocationCacheManager;
+import dev.rosewood.rosestacker.manager.SpawnerTickManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
-import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorage;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.stack.settings.ItemStackSettings;
 import dev.rosewood.rosestacker.utils.DataUtils;
 import dev.rosewood.rosestacker.utils.EntityUtils;
+import dev.rosewood.rosestacker.utils.ItemKey;
 import dev.rosewood.rosestacker.utils.ItemUtils;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.StackerUtils;
+import dev.rosewood.rosestacker.utils.SyncTaskQueue;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import dev.rosewood.rosestacker.utils.VersionUtils;
 import java.util.ArrayList;
@@ -43,9 +46,9 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -72,10 +75,17 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
     private final static Cache<UUID, Boolean> REMOVED_ENTITIES = CacheBuilder.newBuilder().expireAfterWrite(5, TimeUnit.SECONDS).build();
 
+    /**
+     * Reused by nearby entity lookups, one per thread since stacking can also be triggered from the main thread
+     */
+    private final static ThreadLocal<List<Entity>> NEARBY_ENTITIES_BUFFER = ThreadLocal.withInitial(ArrayList::new);
+
     private final RosePlugin rosePlugin;
     private final StackManager stackManager;
     private final EntityCacheManager entityCacheManager;
     private final HologramManager hologramManager;
+    private final SpawnerTickManager spawnerTickManager;
+    private final SpawnLocationCacheManager spawnLocationCacheManager;
     private final World targetWorld;
 
     private final BukkitTask entityStackTask, itemStackTask, nametagTask, hologramTask;
@@ -85,15 +95,24 @@ public class StackingThread implements StackingLogic, AutoCloseable {
     private final Map<UUID, StackedItem> stackedItems;
     private final Map<Chunk, StackChunkData> stackChunkData;
 
+    private final int fullSweepFrequency;
+    private final double movementThresholdSqrd;
+    private int stackPassCount;
+
     private final boolean dynamicEntityTags, dynamicItemTags;
     private final double entityDynamicViewRangeSqrd, itemDynamicViewRangeSqrd;
     private final boolean entityDynamicWallDetection, itemDynamicWallDetection;
+    private final int nametagResendFrequency;
+    private final Map<Player, Map<UUID, SentNametag>> sentNametags;
+    private int nametagCycle;
 
     public StackingThread(RosePlugin rosePlugin, StackManager stackManager, World targetWorld) {
         this.rosePlugin = rosePlugin;
         this.stackManager = stackManager;
         this.entityCacheManager = this.rosePlugin.getManager(EntityCacheManager.class);
         this.hologramManager = this.rosePlugin.getManager(HologramManager.class);
+        this.spawnerTickManager = this.rosePlugin.getManager(SpawnerTickManager.class);
+        this.spawnLocationCacheManager = this.rosePlugin.getManager(SpawnLocationCacheManager.class);
         this.targetWorld = targetWorld;
 
         this.entityStackTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::stackEntities, 5L, SettingKey.STACK_FREQUENCY.get());
@@ -113,6 +132,10 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         this.stackedItems = new ConcurrentHashMap<>();
         this.stackChunkData = new ConcurrentHashMap<>();
 
+        this.fullSweepFrequency = SettingKey.STACK_FULL_SWEEP_FREQUENCY.get();
+        double movementThreshold = SettingKey.STACK_MOVEMENT_THRESHOLD.get();
+        this.movementThresholdSqrd = movementThreshold * movementThreshold;
+
         this.dynamicEntityTags = SettingKey.ENTITY_DISPLAY_TAGS.get() && SettingKey.ENTITY_DYNAMIC_TAG_VIEW_RANGE_ENABLED.get();
         this.dynamicItemTags = SettingKey.ITEM_DISPLAY_TAGS.get() && SettingKey.ITEM_DYNAMIC_TAG_VIEW_RANGE_ENABLED.get();
 
@@ -125,6 +148,9 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         this.entityDynamicWallDetection = SettingKey.ENTITY_DYNAMIC_TAG_VIEW_RANGE_WALL_DETECTION_ENABLED.get();
         this.itemDynamicWallDetection = SettingKey.ITEM_DYNAMIC_TAG_VIEW_RANGE_WALL_DETECTION_ENABLED.get();
 
+        this.nametagResendFrequency = Math.max(1, SettingKey.NAMETAG_RESEND_FREQUENCY.get());
+        this.sentNametags = new HashMap<>();
+
         NMSAdapter.getHandler().hijackRandomSource(targetWorld);
 
         // Load chunk data for all stacks in the world
@@ -142,6 +168,16 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!entityStackingEnabled || this.stackManager.isEntityStackingTemporarilyDisabled())
             return;
 
+        // Only stacks that are dirty are checked, except for every so often when we check everything just to be safe
+        boolean fullSweep = this.fullSweepFrequency <= 1 || ++this.stackPassCount % this.fullSweepFrequency == 0;
+
+        ForkJoinPool stackingPool = this.stackManager.getEntityStackingPool();
+        if (stackingPool != null) {
+            this.stackEntitiesPartitioned(stackingPool, fullSweep);
+            return;
+        }
+
+        EntityMergePlanner mergePlanner = new EntityMergePlanner();
         for (StackedEntity stackedEntity : this.stackedEntities.values()) {
             LivingEntity livingEntity = stackedEntity.getEntity();
             if (this.isRemoved(livingEntity)) {
@@ -149,7 +185,61 @@ public class StackingThread implements StackingLogic, AutoCloseable {
                 continue;
             }
 
-            this.tryStackEntity(stackedEntity);
+            if (stackedEntity.pollDirty(this.movementThresholdSqrd) || fullSweep)
+                this.tryStackEntity(stackedEntity, mergePlanner);
+        }
+
+        mergePlanner.flush();
+    }
+
+    /**
+     * Stacks entities on multiple threads. Stacks are grouped into square regions that are wider than twice the
+     * largest merge radius, then the regions are processed in four phases based on the parity of their coordinates.
+     * Regions in the same phase are always at least one region apart, so two workers can never reach the same entity.
+     *
+     * @param stackingPool the pool to run the regions on
+     * @param fullSweep true to stack every stack, false to only stack dirty stacks
+     */
+    private void stackEntitiesPartitioned(ForkJoinPool stackingPool, boolean fullSweep) {
+        double mergeRadius = 16;
+        if (!SettingKey.ENTITY_MERGE_ENTIRE_CHUNK.get()) {
+            mergeRadius = 0;
+            for (StackedEntity stackedEntity : this.stackedEntities.values()) {
+                EntityStackSettings stackSettings = stackedEntity.getStackSettings();
+                if (stackSettings != null)
+                    mergeRadius = Math.max(mergeRadius, stackSettings.getMergeRadius());
+            }
+        }
+
+        int regionSize = ((int) Math.ceil(mergeRadius * 2) >> 4) + 1; // In chunks
+        List<Map<Long, List<StackedEntity>>> phases = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++)
+            phases.add(new HashMap<>());
+
+        for (StackedEntity stackedEntity : this.stackedEntities.values()) {
+            LivingEntity livingEntity = stackedEntity.getEntity();
+            if (this.isRemoved(livingEntity)) {
+                this.removeEntityStack(stackedEntity);
+                continue;
+            }
+
+            if (!stackedEntity.pollDirty(this.movementThresholdSqrd) && !fullSweep)
+                continue;
+
+            Location location = livingEntity.getLocation();
+            int regionX = Math.floorDiv(location.getBlockX() >> 4, regionSize);
+            int regionZ = Math.floorDiv(location.getBlockZ() >> 4, regionSize);
+            long regionKey = ((long) regionZ << 32) | (regionX & 0xFFFFFFFFL);
+            phases.get((regionX & 1) | ((regionZ & 1) << 1)).computeIfAbsent(regionKey, x -> new ArrayList<>()).add(stackedEntity);
+        }
+
+        EntityMergePlanner mergePlanner = new EntityMergePlanner();
+        for (Map<Long, List<StackedEntity>> regions : phases) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(regions.size());
+            for (List<StackedEntity> region : regions.values())
+                tasks.add(stackingPool.submit(() -> region.forEach(x -> this.tryStackEntity(x, mergePlanner))));
+            tasks.forEach(ForkJoinTask::join);
+            mergePlanner.flush();
         }
     }
 
@@ -165,14 +255,15 @@ public class StackingThread implements StackingLogic, AutoCloseable {
                 ThreadUtils.runSync(() -> {
                     if (stackedEntity.getStackSize() > 1)
                         this.splitEntityStack(stackedEntity);
-                });
+                }, SyncTaskQueue.Priority.HIGH);
             } else if (minSplitIfLower && stackedEntity.getStackSize() < stackedEntity.getStackSettings().getMinStackSize()) {
                 NMSHandler nmsHandler = NMSAdapter.getHandler();
                 StackedEntityDataStorage nbt = stackedEntity.getDataStorage();
                 stackedEntity.setDataStorage(nmsHandler.createEntityDataStorage(entity, this.stackManager.getEntityDataStorageType(entity.getType())));
                 ThreadUtils.runSync(() -> {
-                    for (EntityDataEntry entityDataEntry : nbt.getAll())
-                        entityDataEntry.createEntity(stackedEntity.getLocation(), true, entity.getType());
+                    // Pop the entries one at a time rather than materializing them all up front
+                    while (!nbt.isEmpty())
+                        nbt.pop().createEntity(stackedEntity.getLocation(), true, entity.getType());
                 });
             }
         }
@@ -209,37 +300,27 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             }
 
             if (updateItemNametags)
-                stackedItem.updateDisplay();
+                stackedItem.refreshDisplay();
 
             this.tryStackItem(stackedItem);
         }
     }
 
-    public void processNametags() {
+    public synchronized void processNametags() {
         if (!this.dynamicEntityTags && !this.dynamicItemTags)
             return;
 
         List<Player> players = this.targetWorld.getPlayers();
+        this.sentNametags.keySet().retainAll(players);
         if (players.isEmpty())
             return;
 
         // Handle dynamic stack tags
         NMSHandler nmsHandler = NMSAdapter.getHandler();
-
-        List<LivingEntity> entities = null;
-        if (this.dynamicEntityTags) {
-            entities = this.stackedEntities.values().stream()
-                    .map(StackedEntity::getEntity)
-                    .filter(Objects::nonNull)
-                    .toList();
-        }
-
-        List<Item> items = null;
-        if (this.dynamicItemTags) {
-            items = this.stackedItems.values().stream()
-                    .map(StackedItem::getItem)
-                    .toList();
-        }
+        int cycle = ++this.nametagCycle;
+        double visibilityRadius = Math.sqrt(StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE);
+        Location playerLocation = new Location(null, 0, 0, 0);
+        Location entityLocation = new Location(null, 0, 0, 0);
 
         for (Player player : players) {
             if (!player.getWorld().equals(this.targetWorld))
@@ -247,66 +328,99 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
             ItemStack itemStack = player.getInventory().getItemInMainHand();
             boolean displayStackingToolParticles = ItemUtils.isStackingTool(itemStack);
+            Map<UUID, SentNametag> sentNametags = this.sentNametags.computeIfAbsent(player, x -> new HashMap<>());
 
-            if (this.dynamicEntityTags) {
-                for (LivingEntity entity : entities) {
-                    double distanceSqrd;
-                    try { // The locations can end up comparing cross-world if the player/entity switches worlds mid-loop due to being async
-                        distanceSqrd = player.getLocation().distanceSquared(entity.getLocation());
-                    } catch (Exception e) {
-                        continue;
-                    }
+            // Only look at the stacks that are close enough to the player to possibly be seen
+            player.getLocation(playerLocation);
+            Collection<Entity> nearbyEntities = this.entityCacheManager.getNearbyEntities(playerLocation, visibilityRadius,
+                    entity -> (this.dynamicEntityTags && entity instanceof LivingEntity) || (this.dynamicItemTags && entity instanceof Item));
+
+            for (Entity entity : nearbyEntities) {
+                double distanceSqrd;
+                try { // The locations can end up comparing cross-world if the player/entity switches worlds mid-loop due to being async
+                    distanceSqrd = playerLocation.distanceSquared(entity.getLocation(entityLocation));
+                } catch (Exception e) {
+                    continue;
+                }
+
+                if (distanceSqrd > StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE)
+                    continue;
 
-                    if (distanceSqrd > StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE)
+                if (entity instanceof LivingEntity livingEntity) {
+                    StackedEntity stackedEntity = this.getStackedEntity(livingEntity);
+                    if (stackedEntity == null)
                         continue;
 
                     boolean visible = distanceSqrd < this.entityDynamicViewRangeSqrd;
-                    if (this.entityDynamicWallDetection)
-                        visible &= EntityUtils.hasLineOfSight(player, entity, 0.75, true);
+                    if (visible && this.entityDynamicWallDetection)
+                        visible = EntityUtils.hasLineOfSight(player, livingEntity, 0.75, true);
 
-                    StackedEntity stackedEntity = this.getStackedEntity(entity);
-                    if (stackedEntity != null)
-                        nmsHandler.updateEntityNameTagForPlayer(player, entity, stackedEntity.getDisplayName(), stackedEntity.isDisplayNameVisible() && visible);
+                    String displayName = stackedEntity.getDisplayName();
+                    boolean displayNameVisible = stackedEntity.isDisplayNameVisible() && visible;
+                    if (this.shouldSendNametag(sentNametags, entity, stackedEntity, displayName, displayNameVisible, cycle))
+                        nmsHandler.updateEntityNameTagForPlayer(player, livingEntity, displayName, displayNameVisible);
 
                     // Spawn particles for holding the stacking tool
                     if (visible && displayStackingToolParticles) {
-                        Location location = entity.getLocation().add(0, entity.getEyeHeight(true) + 0.75, 0);
+                        Location location = livingEntity.getLocation().add(0, livingEntity.getEyeHeight(true) + 0.75, 0);
                         DustOptions dustOptions;
-                        if (PersistentDataUtils.isUnstackable(entity)) {
+                        if (PersistentDataUtils.isUnstackable(livingEntity)) {
                             dustOptions = StackerUtils.UNSTACKABLE_DUST_OPTIONS;
                         } else {
                             dustOptions = StackerUtils.STACKABLE_DUST_OPTIONS;
                         }
                         player.spawnParticle(VersionUtils.DUST, location, 1, 0.0, 0.0, 0.0, 0.0, dustOptions);
                     }
-                }
-            }
-
-            if (this.dynamicItemTags) {
-                for (Item item : items) {
-                    if (item.getCustomName() == null || !item.isCustomNameVisible())
-                        continue;
-
-                    double distanceSqrd;
-                    try { // The locations can end up comparing cross-world if the player/entity switches worlds mid-loop due to being async
-                        distanceSqrd = player.getLocation().distanceSquared(item.getLocation());
-                    } catch (Exception e) {
-                        continue;
-                    }
-
-                    if (distanceSqrd > StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE)
+                } else if (entity instanceof Item item) {
+                    StackedItem stackedItem = this.getStackedItem(item);
+                    if (stackedItem == null || item.getCustomName() == null || !item.isCustomNameVisible())
                         continue;
 
                     boolean visible = distanceSqrd < this.itemDynamicViewRangeSqrd;
-                    if (this.itemDynamicWallDetection)
-                        visible &= EntityUtils.hasLineOfSight(player, item, 0.75, true);
+                    if (visible && this.itemDynamicWallDetection)
+                        visible = EntityUtils.hasLineOfSight(player, item, 0.75, true);
 
-                    nmsHandler.updateEntityNameTagVisibilityForPlayer(player, item, visible);
+                    if (this.shouldSendNametag(sentNametags, entity, stackedItem, null, visible, cycle))
+                        nmsHandler.updateEntityNameTagVisibilityForPlayer(player, item, visible);
                 }
             }
+
+            // Forget stacks that went out of range so they are sent again once they come back
+            sentNametags.values().removeIf(x -> x.seenCycle != cycle);
         }
     }
 
+    /**
+     * Checks if a nametag needs to be sent to a player and records it as sent if so.
+     * Nametags are sent when they change, when the stack display was updated for everyone, or when they have not been
+     * sent for a while since the client resets them when the entity leaves and reenters its tracking range.
+     */
+    private boolean shouldSendNametag(Map<UUID, SentNametag> sentNametags, Entity entity, Stack<?> stack, String displayName, boolean visible, int cycle) {
+        SentNametag sentNametag = sentNametags.get(entity.getUniqueId());
+        if (sentNametag == null) {
+            sentNametag = new SentNametag();
+            sentNametags.put(entity.getUniqueId(), sentNametag);
+        } else if (sentNametag.visible == visible
+                && sentNametag.displayRevision == stack.getDisplayRevision()
+                && Objects.equals(sentNametag.displayName, displayName)
+                && cycle - sentNametag.sentCycle < this.nametagResendFrequency) {
+            sentNametag.seenCycle = cycle;
+            return false;
+        }
+
+        sentNametag.displayName = displayName;
+        sentNametag.visible = visible;
+        sentNametag.displayRevision = stack.getDisplayRevision();
+        sentNametag.sentCycle = cycle;
+        sentNametag.seenCycle = cycle;
+        return true;
+    }
+
+    private void unregisterSpawner(StackedSpawner stackedSpawner) {
+        this.spawnerTickManager.unregister(stackedSpawner);
+        this.spawnLocationCacheManager.unregister(stackedSpawner);
+    }
+
     private void updateHolograms() {
         this.stackChunkData.values().stream().flatMap(x -> x.getSpawners().values().stream()).forEach(StackedSpawner::updateDisplay);
     }
@@ -324,6 +438,8 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         if (this.entityCleanupTask != null)
             this.entityCleanupTask.cancel();
+
+        this.stackChunkData.values().forEach(x -> x.getSpawners().values().forEach(this::unregisterSpawner));
     }
 
     @Override
@@ -448,6 +564,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
     public void removeSpawnerStack(StackedSpawner stackedSpawner) {
         Block key = stackedSpawner.getBlock();
         stackedSpawner.kickOutGuiViewers();
+        this.unregisterSpawner(stackedSpawner);
 
         StackChunkData stackChunkData = this.stackChunkData.get(key.getChunk());
         if (stackChunkData != null)
@@ -600,6 +717,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         StackChunkData stackChunkData = this.stackChunkData.computeIfAbsent(block.getChunk(), x -> new StackChunkData());
         StackedSpawner newStackedSpawner = new StackedSpawner(amount, block, placedByPlayer);
         stackChunkData.addSpawner(newStackedSpawner);
+        this.spawnerTickManager.register(newStackedSpawner);
         return newStackedSpawner;
     }
 
@@ -609,6 +727,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             return;
 
         this.stackedEntities.put(stackedEntity.getEntity().getUniqueId(), stackedEntity);
+        stackedEntity.markDirty();
 
         if (SettingKey.ENTITY_INSTANT_STACK.get())
             this.tryStackEntity(stackedEntity);
@@ -634,7 +753,8 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             NMSHandler nmsHandler = NMSAdapter.getHandler();
             boolean removeAi = stackSettings.isMobAIDisabled();
 
-            Collection<Entity> nearbyEntities = this.entityCacheManager.getNearbyEntities(location, stackSettings.getMergeRadius(), x -> x.getType() == entityType);
+            List<Entity> nearbyEntities = new ArrayList<>();
+            this.entityCacheManager.getNearbyEntities(location, stackSettings.getMergeRadius(), entityType, nearbyEntities);
             Set<StackedEntity> nearbyStackedEntities = new HashSet<>();
             for (Entity entity : nearbyEntities) {
                 StackedEntity stackedEntity = this.stackManager.getStackedEntity((LivingEntity) entity);
@@ -645,7 +765,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             Set<StackedEntity> updatedEntities = new HashSet<>();
             Set<StackedEntity> newStackedEntities = new HashSet<>();
             switch (this.stackManager.getEntityDataStorageType(entityType)) {
-                case NBT -> {
+                case NBT, COLUMNAR -> {
                     for (int i = 0; i < amount; i++) {
                         StackedEntity newStack = this.createNewEntity(nmsHandler, entityType, location, spawnReason, removeAi);
                         Optional<StackedEntity> matchingEntity = nearbyStackedEntities.stream().filter(x ->
@@ -690,6 +810,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
                         PersistentDataUtils.removeEntityAi(entity);
                     entity.setVelocity(Vector.getRandom().multiply(0.01));
                     this.addEntityStack(stackedEntity);
+                    stackedEntity.invalidateDisplay();
                     stackedEntity.updateDisplay();
                 }
                 this.stackManager.setEntityStackingTemporarilyDisabled(false);
@@ -800,8 +921,10 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         Map<Block, StackedSpawner> stackedSpawners = new ConcurrentHashMap<>();
         if (this.stackManager.isSpawnerStackingEnabled())
-            for (StackedSpawner stackedSpawner : DataUtils.readStackedSpawners(chunk))
+            for (StackedSpawner stackedSpawner : DataUtils.readStackedSpawners(chunk)) {
                 stackedSpawners.put(stackedSpawner.getBlock(), stackedSpawner);
+                this.spawnerTickManager.register(stackedSpawner);
+            }
 
         Map<Block, StackedBlock> stackedBlocks = new ConcurrentHashMap<>();
         if (this.stackManager.isBlockStackingEnabled())
@@ -855,8 +978,10 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         if (this.stackManager.isSpawnerStackingEnabled()) {
             DataUtils.writeStackedSpawners(stackChunkData.getSpawners().values(), chunk);
-            if (clearStored)
+            if (clearStored) {
                 stackChunkData.getSpawners().values().stream().map(StackedSpawner::getHologramLocation).forEach(this.hologramManager::deleteHologram);
+                stackChunkData.getSpawners().values().forEach(this::unregisterSpawner);
+            }
         }
 
         if (this.stackManager.isBlockStackingEnabled()) {
@@ -917,6 +1042,21 @@ public class StackingThread implements StackingLogic, AutoCloseable {
      * @param stackedEntity the StackedEntity to try to stack
      */
     private void tryStackEntity(StackedEntity stackedEntity) {
+        EntityMergePlanner mergePlanner = new EntityMergePlanner();
+        this.tryStackEntity(stackedEntity, mergePlanner);
+        mergePlanner.flush();
+    }
+
+    /**
+     * Tries to stack a StackedEntity with all other StackedEntities as part of a stacking pass
+     *
+     * @param stackedEntity the StackedEntity to try to stack
+     * @param mergePlanner the planner of the current stacking pass
+     */
+    private void tryStackEntity(StackedEntity stackedEntity, EntityMergePlanner mergePlanner) {
+        if (mergePlanner.isSettled(stackedEntity))
+            return;
+
         EntityStackSettings stackSettings = stackedEntity.getStackSettings();
         if (stackSettings == null)
             return;
@@ -933,78 +1073,50 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!WorldGuardHook.testLocation(entity.getLocation()))
             return;
 
-        Collection<Entity> nearbyEntities;
-        Predicate<Entity> predicate = x -> x.getType() == entity.getType();
+        List<Entity> nearbyEntities = NEARBY_ENTITIES_BUFFER.get();
+        nearbyEntities.clear();
         if (!SettingKey.ENTITY_MERGE_ENTIRE_CHUNK.get()) {
-            nearbyEntities = this.entityCacheManager.getNearbyEntities(entity.getLocation(), stackSettings.getMergeRadius(), predicate);
+            this.entityCacheManager.getNearbyEntities(entity.getLocation(), stackSettings.getMergeRadius(), entity.getType(), nearbyEntities);
         } else {
-            nearbyEntities = this.entityCacheManager.getEntitiesInChunk(entity.getLocation(), predicate);
+            this.entityCacheManager.getEntitiesInChunk(entity.getLocation(), entity.getType(), nearbyEntities);
         }
 
-        Set<StackedEntity> targetEntities = new HashSet<>();
-        targetEntities.add(stackedEntity);
+        List<StackedEntity> cluster = new ArrayList<>();
+        cluster.add(stackedEntity);
 
         for (Entity otherEntity : nearbyEntities) {
             if (entity == otherEntity || this.isRemoved(otherEntity))
                 continue;
 
             StackedEntity other = this.stackedEntities.get(otherEntity.getUniqueId());
-            if (other == null)
+            if (other == null || other == stackedEntity || mergePlanner.isSettled(other))
                 continue;
 
             if (stackSettings.testCanStackWith(stackedEntity, other, false)
                     && (!SettingKey.ENTITY_REQUIRE_LINE_OF_SIGHT.get() || EntityUtils.hasLineOfSight(entity, otherEntity, 0.75, false))
                     && WorldGuardHook.testLocation(otherEntity.getLocation()))
-                targetEntities.add(other);
+                cluster.add(other);
         }
 
-        StackedEntity increased;
-        int totalSize;
-        List<StackedEntity> removable = new ArrayList<>(targetEntities.size());
-        if (!SettingKey.ENTITY_MIN_STACK_COUNT_ONLY_INDIVIDUALS.get()) {
-            increased = targetEntities.stream().max(StackedEntity::compareTo).orElse(stackedEntity);
-            targetEntities.remove(increased);
-            totalSize = increased.getStackSize();
-            for (StackedEntity target : targetEntities) {
-                if (totalSize + target.getStackSize() <= stackSettings.getMaxStackSize()) {
-                    totalSize += target.getStackSize();
-                    removable.add(target);
-                }
-            }
-        } else {
-            increased = stackedEntity;
-            targetEntities.remove(increased);
-            totalSize = 1;
-            int totalStackSize = increased.getStackSize();
-            for (StackedEntity target : targetEntities) {
-                if (totalStackSize + target.getStackSize() <= stackSettings.getMaxStackSize()) {
-                    totalSize++;
-                    totalStackSize += target.getStackSize();
-                    removable.add(target);
-                }
-            }
-        }
+        nearbyEntities.clear();
 
-        if (removable.isEmpty() || totalSize < stackSettings.getMinStackSize())
-            return;
+        for (EntityMergePlanner.Merge merge : mergePlanner.plan(stackedEntity, cluster, stackSettings)) {
+            StackedEntity increased = merge.increased();
+            List<StackedEntity> removable = merge.targets();
 
-        EntityStackEvent entityStackEvent = new EntityStackEvent(removable, increased);
-        Bukkit.getPluginManager().callEvent(entityStackEvent);
-        if (entityStackEvent.isCancelled())
-            return;
+            EntityStackEvent entityStackEvent = new EntityStackEvent(removable, increased);
+            Bukkit.getPluginManager().callEvent(entityStackEvent);
+            if (entityStackEvent.isCancelled())
+                continue;
 
-        for (StackedEntity toStack : removable) {
-            stackSettings.applyStackProperties(toStack.getEntity(), increased.getEntity());
-            increased.increaseStackSize(toStack.getEntity());
-            increased.increaseStackSize(toStack.getDataStorage());
-            this.removeEntityStack(toStack);
-        }
+            for (StackedEntity toStack : removable) {
+                stackSettings.applyStackProperties(toStack.getEntity(), increased.getEntity());
+                increased.increaseStackSize(toStack.getEntity());
+                increased.increaseStackSize(toStack.getDataStorage());
+                this.removeEntityStack(toStack);
+            }
 
-        Runnable removeTask = () -> removable.stream().map(StackedEntity::getEntity).forEach(Entity::remove);
-        if (Bukkit.isPrimaryThread()) {
-            removeTask.run();
-        } else {
-            ThreadUtils.runSync(removeTask);
+            mergePlanner.complete(merge);
         }
     }
 
@@ -1024,22 +1136,25 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (this.isRemoved(item))
             return;
 
-        Predicate<Entity> predicate = x -> x.getType() == VersionUtils.ITEM;
-        Set<Item> nearbyItems = this.entityCacheManager.getNearbyEntities(stackedItem.getLocation(), SettingKey.ITEM_MERGE_RADIUS.get(), predicate)
-                .stream()
-                .map(x -> (Item) x)
-                .collect(Collectors.toSet());
+        List<Entity> nearbyItems = NEARBY_ENTITIES_BUFFER.get();
+        nearbyItems.clear();
+        this.entityCacheManager.getNearbyEntities(stackedItem.getLocation(), SettingKey.ITEM_MERGE_RADIUS.get(), VersionUtils.ITEM, nearbyItems);
 
+        // Items are compared by their cached keys, which only fully compares items that have the same hash
+        ItemKey itemKey = stackedItem.getItemKey();
         Set<StackedItem> targetItems = new HashSet<>();
-        for (Item otherItem : nearbyItems) {
-            if (item == otherItem || otherItem.getPickupDelay() > 40 || !item.getItemStack().isSimilar(otherItem.getItemStack()) || this.isRemoved(otherItem))
+        for (Entity nearbyItem : nearbyItems) {
+            Item otherItem = (Item) nearbyItem;
+            if (item == otherItem || otherItem.getPickupDelay() > 40 || this.isRemoved(otherItem))
                 continue;
 
             StackedItem other = this.stackedItems.get(otherItem.getUniqueId());
-            if (other != null)
+            if (other != null && itemKey.equals(other.getItemKey()))
                 targetItems.add(other);
         }
 
+        nearbyItems.clear();
+
         int totalSize = stackedItem.getStackSize();
         Set<StackedItem> removable = new HashSet<>();
         for (StackedItem target : targetItems) {
@@ -1072,7 +1187,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             if (Bukkit.isPrimaryThread()) {
                 removeTask.run();
             } else {
-                ThreadUtils.runSync(removeTask);
+                ThreadUtils.runSync(removeTask, SyncTaskQueue.Priority.HIGH);
             }
 
             this.removeItemStack(removed);
@@ -1091,6 +1206,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
     private void loadExistingEntityStack(UUID entityUUID, StackedEntity stackedEntity) {
         stackedEntity.updateEntity();
+        stackedEntity.markDirty();
         this.stackedEntities.put(entityUUID, stackedEntity);
     }
 
@@ -1114,4 +1230,17 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         return this.targetWorld;
     }
 
+    /**
+     * The last nametag state sent to a player for a single stack
+     */
+    private static class SentNametag {
+
+        private String displayName;
+        private boolean visible;
+        private int displayRevision;
+        private int sentCycle;
+        private int seenCycle;
+
+    }
+
 }
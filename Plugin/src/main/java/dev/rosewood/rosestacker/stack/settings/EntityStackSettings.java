@@ -11,6 +11,7 @@ import dev.rosewood.rosestacker.hook.SpawnerFlagPersistenceHook;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
 import dev.rosewood.rosestacker.stack.EntityStackComparisonResult;
+import dev.rosewood.rosestacker.stack.StackSignature;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.settings.conditions.entity.StackConditions;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
@@ -22,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.bukkit.Material;
 import org.bukkit.entity.Ageable;
@@ -60,6 +62,8 @@ public class EntityStackSettings extends StackSettings {
 
     // Conditions and settings loaded specifically for this entity type
     private final List<StackConditionEntry<?>> stackConditions;
+    private final List<StackConditionEntry<?>> signatureConditions;
+    private final List<StackConditionEntry<?>> pairwiseConditions;
     private final Map<String, EntitySetting> extraSettings;
 
     // Settings that apply to every entity
@@ -140,6 +144,19 @@ public class EntityStackSettings extends StackSettings {
 
         this.stackConditions.forEach(StackConditionEntry::load);
         this.extraSettings.values().forEach(EntitySetting::load);
+
+        this.signatureConditions = new ArrayList<>();
+        this.pairwiseConditions = new ArrayList<>();
+        for (StackConditionEntry<?> stackCondition : this.stackConditions) {
+            if (!stackCondition.enabled)
+                continue;
+
+            if (stackCondition.hasSignature()) {
+                this.signatureConditions.add(stackCondition);
+            } else {
+                this.pairwiseConditions.add(stackCondition);
+            }
+        }
     }
 
     private void putSetting(String key, Object defaultValue) {
@@ -191,7 +208,44 @@ public class EntityStackSettings extends StackSettings {
      * @return true if the two entities can stack into each other, false otherwise
      */
     public boolean testCanStackWith(StackedEntity stack1, StackedEntity stack2, boolean comparingForUnstack, boolean ignorePositions) {
-        return this.canStackWith(stack1, stack2, comparingForUnstack, ignorePositions) == EntityStackComparisonResult.CAN_STACK;
+        if (comparingForUnstack)
+            return this.canStackWith(stack1, stack2, true, ignorePositions) == EntityStackComparisonResult.CAN_STACK;
+
+        // Compare the signatures first, they cover every condition that doesn't need both entities at once
+        StackSignature signature1 = stack1.getStackSignature();
+        StackSignature signature2 = stack2.getStackSignature();
+        if (signature1 == null || signature2 == null || signature1.getStackSettings() != this || signature2.getStackSettings() != this)
+            return this.canStackWith(stack1, stack2, false, ignorePositions) == EntityStackComparisonResult.CAN_STACK;
+
+        if (!signature1.isCompatibleWith(signature2))
+            return false;
+
+        LivingEntity entity1 = stack1.getEntity();
+        LivingEntity entity2 = stack2.getEntity();
+        for (StackConditionEntry<?> stackCondition : this.pairwiseConditions)
+            if (stackCondition.apply(this, stack1, stack2, entity1, entity2, false, ignorePositions) != EntityStackComparisonResult.CAN_STACK)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Collects the properties of an entity that the enabled stack conditions compare without needing another entity.
+     * Entities of this type with compatible signatures pass all of those conditions when not comparing for unstacking.
+     *
+     * @param entity The entity to create the signature for
+     * @return the stack signature of the entity
+     */
+    public StackSignature createStackSignature(LivingEntity entity) {
+        long expiration = TimeUnit.MILLISECONDS.toNanos(SettingKey.ENTITY_STACK_SIGNATURE_EXPIRATION.get() * 50);
+        StackSignature.Builder signature = new StackSignature.Builder(this, System.nanoTime() + expiration);
+        for (StackConditionEntry<?> stackCondition : this.signatureConditions) {
+            stackCondition.applySignature(this, entity, signature);
+            if (signature.isBlocked())
+                break;
+        }
+
+        return signature.build();
     }
 
     /**
@@ -397,6 +451,21 @@ public class EntityStackSettings extends StackSettings {
             }
         }
 
+        public boolean hasSignature() {
+            return this.condition.signatureFunction() != null;
+        }
+
+        public void applySignature(EntityStackSettings stackSettings, Entity entity, StackSignature.Builder signature) {
+            Class<?> requiredClass = this.condition.clazz();
+            if (!requiredClass.isAssignableFrom(entity.getClass())) {
+                this.printWarning(entity, entity);
+                signature.block(EntityStackComparisonResult.DIFFERENT_ENTITY_TYPES);
+                return;
+            }
+
+            this.condition.signatureFunction().apply(stackSettings, (T) entity, signature);
+        }
+
         private void printWarning(Entity entity1, Entity entity2) {
             if (this.displayedWarning)
                 return;
@@ -7,6 +7,7 @@ import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
+import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionPlan;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTags;
 import dev.rosewood.rosestacker.utils.StackerUtils;
@@ -29,6 +30,7 @@ public class SpawnerStackSettings extends StackSettings {
     private final int playerActivationRange;
     private final int spawnRange;
     private final List<ConditionTag> spawnRequirements;
+    private final ConditionPlan conditionPlan;
     private final List<String> itemLoreSingular;
     private final List<String> itemLorePlural;
 
@@ -79,6 +81,8 @@ public class SpawnerStackSettings extends StackSettings {
             this.spawnRequirements = List.of();
         }
 
+        this.conditionPlan = new ConditionPlan(this.spawnRequirements);
+
         this.itemLoreSingular = this.settingsConfiguration.getStringList("item-lore-singular");
         this.itemLorePlural = this.settingsConfiguration.getStringList("item-lore-plural");
     }
@@ -145,6 +149,13 @@ public class SpawnerStackSettings extends StackSettings {
         return this.spawnRequirements;
     }
 
+    /**
+     * @return the spawn requirements compiled into the order they should be checked in
+     */
+    public ConditionPlan getConditionPlan() {
+        return this.conditionPlan;
+    }
+
     public int getSpawnCountStackSizeMultiplier() {
         if (this.spawnCountStackSizeMultiplier != -1)
             return Math.max(this.spawnCountStackSizeMultiplier, 1);
@@ -11,11 +11,16 @@ import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.stack.EntityStackComparisonResult;
+import dev.rosewood.rosestacker.stack.StackSignature;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.VersionUtils;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.bukkit.Material;
 import org.bukkit.entity.AbstractHorse;
 import org.bukkit.entity.Ageable;
@@ -100,13 +105,26 @@ public final class StackConditions {
             if (!stackSettings.isStackingEnabled())
                 return EntityStackComparisonResult.STACKING_NOT_ENABLED;
 
+            return EntityStackComparisonResult.CAN_STACK;
+        });
+
+        register(Entity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             if (PersistentDataUtils.isUnstackable(entity1) || PersistentDataUtils.isUnstackable(entity2))
                 return EntityStackComparisonResult.MARKED_UNSTACKABLE;
 
-            if (SettingKey.ENTITY_DONT_STACK_CUSTOM_NAMED.get() && (entity1.getCustomName() != null || entity2.getCustomName() != null)
-                    && (entity1.getType() != VersionUtils.SNOW_GOLEM || !stackSettings.getSettingValue(EntityStackSettings.SNOW_GOLEM_FORCE_CUSTOM_NAMED_STACKING).getBoolean())) // Force named snow golems to always stack together for infinite snowball lag-prevention reasons
+            if (isCustomNamed(stackSettings, entity1) || isCustomNamed(stackSettings, entity2))
                 return EntityStackComparisonResult.CUSTOM_NAMED;
 
+            return EntityStackComparisonResult.CAN_STACK;
+        }, (stackSettings, entity, signature) -> {
+            if (PersistentDataUtils.isUnstackable(entity))
+                signature.block(EntityStackComparisonResult.MARKED_UNSTACKABLE);
+
+            if (isCustomNamed(stackSettings, entity))
+                signature.block(EntityStackComparisonResult.CUSTOM_NAMED);
+        });
+
+        register(Entity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             if (!comparingForUnstack && !ignorePositions && !stackSettings.getEntityTypeData().swimmingMob() && !stackSettings.getEntityTypeData().flyingMob()) {
                 if (SettingKey.ENTITY_ONLY_STACK_ON_GROUND.get() && (!entity1.isOnGround() || !entity2.isOnGround()))
                     return EntityStackComparisonResult.NOT_ON_GROUND;
@@ -116,10 +134,22 @@ public final class StackConditions {
                     return EntityStackComparisonResult.IN_WATER;
             }
 
+            return EntityStackComparisonResult.CAN_STACK;
+        });
+
+        // Signatures are only used when not comparing for unstacking, where this condition always applies
+        register(Entity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             if (!comparingForUnstack && stackSettings.shouldOnlyStackFromSpawners() &&
                     (!PersistentDataUtils.isSpawnedFromSpawner(entity1) || !PersistentDataUtils.isSpawnedFromSpawner(entity2)))
                 return EntityStackComparisonResult.NOT_SPAWNED_FROM_SPAWNER;
 
+            return EntityStackComparisonResult.CAN_STACK;
+        }, (stackSettings, entity, signature) -> {
+            if (stackSettings.shouldOnlyStackFromSpawners() && !PersistentDataUtils.isSpawnedFromSpawner(entity))
+                signature.block(EntityStackComparisonResult.NOT_SPAWNED_FROM_SPAWNER);
+        });
+
+        register(Entity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             // Don't stack if being ridden or is riding something
             if (!comparingForUnstack && (!entity1.getPassengers().isEmpty() || !entity2.getPassengers().isEmpty() || entity1.isInsideVehicle() || entity2.isInsideVehicle()))
                 return EntityStackComparisonResult.PART_OF_VEHICLE; // If comparing for unstack and is being ridden or is riding something, don't want to unstack it
@@ -135,27 +165,20 @@ public final class StackConditions {
             if (!comparingForUnstack && SettingKey.ENTITY_DONT_STACK_IF_LEASHED.get() && (entity1.isLeashed() || entity2.isLeashed()))
                 return EntityStackComparisonResult.LEASHED;
 
-            if (SettingKey.ENTITY_DONT_STACK_IF_HAS_EQUIPMENT.get()) {
-                EntityEquipment equipment1 = entity1.getEquipment();
-                EntityEquipment equipment2 = entity2.getEquipment();
-
-                if (equipment1 != null) {
-                    for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
-                        ItemStack item = equipment1.getItem(equipmentSlot);
-                        if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
-                            return EntityStackComparisonResult.HAS_EQUIPMENT;
-                    }
-                }
-
-                if (equipment2 != null) {
-                    for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
-                        ItemStack item = equipment2.getItem(equipmentSlot);
-                        if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
-                            return EntityStackComparisonResult.HAS_EQUIPMENT;
-                    }
-                }
-            }
+            return EntityStackComparisonResult.CAN_STACK;
+        });
+
+        register(LivingEntity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (hasNonStandardEquipment(stackSettings, entity1) || hasNonStandardEquipment(stackSettings, entity2))
+                return EntityStackComparisonResult.HAS_EQUIPMENT;
+
+            return EntityStackComparisonResult.CAN_STACK;
+        }, (stackSettings, entity, signature) -> {
+            if (hasNonStandardEquipment(stackSettings, entity))
+                signature.block(EntityStackComparisonResult.HAS_EQUIPMENT);
+        });
 
+        register(LivingEntity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             if (SettingKey.ENTITY_DONT_STACK_IF_ACTIVE_RAIDER.get() && (NMS_HANDLER.isActiveRaider(entity1) || NMS_HANDLER.isActiveRaider(entity2)))
                 return EntityStackComparisonResult.PART_OF_ACTIVE_RAID;
 
@@ -163,9 +186,9 @@ public final class StackConditions {
         });
 
         // Register conditions for specific interfaces
-        registerConfig(Colorable.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
+        registerConfigProperty(Colorable.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Colorable::getColor);
         registerConfig(Sittable.class, "sitting", false, EntityStackComparisonResult.SITTING, (entity1, entity2) -> entity1.isSitting() || entity2.isSitting());
-        registerConfig(Tameable.class, "tamed", false, EntityStackComparisonResult.TAMED, (entity1, entity2) -> entity1.isTamed() || entity2.isTamed());
+        registerConfigFlag(Tameable.class, "tamed", false, EntityStackComparisonResult.TAMED, Tameable::isTamed);
         registerConfig(Tameable.class, "different-owners", false, EntityStackComparisonResult.DIFFERENT_OWNERS, (entity1, entity2) -> {
             AnimalTamer tamer1 = entity1.getOwner();
             AnimalTamer tamer2 = entity2.getOwner();
@@ -180,18 +203,26 @@ public final class StackConditions {
             }
             return entity1.isLoveMode() || entity2.isLoveMode() || (!entity1.canBreed() && entity1.isAdult()) || (!entity2.canBreed() && entity2.isAdult());
         });
-        registerConfig(Ageable.class, "different-age", true, EntityStackComparisonResult.DIFFERENT_AGES, (entity1, entity2) -> entity1.isAdult() != entity2.isAdult());
-        registerConfig(Ageable.class, "baby", false, EntityStackComparisonResult.BABY, (entity1, entity2) -> !entity1.isAdult() || !entity2.isAdult());
+        registerConfig(Ageable.class, "different-age", true, EntityStackComparisonResult.DIFFERENT_AGES, (entity1, entity2) -> entity1.isAdult() != entity2.isAdult(), (stackSettings, entity, signature) -> {
+            signature.property(entity.isAdult());
+            expireWhenGrownUp(entity, signature);
+        });
+        registerConfig(Ageable.class, "baby", false, EntityStackComparisonResult.BABY, (entity1, entity2) -> !entity1.isAdult() || !entity2.isAdult(), (stackSettings, entity, signature) -> {
+            if (!entity.isAdult()) {
+                signature.block(EntityStackComparisonResult.BABY);
+                expireWhenGrownUp(entity, signature);
+            }
+        });
         registerConfig(AbstractHorse.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.getInventory().getSaddle() != null || entity2.getInventory().getSaddle() != null);
-        registerConfig(ChestedHorse.class, "chested", false, EntityStackComparisonResult.HAS_CHEST, (entity1, entity2) -> entity1.isCarryingChest() || entity2.isCarryingChest());
-        registerConfig(Raider.class, "patrol-leader", false, EntityStackComparisonResult.PATROL_LEADER, (entity1, entity2) -> entity1.isPatrolLeader() || entity2.isPatrolLeader());
+        registerConfigFlag(ChestedHorse.class, "chested", false, EntityStackComparisonResult.HAS_CHEST, ChestedHorse::isCarryingChest);
+        registerConfigFlag(Raider.class, "patrol-leader", false, EntityStackComparisonResult.PATROL_LEADER, Raider::isPatrolLeader);
         registerConfig(Merchant.class, "trading", false, EntityStackComparisonResult.TRADING, (entity1, entity2) -> entity1.isTrading() || entity2.isTrading());
 
         // Register conditions for specific entities
         int versionNumber = NMSUtil.getVersionNumber();
         int minorVersionNumber = NMSUtil.getMinorVersionNumber();
         if (versionNumber >= 21) {
-            registerConfig(Wolf.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
+            registerConfigProperty(Wolf.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Wolf::getVariant);
         }
 
         if (versionNumber > 20 || (versionNumber == 20 && minorVersionNumber >= 5)) {
@@ -202,7 +233,7 @@ public final class StackConditions {
         if (versionNumber >= 19) {
             // Allay, Frog, Goat (extras), Tadpole, Warden
             registerConfig(Allay.class, "holding-items", false, EntityStackComparisonResult.HOLDING_ITEMS, (entity1, entity2) -> !entity1.getInventory().isEmpty() || !entity2.getInventory().isEmpty());
-            registerConfig(Frog.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
+            registerConfigProperty(Frog.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Frog::getVariant);
             registerConfig(Goat.class, "different-horns", false, EntityStackComparisonResult.DIFFERENT_HORNS, (entity1, entity2) -> entity1.hasLeftHorn() != entity2.hasLeftHorn() || entity1.hasRightHorn() != entity2.hasRightHorn());
 
             // 1.19.3+
@@ -213,7 +244,7 @@ public final class StackConditions {
 
         if (versionNumber >= 17) {
             // Axolotl, Glow Squid, Goat
-            registerConfig(Axolotl.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
+            registerConfigProperty(Axolotl.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Axolotl::getVariant);
             registerConfig(Axolotl.class, "playing-dead", false, EntityStackComparisonResult.PLAYING_DEAD, (entity1, entity2) -> entity1.isPlayingDead() || entity2.isPlayingDead());
             registerConfig(GlowSquid.class, "dark", false, EntityStackComparisonResult.BRAVO_SIX_GOING_DARK, (entity1, entity2) -> entity1.getDarkTicksRemaining() > 0 || entity2.getDarkTicksRemaining() > 0);
             registerConfig(Goat.class, "screaming", false, EntityStackComparisonResult.SCREAMING, (entity1, entity2) -> entity1.isScreaming() || entity2.isScreaming());
@@ -227,39 +258,39 @@ public final class StackConditions {
         registerConfig(Bee.class, "stung", false, EntityStackComparisonResult.HAS_STUNG, (entity1, entity2) -> entity1.hasStung() || entity2.hasStung());
         registerConfig(Bee.class, "has-flower", false, EntityStackComparisonResult.HAS_FLOWER, (entity1, entity2) -> entity1.getFlower() != null || entity2.getFlower() != null);
         registerConfig(Bee.class, "has-nectar", false, EntityStackComparisonResult.HAS_NECTAR, (entity1, entity2) -> entity1.hasNectar() || entity2.hasNectar());
-        registerConfig(Cat.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getCatType() != entity2.getCatType());
-        registerConfig(Cat.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, (entity1, entity2) -> entity1.getCollarColor() != entity2.getCollarColor());
-        registerConfig(Creeper.class, "charged", false, EntityStackComparisonResult.CHARGED, (entity1, entity2) -> entity1.isPowered() || entity2.isPowered());
+        registerConfigProperty(Cat.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Cat::getCatType);
+        registerConfigProperty(Cat.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, Cat::getCollarColor);
+        registerConfigFlag(Creeper.class, "charged", false, EntityStackComparisonResult.CHARGED, Creeper::isPowered);
         registerConfig(Enderman.class, "holding-block", false, EntityStackComparisonResult.HOLDING_BLOCK, (entity1, entity2) -> entity1.getCarriedBlock() != null || entity2.getCarriedBlock() != null);
-        registerConfig(Fox.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getFoxType() != entity2.getFoxType());
+        registerConfigProperty(Fox.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Fox::getFoxType);
         registerConfig(Hoglin.class, "unhuntable", false, EntityStackComparisonResult.UNHUNTABLE, (entity1, entity2) -> !entity1.isAbleToBeHunted() || entity2.isAbleToBeHunted());
         registerConfig(Horse.class, "armored", false, EntityStackComparisonResult.HAS_ARMOR, (entity1, entity2) -> entity1.getInventory().getArmor() != null || entity2.getInventory().getArmor() != null);
-        registerConfig(Horse.class, "different-style", false, EntityStackComparisonResult.DIFFERENT_STYLES, (entity1, entity2) -> entity1.getStyle() != entity2.getStyle());
-        registerConfig(Horse.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
-        registerConfig(IronGolem.class, "player-created", false, EntityStackComparisonResult.SPAWNED_BY_PLAYER, (entity1, entity2) -> entity1.isPlayerCreated() || entity2.isPlayerCreated());
+        registerConfigProperty(Horse.class, "different-style", false, EntityStackComparisonResult.DIFFERENT_STYLES, Horse::getStyle);
+        registerConfigProperty(Horse.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Horse::getColor);
+        registerConfigFlag(IronGolem.class, "player-created", false, EntityStackComparisonResult.SPAWNED_BY_PLAYER, IronGolem::isPlayerCreated);
         registerConfig(Llama.class, "different-decor", false, EntityStackComparisonResult.DIFFERENT_DECORS, (entity1, entity2) -> entity1.getInventory().getDecor() != entity2.getInventory().getDecor());
-        registerConfig(Llama.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
-        registerConfig(MushroomCow.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
-        registerConfig(Panda.class, "different-main-gene", false, EntityStackComparisonResult.DIFFERENT_MAIN_GENES, (entity1, entity2) -> entity1.getMainGene() != entity2.getMainGene());
-        registerConfig(Panda.class, "different-recessive-gene", false, EntityStackComparisonResult.DIFFERENT_RECESSIVE_GENES, (entity1, entity2) -> entity1.getHiddenGene() != entity2.getHiddenGene());
-        registerConfig(Parrot.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
-        registerConfig(Phantom.class, "different-size", true, EntityStackComparisonResult.DIFFERENT_SIZES, (entity1, entity2) -> entity1.getSize() != entity2.getSize());
+        registerConfigProperty(Llama.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Llama::getColor);
+        registerConfigProperty(MushroomCow.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, MushroomCow::getVariant);
+        registerConfigProperty(Panda.class, "different-main-gene", false, EntityStackComparisonResult.DIFFERENT_MAIN_GENES, Panda::getMainGene);
+        registerConfigProperty(Panda.class, "different-recessive-gene", false, EntityStackComparisonResult.DIFFERENT_RECESSIVE_GENES, Panda::getHiddenGene);
+        registerConfigProperty(Parrot.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Parrot::getVariant);
+        registerConfigProperty(Phantom.class, "different-size", true, EntityStackComparisonResult.DIFFERENT_SIZES, Phantom::getSize);
         registerConfig(PiglinAbstract.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
-        registerConfig(PiglinAbstract.class, "immune-to-zombification", false, EntityStackComparisonResult.IMMUNE_TO_ZOMBIFICATION, (entity1, entity2) -> entity1.isImmuneToZombification() != entity2.isImmuneToZombification());
+        registerConfigProperty(PiglinAbstract.class, "immune-to-zombification", false, EntityStackComparisonResult.IMMUNE_TO_ZOMBIFICATION, PiglinAbstract::isImmuneToZombification);
         registerConfig(Piglin.class, "unable-to-hunt", false, EntityStackComparisonResult.UNABLE_TO_HUNT, (entity1, entity2) -> !entity1.isAbleToHunt() || !entity2.isAbleToHunt());
         registerConfig(PigZombie.class, "angry", false, EntityStackComparisonResult.ANGRY, (entity1, entity2) -> entity1.isAngry() || entity2.isAngry());
-        registerConfig(Pig.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.hasSaddle() || entity2.hasSaddle());
+        registerConfigFlag(Pig.class, "saddled", false, EntityStackComparisonResult.SADDLED, Pig::hasSaddle);
         registerConfig(PufferFish.class, "different-inflation", false, EntityStackComparisonResult.DIFFERENT_INFLATIONS, (entity1, entity2) -> entity1.getPuffState() != entity2.getPuffState());
-        registerConfig(Rabbit.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getRabbitType() != entity2.getRabbitType());
+        registerConfigProperty(Rabbit.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Rabbit::getRabbitType);
         registerConfig(Sheep.class, "sheared", false, EntityStackComparisonResult.SHEARED, (entity1, entity2) -> shearedHandler.isSheared(entity1) || shearedHandler.isSheared(entity2));
         registerConfig(Sheep.class, "different-shear-state", false, EntityStackComparisonResult.SHEARED_STATE_DIFFERENT, (entity1, entity2) -> shearedHandler.isSheared(entity1) != shearedHandler.isSheared(entity2));
-        registerConfig(Slime.class, "different-size", true, EntityStackComparisonResult.DIFFERENT_SIZES, (entity1, entity2) -> entity1.getSize() != entity2.getSize());
-        registerConfig(Snowman.class, "no-pumpkin", false, EntityStackComparisonResult.NO_PUMPKIN, (entity1, entity2) -> entity1.isDerp() || entity2.isDerp());
+        registerConfigProperty(Slime.class, "different-size", true, EntityStackComparisonResult.DIFFERENT_SIZES, Slime::getSize);
+        registerConfigFlag(Snowman.class, "no-pumpkin", false, EntityStackComparisonResult.NO_PUMPKIN, Snowman::isDerp);
         registerConfig(Strider.class, "shivering", false, EntityStackComparisonResult.SHIVERING, (entity1, entity2) -> entity1.isShivering() || entity2.isShivering());
-        registerConfig(Strider.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.hasSaddle() || entity2.hasSaddle());
-        registerConfig(TropicalFish.class, "different-body-color", false, EntityStackComparisonResult.DIFFERENT_BODY_COLORS, (entity1, entity2) -> entity1.getBodyColor() != entity2.getBodyColor());
-        registerConfig(TropicalFish.class, "different-pattern", false, EntityStackComparisonResult.DIFFERENT_PATTERNS, (entity1, entity2) -> entity1.getPattern() != entity2.getPattern());
-        registerConfig(TropicalFish.class, "different-pattern-color", false, EntityStackComparisonResult.DIFFERENT_PATTERN_COLORS, (entity1, entity2) -> entity1.getPatternColor() != entity2.getPatternColor());
+        registerConfigFlag(Strider.class, "saddled", false, EntityStackComparisonResult.SADDLED, Strider::hasSaddle);
+        registerConfigProperty(TropicalFish.class, "different-body-color", false, EntityStackComparisonResult.DIFFERENT_BODY_COLORS, TropicalFish::getBodyColor);
+        registerConfigProperty(TropicalFish.class, "different-pattern", false, EntityStackComparisonResult.DIFFERENT_PATTERNS, TropicalFish::getPattern);
+        registerConfigProperty(TropicalFish.class, "different-pattern-color", false, EntityStackComparisonResult.DIFFERENT_PATTERN_COLORS, TropicalFish::getPatternColor);
         registerConfig(Vex.class, "charging", false, EntityStackComparisonResult.CHARGING, (entity1, entity2) -> entity1.isCharging() || entity2.isCharging());
         registerConfig(Villager.class, "professioned", false, EntityStackComparisonResult.PROFESSIONED, (entity1, entity2) -> {
             List<String> professionValues = List.of("none", "nitwit");
@@ -268,12 +299,12 @@ public final class StackConditions {
             return !professionValues.contains(profession1.getKey().getKey()) || !professionValues.contains(profession2.getKey().getKey());
         });
         registerConfig(Villager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, (entity1, entity2) -> entity1.getProfession() != entity2.getProfession());
-        registerConfig(Villager.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVillagerType() != entity2.getVillagerType());
+        registerConfigProperty(Villager.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Villager::getVillagerType);
         registerConfig(Villager.class, "different-level", false, EntityStackComparisonResult.DIFFERENT_LEVELS, (entity1, entity2) -> entity1.getVillagerLevel() != entity2.getVillagerLevel());
         registerConfig(Wolf.class, "angry", false, EntityStackComparisonResult.ANGRY, (entity1, entity2) -> entity1.isAngry() || entity2.isAngry());
-        registerConfig(Wolf.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, (entity1, entity2) -> entity1.getCollarColor() != entity2.getCollarColor());
+        registerConfigProperty(Wolf.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, Wolf::getCollarColor);
         registerConfig(Zombie.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
-        registerConfig(ZombieVillager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, (entity1, entity2) -> entity1.getVillagerProfession() != entity2.getVillagerProfession());
+        registerConfigProperty(ZombieVillager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, ZombieVillager::getVillagerProfession);
         registerConfig(ZombieVillager.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
     }
 
@@ -289,21 +320,98 @@ public final class StackConditions {
     }
 
     public static <T> void registerConfig(Class<T> assignableClass, String key, boolean defaultEnabled, EntityStackComparisonResult failureReason, StackValidationPredicate<T> validationPredicate) {
+        registerConfig(assignableClass, key, defaultEnabled, failureReason, validationPredicate, null);
+    }
+
+    /**
+     * Registers a condition that can also be checked through stack signatures
+     *
+     * @param assignableClass The class the entities must be assignable to
+     * @param key The config key, without the dont-stack-if- prefix
+     * @param defaultEnabled Whether the condition is enabled by default
+     * @param failureReason The result when the condition fails
+     * @param validationPredicate Tests if two entities fail the condition
+     * @param signatureFunction Adds what the condition compares to the signature of an entity, must agree with the
+     *                          validation predicate, or null if the condition can only be checked between two entities
+     */
+    public static <T> void registerConfig(Class<T> assignableClass, String key, boolean defaultEnabled, EntityStackComparisonResult failureReason,
+                                          StackValidationPredicate<T> validationPredicate, StackSignatureFunction<T> signatureFunction) {
         registerInternal(assignableClass, new ConfigProperties("dont-stack-if-" + key, defaultEnabled), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions)
-                -> validationPredicate.test(entity1, entity2) ? failureReason : EntityStackComparisonResult.CAN_STACK);
+                -> validationPredicate.test(entity1, entity2) ? failureReason : EntityStackComparisonResult.CAN_STACK, signatureFunction);
+    }
+
+    /**
+     * Registers a condition that fails if the property of the two entities is different
+     */
+    public static <T> void registerConfigProperty(Class<T> assignableClass, String key, boolean defaultEnabled, EntityStackComparisonResult failureReason, Function<T, ?> property) {
+        registerConfig(assignableClass, key, defaultEnabled, failureReason, (entity1, entity2) -> !Objects.equals(property.apply(entity1), property.apply(entity2)),
+                (stackSettings, entity, signature) -> signature.property(property.apply(entity)));
+    }
+
+    /**
+     * Registers a condition that fails if either of the two entities has the flag
+     */
+    public static <T> void registerConfigFlag(Class<T> assignableClass, String key, boolean defaultEnabled, EntityStackComparisonResult failureReason, Predicate<T> flag) {
+        registerConfig(assignableClass, key, defaultEnabled, failureReason, (entity1, entity2) -> flag.test(entity1) || flag.test(entity2), (stackSettings, entity, signature) -> {
+            if (flag.test(entity))
+                signature.block(failureReason);
+        });
     }
 
     public static <T> void register(Class<T> assignableClass, StackValidationFunction<T> validationFunction) {
-        registerInternal(assignableClass, null, validationFunction);
+        register(assignableClass, validationFunction, null);
+    }
+
+    public static <T> void register(Class<T> assignableClass, StackValidationFunction<T> validationFunction, StackSignatureFunction<T> signatureFunction) {
+        registerInternal(assignableClass, null, validationFunction, signatureFunction);
     }
 
-    private static <T, P extends StackValidationFunction<T>> void registerInternal(Class<T> assignableClass, ConfigProperties configProperties, P validationFunction) {
-        CLASS_STACK_EVALUATION_MAP.put(assignableClass, new StackCondition<>(assignableClass, configProperties, validationFunction));
+    private static <T, P extends StackValidationFunction<T>> void registerInternal(Class<T> assignableClass, ConfigProperties configProperties, P validationFunction, StackSignatureFunction<T> signatureFunction) {
+        CLASS_STACK_EVALUATION_MAP.put(assignableClass, new StackCondition<>(assignableClass, configProperties, validationFunction, signatureFunction));
+    }
+
+    private static boolean isCustomNamed(EntityStackSettings stackSettings, Entity entity) {
+        return SettingKey.ENTITY_DONT_STACK_CUSTOM_NAMED.get() && entity.getCustomName() != null
+                && (entity.getType() != VersionUtils.SNOW_GOLEM || !stackSettings.getSettingValue(EntityStackSettings.SNOW_GOLEM_FORCE_CUSTOM_NAMED_STACKING).getBoolean()); // Force named snow golems to always stack together for infinite snowball lag-prevention reasons
+    }
+
+    private static boolean hasNonStandardEquipment(EntityStackSettings stackSettings, LivingEntity entity) {
+        if (!SettingKey.ENTITY_DONT_STACK_IF_HAS_EQUIPMENT.get())
+            return false;
+
+        EntityEquipment equipment = entity.getEquipment();
+        if (equipment == null)
+            return false;
+
+        for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
+            ItemStack item = equipment.getItem(equipmentSlot);
+            if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Babies grow up without any event being called, make the signature expire when they do
+     */
+    private static void expireWhenGrownUp(Ageable entity, StackSignature.Builder signature) {
+        if (!entity.isAdult() && entity.getAge() < 0)
+            signature.expireWithin(TimeUnit.MILLISECONDS.toNanos(-entity.getAge() * 50L));
     }
 
     public record ConfigProperties(String key, boolean defaultValue) { }
 
-    public record StackCondition<T>(Class<T> clazz, ConfigProperties configProperties, StackValidationFunction<T> function) { }
+    public record StackCondition<T>(Class<T> clazz, ConfigProperties configProperties, StackValidationFunction<T> function, StackSignatureFunction<T> signatureFunction) {
+
+        /**
+         * Creates a condition without a signature function, entities it applies to are always compared directly
+         */
+        public StackCondition(Class<T> clazz, ConfigProperties configProperties, StackValidationFunction<T> function) {
+            this(clazz, configProperties, function, null);
+        }
+
+    }
 
     @FunctionalInterface
     public interface StackValidationFunction<T> {
@@ -317,4 +425,9 @@ public final class StackConditions {
         boolean test(T entity1, T entity2);
     }
 
+    @FunctionalInterface
+    public interface StackSignatureFunction<T> {
+        void apply(EntityStackSettings stackSettings, T entity, StackSignature.Builder signature);
+    }
+
 }
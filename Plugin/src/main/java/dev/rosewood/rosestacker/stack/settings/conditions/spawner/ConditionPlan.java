@@ -0,0 +1,187 @@
+package dev.rosewood.rosestacker.stack.settings.conditions.spawner;
+
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
+import dev.rosewood.rosestacker.stack.StackedSpawner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.bukkit.block.Block;
+
+/**
+ * The spawn requirements of a spawner type compiled into the order they should be checked in.
+ * Conditions are checked cheapest first and stop at the first one that fails. Per-spawn conditions start out ordered
+ * by their estimated cost and are reordered as their real cost and how often they reject a block are measured.
+ * Results of global conditions that only depend on where the spawner is are cached per spawner until the plan is
+ * recompiled when the stack settings are reloaded.
+ */
+public class ConditionPlan {
+
+    /**
+     * How many per-spawn checks happen between reordering the conditions
+     */
+    private static final int REORDER_INTERVAL = 4096;
+
+    /**
+     * One in this many condition checks is timed
+     */
+    private static final int TIMING_SAMPLE_RATE = 16;
+
+    /**
+     * Assumed time in nanoseconds for each estimated cost until real timings have been sampled
+     */
+    private static final double[] ESTIMATED_COST_NANOS = {10, 100, 400, 5000};
+
+    private final List<ConditionTag> conditions;
+    private final List<ConditionTag> globalConditions;
+    private final Map<StackedSpawner, Optional<ConditionTag>> cachedGlobalResults;
+    private final List<ConditionStats> perSpawnStats;
+    private final AtomicLong perSpawnChecks;
+    private volatile ConditionStats[] perSpawnOrder;
+
+    public ConditionPlan(List<ConditionTag> conditions) {
+        this.conditions = List.copyOf(conditions);
+
+        Comparator<ConditionTag> byEstimatedCost = Comparator.comparingInt(ConditionTag::getEstimatedCost);
+        this.globalConditions = this.conditions.stream().filter(x -> !x.isRequiredPerSpawn()).sorted(byEstimatedCost).toList();
+        this.cachedGlobalResults = Collections.synchronizedMap(new WeakHashMap<>());
+
+        this.perSpawnStats = this.conditions.stream().filter(ConditionTag::isRequiredPerSpawn).sorted(byEstimatedCost).map(ConditionStats::new).toList();
+        this.perSpawnChecks = new AtomicLong();
+        this.perSpawnOrder = this.perSpawnStats.toArray(new ConditionStats[0]);
+    }
+
+    /**
+     * @return all conditions in the order they were configured in
+     */
+    public List<ConditionTag> getConditions() {
+        return this.conditions;
+    }
+
+    /**
+     * @return true if there are any conditions that must be met for each spawn
+     */
+    public boolean hasPerSpawnConditions() {
+        return !this.perSpawnStats.isEmpty();
+    }
+
+    /**
+     * Checks the conditions that only have to be met for the spawner, stopping at the first one that fails
+     *
+     * @param stackedSpawner The spawner
+     * @return the condition that failed, or null if they all passed
+     */
+    public ConditionTag checkGlobal(StackedSpawner stackedSpawner) {
+        Optional<ConditionTag> cachedFailure = this.cachedGlobalResults.get(stackedSpawner);
+        if (cachedFailure != null && cachedFailure.isPresent())
+            return cachedFailure.get();
+
+        Block block = stackedSpawner.getBlock();
+        for (ConditionTag conditionTag : this.globalConditions) {
+            if (cachedFailure != null && conditionTag.isCacheable())
+                continue; // Already known to pass
+
+            if (!conditionTag.check(stackedSpawner, block)) {
+                if (conditionTag.isCacheable())
+                    this.cachedGlobalResults.put(stackedSpawner, Optional.of(conditionTag));
+                return conditionTag;
+            }
+        }
+
+        this.cachedGlobalResults.putIfAbsent(stackedSpawner, Optional.empty());
+        return null;
+    }
+
+    /**
+     * Checks the conditions that must be met for each spawn against a block, stopping at the first one that fails.
+     * Safe to call async.
+     *
+     * @param stackedSpawner The spawner
+     * @param spawnBlock The block the entity would spawn in
+     * @param snapshot The captured chunks around the spawner
+     * @param passedConditions The set to add each condition that passed to
+     * @param failedConditions The set to add the condition that failed to
+     * @return true if all conditions passed, otherwise false
+     */
+    public boolean checkPerSpawn(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot,
+                                 Set<ConditionTag> passedConditions, Set<ConditionTag> failedConditions) {
+        long check = this.perSpawnChecks.incrementAndGet();
+        if (check % REORDER_INTERVAL == 0)
+            this.reorder();
+
+        boolean timed = check % TIMING_SAMPLE_RATE == 0;
+        for (ConditionStats stats : this.perSpawnOrder) {
+            long start = timed ? System.nanoTime() : 0;
+            boolean passed = stats.conditionTag.check(stackedSpawner, spawnBlock, snapshot);
+            if (timed) {
+                stats.sampledNanos.add(System.nanoTime() - start);
+                stats.samples.increment();
+            }
+
+            stats.checks.increment();
+            if (!passed) {
+                stats.rejections.increment();
+                failedConditions.add(stats.conditionTag);
+                return false;
+            }
+
+            passedConditions.add(stats.conditionTag);
+        }
+
+        return true;
+    }
+
+    /**
+     * Orders the per-spawn conditions by cost divided by rejection rate, which puts cheap conditions that often
+     * reject a block first
+     */
+    private void reorder() {
+        // Ranks are taken up front, the stats keep changing while other threads check conditions
+        List<ConditionStats> order = new ArrayList<>(this.perSpawnStats);
+        Map<ConditionStats, Double> ranks = new HashMap<>();
+        for (ConditionStats stats : order)
+            ranks.put(stats, stats.getRank());
+        order.sort(Comparator.comparingDouble(ranks::get));
+        this.perSpawnOrder = order.toArray(new ConditionStats[0]);
+    }
+
+    /**
+     * A per-spawn condition along with what has been measured about it
+     */
+    private static class ConditionStats {
+
+        private final ConditionTag conditionTag;
+        private final LongAdder checks;
+        private final LongAdder rejections;
+        private final LongAdder sampledNanos;
+        private final LongAdder samples;
+
+        public ConditionStats(ConditionTag conditionTag) {
+            this.conditionTag = conditionTag;
+            this.checks = new LongAdder();
+            this.rejections = new LongAdder();
+            this.sampledNanos = new LongAdder();
+            this.samples = new LongAdder();
+        }
+
+        private double getRank() {
+            long samples = this.samples.sum();
+            double cost = samples == 0
+                    ? ESTIMATED_COST_NANOS[Math.max(0, Math.min(ESTIMATED_COST_NANOS.length - 1, this.conditionTag.getEstimatedCost()))]
+                    : (double) this.sampledNanos.sum() / samples;
+
+            // Smoothed so a condition that hasn't rejected anything yet still gets a rank
+            double rejectionRate = (this.rejections.sum() + 1.0) / (this.checks.sum() + 2.0);
+            return cost / rejectionRate;
+        }
+
+    }
+
+}
@@ -2,6 +2,7 @@ package dev.rosewood.rosestacker.stack.settings.conditions.spawner;
 
 import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +56,19 @@ public abstract class ConditionTag {
      */
     public abstract boolean check(StackedSpawner stackedSpawner, Block spawnBlock);
 
+    /**
+     * Checks if the spawn block meets this tag's condition by reading blocks from captured chunks, safe to call async.
+     * Conditions that read blocks must override this, by default it calls {@link #check(StackedSpawner, Block)}.
+     *
+     * @param stackedSpawner The spawner that will be spawning the entity
+     * @param spawnBlock The block the entity will be spawned in, only its position should be used
+     * @param snapshot The captured chunks around the spawner
+     * @return true if the condition is met, otherwise false
+     */
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        return this.check(stackedSpawner, spawnBlock);
+    }
+
     /**
      * Parses the value portion of the tag
      *
@@ -107,6 +121,25 @@ public abstract class ConditionTag {
         return this.perSpawn;
     }
 
+    /**
+     * Gets a rough estimate of how expensive this condition is to check, used to check cheaper conditions first until
+     * real timings have been measured.
+     * 0 only looks at the position of the block, 1 reads a single block, 2 reads light or several blocks,
+     * and 3 searches for nearby entities.
+     *
+     * @return the estimated cost of checking this condition
+     */
+    public int getEstimatedCost() {
+        return 2;
+    }
+
+    /**
+     * @return true if the result of this condition only depends on where the spawner is, so it can be cached per spawner
+     */
+    public boolean isCacheable() {
+        return false;
+    }
+
     @Override
     public String toString() {
         return this.tag;
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.utils.EntityUtils;
@@ -19,6 +20,14 @@ public class AirConditionTag extends ConditionTag {
     public boolean check(StackedSpawner stackedSpawner, Block spawnBlock) {
         boolean isAir = true;
         for (Material type : EntityUtils.getIntersectingBlocks(stackedSpawner.getSpawnerTile().getSpawnerType().getOrThrow(), spawnBlock.getLocation().clone().add(0.5, 0, 0.5)).values())
+            isAir &= type != null && (StackerUtils.isAir(type) || !StackerUtils.isOccluding(type));
+        return isAir;
+    }
+
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        boolean isAir = true;
+        for (Material type : EntityUtils.getIntersectingBlocks(stackedSpawner.getSpawnerTile().getSpawnerType().getOrThrow(), spawnBlock.getLocation().clone().add(0.5, 0, 0.5), snapshot).values())
             isAir &= StackerUtils.isAir(type) || !StackerUtils.isOccluding(type);
         return isAir;
     }
@@ -17,6 +17,11 @@ public class BelowSeaLevelConditionTag extends ConditionTag {
         return spawnBlock.getY() <= spawnBlock.getWorld().getSeaLevel();
     }
 
+    @Override
+    public int getEstimatedCost() {
+        return 0;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         return values.length == 0;
@@ -19,6 +19,11 @@ public class BelowYAxisConditionTag extends ConditionTag {
         return spawnBlock.getY() <= this.yValue;
     }
 
+    @Override
+    public int getEstimatedCost() {
+        return 0;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         if (values.length != 1)
@@ -21,6 +21,16 @@ public class BiomeConditionTag extends ConditionTag {
         return this.biomes.contains(spawnBlock.getBiome());
     }
 
+    @Override
+    public int getEstimatedCost() {
+        return 1;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         this.biomes = new ArrayList<>();
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.utils.EntityUtils;
@@ -20,7 +21,18 @@ public class BlockExceptionConditionTag extends ConditionTag {
 
     @Override
     public boolean check(StackedSpawner stackedSpawner, Block spawnBlock) {
-        return !this.blocks.contains(EntityUtils.getLazyBlockMaterial(spawnBlock.getRelative(BlockFace.DOWN).getLocation()));
+        Material type = EntityUtils.getLazyBlockMaterial(spawnBlock.getRelative(BlockFace.DOWN).getLocation());
+        return type != null && !this.blocks.contains(type);
+    }
+
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        return !this.blocks.contains(snapshot.getType(spawnBlock.getX(), spawnBlock.getY() - 1, spawnBlock.getZ()));
+    }
+
+    @Override
+    public int getEstimatedCost() {
+        return 1;
     }
 
     @Override
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.utils.EntityUtils;
@@ -18,12 +19,22 @@ public class DarknessConditionTag extends ConditionTag {
     @Override
     public boolean check(StackedSpawner stackedSpawner, Block spawnBlock) {
         Material type = EntityUtils.getLazyBlockMaterial(spawnBlock.getLocation());
+        return type != null && this.check(stackedSpawner, type, spawnBlock.getLightLevel());
+    }
+
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        int x = spawnBlock.getX(), y = spawnBlock.getY(), z = spawnBlock.getZ();
+        return this.check(stackedSpawner, snapshot.getType(x, y, z), snapshot.getLightLevel(x, y, z));
+    }
+
+    private boolean check(StackedSpawner stackedSpawner, Material type, int lightLevel) {
         if (StackerUtils.isOccluding(type))
             return false;
 
         return switch (stackedSpawner.getSpawnerTile().getSpawnerType().getOrThrow()) {
-            case BLAZE, SILVERFISH -> spawnBlock.getLightLevel() <= 11;
-            default -> spawnBlock.getLightLevel() <= 7;
+            case BLAZE, SILVERFISH -> lightLevel <= 11;
+            default -> lightLevel <= 7;
         };
     }
 
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.utils.EntityUtils;
@@ -18,7 +19,13 @@ public class LightnessConditionTag extends ConditionTag {
     @Override
     public boolean check(StackedSpawner stackedSpawner, Block spawnBlock) {
         Material type = EntityUtils.getLazyBlockMaterial(spawnBlock.getLocation());
-        return !StackerUtils.isOccluding(type) && spawnBlock.getLightLevel() > 8;
+        return type != null && !StackerUtils.isOccluding(type) && spawnBlock.getLightLevel() > 8;
+    }
+
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        int x = spawnBlock.getX(), y = spawnBlock.getY(), z = spawnBlock.getZ();
+        return !StackerUtils.isOccluding(snapshot.getType(x, y, z)) && snapshot.getLightLevel(x, y, z) > 8;
     }
 
     @Override
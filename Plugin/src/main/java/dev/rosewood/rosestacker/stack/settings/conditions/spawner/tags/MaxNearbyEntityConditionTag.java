@@ -9,8 +9,9 @@ import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
+import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -38,10 +39,10 @@ public class MaxNearbyEntityConditionTag extends ConditionTag {
         Block block = stackedSpawner.getBlock();
         List<EntityType> entityTypes = stackedSpawner.getSpawnerTile().getSpawnerType().getEntityTypes();
 
-        Collection<Entity> nearbyEntities = this.entityCacheManager.getNearbyEntities(
-                block.getLocation().clone().add(0.5, 0.5, 0.5),
-                detectionRange,
-                entity -> entityTypes.contains(entity.getType()));
+        Location center = block.getLocation().add(0.5, 0.5, 0.5);
+        List<Entity> nearbyEntities = new ArrayList<>();
+        for (EntityType entityType : entityTypes)
+            this.entityCacheManager.getNearbyEntities(center, detectionRange, entityType, nearbyEntities);
 
         if (SettingKey.SPAWNER_MAX_NEARBY_ENTITIES_INCLUDE_STACKS.get()) {
             return nearbyEntities.stream().mapToInt(x -> {
@@ -53,6 +54,11 @@ public class MaxNearbyEntityConditionTag extends ConditionTag {
         }
     }
 
+    @Override
+    public int getEstimatedCost() {
+        return 3;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         if (values.length != 1)
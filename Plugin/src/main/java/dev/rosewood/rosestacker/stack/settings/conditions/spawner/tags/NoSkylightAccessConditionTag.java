@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import java.util.List;
@@ -17,6 +18,16 @@ public class NoSkylightAccessConditionTag extends ConditionTag {
         return spawnBlock.getLightFromSky() <= 7;
     }
 
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        return snapshot.getSkyLight(spawnBlock.getX(), spawnBlock.getY(), spawnBlock.getZ()) <= 7;
+    }
+
+    @Override
+    public int getEstimatedCost() {
+        return 1;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         return values.length == 0;
@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import java.util.List;
@@ -18,6 +19,17 @@ public class OnGroundConditionTag extends ConditionTag {
         return !spawnBlock.getRelative(BlockFace.DOWN).isPassable();
     }
 
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        // Snapshots don't have collision shapes, solid materials are the closest match to not being passable
+        return snapshot.getType(spawnBlock.getX(), spawnBlock.getY() - 1, spawnBlock.getZ()).isSolid();
+    }
+
+    @Override
+    public int getEstimatedCost() {
+        return 1;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         return values.length == 0;
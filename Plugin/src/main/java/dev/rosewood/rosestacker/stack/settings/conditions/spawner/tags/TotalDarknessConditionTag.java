@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.stack.settings.conditions.spawner.tags;
 
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
 import dev.rosewood.rosestacker.utils.EntityUtils;
@@ -18,12 +19,21 @@ public class TotalDarknessConditionTag extends ConditionTag {
     @Override
     public boolean check(StackedSpawner stackedSpawner, Block spawnBlock) {
         Material type = EntityUtils.getLazyBlockMaterial(spawnBlock.getLocation());
-        if (StackerUtils.isOccluding(type))
+        if (type == null || StackerUtils.isOccluding(type))
             return false;
 
         return spawnBlock.getLightLevel() == 0;
     }
 
+    @Override
+    public boolean check(StackedSpawner stackedSpawner, Block spawnBlock, ChunkSnapshotView snapshot) {
+        int x = spawnBlock.getX(), y = spawnBlock.getY(), z = spawnBlock.getZ();
+        if (StackerUtils.isOccluding(snapshot.getType(x, y, z)))
+            return false;
+
+        return snapshot.getLightLevel(x, y, z) == 0;
+    }
+
     @Override
     public boolean parseValues(String[] values) {
         return values.length == 0;
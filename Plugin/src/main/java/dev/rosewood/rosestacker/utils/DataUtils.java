@@ -4,6 +4,7 @@ import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.config.SettingKey;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
+import dev.rosewood.rosestacker.nms.storage.StackedEntityDataIO;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
 import dev.rosewood.rosestacker.stack.StackedBlock;
 import dev.rosewood.rosestacker.stack.StackedEntity;
@@ -16,8 +17,6 @@ import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import org.bukkit.Chunk;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -30,7 +29,6 @@ import org.bukkit.persistence.PersistentDataType;
 public final class DataUtils {
 
     private static final NamespacedKey ENTITY_KEY = new NamespacedKey(RoseStacker.getInstance(), "stacked_entity_data");
-    private static final int ENTITY_DATA_VERSION = 2;
 
     private static final NamespacedKey ITEM_KEY = new NamespacedKey(RoseStacker.getInstance(), "stacked_item_data");
     private static final int ITEM_DATA_VERSION = 1;
@@ -48,24 +46,10 @@ public final class DataUtils {
         if (data == null)
             return new StackedEntity(entity, nmsHandler.createEntityDataStorage(entity, storageType));
 
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(data);
-             ObjectInputStream dataInput = new ObjectInputStream(new GZIPInputStream(inputStream))) {
-
-            int dataVersion = dataInput.readInt();
-            if (dataVersion == 1) {
-                int length = dataInput.readInt();
-                byte[] nbt = new byte[length];
-                for (int i = 0; i < length; i++)
-                    nbt[i] = dataInput.readByte();
-                return new StackedEntity(entity, nmsHandler.deserializeEntityDataStorage(entity, nbt, StackedEntityDataStorageType.NBT));
-            } else if (dataVersion == 2) {
-                StackedEntityDataStorageType type = StackedEntityDataStorageType.fromId(dataInput.readInt());
-                int length = dataInput.readInt();
-                byte[] nbt = new byte[length];
-                for (int i = 0; i < length; i++)
-                    nbt[i] = dataInput.readByte();
-                return new StackedEntity(entity, nmsHandler.deserializeEntityDataStorage(entity, nbt, type));
-            }
+        try {
+            StackedEntityDataIO.EntityData entityData = StackedEntityDataIO.readEntityData(data);
+            if (entityData != null)
+                return new StackedEntity(entity, nmsHandler.deserializeEntityDataStorage(entity, entityData.storageData(), entityData.type()));
         } catch (Exception e) {
             e.printStackTrace();
             pdc.remove(ENTITY_KEY);
@@ -81,17 +65,10 @@ public final class DataUtils {
         if (maxSaveAmount <= 0)
             maxSaveAmount = Integer.MAX_VALUE;
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream dataOutput = new ObjectOutputStream(new GZIPOutputStream(outputStream))) {
-
-            dataOutput.writeInt(ENTITY_DATA_VERSION);
-            dataOutput.writeInt(stackedEntity.getDataStorage().getType().getId());
-            byte[] nbt = stackedEntity.getDataStorage().serialize(maxSaveAmount - 1);
-            dataOutput.writeInt(nbt.length);
-            dataOutput.write(nbt);
-
-            dataOutput.close();
-            data = outputStream.toByteArray();
+        try {
+            byte[] storageData = stackedEntity.getDataStorage().serialize(maxSaveAmount - 1);
+            int compressionLevel = SettingKey.ENTITY_DATA_COMPRESSION.get().equalsIgnoreCase("NONE") ? -1 : SettingKey.ENTITY_DATA_COMPRESSION_LEVEL.get();
+            data = StackedEntityDataIO.writeEntityData(stackedEntity.getDataStorage().getType(), storageData, compressionLevel);
         } catch (Exception e) {
             e.printStackTrace();
         }
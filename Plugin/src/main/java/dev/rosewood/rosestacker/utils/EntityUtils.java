@@ -1,17 +1,15 @@
 package dev.rosewood.rosestacker.utils;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import dev.rosewood.rosestacker.RoseStacker;
+import dev.rosewood.rosestacker.manager.ChunkSnapshotManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.spawning.ChunkSnapshotView;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
-import org.bukkit.Chunk;
-import org.bukkit.ChunkSnapshot;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -40,10 +38,6 @@ public final class EntityUtils {
     private static final Random RANDOM = new Random();
     private static Map<EntityType, BoundingBox> cachedBoundingBoxes;
 
-    private static final Cache<ChunkLocation, ChunkSnapshot> chunkSnapshotCache = CacheBuilder.newBuilder()
-            .expireAfterWrite(1, TimeUnit.SECONDS)
-            .build();
-
     /**
      * Get loot for a given entity
      *
@@ -178,6 +172,22 @@ public final class EntityUtils {
      * @return A List of Blocks the Entity intersects with
      */
     public static Map<Location, Material> getIntersectingBlocks(EntityType entityType, Location location) {
+        return getIntersectingBlocks(entityType, location, (world, x, y, z) -> getLazyBlockMaterial(new Location(world, x, y, z)));
+    }
+
+    /**
+     * Gets all blocks that an EntityType would intersect at a Location, reading the blocks from captured chunks
+     *
+     * @param entityType The type of Entity
+     * @param location The Location the Entity would be at
+     * @param snapshot The captured chunks to read the blocks from
+     * @return A List of Blocks the Entity intersects with
+     */
+    public static Map<Location, Material> getIntersectingBlocks(EntityType entityType, Location location, ChunkSnapshotView snapshot) {
+        return getIntersectingBlocks(entityType, location, (world, x, y, z) -> snapshot.getType(x, y, z));
+    }
+
+    private static Map<Location, Material> getIntersectingBlocks(EntityType entityType, Location location, BlockTypeReader blockTypeReader) {
         BoundingBox bounds = getBoundingBox(entityType, location).expand(-0.1);
         Map<Location, Material> intersectingBlocks = new HashMap<>();
         World world = location.getWorld();
@@ -191,18 +201,22 @@ public final class EntityUtils {
         int minZ = floorCoordinate(bounds.getMinZ());
         int maxZ = floorCoordinate(bounds.getMaxZ());
 
-        for (int x = minX; x <= maxX; x++) {
-            for (int y = minY; y <= maxY; y++) {
-                for (int z = minZ; z <= maxZ; z++) {
-                    Location blockLocation = new Location(world, x, y, z);
-                    intersectingBlocks.put(blockLocation, getLazyBlockMaterial(blockLocation));
-                }
-            }
-        }
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+                for (int z = minZ; z <= maxZ; z++)
+                    intersectingBlocks.put(new Location(world, x, y, z), blockTypeReader.getType(world, x, y, z));
 
         return intersectingBlocks;
     }
 
+    /**
+     * Gets the type of a block without loading anything.
+     * On the main thread the block is read directly, otherwise it is read from the chunks captured by the
+     * {@link ChunkSnapshotManager}, chunks that aren't captured yet are queued and the type is unknown.
+     *
+     * @param location The location of the block
+     * @return the type of the block, or null if it is unknown because its chunk hasn't been captured yet
+     */
     public static Material getLazyBlockMaterial(Location location) {
         World world = location.getWorld();
         if (world == null || location.getBlockY() < world.getMinHeight() || location.getBlockY() >= world.getMaxHeight())
@@ -210,17 +224,13 @@ public final class EntityUtils {
 
         // TODO: Account for the maximum size of slimes and magma cubes
 
-        try {
-            ChunkLocation pair = new ChunkLocation(location.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
-            return chunkSnapshotCache.get(pair, () -> {
-                Chunk chunk = location.getWorld().getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
-                return chunk.getChunkSnapshot();
-            }).getBlockType(location.getBlockX() & 15, location.getBlockY(), location.getBlockZ() & 15);
-        } catch (Exception e) {
-            RoseStacker.getInstance().getLogger().warning("Failed to fetch block type at " + location);
-            e.printStackTrace();
-            return Material.AIR;
+        if (Bukkit.isPrimaryThread()) {
+            if (!world.isChunkLoaded(location.getBlockX() >> 4, location.getBlockZ() >> 4))
+                return Material.AIR;
+            return world.getBlockAt(location.getBlockX(), location.getBlockY(), location.getBlockZ()).getType();
         }
+
+        return RoseStacker.getInstance().getManager(ChunkSnapshotManager.class).getBlockType(world, location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
     /**
@@ -271,6 +281,9 @@ public final class EntityUtils {
         cachedBoundingBoxes = null;
     }
 
-    private record ChunkLocation(String world, int x, int z) { }
+    @FunctionalInterface
+    private interface BlockTypeReader {
+        Material getType(World world, int x, int y, int z);
+    }
 
 }
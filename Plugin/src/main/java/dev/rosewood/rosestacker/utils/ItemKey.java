@@ -0,0 +1,61 @@
+package dev.rosewood.rosestacker.utils;
+
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Identifies items that are similar to each other, ignoring their amount.
+ * The hash is calculated once from the material and the item meta so items can be grouped in hash based
+ * collections, and only keys with the same hash are compared with {@link ItemStack#isSimilar(ItemStack)}.
+ */
+public final class ItemKey {
+
+    private final ItemStack itemStack;
+    private final int hash;
+
+    private ItemKey(ItemStack itemStack, int hash) {
+        this.itemStack = itemStack;
+        this.hash = hash;
+    }
+
+    /**
+     * Creates a key for an item, the item must not be modified afterwards
+     *
+     * @param itemStack The item to create the key for
+     * @return the key of the item
+     */
+    public static ItemKey of(ItemStack itemStack) {
+        int hash = itemStack.getType().hashCode();
+        if (itemStack.hasItemMeta()) {
+            ItemMeta itemMeta = itemStack.getItemMeta();
+            if (itemMeta != null)
+                hash = 31 * hash + itemMeta.hashCode();
+        }
+
+        return new ItemKey(itemStack, hash);
+    }
+
+    /**
+     * @return the item this key was created for
+     */
+    public ItemStack getItemStack() {
+        return this.itemStack;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof ItemKey other))
+            return false;
+
+        return this.hash == other.hash && this.itemStack.isSimilar(other.itemStack);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+}
@@ -26,7 +26,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
@@ -472,19 +471,20 @@ public final class ItemUtils {
      * @return the reduced items reduced by counts
      */
     public static Map<ItemStack, Integer> reduceItemsByCounts(Collection<ItemStack> items) {
-        Map<ItemStack, Integer> itemStackAmounts = new HashMap<>();
+        // Group by item key so each item is only compared against the similar items with the same hash
+        Map<ItemKey, int[]> amountsByKey = new HashMap<>();
         for (ItemStack itemStack : items) {
             if (itemStack == null || itemStack.getType() == Material.AIR)
                 continue;
 
-            Optional<Map.Entry<ItemStack, Integer>> similar = itemStackAmounts.entrySet().stream().filter(x -> x.getKey().isSimilar(itemStack)).findFirst();
-            if (similar.isPresent()) {
-                similar.get().setValue(similar.get().getValue() + itemStack.getAmount());
-            } else {
-                ItemStack clone = itemStack.clone();
-                clone.setAmount(1);
-                itemStackAmounts.put(clone, itemStack.getAmount());
-            }
+            amountsByKey.computeIfAbsent(ItemKey.of(itemStack), x -> new int[1])[0] += itemStack.getAmount();
+        }
+
+        Map<ItemStack, Integer> itemStackAmounts = new HashMap<>();
+        for (Map.Entry<ItemKey, int[]> entry : amountsByKey.entrySet()) {
+            ItemStack clone = entry.getKey().getItemStack().clone();
+            clone.setAmount(1);
+            itemStackAmounts.put(clone, entry.getValue()[0]);
         }
         return itemStackAmounts;
     }
@@ -0,0 +1,181 @@
+package dev.rosewood.rosestacker.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects tasks that need to run on the main thread and runs them once per tick, under a time budget.
+ * Tasks that don't fit in the budget are carried over to the next tick, so a burst of work from the async threads
+ * gets spread over multiple ticks instead of all landing in one.
+ * Every lane runs at least one task each tick so lower priority lanes can never be starved completely.
+ */
+public class SyncTaskQueue {
+
+    private final Queue<Runnable>[] lanes;
+    private final AtomicInteger queuedTasks;
+    private volatile boolean draining;
+
+    private long drainCount;
+    private long totalDrainNanos;
+    private long maxDrainNanos;
+    private long overBudgetCount;
+    private int peakQueuedTasks;
+
+    @SuppressWarnings("unchecked")
+    public SyncTaskQueue() {
+        this.lanes = new Queue[Priority.values().length];
+        for (int i = 0; i < this.lanes.length; i++)
+            this.lanes[i] = new ConcurrentLinkedQueue<>();
+        this.queuedTasks = new AtomicInteger();
+    }
+
+    /**
+     * Queues a task to run on the main thread
+     *
+     * @param task The task to run
+     * @param priority The lane to queue the task in
+     * @return true if the task was queued, false if the queue stopped being drained and the task has to be run some
+     *         other way
+     */
+    public boolean submit(Runnable task, Priority priority) {
+        Queue<Runnable> lane = this.lanes[priority.ordinal()];
+        lane.add(task);
+        this.queuedTasks.incrementAndGet();
+
+        // Draining stopped while the task was being added, take it back unless the final drain already got to it
+        if (!this.draining && lane.remove(task)) {
+            this.queuedTasks.decrementAndGet();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs queued tasks, highest priority first, until the budget has been used up.
+     * The {@link Priority#HIGH} lane is always run completely regardless of the budget.
+     * Must be called on the main thread.
+     *
+     * @param budgetNanos The time to spend running tasks, in nanoseconds
+     */
+    public void drain(long budgetNanos) {
+        int queued = this.queuedTasks.get();
+        if (queued == 0)
+            return;
+
+        this.peakQueuedTasks = Math.max(this.peakQueuedTasks, queued);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < this.lanes.length; i++) {
+            Queue<Runnable> lane = this.lanes[i];
+            boolean unlimited = i == Priority.HIGH.ordinal();
+            boolean ranTask = false;
+            Runnable task;
+            while ((unlimited || !ranTask || System.nanoTime() - start < budgetNanos) && (task = lane.poll()) != null) {
+                this.queuedTasks.decrementAndGet();
+                ranTask = true;
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        this.drainCount++;
+        this.totalDrainNanos += elapsed;
+        this.maxDrainNanos = Math.max(this.maxDrainNanos, elapsed);
+        if (this.queuedTasks.get() > 0)
+            this.overBudgetCount++;
+    }
+
+    /**
+     * @return true if something is calling {@link #drain(long)} every tick
+     */
+    public boolean isDraining() {
+        return this.draining;
+    }
+
+    /**
+     * @param draining true if something is calling {@link #drain(long)} every tick, false if tasks should be
+     *                 scheduled individually instead
+     */
+    public void setDraining(boolean draining) {
+        this.draining = draining;
+    }
+
+    /**
+     * @return the number of tasks waiting to run
+     */
+    public int getQueuedTasks() {
+        return this.queuedTasks.get();
+    }
+
+    /**
+     * @return the most tasks that were waiting to run at the start of a tick
+     */
+    public int getPeakQueuedTasks() {
+        return this.peakQueuedTasks;
+    }
+
+    /**
+     * @return the number of ticks that had tasks to run
+     */
+    public long getDrainCount() {
+        return this.drainCount;
+    }
+
+    /**
+     * @return the number of ticks that had tasks left over to carry to the next tick
+     */
+    public long getOverBudgetCount() {
+        return this.overBudgetCount;
+    }
+
+    /**
+     * @return the average time spent running tasks in a tick, in nanoseconds
+     */
+    public long getAverageDrainNanos() {
+        return this.drainCount == 0 ? 0 : this.totalDrainNanos / this.drainCount;
+    }
+
+    /**
+     * @return the longest time spent running tasks in a tick, in nanoseconds
+     */
+    public long getMaxDrainNanos() {
+        return this.maxDrainNanos;
+    }
+
+    /**
+     * Resets the collected timings
+     */
+    public void resetTimings() {
+        this.drainCount = 0;
+        this.totalDrainNanos = 0;
+        this.maxDrainNanos = 0;
+        this.overBudgetCount = 0;
+        this.peakQueuedTasks = 0;
+    }
+
+    /**
+     * The lanes tasks can be queued in, earlier lanes are run first
+     */
+    public enum Priority {
+        /**
+         * Removing merged entities and splitting stacks, other tasks may depend on these having happened.
+         * Never held back by the time budget.
+         */
+        HIGH,
+        /**
+         * Everything else
+         */
+        NORMAL,
+        /**
+         * Cosmetic updates such as nametags, which are fine to run a few ticks late
+         */
+        LOW
+    }
+
+}
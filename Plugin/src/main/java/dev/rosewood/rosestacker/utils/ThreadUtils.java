@@ -9,14 +9,30 @@ public final class ThreadUtils {
 
     private static final AtomicInteger activeThreads = new AtomicInteger(0);
     private static final RosePlugin rosePlugin = RoseStacker.getInstance();
+    private static final SyncTaskQueue syncTaskQueue = new SyncTaskQueue();
 
     private ThreadUtils() {
 
     }
 
     public static void runSync(Runnable runnable) {
-        if (checkEnabled())
-            Bukkit.getScheduler().runTask(rosePlugin, wrap(runnable));
+        runSync(runnable, SyncTaskQueue.Priority.NORMAL);
+    }
+
+    /**
+     * Runs a task on the main thread. While the sync task queue is being drained, the task is queued in the given lane
+     * and runs in a later tick once there is time for it, otherwise it is scheduled for the next tick.
+     *
+     * @param runnable The task to run
+     * @param priority The priority of the task
+     */
+    public static void runSync(Runnable runnable, SyncTaskQueue.Priority priority) {
+        if (!checkEnabled())
+            return;
+
+        Runnable task = wrap(runnable);
+        if (!syncTaskQueue.isDraining() || !syncTaskQueue.submit(task, priority))
+            Bukkit.getScheduler().runTask(rosePlugin, task);
     }
 
     public static void runSyncDelayed(Runnable runnable, long delay) {
@@ -38,6 +54,10 @@ public final class ThreadUtils {
         return activeThreads.get();
     }
 
+    public static SyncTaskQueue getSyncTaskQueue() {
+        return syncTaskQueue;
+    }
+
     private static Runnable wrap(Runnable runnable) {
         return () -> {
             activeThreads.incrementAndGet();
@@ -19,6 +19,7 @@ public class VersionUtils {
     public static final Particle SMOKE;
     public static final Enchantment INFINITY;
     public static final Enchantment SWEEPING_EDGE;
+    public static final Enchantment LOOTING;
     public static final ItemFlag HIDE_ADDITIONAL_TOOLTIP;
     static {
         if (NMSUtil.getVersionNumber() > 20 || (NMSUtil.getVersionNumber() == 20 && NMSUtil.getMinorVersionNumber() >= 5)) {
@@ -30,6 +31,7 @@ public class VersionUtils {
             DUST = Particle.DUST;
             INFINITY = Registry.ENCHANTMENT.get(NamespacedKey.minecraft("infinity"));
             SWEEPING_EDGE = Registry.ENCHANTMENT.get(NamespacedKey.minecraft("sweeping_edge"));
+            LOOTING = Registry.ENCHANTMENT.get(NamespacedKey.minecraft("looting"));
             HIDE_ADDITIONAL_TOOLTIP = ItemFlag.HIDE_ADDITIONAL_TOOLTIP;
         } else {
             ITEM = EntityType.valueOf("DROPPED_ITEM");
@@ -40,6 +42,7 @@ public class VersionUtils {
             DUST = Particle.valueOf("REDSTONE");
             INFINITY = findEnchantmentLegacy("infinity", "arrow_infinite");
             SWEEPING_EDGE = findEnchantmentLegacy("sweeping", "sweeping_edge");
+            LOOTING = findEnchantmentLegacy("looting", "loot_bonus_mobs");
             HIDE_ADDITIONAL_TOOLTIP = ItemFlag.valueOf("HIDE_POTION_EFFECTS");
         }
     }